@@ -0,0 +1,305 @@
+package controller;
+
+import gamefiles.Difficulty;
+import gamefiles.characters.Player;
+import gamefiles.rooms.BossRoom;
+import gamefiles.rooms.Room;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Plays many complete games with a BotPlayer at once, for balancing difficulty.
+ *
+ * Every run gets its own Session (and so its own RoomLayout, player, inventory and
+ * GameLoop), bound to whichever fork-join worker plays it, and is ticked as fast as
+ * the CPU allows. The per-run Results are merged into one Summary.
+ */
+public class BatchSimulation {
+    /** Give up on a run after this long (20 minutes of game time). */
+    public static final int DEFAULT_MAX_TICKS = 20 * 60 * GameLoop.TICKS_PER_SECOND;
+
+    private Difficulty difficulty;
+    private int weaponIndex;
+    private int maxTicks;
+    private long seed = System.nanoTime();
+
+    /**
+     * @param difficulty  the difficulty every run is played on
+     * @param weaponIndex the starting weapon every run uses
+     * @param maxTicks    how many ticks a run may take before it counts as timed out
+     */
+    public BatchSimulation(Difficulty difficulty, int weaponIndex, int maxTicks) {
+        this.difficulty = difficulty;
+        this.weaponIndex = weaponIndex;
+        this.maxTicks = maxTicks;
+    }
+
+    /**
+     * Run number i is played with seed + i, so a batch with the same seed plays the
+     * same dungeons again.
+     * @param seed the seed of the first run
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Play runs on the common fork-join pool.
+     * @param runs how many games to play
+     * @return the merged statistics
+     */
+    public Summary run(int runs) {
+        return run(ForkJoinPool.commonPool(), runs);
+    }
+
+    /**
+     * Play runs on the given pool.
+     * @param pool the pool to play them on
+     * @param runs how many games to play
+     * @return the merged statistics
+     */
+    public Summary run(ForkJoinPool pool, int runs) {
+        return pool.invoke(new Runs(0, runs));
+    }
+
+    /**
+     * Play one game to the end in a fresh session on the calling thread.
+     * @param runSeed the seed for the game
+     * @return what happened
+     */
+    public Result playOne(long runSeed) {
+        Result result = new Result();
+        result.seed = runSeed;
+        new Session().run(() -> {
+            Controller.startHeadlessGame("bot", weaponIndex, difficulty, runSeed);
+            Player player = Controller.getPlayer();
+            new BotPlayer(player).start();
+            new GameSystem("damage recorder", GameLoop.ROOM - 1) {
+                private double lastHealth = player.getCurrentHealth();
+
+                @Override
+                public void handle(long tick) {
+                    Room room = Controller.getCurrentRoom();
+                    if (room instanceof BossRoom && result.ticksToBoss < 0) {
+                        result.ticksToBoss = result.ticks;
+                    }
+                    double health = player.getCurrentHealth();
+                    if (health < lastHealth) {
+                        result.damageByRoomType.merge(room.getClass().getSimpleName(),
+                                lastHealth - health, Double::sum);
+                    }
+                    lastHealth = health;
+                }
+            }.start();
+
+            while (!Controller.isGameOver() && result.ticks < maxTicks) {
+                GameLoop.tick();
+                result.ticks++;
+            }
+            GameLoop.stopEverything();
+
+            result.won = Controller.isGameWon();
+            result.died = Controller.isGameOver() && !result.won;
+            result.coins = player.getCoins();
+        });
+        return result;
+    }
+
+    private class Runs extends RecursiveTask<Summary> {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        Runs(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Summary compute() {
+            if (to - from <= 1) {
+                Summary summary = new Summary();
+                if (to > from) {
+                    summary.add(playOne(seed + from));
+                }
+                return summary;
+            }
+            int middle = (from + to) >>> 1;
+            Runs left = new Runs(from, middle);
+            left.fork();
+            Summary right = new Runs(middle, to).compute();
+            return right.merge(left.join());
+        }
+    }
+
+    /**
+     * What happened in one run.
+     */
+    public static class Result {
+        private long seed;
+        private boolean won;
+        private boolean died;
+        private long ticks;
+        private long ticksToBoss = -1;
+        private int coins;
+        private Map<String, Double> damageByRoomType = new TreeMap<>();
+
+        /**
+         * @return the seed that replays this run
+         */
+        public long getSeed() {
+            return seed;
+        }
+
+        public boolean isWon() {
+            return won;
+        }
+
+        public boolean isDied() {
+            return died;
+        }
+
+        public long getTicks() {
+            return ticks;
+        }
+
+        /**
+         * @return ticks until the player first walked into the boss room, or -1 if never
+         */
+        public long getTicksToBoss() {
+            return ticksToBoss;
+        }
+
+        public int getCoins() {
+            return coins;
+        }
+
+        public Map<String, Double> getDamageByRoomType() {
+            return damageByRoomType;
+        }
+    }
+
+    /**
+     * Statistics over many runs.
+     */
+    public static class Summary {
+        private int runs;
+        private int wins;
+        private int deaths;
+        private int reachedBoss;
+        private long totalTicksToBoss;
+        private long totalCoins;
+        private Map<String, Double> damageByRoomType = new TreeMap<>();
+
+        void add(Result result) {
+            runs++;
+            if (result.won) {
+                wins++;
+            }
+            if (result.died) {
+                deaths++;
+            }
+            if (result.ticksToBoss >= 0) {
+                reachedBoss++;
+                totalTicksToBoss += result.ticksToBoss;
+            }
+            totalCoins += result.coins;
+            result.damageByRoomType.forEach((room, damage) ->
+                    damageByRoomType.merge(room, damage, Double::sum));
+        }
+
+        Summary merge(Summary other) {
+            runs += other.runs;
+            wins += other.wins;
+            deaths += other.deaths;
+            reachedBoss += other.reachedBoss;
+            totalTicksToBoss += other.totalTicksToBoss;
+            totalCoins += other.totalCoins;
+            other.damageByRoomType.forEach((room, damage) ->
+                    damageByRoomType.merge(room, damage, Double::sum));
+            return this;
+        }
+
+        public int getRuns() {
+            return runs;
+        }
+
+        public int getWins() {
+            return wins;
+        }
+
+        public int getDeaths() {
+            return deaths;
+        }
+
+        /**
+         * @return runs that neither won nor died before the tick limit
+         */
+        public int getTimeouts() {
+            return runs - wins - deaths;
+        }
+
+        public double getWinRate() {
+            return runs == 0 ? 0 : (double) wins / runs;
+        }
+
+        /**
+         * @return average seconds of game time to reach the boss room, over the runs that did
+         */
+        public double getAverageSecondsToBoss() {
+            return reachedBoss == 0 ? 0
+                    : (double) totalTicksToBoss / reachedBoss / GameLoop.TICKS_PER_SECOND;
+        }
+
+        public double getAverageCoins() {
+            return runs == 0 ? 0 : (double) totalCoins / runs;
+        }
+
+        /**
+         * @return average damage taken per run in each kind of room
+         */
+        public Map<String, Double> getAverageDamageByRoomType() {
+            Map<String, Double> average = new TreeMap<>();
+            damageByRoomType.forEach((room, damage) -> average.put(room, damage / runs));
+            return average;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder();
+            text.append(String.format("runs: %d, wins: %d, deaths: %d, timeouts: %d%n",
+                    runs, wins, deaths, getTimeouts()));
+            text.append(String.format("win rate: %.1f%%%n", getWinRate() * 100));
+            text.append(String.format("time to boss: %.1fs%n", getAverageSecondsToBoss()));
+            text.append(String.format("coins at end: %.1f%n", getAverageCoins()));
+            getAverageDamageByRoomType().forEach((room, damage) ->
+                    text.append(String.format("damage in %s: %.1f%n", room, damage)));
+            return text.toString();
+        }
+    }
+
+    /**
+     * Usage: BatchSimulation [runs] [EASY|MEDIUM|HARD] [weapon index] [seed]
+     * @param args command line arguments
+     */
+    public static void main(String[] args) {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        Difficulty difficulty = args.length > 1 ? Difficulty.valueOf(args[1]) : Difficulty.MEDIUM;
+        int weaponIndex = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+
+        long start = System.nanoTime();
+        BatchSimulation simulation = new BatchSimulation(difficulty, weaponIndex, DEFAULT_MAX_TICKS);
+        if (args.length > 3) {
+            simulation.setSeed(Long.parseLong(args[3]));
+        }
+        System.out.println("seed: " + simulation.seed);
+        Summary summary = simulation.run(runs);
+        System.out.print(summary);
+        System.out.printf("took %.1fs on %d threads%n", (System.nanoTime() - start) / 1e9,
+                ForkJoinPool.commonPool().getParallelism());
+    }
+}
@@ -0,0 +1,108 @@
+package controller;
+
+import gamefiles.Door;
+import gamefiles.characters.Monster;
+import gamefiles.characters.Player;
+import gamefiles.characters.Trap;
+import gamefiles.rooms.Room;
+import gamefiles.weapons.Bow;
+
+import java.util.ArrayList;
+
+/**
+ * A simple scripted player for simulations. Runs first in every tick and presses keys
+ * on the Player like a person would: walk up to the nearest monster and attack it,
+ * and once the room is clear walk to the door on the shortest way to the boss room.
+ */
+public class BotPlayer extends GameSystem {
+    private static final double DEAD_ZONE = 10;
+    private static final double BOW_ALIGNMENT = 40;
+
+    private Player player;
+    private Room pathRoom;
+    private Door nextDoor;
+
+    public BotPlayer(Player player) {
+        super("bot", GameLoop.INPUT);
+        this.player = player;
+    }
+
+    @Override
+    public void handle(long tick) {
+        Room room = Controller.getCurrentRoom();
+        Monster target = nearestMonster();
+        double targetX;
+        double targetY;
+        boolean attack = false;
+        if (target != null) {
+            targetX = target.getPositionX() + target.getWidth() / 2;
+            targetY = target.getPositionY() + target.getHeight() / 2;
+            double offsetY = targetY - (player.getPositionY() + player.getHeight() / 2);
+            attack = player.intersects(target)
+                    || (player.getWeapon() instanceof Bow
+                        && Math.abs(offsetY) < BOW_ALIGNMENT);
+        } else {
+            if (room != pathRoom) {
+                pathRoom = room;
+                nextDoor = doorTowardsBoss(room);
+            }
+            if (nextDoor == null) {
+                releaseAll();
+                return;
+            }
+            targetX = nextDoor.getPositionX() + Door.getWidth() / 2;
+            targetY = nextDoor.getPositionY() + Door.getHeight() / 2;
+        }
+
+        double offsetX = targetX - (player.getPositionX() + player.getWidth() / 2);
+        double offsetY = targetY - (player.getPositionY() + player.getHeight() / 2);
+        hold("A", offsetX < -DEAD_ZONE);
+        hold("D", offsetX > DEAD_ZONE);
+        hold("W", offsetY < -DEAD_ZONE);
+        hold("S", offsetY > DEAD_ZONE);
+        hold("J", attack);
+    }
+
+    private Monster nearestMonster() {
+        Monster nearest = null;
+        double best = Double.MAX_VALUE;
+        for (Monster monster : GameLoop.getMonsters()) {
+            // Traps go away by themselves.
+            if (monster instanceof Trap || monster.isDead()) {
+                continue;
+            }
+            double dx = monster.getPositionX() - player.getPositionX();
+            double dy = monster.getPositionY() - player.getPositionY();
+            double distance = dx * dx + dy * dy;
+            if (distance < best) {
+                best = distance;
+                nearest = monster;
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * @param start the room to start from
+     * @return the door in start to go through next, or null if already there
+     */
+    private static Door doorTowardsBoss(Room start) {
+        int side = Controller.getRoomLayout().getSideTowardBoss(start.getRow(), start.getColumn());
+        return side >= 0 ? start.getDoors()[side] : null;
+    }
+
+    private void hold(String key, boolean down) {
+        if (down) {
+            player.pressKey(key);
+        } else {
+            player.releaseKey(key);
+        }
+    }
+
+    private void releaseAll() {
+        ArrayList<String> input = player.getInput();
+        while (!input.isEmpty()) {
+            player.releaseKey(input.get(input.size() - 1));
+        }
+    }
+}
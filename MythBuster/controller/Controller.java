@@ -4,6 +4,8 @@ import gamefiles.Difficulty;
 import gamefiles.Door;
 import gamefiles.Inventory;
 import gamefiles.StartingWeapon;
+import gamefiles.TreasureChest;
+import gamefiles.characters.Monster;
 import gamefiles.characters.Player;
 import gamefiles.characters.Trap;
 import gamefiles.items.ItemDatabase;
@@ -13,34 +15,63 @@ import gamefiles.rooms.Room;
 import gamefiles.rooms.RoomLayout;
 import gamefiles.weapons.Bow;
 import gamefiles.weapons.WeaponDatabase;
-import javafx.animation.AnimationTimer;
 import javafx.application.Application;
 import javafx.event.ActionEvent;
-import javafx.scene.Group;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
-import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
 import sounds.BackgroundMusic;
 import views.*;
 
-import java.util.ArrayList;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 
 
 public class Controller extends Application {
     private static Stage mainWindow;
     private static final int W = 1200;
     private static final int H = 800;
-    private static Player player;
-    private static GameScreen gameScreen;
-    private static RoomLayout roomLayout;
-    private static Room currentRoom;
-    private static Room prevRoom;
-    private static AnimationTimer controllerLoop;
+    private static String recordPath;
+    private static InputReplay replay;
+    private static int dungeonRows = RoomLayout.DEFAULT_ROWS;
+    private static int dungeonColumns = RoomLayout.DEFAULT_COLUMNS;
+    private static int residentDistance;
+    private static String savePath = System.getProperty("user.dir") + "/MythBuster/saves/quicksave.sav";
+    private static String journalPath;
 
-    private static int gameDifficulty;
+    /**
+     * One game's worth of controller state, one per Session.
+     */
+    private static final class State {
+        private Player player;
+        private GameScreen gameScreen;
+        private RoomLayout roomLayout;
+        private Room currentRoom;
+        private Room prevRoom;
+        private GameSystem controllerLoop;
+        private GameView view = GameView.HEADLESS;
+        private boolean gameOver;
+        private boolean gameWon;
+        private boolean roomCleared;
+
+        private int gameDifficulty;
+        private Difficulty difficultyEntry;
+        private int startingWeaponIndex;
+
+        private int timeElapsed;
+
+        private SaveJournal journal;
+    }
 
-    private static int timeElapsed;
+    private static State state() {
+        return Session.current().get(State.class, State::new);
+    }
 
     public void start(Stage primaryStage) throws Exception {
         mainWindow = primaryStage;
@@ -49,9 +80,83 @@ public class Controller extends Application {
         ItemDatabase.initialize();
         BackgroundMusic.initialize();
         BackgroundMusic.getBackgroundTrack().play();
-        initWelcomeScreen();
+
+        List<String> args = getParameters().getRaw();
+        // The window keeps the rooms next door going, unless --offscreen says otherwise.
+        OffscreenSimulation.setInterval(OffscreenSimulation.DEFAULT_INTERVAL);
+        for (int i = 0; i + 1 < args.size(); i++) {
+            if (args.get(i).equals("--record")) {
+                recordPath = args.get(i + 1);
+            } else if (args.get(i).equals("--replay")) {
+                replay = InputReplay.read(args.get(i + 1));
+            } else if (args.get(i).equals("--renderer")) {
+                GameScreen.setRenderMode(GameScreen.RenderMode.valueOf(args.get(i + 1).toUpperCase()));
+            } else if (args.get(i).equals("--dungeon")) {
+                String[] size = args.get(i + 1).split("x");
+                setDungeonSize(Integer.parseInt(size[0]), Integer.parseInt(size[1]));
+            } else if (args.get(i).equals("--resident")) {
+                setResidentDistance(Integer.parseInt(args.get(i + 1)));
+            } else if (args.get(i).equals("--offscreen")) {
+                OffscreenSimulation.setInterval(Integer.parseInt(args.get(i + 1)));
+                OffscreenSimulation.setWholeDungeon(args.contains("--world"));
+            } else if (args.get(i).equals("--save")) {
+                savePath = args.get(i + 1);
+            } else if (args.get(i).equals("--journal")) {
+                journalPath = args.get(i + 1);
+            }
+        }
+        if (args.contains("--threaded")) {
+            GameLoop.setThreaded(true);
+            GameScreen.setRenderMode(GameScreen.RenderMode.CANVAS);
+        }
+        if (journalPath == null && replay == null) {
+            // Out of the working directory, which is the source tree when run from there.
+            journalPath = System.getProperty("user.home") + "/.mythbuster/autosave.journal";
+        }
+        if (replay != null) {
+            setDifficulty(replay.getDifficulty());
+            initializeStats(replay.getName(), replay.getWeaponIndex(), replay.getDifficulty());
+            goToStartingRoom(replay.getSeed());
+            replay.begin();
+            mainWindow.show();
+        } else if (args.contains("--recover") && journalPath != null && new File(journalPath).exists()) {
+            try {
+                SaveJournal.recover(journalPath);
+                GameLoop.start();
+                mainWindow.show();
+            } catch (IOException e) {
+                System.out.println("Could not recover the game: " + e.getMessage());
+                initWelcomeScreen();
+            }
+        } else {
+            initWelcomeScreen();
+        }
     }
 
+    @Override
+    public void stop() {
+        InputRecorder.stop();
+    }
+
+    /**
+     * Usage: Controller [--record log file] [--replay log file] [--renderer nodes|canvas]
+     *                   [--dungeon rowsxcolumns] [--resident doors] [--save file]
+     *                   [--journal file] [--recover] [--threaded]
+     *
+     * --record writes every game played into the file; --replay plays a recorded
+     * game back in real time instead of starting a new one. --renderer canvas draws
+     * the room onto one Canvas instead of a node per thing in it. --dungeon sets how
+     * many rooms new games have, 6x6 by default; replay with the size it was recorded at.
+     * --resident keeps only the rooms that many doors from the player in memory, and
+     * writes the rest out to a scratch file; for very big dungeons. --save sets the
+     * file F5 saves the game to and F9 loads it from, saves/quicksave.sav by default.
+     * --journal sets the file every game is autosaved to as the player goes through
+     * doors, ~/.mythbuster/autosave.journal by default; replays aren't autosaved. --recover
+     * carries on from that file, after a crash, instead of starting a new game.
+     * --threaded runs the game on a thread of its own, so a slow tick never holds up
+     * drawing or input; the room is drawn onto a Canvas then, whatever --renderer says.
+     * @param args command line arguments
+     */
     public static void main(String[] args) {
         launch(args);
     }
@@ -100,192 +205,418 @@ public class Controller extends Application {
     }
 
     public static void goToInventory() {
-        Scene scene = Inventory.getScene();
+        InventoryScreen inventoryScreen = new InventoryScreen(W, H);
+        Scene scene = inventoryScreen.getScene();
         mainWindow.setScene(scene);
     }
 
     public static void goToStartingRoom() {
-        //Initialize starting room.
-        roomLayout = new RoomLayout();
-        gameScreen = new GameScreen(W, H, player, roomLayout);
-        currentRoom = roomLayout.getRoom(roomLayout.getStartRoomRow(),
-                roomLayout.getStartRoomColumn());
-        gameScreen.updateBoard(currentRoom);
-        player.moveAbsolute(W / 2, H / 2);
-        Scene scene = gameScreen.getScene();
+        goToStartingRoom(ThreadLocalRandom.current().nextLong());
+    }
+
+    private static void goToStartingRoom(long seed) {
+        State state = state();
+        state.gameScreen = new GameScreen(W, H, state.player);
+        state.view = viewOf(state.gameScreen);
+        startGame(seed);
+        if (recordPath != null && replay == null) {
+            try {
+                InputRecorder.start(new FileOutputStream(recordPath), seed,
+                        state.player.getName(), state.startingWeaponIndex, state.difficultyEntry);
+            } catch (FileNotFoundException e) {
+                System.out.println("Could not record input: " + e.getMessage());
+            }
+        }
+        state.roomLayout.toFile();
+        Scene scene = state.gameScreen.getScene();
         mainWindow.setScene(scene);
+        BackgroundMusic.getBackgroundTrack().play();
+        GameLoop.start();
+    }
+
+    /**
+     * @param screen the screen the game is shown on
+     * @return what the game tells about itself; on the FX thread, wherever it runs
+     */
+    private static GameView viewOf(GameScreen screen) {
+        return GameLoop.isThreaded() ? new FxThreadView(screen) : screen;
+    }
+
+    /**
+     * Start a game with no window and a random seed.
+     *
+     * @param nameEntry           the name of the hero
+     * @param startingWeaponIndex the index of the starting weapon
+     * @param difficultyEntry     the difficulty
+     */
+    public static void startHeadlessGame(String nameEntry,
+                                         int startingWeaponIndex, Difficulty difficultyEntry) {
+        startHeadlessGame(nameEntry, startingWeaponIndex, difficultyEntry,
+                ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Start a game with no window. Nothing in here needs the JavaFX toolkit, so
+     * simulations and tests can drive it by calling GameLoop.tick() themselves.
+     * The same seed builds the same dungeon.
+     *
+     * @param nameEntry           the name of the hero
+     * @param startingWeaponIndex the index of the starting weapon
+     * @param difficultyEntry     the difficulty
+     * @param seed                the seed for GameRandom
+     */
+    public static void startHeadlessGame(String nameEntry, int startingWeaponIndex,
+                                         Difficulty difficultyEntry, long seed) {
+        State state = state();
+        state.view = GameView.HEADLESS;
+        state.gameScreen = null;
+        WeaponDatabase.initialize();
+        ItemDatabase.initialize();
+        setDifficulty(difficultyEntry);
+        initializeStats(nameEntry, startingWeaponIndex, difficultyEntry);
+        startGame(seed);
+    }
+
+    private static void startGame(long seed) {
+        GameRandom.reseed(seed);
+        RoomLayout layout = new RoomLayout(dungeonRows, dungeonColumns);
+        //Initialize starting room.
+        state().player.moveAbsolute(W / 2, H / 2);
+        startGame(layout, layout.getRoom(layout.getStartRoomRow(), layout.getStartRoomColumn()));
+    }
+
+    /**
+     * Start playing in a dungeon, from one of its rooms.
+     * @param layout the dungeon
+     * @param room   the room the player is in
+     */
+    private static void startGame(RoomLayout layout, Room room) {
+        State state = state();
+        listen();
+        state.gameOver = false;
+        state.gameWon = false;
+        state.prevRoom = null;
+        if (state.roomLayout != null && state.roomLayout != layout) {
+            state.roomLayout.close();
+        }
+        state.roomLayout = layout;
+        state.roomLayout.setResidentDistance(residentDistance);
+        state.currentRoom = room;
+        enterRoom(state.currentRoom);
         playGame();
+
+        if (state.journal != null) {
+            state.journal.close();
+            state.journal = null;
+        }
+        if (journalPath != null) {
+            state.journal = new SaveJournal(journalPath);
+            state.journal.snapshot();
+        }
     }
 
-    public static void playGame() {
-        //Take in inputs
-        ArrayList<String> input = new ArrayList<>();
-
-        //Keyboard shortcuts related to the overall game go here
-        gameScreen.getScene().setOnKeyReleased(
-            e -> {
-                String code = e.getCode().toString();
-                input.add(code);
-            });
+    /**
+     * Put the room the player just left, and where they are now, in the autosave.
+     */
+    private static void autosave() {
+        State state = state();
+        if (state.journal != null) {
+            state.journal.roomLeft(state.prevRoom);
+        }
+    }
 
-        BackgroundMusic.getBackgroundTrack().play();
+    /**
+     * The game is over: there is nothing to carry on from after a crash.
+     */
+    private static void discardAutosave() {
+        State state = state();
+        if (state.journal != null) {
+            state.journal.discard();
+            state.journal = null;
+        }
+    }
 
+    /**
+     * Save the game to the quick save file, in the background.
+     */
+    public static void quickSave() {
+        SaveGame.save(savePath);
+        state().view.showMessage("Game saved", 200, 60);
+    }
 
+    /**
+     * Carry on from the quick save file, if there is one.
+     */
+    public static void quickLoad() {
+        try {
+            SaveGame.load(savePath);
+            state().view.showMessage("Game loaded", 200, 60);
+        } catch (IOException e) {
+            System.out.println("Could not load the game: " + e.getMessage());
+        }
+    }
 
-        controllerLoop = new AnimationTimer() {
-            public void handle(long currentNanoTime) {
-                timeElapsed += 1;
-                // game logic
-                VBox displays = gameScreen.getDisplays();
-
-                // if there are no monsters, unlock the doors
-                if (GameLoop.getMonsters().size() == 0) {
-                    currentRoom.unlockDoors();
-                    if (currentRoom instanceof ChallengeRoom) {
-                        ChallengeRoom c = (ChallengeRoom)(currentRoom);
-                        if (c.getStatus() == 1) {
-                            currentRoom.giveBonusRewards();
-                            c.setStatus(2);
-                        }
-                    }
+    /**
+     * Write the game down for SaveGame: the seed and settings it was started with, the
+     * dungeon, and then the player's progress as writeProgress() puts it. Only copies,
+     * so call it on the game's thread.
+     * @param out where to write
+     * @throws IOException if writing fails
+     */
+    static void writeGame(DataOutput out) throws IOException {
+        State state = state();
+        OffscreenSimulation.settle();
+        out.writeLong(GameRandom.getSeed());
+        out.writeByte(state.difficultyEntry.ordinal());
+        out.writeByte(state.startingWeaponIndex);
+        state.roomLayout.write(out);
+        writeProgress(out);
+    }
 
-                }
+    /**
+     * Write down everything about the game that isn't in its rooms: the tick it is on,
+     * the stats the end screens show, the player, the room the player is in, and the
+     * inventory.
+     * @param out where to write
+     * @throws IOException if writing fails
+     */
+    static void writeProgress(DataOutput out) throws IOException {
+        State state = state();
+        out.writeLong(GameLoop.getTick());
+        out.writeInt(state.timeElapsed);
+        out.writeInt(Monster.getMonstersKilled());
+        out.writeInt(TreasureChest.getChestsOpened());
+        out.writeInt(ChallengeRoom.getChallengesAttempted());
+        out.writeInt(Player.getGreedyIndex());
+        out.writeInt(Player.getPotionsUsed());
+        state.player.write(out);
+        out.writeShort(state.currentRoom.getRow());
+        out.writeShort(state.currentRoom.getColumn());
+        Inventory.write(out);
+    }
+
+    /**
+     * Stop the game being played and carry on with one written by writeGame(). The
+     * whole save is read before anything is stopped, so a bad one changes nothing.
+     * Game numbers start over from the saved seed; rooms not yet visited are the same
+     * as they would have been.
+     * @param in where to read from
+     * @throws IOException if reading fails
+     */
+    static void readGame(DataInput in) throws IOException {
+        long seed = in.readLong();
+        int difficultyIndex = in.readByte();
+        if (difficultyIndex < 0 || difficultyIndex >= Difficulty.values().length) {
+            throw new IOException("Not a difficulty: " + difficultyIndex);
+        }
+        Difficulty difficulty = Difficulty.values()[difficultyIndex];
+        int weaponIndex = in.readByte();
+        RoomLayout layout = RoomLayout.read(in);
+        long tick = in.readLong();
+        int timeElapsed = in.readInt();
+        int monstersKilled = in.readInt();
+        int chestsOpened = in.readInt();
+        int challengesAttempted = in.readInt();
+        int greedyIndex = in.readInt();
+        int potionsUsed = in.readInt();
+        Player player = Player.read(in);
+        int row = in.readShort();
+        int column = in.readShort();
+        if (row < 0 || column < 0 || row >= layout.getRows() || column >= layout.getColumns()) {
+            throw new IOException("No room at " + row + "," + column);
+        }
+        Inventory.read(in);
+
+        State state = state();
+        InputRecorder.stop();
+        GameLoop.stopEverything();
+        if (state.player != null && state.player.getWeapon() instanceof Bow) {
+            ((Bow) state.player.getWeapon()).clearArrows();
+        }
+        EventBus.clear();
+        // The rooms' ticks are on the save's clock, so carry on from where it was.
+        GameLoop.setTick(tick);
+        setDifficulty(difficulty);
+        state.difficultyEntry = difficulty;
+        state.startingWeaponIndex = weaponIndex;
+        state.timeElapsed = timeElapsed;
+        Monster.setMonstersKilled(monstersKilled);
+        TreasureChest.setChestsOpened(chestsOpened);
+        ChallengeRoom.setChallengesAttempted(challengesAttempted);
+        Player.setGreedyIndex(greedyIndex);
+        Player.setPotionsUsed(potionsUsed);
+        state.player = player;
+        if (mainWindow != null) {
+            state.gameScreen = new GameScreen(W, H, player);
+            state.view = viewOf(state.gameScreen);
+        }
+
+        GameRandom.reseed(seed);
+        Room room = layout.getRoom(row, column);
+        startGame(layout, room);
+        if (mainWindow != null) {
+            goToGameScreen();
+        }
+    }
+
+    /**
+     * Make a room the one being simulated: it is filled if this is the first visit, or
+     * caught up on what happened in it while the player was away, its monsters and drops
+     * become the ones GameLoop updates, and the view is told to show it.
+     * @param room the room the player is now in
+     */
+    private static void enterRoom(Room room) {
+        State state = state();
+        if (state.prevRoom != null) {
+            state.prevRoom.exit();
+        }
+        OffscreenSimulation.roomChanged(state.prevRoom, room);
+        room.populate();
+        room.enter();
+
+        GameLoop.getMonsters().clear();
+        GameLoop.getMonsters().addAll(room.getMonsters());
+        GameLoop.getProjectiles().clear();
+        GameLoop.getFlowField().clear();
+
+        GameLoop.getDrops().clear();
+        GameLoop.getDrops().addAll(room.getDrops());
+
+        state.view.roomEntered(room);
+        state.roomCleared = false;
+        EventBus.publish(EventBus.ROOM_ENTERED, room);
+        if (room instanceof BossRoom) {
+            EventBus.publish(EventBus.BOSS_ENGAGED, room);
+        }
+        state.roomLayout.streamAround(room);
+    }
 
-                if(currentRoom instanceof BossRoom && !BackgroundMusic.isBossPlaying()) {
-                    BackgroundMusic.getBossTrack().play();
-                    BackgroundMusic.getBackgroundTrack().pause();
-                    BackgroundMusic.setBossPlaying(true);
-                } else if (!(currentRoom instanceof BossRoom) && BackgroundMusic.isBossPlaying()) {
-                    BackgroundMusic.getBossTrack().pause();
-                    BackgroundMusic.getBackgroundTrack().play();
-                    BackgroundMusic.setBossPlaying(false);
+    /**
+     * React to the room emptying out, instead of checking for it every tick.
+     */
+    private static void listen() {
+        Trap.listen();
+        EventBus.subscribe(EventBus.MONSTER_DIED, monster -> checkRoomCleared());
+        EventBus.subscribe(EventBus.PROJECTILES_CLEARED, projectiles -> checkRoomCleared());
+        EventBus.subscribe(EventBus.ROOM_ENTERED, room -> checkRoomCleared());
+        EventBus.subscribe(EventBus.ROOM_CLEARED, room -> {
+            room.unlockDoors();
+            if (room instanceof ChallengeRoom) {
+                ChallengeRoom c = (ChallengeRoom) room;
+                if (c.getStatus() == 1) {
+                    room.giveBonusRewards();
+                    c.setStatus(2);
                 }
+            }
+        });
+    }
+
+    private static void checkRoomCleared() {
+        State state = state();
+        // if there are no monsters (or fireballs), the room is clear
+        if (GameLoop.getMonsters().size() > 0 || GameLoop.getProjectiles().size() > 0) {
+            state.roomCleared = false;
+        } else if (!state.roomCleared) {
+            state.roomCleared = true;
+            EventBus.publish(EventBus.ROOM_CLEARED, state.currentRoom);
+        }
+    }
+
+    public static void playGame() {
+        State state = state();
+        state.controllerLoop = new GameSystem("controller", GameLoop.ROOM) {
+            public void handle(long tick) {
+                state.timeElapsed += 1;
+                // game logic
 
                 //If there is a left door and we are at it.
-                if (currentRoom.getLeftDoor() != null
-                            && player.intersects(currentRoom.getLeftDoor())
-                            && !currentRoom.getLeftDoor().isLocked()) {
-                    displays.getChildren().remove(currentRoom.getRoomInfo());
-                    prevRoom = currentRoom;
-                    currentRoom =
-                            roomLayout.getRoom(currentRoom.getRow(), currentRoom.getColumn() - 1);
-
-                    for (int i = 0; i < 4; i++) {
-                        Door d = currentRoom.getDoors()[i];
-                        if (d != null) {
-                            Room r = d.getDestination();
-                            if ((r.getColumn() == prevRoom.getColumn())
-                                && (r.getRow() == prevRoom.getRow())) {
-                                d.unlock();
-                            }
-                        }
-                    }
-                    gameScreen.updateBoard(currentRoom);
-                    player.moveAbsolute(W - 200, H / 2 - player.getHeight() / 2);
+                if (state.currentRoom.getLeftDoor() != null
+                            && state.player.intersects(state.currentRoom.getLeftDoor())
+                            && !state.currentRoom.getLeftDoor().isLocked()) {
+                    goThroughDoor(state.currentRoom.getRow(), state.currentRoom.getColumn() - 1,
+                            RoomLayout.RIGHT, W - 200, H / 2 - state.player.getHeight() / 2);
                 }
 
                 //If there is a right door and we are at it.
-                if (currentRoom.getRightDoor() != null
-                            && player.intersects(currentRoom.getRightDoor())
-                            && !currentRoom.getRightDoor().isLocked()) {
-                    displays.getChildren().remove(currentRoom.getRoomInfo());
-                    prevRoom = currentRoom;
-                    currentRoom =
-                            roomLayout.getRoom(currentRoom.getRow(), currentRoom.getColumn() + 1);
-
-                    for (int i = 0; i < 4; i++) {
-                        Door d = currentRoom.getDoors()[i];
-                        if (d != null) {
-                            Room r = d.getDestination();
-                            if ((r.getColumn() == prevRoom.getColumn())
-                                && (r.getRow() == prevRoom.getRow())) {
-                                d.unlock();
-                            }
-                        }
-                    }
-                    gameScreen.updateBoard(currentRoom);
-                    player.moveAbsolute(100, H / 2 - player.getHeight() / 2);
+                if (state.currentRoom.getRightDoor() != null
+                            && state.player.intersects(state.currentRoom.getRightDoor())
+                            && !state.currentRoom.getRightDoor().isLocked()) {
+                    goThroughDoor(state.currentRoom.getRow(), state.currentRoom.getColumn() + 1,
+                            RoomLayout.LEFT, 100, H / 2 - state.player.getHeight() / 2);
                 }
 
                 //If there is a top door and we are at it.
-                if (currentRoom.getTopDoor() != null
-                            && player.intersects(currentRoom.getTopDoor())
-                            && !currentRoom.getTopDoor().isLocked()) {
-                    displays.getChildren().remove(currentRoom.getRoomInfo());
-                    prevRoom = currentRoom;
-                    currentRoom =
-                            roomLayout.getRoom(currentRoom.getRow() - 1, currentRoom.getColumn());
-
-                    for (int i = 0; i < 4; i++) {
-                        Door d = currentRoom.getDoors()[i];
-                        if (d != null) {
-                            Room r = d.getDestination();
-                            if ((r.getColumn() == prevRoom.getColumn())
-                                && (r.getRow() == prevRoom.getRow())) {
-                                d.unlock();
-                            }
-                        }
-                    }
-                    gameScreen.updateBoard(currentRoom);
-                    player.moveAbsolute(W / 2 - player.getWidth() / 2, H - 200);
+                if (state.currentRoom.getTopDoor() != null
+                            && state.player.intersects(state.currentRoom.getTopDoor())
+                            && !state.currentRoom.getTopDoor().isLocked()) {
+                    goThroughDoor(state.currentRoom.getRow() - 1, state.currentRoom.getColumn(),
+                            RoomLayout.BOTTOM, W / 2 - state.player.getWidth() / 2, H - 200);
                 }
 
                 //If there is a bottom door and we are at it.
-                if (currentRoom.getBottomDoor() != null
-                            && player.intersects(currentRoom.getBottomDoor())
-                            && !currentRoom.getBottomDoor().isLocked()) {
-                    displays.getChildren().remove(currentRoom.getRoomInfo());
-                    prevRoom = currentRoom;
-                    currentRoom =
-                            roomLayout.getRoom(currentRoom.getRow() + 1, currentRoom.getColumn());
-
-                    for (int i = 0; i < 4; i++) {
-                        Door d = currentRoom.getDoors()[i];
-                        if (d != null) {
-                            Room r = d.getDestination();
-                            if ((r.getColumn() == prevRoom.getColumn())
-                                && (r.getRow() == prevRoom.getRow())) {
-                                d.unlock();
-                            }
-                        }
-                    }
-                    gameScreen.updateBoard(currentRoom);
-                    player.moveAbsolute(W / 2 - player.getWidth()/ 2, 100);
+                if (state.currentRoom.getBottomDoor() != null
+                            && state.player.intersects(state.currentRoom.getBottomDoor())
+                            && !state.currentRoom.getBottomDoor().isLocked()) {
+                    goThroughDoor(state.currentRoom.getRow() + 1, state.currentRoom.getColumn(),
+                            RoomLayout.TOP, W / 2 - state.player.getWidth() / 2, 100);
                 }
 
             }
         };
 
-        GameLoop.initializeAllAnimationTimers(player, gameScreen);
-        if (player.getWeapon() instanceof Bow) {
-            GameLoop.startAllAnimationTimers(player.getPlayerLogicTimer(),
-                ((Bow) player.getWeapon()).getArrowTimer(),
-                    player.getPlayerHpUpdateTimer(),
-                    GameLoop.getMonsterLoop(), controllerLoop, player.getItemLoop(),
-                    GameLoop.getDroppedLoop());
+        GameLoop.initializeAllSystems(state.player);
+        if (state.player.getWeapon() instanceof Bow) {
+            GameLoop.startAllSystems(state.player.getPlayerLogic(),
+                ((Bow) state.player.getWeapon()).getArrowSystem(),
+                    GameLoop.getMonsterLoop(), GameLoop.getProjectileLoop(), state.controllerLoop,
+                    state.player.getItemLoop(), GameLoop.getDroppedLoop(),
+                    OffscreenSimulation.getSystem());
         } else {
-            GameLoop.startAllAnimationTimers(player.getPlayerLogicTimer(),
-                    player.getPlayerHpUpdateTimer(),
-                    GameLoop.getMonsterLoop(), controllerLoop, player.getItemLoop(),
-                    GameLoop.getDroppedLoop());
+            GameLoop.startAllSystems(state.player.getPlayerLogic(),
+                    GameLoop.getMonsterLoop(), GameLoop.getProjectileLoop(), state.controllerLoop,
+                    state.player.getItemLoop(), GameLoop.getDroppedLoop(),
+                    OffscreenSimulation.getSystem());
         }
     }
 
+    /**
+     * Take the player through a door: into the room at row, column, through the door
+     * back to the room they left (which opens), and to where that door is.
+     * @param row    the next room's row
+     * @param column the next room's column
+     * @param back   the side of the next room the door back is on
+     * @param x      where the player comes in
+     * @param y      where the player comes in
+     */
+    private static void goThroughDoor(int row, int column, int back, double x, double y) {
+        State state = state();
+        state.prevRoom = state.currentRoom;
+        state.currentRoom = state.roomLayout.getRoom(row, column);
+
+        // By side, so the rooms behind the other doors aren't made just to compare them.
+        Door door = state.currentRoom.getDoors()[back];
+        if (door != null) {
+            door.unlock();
+        }
+        enterRoom(state.currentRoom);
+        state.player.moveAbsolute(x, y);
+        autosave();
+    }
+
     public static void goToGameScreen() {
-        Scene scene = gameScreen.getScene();
+        State state = state();
+        Scene scene = state.gameScreen.getScene();
         mainWindow.setScene(scene);
     }
 
     public static void goToWinScreen() {
-        if (controllerLoop != null && player != null) {
-            GameLoop.stopAllAnimationTimers(player.getPlayerLogicTimer(),
-            player.getPlayerHpUpdateTimer(), GameLoop.getMonsterLoop(),
-            controllerLoop, player.getItemLoop(), GameLoop.getDroppedLoop());
-        }
+        State state = state();
+        // Stopping first waits for the simulation thread, if any, to let go of the game.
+        GameLoop.stop();
+        GameLoop.stopEverything();
         BackgroundMusic.getBossTrack().stop();
         BackgroundMusic.setBossPlaying(false);
         BackgroundMusic.getBackgroundTrack().stop();
-        Trap.setTrapCount(0);
 
         for (int i = 0; i < 5; i++) {
             Inventory.removeFromHotbar(i);
@@ -294,7 +625,7 @@ public class Controller extends Application {
         Inventory.clearInventory();
 
         WinScreen winScreen = new WinScreen(W, H);
-        player = new Player(0, null);
+        state.player = new Player(0, null);
 
 
         Scene scene = winScreen.getScene();
@@ -303,19 +634,20 @@ public class Controller extends Application {
     }
 
     public static void goToBossRoom() {
+        State state = state();
         //Go to boss room(used for testing).
-        currentRoom = roomLayout.getRoom(roomLayout.getBossRoomRow(),
-                                        roomLayout.getBossRoomColumn());
-        gameScreen.updateBoard(currentRoom);
-        player.moveAbsolute(W / 2, H / 2);
+        state.prevRoom = state.currentRoom;
+        state.currentRoom = state.roomLayout.getRoom(state.roomLayout.getBossRoomRow(),
+                                        state.roomLayout.getBossRoomColumn());
+        enterRoom(state.currentRoom);
+        state.player.moveAbsolute(W / 2, H / 2);
+        autosave();
     }
 
     public static void goToDeathScreen() {
-        GameLoop.stopAllAnimationTimers(player.getPlayerLogicTimer(),
-                player.getPlayerHpUpdateTimer(), GameLoop.getMonsterLoop(),
-                controllerLoop, player.getItemLoop(),
-                GameLoop.getDroppedLoop());
-        Trap.setTrapCount(0);
+        State state = state();
+        GameLoop.stop();
+        GameLoop.stopEverything();
 
         for (int i = 0; i < 5; i++) {
             Inventory.removeFromHotbar(i);
@@ -324,23 +656,49 @@ public class Controller extends Application {
         Inventory.clearInventory();
 
         DeathScreen deathScreen = new DeathScreen(W, H);
-        player = new Player(0, null);
+        state.player = new Player(0, null);
 
         Scene scene = deathScreen.getScene();
         mainWindow.setScene(scene);
         mainWindow.show();
     }
 
+    /**
+     * The player's health ran out. Stops the game and lets the view react.
+     */
+    public static void playerDied() {
+        State state = state();
+        state.gameOver = true;
+        GameLoop.stopEverything();
+        InputRecorder.stop();
+        discardAutosave();
+        state.view.playerDied();
+    }
+
+    /**
+     * The boss finished dying. Stops the game and lets the view react.
+     */
+    public static void bossDefeated() {
+        State state = state();
+        state.gameOver = true;
+        state.gameWon = true;
+        GameLoop.stopEverything();
+        InputRecorder.stop();
+        discardAutosave();
+        state.view.bossDefeated();
+    }
+
     private static void setDifficulty(Difficulty difficulty) {
+        State state = state();
         switch (difficulty) {
         case EASY:
-            gameDifficulty = 0;
+            state.gameDifficulty = 0;
             break;
         case MEDIUM:
-            gameDifficulty = 1;
+            state.gameDifficulty = 1;
             break;
         case HARD:
-            gameDifficulty = 2;
+            state.gameDifficulty = 2;
             break;
         default:
             break;
@@ -348,7 +706,7 @@ public class Controller extends Application {
     }
 
     public static int getDifficulty() {
-        return gameDifficulty;
+        return state().gameDifficulty;
     }
 
     /**
@@ -360,17 +718,22 @@ public class Controller extends Application {
      */
     private static void initializeStats(String nameEntry,
                                  int startingWeaponIndex, Difficulty difficultyEntry) {
-        player = new Player(0, WeaponDatabase.getWeapon(startingWeaponIndex));
-        player.setName(nameEntry);
+        State state = state();
+        // A new game: nothing from the last one should hear about this one.
+        EventBus.clear();
+        state.difficultyEntry = difficultyEntry;
+        state.startingWeaponIndex = startingWeaponIndex;
+        state.player = new Player(0, WeaponDatabase.getWeapon(startingWeaponIndex));
+        state.player.setName(nameEntry);
         switch (difficultyEntry) {
         case EASY:
-            player.setCoins(30);
+            state.player.setCoins(30);
             break;
         case MEDIUM:
-            player.setCoins(20);
+            state.player.setCoins(20);
             break;
         case HARD:
-            player.setCoins(10);
+            state.player.setCoins(10);
             break;
         default: // unnecessary because of type safety
         }
@@ -390,15 +753,71 @@ public class Controller extends Application {
      * @return the player object
      */
     public static Player getPlayer() {
-        return player;
+        return state().player;
     }
 
     public static views.GameScreen getGameScreen() {
-        return gameScreen;
+        return state().gameScreen;
+    }
+
+    /**
+     * @return where the game sends messages, sounds and screen changes; HEADLESS without a window
+     */
+    public static GameView getView() {
+        return state().view;
+    }
+
+    public static boolean isGameOver() {
+        return state().gameOver;
+    }
+
+    public static boolean isGameWon() {
+        return state().gameWon;
     }
 
     public void setCurrentRoom(Room currentRoom) {
-        this.currentRoom = currentRoom;
+        state().currentRoom = currentRoom;
+    }
+
+    /**
+     * Set how many rooms the dungeons of new games have.
+     * @param rows    rows of rooms, 3 to RoomLayout.MAX_SIZE
+     * @param columns columns of rooms, 3 to RoomLayout.MAX_SIZE
+     */
+    public static void setDungeonSize(int rows, int columns) {
+        if (rows < 3 || columns < 3 || rows > RoomLayout.MAX_SIZE || columns > RoomLayout.MAX_SIZE) {
+            throw new IllegalArgumentException("A dungeon is 3x3 to " + RoomLayout.MAX_SIZE + "x"
+                    + RoomLayout.MAX_SIZE + " rooms, not " + rows + "x" + columns);
+        }
+        dungeonRows = rows;
+        dungeonColumns = columns;
+    }
+
+    /**
+     * Keep only the rooms within some number of doors of the player in memory in new
+     * games, writing the rest out until the player comes back.
+     * @param doors how many doors away rooms stay in memory; 0, the default, keeps all
+     */
+    public static void setResidentDistance(int doors) {
+        if (doors < 0) {
+            throw new IllegalArgumentException("Resident distance can't be negative: " + doors);
+        }
+        residentDistance = doors;
+    }
+
+    /**
+     * Autosave new games to a journal as the player goes through doors.
+     * @param path the journal's file, or null not to autosave
+     */
+    public static void setJournalPath(String path) {
+        journalPath = path;
+    }
+
+    /**
+     * @return the current session's autosave journal, or null if it isn't autosaving
+     */
+    public static SaveJournal getJournal() {
+        return state().journal;
     }
 
     /**
@@ -406,28 +825,28 @@ public class Controller extends Application {
      * @return the current room
      */
     public static Room getCurrentRoom() {
-        return currentRoom;
+        return state().currentRoom;
     }
     /**
      * @return the first room
      */
     public GameScreen getRoomOne() {
-        return gameScreen;
+        return state().gameScreen;
     }
 
-    public RoomLayout getRoomLayout() {
-        return roomLayout;
+    public static RoomLayout getRoomLayout() {
+        return state().roomLayout;
     }
 
-    public static AnimationTimer getControllerLoop() {
-        return controllerLoop;
+    public static GameSystem getControllerLoop() {
+        return state().controllerLoop;
     }
 
     public static int getTimeElapsed() {
-        return timeElapsed;
+        return state().timeElapsed;
     }
     public static void setTimeElapsed(int amount) {
-        timeElapsed = amount;
+        state().timeElapsed = amount;
     }
 
     /**
@@ -0,0 +1,125 @@
+package controller;
+
+import gamefiles.EntityStore;
+import gamefiles.characters.Monster;
+import gamefiles.characters.Player;
+import gamefiles.rooms.Room;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.function.Consumer;
+
+/**
+ * Tells whoever is interested when something in the game changes, so they don't have
+ * to check for it every tick.
+ *
+ * Each Topic carries one type of subject, which is the thing that changed (the player
+ * whose health changed, the monster that died, ...). Publishing hands that object
+ * straight to the listeners, in the order they subscribed, on the publishing thread,
+ * so it allocates nothing. A listener may publish in turn.
+ *
+ * Subscriptions belong to the current Session. They last for one game: starting a new
+ * game clears them.
+ */
+public class EventBus {
+    private static int topics;
+
+    /**
+     * A kind of event, and the type of the thing it is about.
+     * @param <T> the subject's type
+     */
+    public static final class Topic<T> {
+        private final String name;
+        private final int id;
+
+        public Topic(String name) {
+            this.name = name;
+            synchronized (EventBus.class) {
+                this.id = topics++;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    /** The player's current or maximum health changed. */
+    public static final Topic<Player> HEALTH_CHANGED = new Topic<>("health changed");
+    /** A monster died and left the simulation; it may still linger in its room. */
+    public static final Topic<Monster> MONSTER_DIED = new Topic<>("monster died");
+    /** The last projectile in the room went away. */
+    public static final Topic<EntityStore> PROJECTILES_CLEARED = new Topic<>("projectiles cleared");
+    /** The player walked into a room, after the view was told. */
+    public static final Topic<Room> ROOM_ENTERED = new Topic<>("room entered");
+    /** The room the player is in has no monsters or projectiles left. */
+    public static final Topic<Room> ROOM_CLEARED = new Topic<>("room cleared");
+    /** The player walked into the boss's room. */
+    public static final Topic<Room> BOSS_ENGAGED = new Topic<>("boss engaged");
+
+    private static final class State {
+        /** By topic id; null for topics nobody has subscribed to. */
+        private final ArrayList<ArrayList<Consumer<?>>> listeners = new ArrayList<>();
+    }
+
+    private static State state() {
+        return Session.current().get(State.class, State::new);
+    }
+
+    private EventBus() { }
+
+    /**
+     * @param topic    what to listen for
+     * @param listener called with the subject of every event on the topic
+     * @param <T>      the subject's type
+     */
+    public static <T> void subscribe(Topic<T> topic, Consumer<? super T> listener) {
+        State state = state();
+        while (topic.id >= state.listeners.size()) {
+            state.listeners.add(null);
+        }
+        if (state.listeners.get(topic.id) == null) {
+            state.listeners.set(topic.id, new ArrayList<>());
+        }
+        state.listeners.get(topic.id).add(listener);
+    }
+
+    /**
+     * @param topic    the topic it was subscribed to
+     * @param listener the listener to remove
+     * @param <T>      the subject's type
+     */
+    public static <T> void unsubscribe(Topic<T> topic, Consumer<? super T> listener) {
+        State state = state();
+        if (topic.id < state.listeners.size() && state.listeners.get(topic.id) != null) {
+            state.listeners.get(topic.id).remove(listener);
+        }
+    }
+
+    /**
+     * Tell every listener on a topic, right now.
+     * @param topic   what happened
+     * @param subject what it happened to
+     * @param <T>     the subject's type
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> void publish(Topic<T> topic, T subject) {
+        State state = state();
+        if (topic.id >= state.listeners.size() || state.listeners.get(topic.id) == null) {
+            return;
+        }
+        ArrayList<Consumer<?>> listeners = state.listeners.get(topic.id);
+        for (int i = 0; i < listeners.size(); i++) {
+            // subscribe() only ever adds a Consumer<? super T> to topic T's list.
+            ((Consumer<T>) listeners.get(i)).accept(subject);
+        }
+    }
+
+    /**
+     * Drop every subscription in this session.
+     */
+    public static void clear() {
+        Collections.fill(state().listeners, null);
+    }
+}
@@ -0,0 +1,537 @@
+package controller;
+
+import gamefiles.Door;
+import gamefiles.Droppable;
+import gamefiles.EntityStore;
+import gamefiles.Heart;
+import gamefiles.Inventory;
+import gamefiles.TreasureChest;
+import gamefiles.characters.Fireball;
+import gamefiles.characters.Monster;
+import gamefiles.characters.Player;
+import gamefiles.items.Consumable;
+import gamefiles.items.Item;
+import gamefiles.rooms.Room;
+import gamefiles.rooms.TreasureRoom;
+import gamefiles.weapons.Bow;
+import gamefiles.weapons.Weapon;
+import javafx.scene.image.Image;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Everything the screen draws of one tick: where the player, monsters, fireballs,
+ * arrows and drops were, how they looked, which doors were locked and which chests
+ * still shut, and the hearts, hotbar, coins and effects.
+ *
+ * A FrameBuffer keeps three of these and fills them over and over, so the arrays grow
+ * to fit the busiest room and are then reused; nothing is made per frame. Only the
+ * thread running the game fills one, with capture(), and a frame is only read once it
+ * has been handed over whole. Monsters, weapons and items are kept by reference, for
+ * telling them apart and for their looks; their changing values are all copied.
+ */
+public class Frame {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long tick = -1;
+    private Room room;
+    private int coins;
+
+    private double playerX;
+    private double playerY;
+    private double playerWidth;
+    private double playerHeight;
+    private int playerDirection;
+    private int attackCount;
+    private boolean invisible;
+    private Weapon weapon;
+
+    private int monsterCount;
+    private Monster[] monsters = new Monster[INITIAL_CAPACITY];
+    private double[] monsterX = new double[INITIAL_CAPACITY];
+    private double[] monsterY = new double[INITIAL_CAPACITY];
+    private double[] monsterWidth = new double[INITIAL_CAPACITY];
+    private double[] monsterHeight = new double[INITIAL_CAPACITY];
+    private double[] monsterHealth = new double[INITIAL_CAPACITY];
+    private int[] facing = new int[INITIAL_CAPACITY];
+    private int[] poseCounts = new int[INITIAL_CAPACITY];
+    private Monster.Pose[] poses = new Monster.Pose[INITIAL_CAPACITY];
+
+    private int fireballCount;
+    private double[] fireballs = new double[INITIAL_CAPACITY * 4];
+
+    private int arrowCount;
+    private double[] arrows = new double[INITIAL_CAPACITY * 4];
+    private int[] arrowDirections = new int[INITIAL_CAPACITY];
+
+    private String[] doorSprites = new String[4];
+    private double[] doors = new double[4 * 3];
+
+    private int chestCount;
+    private TreasureChest[] chests = new TreasureChest[INITIAL_CAPACITY];
+
+    private int dropCount;
+    private Image[] dropImages = new Image[INITIAL_CAPACITY];
+    private double[] drops = new double[INITIAL_CAPACITY * 4];
+
+    private int heartCount;
+    private boolean[] fullHearts = new boolean[INITIAL_CAPACITY];
+    private double[] hearts = new double[INITIAL_CAPACITY * 2];
+
+    private Item[] hotbar = new Item[Inventory.getmaxHotbarSize()];
+
+    private int effectCount;
+    private Consumable[] effects = new Consumable[INITIAL_CAPACITY];
+    private long[] effectTicks = new long[INITIAL_CAPACITY];
+
+    private final Set<Monster> shown = Collections.newSetFromMap(new IdentityHashMap<>());
+    /** Drops' images by sprite path, so capturing one doesn't go through ImageCache. */
+    private final HashMap<String, Image> dropLooks = new HashMap<>();
+
+    /**
+     * Copy in the current session's game as it is between two ticks.
+     */
+    void capture() {
+        tick = GameLoop.getTick();
+        room = Controller.getCurrentRoom();
+        Player player = Controller.getPlayer();
+        coins = player.getCoins();
+        playerX = player.getPositionX();
+        playerY = player.getPositionY();
+        playerWidth = player.getWidth();
+        playerHeight = player.getHeight();
+        playerDirection = player.getDirection();
+        attackCount = player.getAttackCount();
+        invisible = player.isInvisible();
+        weapon = player.getWeapon();
+        captureRoom();
+        captureMonsters();
+        captureFireballs();
+        captureArrows();
+        captureDrops();
+        captureHud(player);
+    }
+
+    private void captureRoom() {
+        Door[] roomDoors = room.getDoors();
+        for (int side = 0; side < doorSprites.length; side++) {
+            Door door = roomDoors[side];
+            doorSprites[side] = door != null ? door.getSpritePath() : null;
+            if (door != null) {
+                doors[side * 3] = door.getPositionX();
+                doors[side * 3 + 1] = door.getPositionY();
+                doors[side * 3 + 2] = door.getRotation().getValue();
+            }
+        }
+
+        int n = 0;
+        if (room instanceof TreasureRoom) {
+            ArrayList<TreasureChest> roomChests = ((TreasureRoom) room).getTreasureChests();
+            if (roomChests.size() > chests.length) {
+                chests = Arrays.copyOf(chests, Math.max(roomChests.size(), chests.length * 2));
+            }
+            for (int i = 0; i < roomChests.size(); i++) {
+                if (!roomChests.get(i).isOpened()) {
+                    chests[n++] = roomChests.get(i);
+                }
+            }
+        }
+        Arrays.fill(chests, n, Math.max(n, chestCount), null);
+        chestCount = n;
+    }
+
+    private void captureMonsters() {
+        // Dying bosses stay in the room after leaving the loop; spawned ones may only be
+        // in the loop.
+        shown.clear();
+        shown.addAll(room.getMonsters());
+        shown.addAll(GameLoop.getMonsters());
+        if (shown.size() > monsters.length) {
+            int capacity = Math.max(shown.size(), monsters.length * 2);
+            monsters = Arrays.copyOf(monsters, capacity);
+            monsterX = new double[capacity];
+            monsterY = new double[capacity];
+            monsterWidth = new double[capacity];
+            monsterHeight = new double[capacity];
+            monsterHealth = new double[capacity];
+            facing = new int[capacity];
+            poseCounts = new int[capacity];
+            poses = new Monster.Pose[capacity];
+        }
+        int i = 0;
+        for (Monster monster : shown) {
+            monsters[i] = monster;
+            monsterX[i] = monster.getPositionX();
+            monsterY[i] = monster.getPositionY();
+            monsterWidth[i] = monster.getWidth();
+            monsterHeight[i] = monster.getHeight();
+            monsterHealth[i] = Math.max(0, monster.getCurrentHealth() / monster.getMaxHealth());
+            facing[i] = monster.getFacing();
+            poseCounts[i] = monster.getPoseCount();
+            poses[i] = monster.getPose();
+            i++;
+        }
+        // Don't hold on to monsters that have gone.
+        Arrays.fill(monsters, i, Math.max(i, monsterCount), null);
+        monsterCount = i;
+        shown.clear();
+    }
+
+    private void captureFireballs() {
+        EntityStore projectiles = GameLoop.getProjectiles();
+        if (projectiles.size() * 4 > fireballs.length) {
+            fireballs = new double[Math.max(projectiles.size() * 4, fireballs.length * 2)];
+        }
+        int n = 0;
+        for (int i = 0; i < projectiles.size(); i++) {
+            if (projectiles.getKind(i) != Fireball.KIND) {
+                continue;
+            }
+            fireballs[n * 4] = projectiles.getX(i);
+            fireballs[n * 4 + 1] = projectiles.getY(i);
+            fireballs[n * 4 + 2] = projectiles.getWidth(i);
+            fireballs[n * 4 + 3] = projectiles.getHeight(i);
+            n++;
+        }
+        fireballCount = n;
+    }
+
+    private void captureArrows() {
+        arrowCount = 0;
+        if (!(weapon instanceof Bow)) {
+            return;
+        }
+        Bow bow = (Bow) weapon;
+        if (bow.getArrowCount() > arrowDirections.length) {
+            int capacity = Math.max(bow.getArrowCount(), arrowDirections.length * 2);
+            arrows = new double[capacity * 4];
+            arrowDirections = new int[capacity];
+        }
+        for (int i = 0; i < bow.getArrowCount(); i++) {
+            Bow.Arrow arrow = bow.getArrow(i);
+            arrows[i * 4] = arrow.getX();
+            arrows[i * 4 + 1] = arrow.getY();
+            arrows[i * 4 + 2] = arrow.getWidth();
+            arrows[i * 4 + 3] = arrow.getHeight();
+            arrowDirections[i] = arrow.getDirection();
+        }
+        arrowCount = bow.getArrowCount();
+    }
+
+    private void captureDrops() {
+        ArrayList<Droppable> roomDrops = room.getDrops();
+        if (roomDrops.size() > dropImages.length) {
+            int capacity = Math.max(roomDrops.size(), dropImages.length * 2);
+            dropImages = Arrays.copyOf(dropImages, capacity);
+            drops = new double[capacity * 4];
+        }
+        for (int i = 0; i < roomDrops.size(); i++) {
+            Droppable drop = roomDrops.get(i);
+            String sprite = drop.getItem().getSpritePath();
+            Image image = dropLooks.get(sprite);
+            if (image == null) {
+                image = drop.getItem().getImage();
+                dropLooks.put(sprite, image);
+            }
+            dropImages[i] = image;
+            drops[i * 4] = drop.getMinX();
+            drops[i * 4 + 1] = drop.getMinY();
+            drops[i * 4 + 2] = drop.getMaxX() - drop.getMinX();
+            drops[i * 4 + 3] = drop.getMaxY() - drop.getMinY();
+        }
+        Arrays.fill(dropImages, roomDrops.size(), Math.max(dropCount, roomDrops.size()), null);
+        dropCount = roomDrops.size();
+    }
+
+    private void captureHud(Player player) {
+        ArrayList<Heart> playerHearts = player.getHearts();
+        if (playerHearts.size() > fullHearts.length) {
+            int capacity = Math.max(playerHearts.size(), fullHearts.length * 2);
+            fullHearts = new boolean[capacity];
+            hearts = new double[capacity * 2];
+        }
+        for (int i = 0; i < playerHearts.size(); i++) {
+            Heart heart = playerHearts.get(i);
+            fullHearts[i] = heart.isFull();
+            hearts[i * 2] = heart.getWidth();
+            hearts[i * 2 + 1] = heart.getHeight();
+        }
+        heartCount = playerHearts.size();
+
+        Item[] items = Inventory.getHotbar();
+        Arrays.fill(hotbar, null);
+        System.arraycopy(items, 0, hotbar, 0, Math.min(items.length, hotbar.length));
+
+        ArrayList<Consumable> active = player.getActiveConsumables();
+        if (active.size() > effects.length) {
+            int capacity = Math.max(active.size(), effects.length * 2);
+            effects = Arrays.copyOf(effects, capacity);
+            effectTicks = new long[capacity];
+        }
+        for (int i = 0; i < active.size(); i++) {
+            effects[i] = active.get(i);
+            effectTicks[i] = active.get(i).getDurationTimer();
+        }
+        Arrays.fill(effects, active.size(), Math.max(effectCount, active.size()), null);
+        effectCount = active.size();
+    }
+
+    /**
+     * @return how many ticks had run, as GameLoop.getTick() said, or -1 before the
+     *         first frame is captured
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * @return the room the player was in, or null before the first frame is captured
+     */
+    public Room getRoom() {
+        return room;
+    }
+
+    public int getCoins() {
+        return coins;
+    }
+
+    public double getPlayerX() {
+        return playerX;
+    }
+
+    public double getPlayerY() {
+        return playerY;
+    }
+
+    public double getPlayerWidth() {
+        return playerWidth;
+    }
+
+    public double getPlayerHeight() {
+        return playerHeight;
+    }
+
+    public int getPlayerDirection() {
+        return playerDirection;
+    }
+
+    /**
+     * @return how many attacks the player had started, as Player.getAttackCount() says
+     */
+    public int getAttackCount() {
+        return attackCount;
+    }
+
+    public boolean isInvisible() {
+        return invisible;
+    }
+
+    public Weapon getWeapon() {
+        return weapon;
+    }
+
+    /**
+     * @return how many monsters were in the room, alive or still dying
+     */
+    public int getMonsterCount() {
+        return monsterCount;
+    }
+
+    /**
+     * @param i which monster
+     * @return the monster, for telling it apart from the others and for its looks
+     */
+    public Monster getMonster(int i) {
+        return monsters[i];
+    }
+
+    public double getMonsterX(int i) {
+        return monsterX[i];
+    }
+
+    public double getMonsterY(int i) {
+        return monsterY[i];
+    }
+
+    public double getMonsterWidth(int i) {
+        return monsterWidth[i];
+    }
+
+    public double getMonsterHeight(int i) {
+        return monsterHeight[i];
+    }
+
+    /**
+     * @param i which monster
+     * @return how much of its health it had left, from 0 to 1
+     */
+    public double getMonsterHealth(int i) {
+        return monsterHealth[i];
+    }
+
+    public int getFacing(int i) {
+        return facing[i];
+    }
+
+    /**
+     * @param i which monster
+     * @return how many poses it had struck, as Monster.getPoseCount() says
+     */
+    public int getPoseCount(int i) {
+        return poseCounts[i];
+    }
+
+    public Monster.Pose getPose(int i) {
+        return poses[i];
+    }
+
+    public int getFireballCount() {
+        return fireballCount;
+    }
+
+    public double getFireballX(int i) {
+        return fireballs[i * 4];
+    }
+
+    public double getFireballY(int i) {
+        return fireballs[i * 4 + 1];
+    }
+
+    public double getFireballWidth(int i) {
+        return fireballs[i * 4 + 2];
+    }
+
+    public double getFireballHeight(int i) {
+        return fireballs[i * 4 + 3];
+    }
+
+    /**
+     * @return how many of the player's arrows were flying; none unless they had the bow
+     */
+    public int getArrowCount() {
+        return arrowCount;
+    }
+
+    public double getArrowX(int i) {
+        return arrows[i * 4];
+    }
+
+    public double getArrowY(int i) {
+        return arrows[i * 4 + 1];
+    }
+
+    public double getArrowWidth(int i) {
+        return arrows[i * 4 + 2];
+    }
+
+    public double getArrowHeight(int i) {
+        return arrows[i * 4 + 3];
+    }
+
+    public int getArrowDirection(int i) {
+        return arrowDirections[i];
+    }
+
+    /**
+     * @param side which side of the room, as RoomLayout numbers them
+     * @return the sprite of the door on that side, or null if there is none
+     */
+    public String getDoorSprite(int side) {
+        return doorSprites[side];
+    }
+
+    public double getDoorX(int side) {
+        return doors[side * 3];
+    }
+
+    public double getDoorY(int side) {
+        return doors[side * 3 + 1];
+    }
+
+    public double getDoorRotation(int side) {
+        return doors[side * 3 + 2];
+    }
+
+    /**
+     * @return how many chests were still shut; opened ones aren't in the frame
+     */
+    public int getChestCount() {
+        return chestCount;
+    }
+
+    public TreasureChest getChest(int i) {
+        return chests[i];
+    }
+
+    public int getDropCount() {
+        return dropCount;
+    }
+
+    public Image getDropImage(int i) {
+        return dropImages[i];
+    }
+
+    public double getDropX(int i) {
+        return drops[i * 4];
+    }
+
+    public double getDropY(int i) {
+        return drops[i * 4 + 1];
+    }
+
+    public double getDropWidth(int i) {
+        return drops[i * 4 + 2];
+    }
+
+    public double getDropHeight(int i) {
+        return drops[i * 4 + 3];
+    }
+
+    public int getHeartCount() {
+        return heartCount;
+    }
+
+    public boolean isHeartFull(int i) {
+        return fullHearts[i];
+    }
+
+    public double getHeartWidth(int i) {
+        return hearts[i * 2];
+    }
+
+    public double getHeartHeight(int i) {
+        return hearts[i * 2 + 1];
+    }
+
+    /**
+     * @param slot a hotbar slot, below Inventory.getmaxHotbarSize()
+     * @return the item in it, or null
+     */
+    public Item getHotbarItem(int slot) {
+        return hotbar[slot];
+    }
+
+    /**
+     * @return how many consumables were in effect
+     */
+    public int getEffectCount() {
+        return effectCount;
+    }
+
+    public Consumable getEffect(int i) {
+        return effects[i];
+    }
+
+    /**
+     * @param i which consumable
+     * @return how many ticks it had left
+     */
+    public long getEffectTicks(int i) {
+        return effectTicks[i];
+    }
+}
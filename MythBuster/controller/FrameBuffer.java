@@ -0,0 +1,46 @@
+package controller;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands whole Frames from the thread running the game to the thread drawing it, with
+ * neither ever waiting on the other.
+ *
+ * There are three frames. The writer fills the back one, then swaps it for the spare
+ * in one atomic step, marking the spare as fresh; the reader swaps its front frame for
+ * the spare whenever a fresh one is there. So the writer always has a frame nobody is
+ * reading, the reader keeps the one it has until it asks again, and a frame the reader
+ * never got to is simply written over. The game can tick faster or slower than the
+ * screen draws and neither holds the other up.
+ *
+ * One thread may publish() and one other may call latest().
+ */
+public class FrameBuffer {
+    private static final int INDEX = 3;
+    private static final int FRESH = 4;
+
+    private final Frame[] frames = {new Frame(), new Frame(), new Frame()};
+    private final AtomicInteger spare = new AtomicInteger(1);
+    private int back = 2;
+    private int front;
+
+    /**
+     * Capture the current session's game into the back frame and hand it over. Call it
+     * on the game's thread, between ticks.
+     */
+    public void publish() {
+        frames[back].capture();
+        back = spare.getAndSet(back | FRESH) & INDEX;
+    }
+
+    /**
+     * @return the last frame published, or an empty one with a tick of -1 if none has
+     *         been; it stays as it is until the next call
+     */
+    public Frame latest() {
+        if ((spare.get() & FRESH) != 0) {
+            front = spare.getAndSet(front) & INDEX;
+        }
+        return frames[front];
+    }
+}
@@ -0,0 +1,63 @@
+package controller;
+
+import gamefiles.rooms.Room;
+import javafx.application.Platform;
+
+/**
+ * The view of a game running on GameLoop's simulation thread: everything the game
+ * tells the screen is passed on to the FX thread, without waiting for it, since only
+ * that thread may touch the scene graph. render() is only ever called there already.
+ */
+class FxThreadView implements GameView {
+    private final GameView view;
+
+    /**
+     * @param view the view to pass everything on to
+     */
+    FxThreadView(GameView view) {
+        this.view = view;
+    }
+
+    private static void later(Runnable event) {
+        if (Platform.isFxApplicationThread()) {
+            event.run();
+        } else {
+            Platform.runLater(event);
+        }
+    }
+
+    @Override
+    public void render() {
+        view.render();
+    }
+
+    @Override
+    public void roomEntered(Room room) {
+        later(() -> view.roomEntered(room));
+    }
+
+    @Override
+    public void showMessage(String text, double layoutY, int ticks) {
+        later(() -> view.showMessage(text, layoutY, ticks));
+    }
+
+    @Override
+    public void playSound(String soundPath) {
+        later(() -> view.playSound(soundPath));
+    }
+
+    @Override
+    public void openInventory() {
+        later(view::openInventory);
+    }
+
+    @Override
+    public void playerDied() {
+        later(view::playerDied);
+    }
+
+    @Override
+    public void bossDefeated() {
+        later(view::bossDefeated);
+    }
+}
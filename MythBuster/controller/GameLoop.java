@@ -1,30 +1,113 @@
 package controller;
 
 import gamefiles.Droppable;
+import gamefiles.EntityStore;
+import gamefiles.FlowField;
+import gamefiles.SpatialGrid;
+import gamefiles.SpatialList;
+import gamefiles.characters.Fireball;
 import gamefiles.characters.Player;
+import gamefiles.characters.Steering;
 import gamefiles.characters.Monster;
 import gamefiles.weapons.Bow;
-import gamefiles.weapons.Weapon;
 import gamefiles.weapons.WeaponDatabase;
 import javafx.animation.AnimationTimer;
-import views.GameScreen;
 
 import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Single fixed-timestep scheduler for all game logic.
+ *
+ * One AnimationTimer feeds real time into an accumulator and runs whole ticks of
+ * TICK_NANOS each. Every tick runs the registered GameSystems in ascending order,
+ * so the order within a frame is explicit instead of depending on which timer the
+ * pulse happened to call first. Pausing, single-stepping and speeding up the game
+ * all happen here.
+ *
+ * tick() never touches the scene graph, so a game can be driven without the JavaFX
+ * toolkit by calling it directly. Only start() needs the toolkit; it also asks the
+ * view to render once per pulse after the ticks have run.
+ *
+ * The registered systems, tick count and simulated monsters, projectiles and drops
+ * belong to the current Session, so each thread running its own session ticks its
+ * own game.
+ *
+ * With setThreaded(), start() runs the ticks on a "simulation" thread of their own
+ * instead, at the same fixed rate, and the AnimationTimer only draws; a slow tick then
+ * holds up the next tick but never a frame or a key press. After its ticks the
+ * simulation thread publishes a Frame of everything on screen through getFrames(),
+ * and the view draws whichever frame is newest. Input goes the other way: the screen
+ * post()s it to a lock-free queue that the next tick runs first. Anything else the
+ * FX thread does to the game, like saving or loading, it does through between().
+ */
 public class GameLoop {
+    /** Game logic is written in 60ths of a second ("60 ticks = 1 second"). */
+    public static final int TICKS_PER_SECOND = 60;
+    public static final long TICK_NANOS = 1_000_000_000L / TICKS_PER_SECOND;
+    public static final long DEFAULT_BUDGET_NANOS = 2_000_000L;
+    private static final int MAX_TICKS_PER_PULSE = 5;
 
-    private static ArrayList<Monster> monsters = new ArrayList<>();
-    private static AnimationTimer monsterLoop;
-    private static Weapon bow = WeaponDatabase.getWeapon(2);
-    private static ArrayList<Droppable> drops = new ArrayList<Droppable>();
-    private static AnimationTimer droppedLoop;
+    // Order of systems inside a tick.
+    public static final int INPUT = 0;
+    public static final int PLAYER = 100;
+    public static final int ITEMS = 200;
+    public static final int MONSTERS = 300;
+    public static final int PROJECTILES = 400;
+    public static final int DROPS = 500;
+    public static final int ROOM = 600;
+    public static final int HUD = 700;
+    public static final int TOASTS = 800;
+
+    // The real-time driver belongs to the window, so it stays shared.
+    private static AnimationTimer pulse;
+    private static long lastPulse = -1;
+    private static long accumulator;
+    private static volatile double speed = 1.0;
+    private static boolean threaded;
+    private static Thread simulation;
+    private static volatile boolean simulating;
+    private static final ReentrantLock BETWEEN_TICKS = new ReentrantLock();
+    private static final FrameBuffer FRAMES = new FrameBuffer();
+
+    /**
+     * The scheduler and everything it updates, one per Session.
+     */
+    private static final class State {
+        private SpatialList<Monster> monsters =
+                new SpatialList<>(Controller.getW(), Controller.getH());
+        private GameSystem monsterLoop;
+        private ArrayList<Droppable> drops = new ArrayList<Droppable>();
+        private GameSystem droppedLoop;
+        private EntityStore projectiles = new EntityStore();
+        private GameSystem projectileLoop;
+        private final FlowField flowField = new FlowField(Controller.getW(), Controller.getH());
+        private final Steering steering = new Steering();
+
+        private final ArrayList<GameSystem> systems = new ArrayList<>();
+        private final ArrayList<GameSystem> pendingAdd = new ArrayList<>();
+        private final ArrayList<GameSystem> pendingRemove = new ArrayList<>();
+        private final ConcurrentLinkedQueue<Runnable> input = new ConcurrentLinkedQueue<>();
+        private boolean ticking;
+        private long tick;
+        private volatile boolean paused;
+    }
+
+    private static State state() {
+        return Session.current().get(State.class, State::new);
+    }
 
 
     public static void gameLoop() {
+        State state = state();
 
-        monsterLoop = new AnimationTimer() {
+        state.monsterLoop = new GameSystem("monsters", MONSTERS) {
             @Override
-            public void handle(long currentNanoTime) {
+            public void handle(long tick) {
+                ArrayList<Monster> monsters = state.monsters;
+                state.steering.update(monsters, state.monsters.getGrid(), state.flowField);
                 for (int i = 0; i < monsters.size(); i++) {
                     monsters.get(i).update();
                 }
@@ -32,56 +115,416 @@ public class GameLoop {
             }
         };
 
-        droppedLoop = new AnimationTimer() {
+        state.projectileLoop = new GameSystem("projectiles", PROJECTILES) {
+            @Override
+            public void handle(long tick) {
+                boolean any = state.projectiles.size() > 0;
+                Fireball.updateAll(state.projectiles);
+                if (any && state.projectiles.size() == 0) {
+                    EventBus.publish(EventBus.PROJECTILES_CLEARED, state.projectiles);
+                }
+            }
+        };
+
+        state.droppedLoop = new GameSystem("drops", DROPS) {
             @Override
-            public void handle(long currentNanoTime) {
-                for (Droppable drop : drops) {
+            public void handle(long tick) {
+                for (Droppable drop : state.drops) {
                     drop.update();
                 }
             }
         };
     }
 
-    public static void initializeAllAnimationTimers(Player player, GameScreen gameScreen) {
+    public static void initializeAllSystems(Player player) {
         GameLoop.gameLoop();
         player.updatePlayerHp();
-        ((Bow) bow).arrowTimer();
-        player.play(gameScreen.getScene());
+        ((Bow) WeaponDatabase.getWeapon(2)).arrowSystem();
+        player.play();
+    }
+
+    public static void startAllSystems(GameSystem... toStart) {
+        for (GameSystem system : toStart) {
+            system.start();
+        }
+    }
+
+    public static void stopAllSystems(GameSystem... toStop) {
+        for (GameSystem system : toStop) {
+            system.stop();
+        }
+    }
+
+    /**
+     * Stop every registered system, including one-off ones like reward toasts.
+     */
+    public static void stopEverything() {
+        State state = state();
+        for (GameSystem system : new ArrayList<>(state.systems)) {
+            system.stop();
+        }
+        for (GameSystem system : new ArrayList<>(state.pendingAdd)) {
+            system.stop();
+        }
+    }
+
+    static void register(GameSystem system) {
+        if (system.isRunning()) {
+            return;
+        }
+        system.setRunning(true);
+        State state = state();
+        if (state.ticking) {
+            state.pendingAdd.add(system);
+        } else {
+            insert(state.systems, system);
+        }
+    }
+
+    static void unregister(GameSystem system) {
+        if (!system.isRunning()) {
+            return;
+        }
+        system.setRunning(false);
+        State state = state();
+        if (state.ticking) {
+            state.pendingRemove.add(system);
+        } else {
+            state.systems.remove(system);
+        }
+    }
+
+    private static void insert(ArrayList<GameSystem> systems, GameSystem system) {
+        // Stable: systems with the same order run in registration order.
+        int index = systems.size();
+        while (index > 0 && systems.get(index - 1).getOrder() > system.getOrder()) {
+            index--;
+        }
+        systems.add(index, system);
+    }
+
+    private static void applyPending(State state) {
+        for (GameSystem system : state.pendingRemove) {
+            if (!system.isRunning()) {
+                state.systems.remove(system);
+            }
+        }
+        state.pendingRemove.clear();
+        for (GameSystem system : state.pendingAdd) {
+            if (system.isRunning() && !state.systems.contains(system)) {
+                insert(state.systems, system);
+            }
+        }
+        state.pendingAdd.clear();
+    }
+
+    /**
+     * Run exactly one fixed tick of every registered system, after any input posted
+     * since the last one.
+     */
+    public static void tick() {
+        State state = state();
+        for (Runnable input = state.input.poll(); input != null; input = state.input.poll()) {
+            input.run();
+        }
+        applyPending(state);
+        state.ticking = true;
+        try {
+            ArrayList<GameSystem> systems = state.systems;
+            for (int i = 0; i < systems.size(); i++) {
+                GameSystem system = systems.get(i);
+                if (system.isRunning()) {
+                    long start = System.nanoTime();
+                    system.handle(state.tick);
+                    system.recordTiming(System.nanoTime() - start);
+                }
+            }
+        } finally {
+            state.ticking = false;
+        }
+        applyPending(state);
+        state.tick++;
+    }
+
+    /**
+     * Start feeding real time into the scheduler. Safe to call more than once.
+     */
+    public static void start() {
+        if (pulse == null) {
+            pulse = new AnimationTimer() {
+                @Override
+                public void handle(long now) {
+                    pulse(now);
+                }
+            };
+        }
+        lastPulse = -1;
+        if (threaded && simulation == null) {
+            Session session = Session.current();
+            simulating = true;
+            simulation = new Thread(() -> session.run(GameLoop::simulate), "simulation");
+            simulation.setDaemon(true);
+            simulation.start();
+        }
+        pulse.start();
+    }
+
+    /**
+     * Stop feeding real time into the scheduler. The simulation thread, if there is one,
+     * finishes the tick it is on and is waited for, so the game is left alone after.
+     */
+    public static void stop() {
+        if (pulse != null) {
+            pulse.stop();
+        }
+        accumulator = 0;
+        Thread running = simulation;
+        if (running != null) {
+            simulating = false;
+            simulation = null;
+            LockSupport.unpark(running);
+            if (running != Thread.currentThread()) {
+                try {
+                    running.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    private static void pulse(long now) {
+        if (simulation != null) {
+            Controller.getView().render();
+            return;
+        }
+        if (lastPulse < 0) {
+            lastPulse = now - TICK_NANOS;
+        }
+        long elapsed = now - lastPulse;
+        lastPulse = now;
+        if (isPaused()) {
+            return;
+        }
+        accumulator += (long) (elapsed * speed);
+        // Don't try to catch up on a long stall, just drop the time.
+        accumulator = Math.min(accumulator, MAX_TICKS_PER_PULSE * TICK_NANOS);
+        while (accumulator >= TICK_NANOS) {
+            accumulator -= TICK_NANOS;
+            tick();
+        }
+        publish();
+        Controller.getView().render();
     }
 
-    public static void startAllAnimationTimers(AnimationTimer... timers) {
-        for (AnimationTimer timer : timers) {
-            timer.start();
+    /**
+     * The simulation thread: the same accumulator as pulse(), fed from its own clock,
+     * sleeping until the next tick is due.
+     */
+    private static void simulate() {
+        long last = System.nanoTime();
+        long owed = 0;
+        while (simulating) {
+            long now = System.nanoTime();
+            long elapsed = now - last;
+            last = now;
+            if (!isPaused()) {
+                owed += (long) (elapsed * speed);
+                owed = Math.min(owed, MAX_TICKS_PER_PULSE * TICK_NANOS);
+                if (owed >= TICK_NANOS) {
+                    BETWEEN_TICKS.lock();
+                    try {
+                        while (owed >= TICK_NANOS && simulating) {
+                            owed -= TICK_NANOS;
+                            tick();
+                        }
+                        publish();
+                    } finally {
+                        BETWEEN_TICKS.unlock();
+                    }
+                }
+            }
+            LockSupport.parkNanos(TICK_NANOS - owed);
         }
     }
 
-    public static void stopAllAnimationTimers(AnimationTimer... timers) {
-        for (AnimationTimer timer : timers) {
-            timer.stop();
+    private static void publish() {
+        // Once the game is over the end screen takes the model apart; keep the last frame.
+        if (!Controller.isGameOver()) {
+            FRAMES.publish();
+        }
+    }
+
+    /**
+     * @param separate whether start() runs the game on a thread of its own, leaving the
+     *                 FX thread only to draw; it takes effect the next time it starts
+     */
+    public static void setThreaded(boolean separate) {
+        threaded = separate;
+    }
+
+    public static boolean isThreaded() {
+        return threaded;
+    }
+
+    /**
+     * @return the frames published for the screen to draw
+     */
+    public static FrameBuffer getFrames() {
+        return FRAMES;
+    }
+
+    /**
+     * Queue input, like a key press, for the game to act on at the start of its next
+     * tick. Safe to call from any thread, and never waits.
+     * @param input what to do
+     */
+    public static void post(Runnable input) {
+        state().input.add(input);
+    }
+
+    /**
+     * Do something to the whole game, like saving or loading it, between two ticks.
+     * While the game runs on the simulation thread this waits for the tick it is on;
+     * otherwise it just runs.
+     * @param task what to do
+     */
+    public static void between(Runnable task) {
+        BETWEEN_TICKS.lock();
+        try {
+            task.run();
+        } finally {
+            BETWEEN_TICKS.unlock();
+        }
+    }
+
+    public static void pause() {
+        state().paused = true;
+    }
+
+    public static void resume() {
+        state().paused = false;
+        lastPulse = -1;
+    }
+
+    /**
+     * Advance exactly one tick while paused (for debugging).
+     */
+    public static void step() {
+        between(() -> {
+            if (isPaused()) {
+                tick();
+            }
+        });
+    }
+
+    public static boolean isPaused() {
+        return state().paused;
+    }
+
+    public static void setSpeed(double multiplier) {
+        speed = Math.max(0, multiplier);
+    }
+
+    public static double getSpeed() {
+        return speed;
+    }
+
+    public static long getTick() {
+        return state().tick;
+    }
+
+    /**
+     * Carry the clock on from a saved game's, between ticks.
+     * @param tick the tick the game was saved on
+     */
+    static void setTick(long tick) {
+        state().tick = tick;
+    }
+
+    /**
+     * @return whether a tick is running right now, on this session
+     */
+    public static boolean isTicking() {
+        return state().ticking;
+    }
+
+    public static ArrayList<GameSystem> getSystems() {
+        return state().systems;
+    }
+
+    /**
+     * Print how long each system took last tick and how often it went over budget.
+     */
+    public static void printBudgetReport() {
+        for (GameSystem system : state().systems) {
+            System.out.println(system.getName() + ": last " + system.getLastNanos() / 1000
+                    + "us, worst " + system.getWorstNanos() / 1000 + "us, over budget "
+                    + system.getOverruns() + " times");
         }
     }
 
     public static ArrayList<Monster> getMonsters() {
-        return monsters;
+        return state().monsters;
     }
 
+    /**
+     * @return the monsters being simulated, by where they are
+     */
+    public static SpatialGrid<Monster> getMonsterGrid() {
+        return state().monsters.getGrid();
+    }
+
+    /**
+     * Replace the monsters being simulated. A plain list is copied, so add to
+     * getMonsters() afterwards, not to the list passed in.
+     * @param newMonsters the new monsters
+     */
     public static void setMonsters(ArrayList<Monster> newMonsters) {
-        monsters = newMonsters;
+        state().monsters = newMonsters instanceof SpatialList
+                ? (SpatialList<Monster>) newMonsters
+                : new SpatialList<>(Controller.getW(), Controller.getH(), newMonsters);
+    }
+
+    /**
+     * @return which way monsters and projectiles go to reach the player, in the room
+     *         being simulated
+     */
+    public static FlowField getFlowField() {
+        return state().flowField;
+    }
+
+    /**
+     * @return this tick's steering for the monsters being simulated
+     */
+    public static Steering getSteering() {
+        return state().steering;
     }
 
     public static ArrayList<Droppable> getDrops() {
-        return drops;
+        return state().drops;
     }
 
     public static void setDrops(ArrayList<Droppable> newDrops) {
-        drops = newDrops;
+        state().drops = newDrops;
+    }
+
+    public static GameSystem getMonsterLoop() {
+        return state().monsterLoop;
+    }
+
+    public static GameSystem getDroppedLoop() {
+        return state().droppedLoop;
     }
 
-    public static AnimationTimer getMonsterLoop() {
-        return monsterLoop;
+    /**
+     * @return the projectiles being simulated, like fireballs
+     */
+    public static EntityStore getProjectiles() {
+        return state().projectiles;
     }
 
-    public static AnimationTimer getDroppedLoop() {
-        return droppedLoop;
+    public static GameSystem getProjectileLoop() {
+        return state().projectileLoop;
     }
 }
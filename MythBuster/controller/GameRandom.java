@@ -0,0 +1,131 @@
+package controller;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The random numbers for one game, instead of Math.random().
+ *
+ * Everything comes from a single seed, split into one stream per kind of use, so a
+ * seed alone rebuilds the same dungeon: drawing more loot or moving a monster
+ * differently never shifts the numbers the layout gets. Each Session has its own, so
+ * parallel runs never share (or wait on) a generator.
+ */
+public class GameRandom {
+    private final long seed;
+    private final SplittableRandom layout;
+    private final SplittableRandom spawn;
+    private final SplittableRandom loot;
+    private final SplittableRandom ai;
+
+    /**
+     * @param seed the seed every stream is split from
+     */
+    public GameRandom(long seed) {
+        this.seed = seed;
+        SplittableRandom root = new SplittableRandom(seed);
+        // Split in a fixed order; adding a stream means adding it at the end.
+        layout = root.split();
+        spawn = root.split();
+        loot = root.split();
+        ai = root.split();
+    }
+
+    /**
+     * Start the current session's numbers over from a seed.
+     * @param seed the new seed
+     */
+    public static void reseed(long seed) {
+        Session.current().get(State.class, State::new).random = new GameRandom(seed);
+    }
+
+    /**
+     * @return the seed the current session's numbers come from
+     */
+    public static long getSeed() {
+        return get().seed;
+    }
+
+    /**
+     * @return numbers for generating the dungeon: room placement, paths, chests
+     */
+    public static SplittableRandom layout() {
+        return get().layout;
+    }
+
+    /**
+     * @return numbers for how many monsters appear, where, and how fast they are
+     */
+    public static SplittableRandom spawn() {
+        return get().spawn;
+    }
+
+    /**
+     * @return numbers for drops, rewards and chest contents
+     */
+    public static SplittableRandom loot() {
+        return get().loot;
+    }
+
+    /**
+     * @return numbers for monster decisions, like where to wander next
+     */
+    public static SplittableRandom ai() {
+        return get().ai;
+    }
+
+    /**
+     * @param row    the room's row
+     * @param column the room's column
+     * @return the seed for what is in the room at that spot, from the game's seed alone
+     */
+    public static long roomSeed(int row, int column) {
+        long spot = ((long) row << 32) | (column & 0xFFFFFFFFL);
+        return new SplittableRandom(get().seed ^ (spot * 0x9E3779B97F4A7C15L)).nextLong();
+    }
+
+    /**
+     * Fill a room from its own seed: while the action runs, every stream comes from that
+     * seed instead of the game's, so a room's contents (down to its monsters' loot and
+     * first moves) are the same whenever and in whatever order the rooms are visited,
+     * and filling one never shifts the game's own numbers.
+     * @param seed   the room's seed, from roomSeed
+     * @param action what to run with the room's streams
+     */
+    public static void inRoom(long seed, Runnable action) {
+        State state = Session.current().get(State.class, State::new);
+        GameRandom game = get();
+        state.random = new GameRandom(seed);
+        try {
+            action.run();
+        } finally {
+            state.random = game;
+        }
+    }
+
+    /**
+     * Collections.shuffle for a SplittableRandom.
+     * @param list   the list to shuffle
+     * @param random the stream to shuffle with
+     */
+    public static void shuffle(List<?> list, SplittableRandom random) {
+        for (int i = list.size() - 1; i > 0; i--) {
+            Collections.swap(list, i, random.nextInt(i + 1));
+        }
+    }
+
+    private static final class State {
+        private GameRandom random;
+    }
+
+    private static GameRandom get() {
+        State state = Session.current().get(State.class, State::new);
+        if (state.random == null) {
+            // Not seeded yet: pick one, so getSeed() can still replay this game.
+            state.random = new GameRandom(ThreadLocalRandom.current().nextLong());
+        }
+        return state.random;
+    }
+}
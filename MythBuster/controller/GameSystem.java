@@ -0,0 +1,100 @@
+package controller;
+
+/**
+ * A piece of per-tick game logic driven by the GameLoop scheduler.
+ *
+ * Shaped like an AnimationTimer (start, stop, handle) so the old timers convert
+ * one-for-one, but every registered system runs inside the same fixed timestep,
+ * in ascending order, and is timed against its own budget.
+ */
+public abstract class GameSystem {
+    private final String name;
+    private final int order;
+    private long budgetNanos;
+
+    private boolean running;
+    private long lastNanos;
+    private long worstNanos;
+    private long overruns;
+
+    /**
+     * Create a system with the default time budget.
+     * @param name  name used in budget reports
+     * @param order position in the tick, lower runs first (see GameLoop constants)
+     */
+    public GameSystem(String name, int order) {
+        this(name, order, GameLoop.DEFAULT_BUDGET_NANOS);
+    }
+
+    /**
+     * Create a system with its own time budget.
+     * @param name        name used in budget reports
+     * @param order       position in the tick, lower runs first
+     * @param budgetNanos how long one call to handle may take before it counts as an overrun
+     */
+    public GameSystem(String name, int order, long budgetNanos) {
+        this.name = name;
+        this.order = order;
+        this.budgetNanos = budgetNanos;
+    }
+
+    /**
+     * Called once per fixed tick while the system is registered.
+     * @param tick the number of ticks run since the loop was reset
+     */
+    public abstract void handle(long tick);
+
+    public void start() {
+        GameLoop.register(this);
+    }
+
+    public void stop() {
+        GameLoop.unregister(this);
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    void setRunning(boolean running) {
+        this.running = running;
+    }
+
+    void recordTiming(long nanos) {
+        lastNanos = nanos;
+        if (nanos > worstNanos) {
+            worstNanos = nanos;
+        }
+        if (nanos > budgetNanos) {
+            overruns++;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getOrder() {
+        return order;
+    }
+
+    public long getBudgetNanos() {
+        return budgetNanos;
+    }
+
+    public void setBudgetNanos(long budgetNanos) {
+        this.budgetNanos = budgetNanos;
+    }
+
+    public long getLastNanos() {
+        return lastNanos;
+    }
+
+    public long getWorstNanos() {
+        return worstNanos;
+    }
+
+    public long getOverruns() {
+        return overruns;
+    }
+}
@@ -0,0 +1,50 @@
+package controller;
+
+import gamefiles.rooms.Room;
+
+/**
+ * Everything the simulation tells the screen that can't be read straight off the model.
+ *
+ * The game model never touches the scene graph. Anything that draws (GameScreen) reads
+ * the model in render() once per frame and is told about one-off events through the
+ * other methods. HEADLESS ignores all of it, so GameLoop can tick a whole game without
+ * the JavaFX toolkit ever being started.
+ */
+public interface GameView {
+    GameView HEADLESS = new GameView() {
+        public void render() { }
+        public void roomEntered(Room room) { }
+        public void showMessage(String text, double layoutY, int ticks) { }
+        public void playSound(String soundPath) { }
+        public void openInventory() { }
+        public void playerDied() { }
+        public void bossDefeated() { }
+    };
+
+    /**
+     * Draw the current state of the model. Called once per frame after the ticks ran.
+     */
+    void render();
+
+    /**
+     * The player just walked into a room (or the game started in it).
+     * @param room the new current room
+     */
+    void roomEntered(Room room);
+
+    /**
+     * Show a notification across the screen.
+     * @param text    the text to show
+     * @param layoutY how far down the screen it goes; a new message at the same height replaces the old one
+     * @param ticks   how many ticks it stays up
+     */
+    void showMessage(String text, double layoutY, int ticks);
+
+    void playSound(String soundPath);
+
+    void openInventory();
+
+    void playerDied();
+
+    void bossDefeated();
+}
@@ -0,0 +1,91 @@
+package controller;
+
+import javafx.scene.image.Image;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Every sprite the game draws, decoded once and shared by path.
+ *
+ * Images are immutable, so one Image can back any number of ImageViews, canvases and
+ * items, across sessions too. The cache keeps the most recently used images up to a
+ * budget of decoded bytes (4 per pixel) and forgets the least recently used ones past
+ * it. A forgotten image stays alive for as long as something still shows it; it is
+ * only decoded again if it is asked for again.
+ */
+public class ImageCache {
+    private static final long DEFAULT_BUDGET = 128L * 1024 * 1024;
+
+    private static final LinkedHashMap<String, Image> images = new LinkedHashMap<>(64, 0.75f, true);
+    private static long budget = DEFAULT_BUDGET;
+    private static long bytes;
+    private static int loads;
+
+    private ImageCache() { }
+
+    /**
+     * @param path the sprite's path, as given to new Image(String)
+     * @return the decoded sprite, shared with everyone else asking for the same path
+     */
+    public static synchronized Image get(String path) {
+        Image image = images.get(path);
+        if (image == null) {
+            image = new Image(path);
+            loads++;
+            images.put(path, image);
+            bytes += sizeOf(image);
+            evict();
+        }
+        return image;
+    }
+
+    /**
+     * Set how many decoded bytes to keep, forgetting images until they fit.
+     * @param maxBytes the budget
+     */
+    public static synchronized void setBudget(long maxBytes) {
+        budget = maxBytes;
+        evict();
+    }
+
+    public static synchronized void clear() {
+        images.clear();
+        bytes = 0;
+    }
+
+    /**
+     * @return how many images are cached
+     */
+    public static synchronized int size() {
+        return images.size();
+    }
+
+    /**
+     * @return roughly how many bytes the cached images take decoded
+     */
+    public static synchronized long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return how many times an image has been decoded, for spotting misses
+     */
+    public static synchronized int getLoads() {
+        return loads;
+    }
+
+    private static void evict() {
+        // Always keep the newest image, even if it is bigger than the whole budget.
+        Iterator<Map.Entry<String, Image>> iterator = images.entrySet().iterator();
+        while (bytes > budget && images.size() > 1) {
+            bytes -= sizeOf(iterator.next().getValue());
+            iterator.remove();
+        }
+    }
+
+    private static long sizeOf(Image image) {
+        return (long) image.getWidth() * (long) image.getHeight() * 4;
+    }
+}
@@ -0,0 +1,209 @@
+package controller;
+
+import gamefiles.Difficulty;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes everything the player does to a game into a compact binary log, so that
+ * InputReplay can play the game again exactly.
+ *
+ * A game is fully decided by its seed and its input, so the log holds only those:
+ * a header with the seed, name, starting weapon and difficulty, then one entry per
+ * key transition (and per inventory or challenge action), stamped with the tick it
+ * happened on. An entry is a varint of (ticks since the last entry, shifted left
+ * three bits, plus the entry type), followed by its arguments as varints. A key is
+ * written by name the first time it appears and by number after that, so most
+ * entries take two bytes.
+ *
+ * Recording belongs to the current Session. The hooks in Player, Inventory and
+ * ChallengeRoom do nothing while no recording is running.
+ */
+public class InputRecorder {
+    static final int MAGIC = 0x4D42524C; // "MBRL"
+    static final int VERSION = 1;
+
+    static final int KEY_DOWN = 0;
+    static final int KEY_UP = 1;
+    static final int START_CHALLENGE = 2;
+    static final int HOTBAR = 3;
+    static final int EQUIP = 4;
+    static final int END = 5;
+    static final int TYPE_BITS = 3;
+
+    private DataOutputStream out;
+    private long lastTick;
+    private Map<String, Integer> keyIds = new HashMap<>();
+
+    private static final class State {
+        private InputRecorder recorder;
+    }
+
+    private static State state() {
+        return Session.current().get(State.class, State::new);
+    }
+
+    private InputRecorder(OutputStream out) {
+        this.out = new DataOutputStream(new BufferedOutputStream(out));
+    }
+
+    /**
+     * Start recording the current session's game. Call it after the game is set up
+     * and before its first tick. Any recording already running is finished first.
+     * @param out         where to write the log; closed by stop()
+     * @param seed        the seed the game was started with
+     * @param name        the name of the hero
+     * @param weaponIndex the index of the starting weapon
+     * @param difficulty  the difficulty
+     */
+    public static void start(OutputStream out, long seed, String name,
+                             int weaponIndex, Difficulty difficulty) {
+        stop();
+        InputRecorder recorder = new InputRecorder(out);
+        recorder.lastTick = GameLoop.getTick();
+        try {
+            recorder.out.writeInt(MAGIC);
+            recorder.out.writeByte(VERSION);
+            recorder.out.writeLong(seed);
+            recorder.out.writeUTF(name);
+            recorder.out.writeByte(weaponIndex);
+            recorder.out.writeByte(difficulty.ordinal());
+        } catch (IOException e) {
+            System.out.println("Could not record input: " + e.getMessage());
+            return;
+        }
+        state().recorder = recorder;
+    }
+
+    /**
+     * Finish the log with the tick the game got to and close it. Does nothing if
+     * nothing is being recorded.
+     */
+    public static void stop() {
+        State state = state();
+        InputRecorder recorder = state.recorder;
+        if (recorder == null) {
+            return;
+        }
+        state.recorder = null;
+        try {
+            // Stopped from inside a tick (the game ended): that tick counts too.
+            recorder.entry(END, GameLoop.isTicking() ? 1 : 0);
+            recorder.out.close();
+        } catch (IOException e) {
+            System.out.println("Could not record input: " + e.getMessage());
+        }
+    }
+
+    public static boolean isRecording() {
+        return state().recorder != null;
+    }
+
+    /**
+     * @param code the key that went down
+     */
+    public static void keyDown(String code) {
+        key(KEY_DOWN, code);
+    }
+
+    /**
+     * @param code the key that came up
+     */
+    public static void keyUp(String code) {
+        key(KEY_UP, code);
+    }
+
+    /**
+     * The player accepted the challenge in the current room.
+     */
+    public static void challengeStarted() {
+        record(START_CHALLENGE, -1, -1);
+    }
+
+    /**
+     * @param inventoryIndex the inventory slot moved to the hotbar
+     * @param hotbarIndex    the hotbar slot it went to
+     */
+    public static void addedToHotbar(int inventoryIndex, int hotbarIndex) {
+        record(HOTBAR, inventoryIndex, hotbarIndex);
+    }
+
+    /**
+     * @param inventoryIndex the inventory slot of the weapon equipped
+     */
+    public static void equippedWeapon(int inventoryIndex) {
+        record(EQUIP, inventoryIndex, -1);
+    }
+
+    private static void key(int type, String code) {
+        InputRecorder recorder = state().recorder;
+        if (recorder == null) {
+            return;
+        }
+        try {
+            recorder.entry(type);
+            Integer id = recorder.keyIds.get(code);
+            if (id == null) {
+                // First time: the next free number, then the name.
+                id = recorder.keyIds.size();
+                recorder.keyIds.put(code, id);
+                recorder.writeVarInt(id);
+                recorder.out.writeUTF(code);
+            } else {
+                recorder.writeVarInt(id);
+            }
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private static void record(int type, int first, int second) {
+        InputRecorder recorder = state().recorder;
+        if (recorder == null) {
+            return;
+        }
+        try {
+            recorder.entry(type);
+            if (first >= 0) {
+                recorder.writeVarInt(first);
+            }
+            if (second >= 0) {
+                recorder.writeVarInt(second);
+            }
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private static void fail(IOException e) {
+        System.out.println("Could not record input: " + e.getMessage());
+        state().recorder = null;
+    }
+
+    private void entry(int type) throws IOException {
+        entry(type, 0);
+    }
+
+    private void entry(int type, int ticksAhead) throws IOException {
+        long tick = GameLoop.getTick() + ticksAhead;
+        writeVarLong((tick - lastTick) << TYPE_BITS | type);
+        lastTick = tick;
+    }
+
+    private void writeVarInt(int value) throws IOException {
+        writeVarLong(value);
+    }
+
+    private void writeVarLong(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+}
@@ -0,0 +1,268 @@
+package controller;
+
+import gamefiles.Difficulty;
+import gamefiles.Inventory;
+import gamefiles.characters.Player;
+import gamefiles.rooms.ChallengeRoom;
+import gamefiles.rooms.Room;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Plays a log written by InputRecorder back into a game.
+ *
+ * The replay starts a game with the recorded seed, name, weapon and difficulty, then
+ * runs first in every tick and applies each recorded action on the tick it was
+ * recorded on, so the game goes exactly the way it went the first time. Driven by
+ * GameLoop.start() it plays in real time in the window; driven by runToEnd() it
+ * plays headless as fast as the CPU allows.
+ *
+ * The I key only switches to the inventory screen, so it is left out; what was done
+ * on that screen is replayed from its own entries.
+ */
+public class InputReplay extends GameSystem {
+    private long seed;
+    private String name;
+    private int weaponIndex;
+    private Difficulty difficulty;
+
+    private int count;
+    private long[] ticks = new long[64];
+    private byte[] types = new byte[64];
+    private int[] firsts = new int[64];
+    private int[] seconds = new int[64];
+    private ArrayList<String> keys = new ArrayList<>();
+    private long endTick = -1;
+
+    private long startTick;
+    private int next;
+
+    private InputReplay() {
+        super("replay", GameLoop.INPUT);
+    }
+
+    /**
+     * @param path the file to read the log from
+     * @return the replay
+     * @throws IOException if the file can't be read or isn't an input log
+     */
+    public static InputReplay read(String path) throws IOException {
+        try (InputStream in = new FileInputStream(path)) {
+            return read(in);
+        }
+    }
+
+    /**
+     * @param in the stream to read the log from; left open
+     * @return the replay
+     * @throws IOException if the stream can't be read or isn't an input log
+     */
+    public static InputReplay read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        if (data.readInt() != InputRecorder.MAGIC) {
+            throw new IOException("not an input log");
+        }
+        int version = data.readUnsignedByte();
+        if (version != InputRecorder.VERSION) {
+            throw new IOException("unknown input log version " + version);
+        }
+        InputReplay replay = new InputReplay();
+        replay.seed = data.readLong();
+        replay.name = data.readUTF();
+        replay.weaponIndex = data.readUnsignedByte();
+        replay.difficulty = Difficulty.values()[data.readUnsignedByte()];
+
+        long tick = 0;
+        while (replay.endTick < 0) {
+            long entry;
+            try {
+                entry = readVarLong(data);
+            } catch (EOFException e) {
+                // The game never finished writing; play what there is.
+                replay.endTick = tick;
+                break;
+            }
+            tick += entry >>> InputRecorder.TYPE_BITS;
+            int type = (int) (entry & ((1 << InputRecorder.TYPE_BITS) - 1));
+            int first = -1;
+            int second = -1;
+            switch (type) {
+            case InputRecorder.KEY_DOWN:
+            case InputRecorder.KEY_UP:
+                first = (int) readVarLong(data);
+                if (first == replay.keys.size()) {
+                    replay.keys.add(data.readUTF());
+                }
+                break;
+            case InputRecorder.HOTBAR:
+                first = (int) readVarLong(data);
+                second = (int) readVarLong(data);
+                break;
+            case InputRecorder.EQUIP:
+                first = (int) readVarLong(data);
+                break;
+            case InputRecorder.START_CHALLENGE:
+                break;
+            case InputRecorder.END:
+                replay.endTick = tick;
+                continue;
+            default:
+                throw new IOException("unknown input log entry " + type);
+            }
+            replay.add(tick, type, first, second);
+        }
+        return replay;
+    }
+
+    private void add(long tick, int type, int first, int second) {
+        if (count == ticks.length) {
+            ticks = Arrays.copyOf(ticks, count * 2);
+            types = Arrays.copyOf(types, count * 2);
+            firsts = Arrays.copyOf(firsts, count * 2);
+            seconds = Arrays.copyOf(seconds, count * 2);
+        }
+        ticks[count] = tick;
+        types[count] = (byte) type;
+        firsts[count] = first;
+        seconds[count] = second;
+        count++;
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    /**
+     * Start the recorded game with no window and start feeding it the recorded input.
+     */
+    public void startHeadless() {
+        Controller.startHeadlessGame(name, weaponIndex, difficulty, seed);
+        begin();
+    }
+
+    /**
+     * Start feeding the recorded input into the game that was just set up, from the
+     * next tick on.
+     */
+    public void begin() {
+        startTick = GameLoop.getTick();
+        next = 0;
+        start();
+    }
+
+    /**
+     * Tick the game as fast as possible until the recording runs out or the game ends.
+     * @return how many ticks were played
+     */
+    public long runToEnd() {
+        long played = 0;
+        while (!isFinished() && !Controller.isGameOver()) {
+            GameLoop.tick();
+            played++;
+        }
+        return played;
+    }
+
+    /**
+     * @return whether every recorded action has been applied and the game has reached
+     *         the tick the recording stopped on
+     */
+    public boolean isFinished() {
+        return next >= count && GameLoop.getTick() - startTick >= endTick;
+    }
+
+    @Override
+    public void handle(long tick) {
+        long now = tick - startTick;
+        Player player = Controller.getPlayer();
+        while (next < count && ticks[next] <= now) {
+            int first = firsts[next];
+            switch (types[next]) {
+            case InputRecorder.KEY_DOWN:
+                if (!keys.get(first).equals("I")) {
+                    player.pressKey(keys.get(first));
+                }
+                break;
+            case InputRecorder.KEY_UP:
+                if (!keys.get(first).equals("I")) {
+                    player.releaseKey(keys.get(first));
+                }
+                break;
+            case InputRecorder.START_CHALLENGE:
+                Room room = Controller.getCurrentRoom();
+                if (room instanceof ChallengeRoom) {
+                    ((ChallengeRoom) room).startChallenge();
+                }
+                break;
+            case InputRecorder.HOTBAR:
+                Inventory.addToHotbar(first, seconds[next]);
+                break;
+            case InputRecorder.EQUIP:
+                Inventory.equipWeapon(first);
+                break;
+            default:
+                break;
+            }
+            next++;
+        }
+        if (next >= count && now >= endTick) {
+            stop();
+        }
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getWeaponIndex() {
+        return weaponIndex;
+    }
+
+    public Difficulty getDifficulty() {
+        return difficulty;
+    }
+
+    /**
+     * @return how many ticks the recorded game lasted
+     */
+    public long getLength() {
+        return endTick;
+    }
+
+    /**
+     * Replay a log headless as fast as possible and report how it went.
+     * Usage: InputReplay [log file]
+     * @param args command line arguments
+     */
+    public static void main(String[] args) throws IOException {
+        InputReplay replay = read(args[0]);
+        System.out.println("seed: " + replay.seed + ", ticks: " + replay.endTick);
+        long start = System.nanoTime();
+        replay.startHeadless();
+        long played = replay.runToEnd();
+        System.out.printf("played %d ticks in %.2fs%n", played, (System.nanoTime() - start) / 1e9);
+        System.out.println(Controller.isGameWon() ? "won"
+                : Controller.isGameOver() ? "died" : "still playing");
+        GameLoop.printBudgetReport();
+        GameLoop.stopEverything();
+    }
+}
@@ -0,0 +1,194 @@
+package controller;
+
+import gamefiles.rooms.Room;
+import gamefiles.rooms.RoomLayout;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+
+/**
+ * Keeps the rest of the dungeon going while the player is in one room, at less detail
+ * the farther away it is.
+ *
+ * The room being played runs every tick in GameLoop as before. The populated rooms
+ * through its doors are stepped every getInterval() ticks, in the background, so their
+ * monsters wander, lay traps and fade away without adding to a frame. Rooms farther
+ * off aren't run at all: each remembers the tick it was last simulated to, and is
+ * caught up in one go, with Room.simulateOffscreen(), when the player walks back in.
+ * With setWholeDungeon(), every populated room in memory is stepped instead, for a
+ * world that keeps going everywhere. Both are settings of the session, and a session
+ * steps nothing until setInterval() is called; the window turns it on.
+ *
+ * Each room has its own monsters and touches nothing else while it is stepped, so the
+ * rooms of a step are split up between the threads of a work-stealing pool. Once a
+ * step is settled each of its rooms publishes a RoomSnapshot, as the room being played
+ * does every tick, so anything showing a room reads a whole tick of it from any
+ * thread; rooms nobody has called Room.watch() on skip making one.
+ *
+ * The game's thread never touches a room while it is being stepped. Every step is
+ * waited for, with settle(), before the next one starts, before the player enters a
+ * room and before the game is saved; since a step only ever runs between two of
+ * those, a seeded game plays out the same however fast the thread is.
+ */
+public class OffscreenSimulation {
+    /** Neighbouring rooms are stepped 10 times a second. */
+    public static final int DEFAULT_INTERVAL = GameLoop.TICKS_PER_SECOND / 10;
+
+    private static final int[] ROW_STEP = {0, -1, 0, 1};
+    private static final int[] COLUMN_STEP = {-1, 0, 1, 0};
+
+    private static final ForkJoinPool WORKERS = new ForkJoinPool(
+            Runtime.getRuntime().availableProcessors(), pool -> {
+                ForkJoinWorkerThread thread =
+                        ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("offscreen rooms " + thread.getPoolIndex());
+                return thread;
+            }, null, false);
+
+    private static final class State {
+        private int interval;
+        private boolean wholeDungeon;
+        private final ArrayList<Room> stepping = new ArrayList<>();
+        private Future<?> step;
+        private GameSystem system;
+    }
+
+    private static State state() {
+        return Session.current().get(State.class, State::new);
+    }
+
+    private OffscreenSimulation() { }
+
+    /**
+     * @param ticks how many ticks apart the rooms next to the player are stepped; 0
+     *              stops every room but the player's, as the game used to
+     */
+    public static void setInterval(int ticks) {
+        if (ticks < 0) {
+            throw new IllegalArgumentException("Offscreen interval can't be negative: " + ticks);
+        }
+        state().interval = ticks;
+    }
+
+    public static int getInterval() {
+        return state().interval;
+    }
+
+    /**
+     * @param everywhere whether to step every populated room in memory, instead of only
+     *                   the ones next to the player
+     */
+    public static void setWholeDungeon(boolean everywhere) {
+        state().wholeDungeon = everywhere;
+    }
+
+    public static boolean isWholeDungeon() {
+        return state().wholeDungeon;
+    }
+
+    /**
+     * @return the system that publishes the room being played and steps the others,
+     *         for the current session
+     */
+    public static GameSystem getSystem() {
+        State state = state();
+        if (state.system == null) {
+            state.system = new GameSystem("offscreen rooms", GameLoop.ROOM) {
+                @Override
+                public void handle(long tick) {
+                    Controller.getCurrentRoom().publishSnapshot(tick);
+                    if (state.interval > 0 && tick % state.interval == 0) {
+                        step(state, tick);
+                    }
+                }
+            };
+        }
+        return state.system;
+    }
+
+    /**
+     * Start stepping the populated rooms through the current room's doors, or all of
+     * them, up to a tick.
+     */
+    private static void step(State state, long tick) {
+        settle();
+        Room current = Controller.getCurrentRoom();
+        RoomLayout layout = Controller.getRoomLayout();
+        if (state.wholeDungeon) {
+            for (Room room : layout.getResidentRooms()) {
+                if (room != current && room.isPopulated() && room.getSimulatedTick() >= 0) {
+                    state.stepping.add(room);
+                }
+            }
+        } else {
+            for (int side = 0; side < 4; side++) {
+                if (current.getDoors()[side] == null) {
+                    continue;
+                }
+                int row = current.getRow() + ROW_STEP[side];
+                int column = current.getColumn() + COLUMN_STEP[side];
+                // Only rooms already in memory; stepping shouldn't make or page in rooms.
+                if (layout.isResident(row, column)) {
+                    Room room = layout.getRoom(row, column);
+                    if (room.isPopulated() && room.getSimulatedTick() >= 0) {
+                        state.stepping.add(room);
+                    }
+                }
+            }
+        }
+        if (!state.stepping.isEmpty()) {
+            ArrayList<ForkJoinTask<?>> steps = new ArrayList<>(state.stepping.size());
+            for (Room room : state.stepping) {
+                steps.add(ForkJoinTask.adapt(() -> room.simulateOffscreen(tick)));
+            }
+            state.step = WORKERS.submit(() -> ForkJoinTask.invokeAll(steps));
+        }
+    }
+
+    /**
+     * Wait for the rooms being stepped in the background, and finish them off on this
+     * thread. Anything that reads or changes rooms other than the player's should call
+     * this first.
+     */
+    public static void settle() {
+        State state = state();
+        if (state.step != null) {
+            try {
+                state.step.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                System.out.println("Could not simulate the rooms next door: " + e.getCause());
+            }
+            state.step = null;
+        }
+        for (Room room : state.stepping) {
+            room.settleOffscreen();
+            room.publishSnapshot(room.getSimulatedTick());
+        }
+        state.stepping.clear();
+    }
+
+    /**
+     * The player is going from one room into another: leave the one behind to be run
+     * at less detail, and catch the new one up on everything it missed.
+     * @param left    the room the player left, or null
+     * @param entered the room the player is now in
+     */
+    static void roomChanged(Room left, Room entered) {
+        settle();
+        long tick = GameLoop.getTick();
+        if (left != null && left != entered && state().interval > 0) {
+            left.setSimulatedTick(tick);
+        }
+        if (entered.getSimulatedTick() >= 0) {
+            entered.simulateOffscreen(tick);
+            entered.settleOffscreen();
+        }
+        entered.setSimulatedTick(-1);
+    }
+}
@@ -0,0 +1,128 @@
+package controller;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Saves the game being played to a file, and loads it back.
+ *
+ * A save is a compact binary file: a magic number and a version, then the game as
+ * Controller.writeGame() puts it, which is the seed and settings it was started with,
+ * the dungeon's doors and room kinds, what is in every room that has been visited,
+ * and last the tick it was saved on, the end screen stats, the player and the
+ * inventory. The rooms come before the rest so that SaveJournal can bring a save up
+ * to date with only what changed.
+ *
+ * Taking the snapshot only copies the game into a byte array, on the game's thread.
+ * The file is written on a background thread, so saving never holds up a frame. It is
+ * written beside the old save and then moved over it, so a crash while saving leaves
+ * the old save as it was.
+ */
+public class SaveGame {
+    static final int MAGIC = 0x4D425356; // "MBSV"
+    static final int VERSION = 4;
+
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "save writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private SaveGame() { }
+
+    /**
+     * @return the current session's game, as a save file's bytes
+     * @throws IOException if a room written out to disk can't be read back
+     */
+    public static byte[] snapshot() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        Controller.writeGame(out);
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Take a snapshot of the current session's game now, and write it to a file in
+     * the background.
+     * @param path the file to write; its directory is made if it doesn't exist
+     * @return completes with whether the file was written
+     */
+    public static CompletableFuture<Boolean> save(String path) {
+        byte[] bytes;
+        try {
+            bytes = snapshot();
+        } catch (IOException e) {
+            System.out.println("Could not save the game: " + e.getMessage());
+            return CompletableFuture.completedFuture(false);
+        }
+        return CompletableFuture.supplyAsync(() -> write(Paths.get(path), bytes), WRITER);
+    }
+
+    private static boolean write(Path path, byte[] bytes) {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            Path directory = path.toAbsolutePath().getParent();
+            if (directory != null) {
+                Files.createDirectories(directory);
+            }
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException e) {
+            System.out.println("Could not save the game: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Stop the current session's game and carry on with the one saved in a file.
+     * @param path the file, from save()
+     * @throws IOException if the file can't be read or isn't a save; the game being
+     *                     played is left alone then
+     */
+    public static void load(String path) throws IOException {
+        load(Files.readAllBytes(Paths.get(path)));
+    }
+
+    /**
+     * Stop the current session's game and carry on with a saved one.
+     * @param bytes the save, from snapshot()
+     * @throws IOException if the bytes aren't a save; the game being played is left
+     *                     alone then
+     */
+    public static void load(byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a saved game");
+        }
+        int version = in.readByte();
+        if (version != VERSION) {
+            throw new IOException("Saved game version " + version + " can't be loaded,"
+                    + " only version " + VERSION);
+        }
+        Controller.readGame(in);
+    }
+}
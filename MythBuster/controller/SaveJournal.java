@@ -0,0 +1,399 @@
+package controller;
+
+import gamefiles.rooms.Room;
+import gamefiles.rooms.RoomLayout;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.zip.CRC32;
+
+/**
+ * An autosave of the game being played, kept as a journal that is added to every time
+ * the player goes through a door, so a crash loses at most the room they are in.
+ *
+ * The journal starts with a snapshot of the whole game, as SaveGame takes it. After
+ * that every room transition adds a delta: the player's progress (as
+ * Controller.writeProgress() puts it), the room they just left, and every room
+ * OffscreenSimulation changed since the last entry, as RoomLayout.takeChangedRooms()
+ * finds them; no other room can have changed. Every COMPACT_EVERY deltas a new
+ * snapshot replaces the whole journal, so it never grows far.
+ *
+ * Making an entry only copies the game into a byte array, on the game's thread. One
+ * writer thread appends the entries of every journal and forces them to disk. Entries
+ * that pile up while it is busy are written together and forced once, and ones that a
+ * newer snapshot already covers are skipped, so a room transition never waits on the
+ * disk.
+ *
+ * Every entry carries a checksum, and recover() replays a journal up to its last whole
+ * entry, so an entry a crash cut short is simply left out.
+ */
+public class SaveJournal {
+    static final int MAGIC = 0x4D424A4C; // "MBJL"
+    static final int VERSION = 3;
+    public static final int COMPACT_EVERY = 32;
+
+    private static final byte SNAPSHOT = 0;
+    private static final byte DELTA = 1;
+    private static final byte CLOSE = 2;
+    private static final byte DISCARD = 3;
+
+    private static final LinkedBlockingQueue<Entry> QUEUE = new LinkedBlockingQueue<>();
+
+    static {
+        Thread writer = new Thread(SaveJournal::write, "autosave writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    private static final class Entry {
+        private final SaveJournal journal;
+        private final byte type;
+        private final byte[] payload;
+
+        private Entry(SaveJournal journal, byte type, byte[] payload) {
+            this.journal = journal;
+            this.type = type;
+            this.payload = payload;
+        }
+    }
+
+    private final Path path;
+    private int deltas;
+    private long queued;
+    private final ByteArrayOutputStream delta = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream contents = new ByteArrayOutputStream();
+
+    // Only the writer thread touches these.
+    private FileChannel channel;
+    private boolean dirty;
+    private long written;
+
+    /**
+     * A journal that hasn't been written to yet. Nothing touches the file until the
+     * first snapshot is written.
+     * @param path the journal's file; it is replaced, and its directory is made if
+     *             it doesn't exist
+     */
+    public SaveJournal(String path) {
+        this.path = Paths.get(path);
+    }
+
+    /**
+     * Start the journal over from a snapshot of the current session's game.
+     */
+    public void snapshot() {
+        byte[] bytes;
+        try {
+            bytes = SaveGame.snapshot();
+        } catch (IOException e) {
+            System.out.println("Could not autosave: " + e.getMessage());
+            return;
+        }
+        deltas = 0;
+        enqueue(SNAPSHOT, bytes);
+    }
+
+    /**
+     * Add the player's progress, a room they just walked out of and the rooms changed
+     * off-screen to the journal. Every COMPACT_EVERY times this takes a whole snapshot
+     * instead.
+     * @param left the room the player left
+     */
+    public void roomLeft(Room left) {
+        if (++deltas >= COMPACT_EVERY) {
+            snapshot();
+            return;
+        }
+        delta.reset();
+        contents.reset();
+        try {
+            DataOutputStream out = new DataOutputStream(delta);
+            DataOutputStream progress = new DataOutputStream(contents);
+            Controller.writeProgress(progress);
+            out.writeInt(contents.size());
+            contents.writeTo(out);
+            if (left.isPopulated()) {
+                contents.reset();
+                left.clearChangedOffscreen();
+                left.writeContents(progress);
+                out.writeShort(left.getRow());
+                out.writeShort(left.getColumn());
+                out.writeInt(contents.size());
+                contents.writeTo(out);
+            }
+            RoomLayout layout = Controller.getRoomLayout();
+            for (Map.Entry<Integer, byte[]> room : layout.takeChangedRooms().entrySet()) {
+                out.writeShort(room.getKey() / layout.getColumns());
+                out.writeShort(room.getKey() % layout.getColumns());
+                out.writeInt(room.getValue().length);
+                out.write(room.getValue());
+            }
+            out.writeShort(-1);
+        } catch (IOException e) {
+            System.out.println("Could not autosave: " + e.getMessage());
+            return;
+        }
+        enqueue(DELTA, delta.toByteArray());
+    }
+
+    /**
+     * Stop adding to the journal, and keep it for recover().
+     */
+    public void close() {
+        enqueue(CLOSE, null);
+    }
+
+    /**
+     * Stop adding to the journal, and delete it; for when the game is over.
+     */
+    public void discard() {
+        enqueue(DISCARD, null);
+    }
+
+    /**
+     * Wait until everything given to the journal so far is on disk.
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void sync() throws InterruptedException {
+        long target = queued;
+        synchronized (this) {
+            while (written < target) {
+                wait();
+            }
+        }
+    }
+
+    private void enqueue(byte type, byte[] payload) {
+        queued++;
+        QUEUE.add(new Entry(this, type, payload));
+    }
+
+    private static void write() {
+        ArrayList<Entry> batch = new ArrayList<>();
+        while (true) {
+            try {
+                batch.add(QUEUE.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            QUEUE.drainTo(batch);
+            for (int i = 0; i < batch.size(); i++) {
+                Entry entry = batch.get(i);
+                if (!coveredLater(batch, i)) {
+                    entry.journal.apply(entry);
+                }
+            }
+            for (Entry entry : batch) {
+                entry.journal.force();
+            }
+            for (Entry entry : batch) {
+                synchronized (entry.journal) {
+                    entry.journal.written++;
+                    entry.journal.notifyAll();
+                }
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * @return whether a later entry in the batch makes writing this one pointless
+     */
+    private static boolean coveredLater(ArrayList<Entry> batch, int index) {
+        Entry entry = batch.get(index);
+        if (entry.type != SNAPSHOT && entry.type != DELTA) {
+            return false;
+        }
+        for (int i = index + 1; i < batch.size(); i++) {
+            Entry later = batch.get(i);
+            if (later.journal == entry.journal && (later.type == SNAPSHOT || later.type == DISCARD)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void apply(Entry entry) {
+        try {
+            switch (entry.type) {
+            case SNAPSHOT:
+                rewrite(entry.payload);
+                break;
+            case DELTA:
+                if (channel != null) {
+                    append(channel, DELTA, entry.payload);
+                    dirty = true;
+                }
+                break;
+            case CLOSE:
+                force();
+                closeChannel();
+                break;
+            default:
+                closeChannel();
+                Files.deleteIfExists(path);
+                break;
+            }
+        } catch (IOException e) {
+            System.out.println("Could not autosave: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Compact the journal: write a new one holding only the snapshot beside the old
+     * one, and move it over the old one once it is on disk.
+     */
+    private void rewrite(byte[] snapshot) throws IOException {
+        closeChannel();
+        Path directory = path.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        FileChannel fresh = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(5).putInt(MAGIC).put((byte) VERSION);
+            header.flip();
+            while (header.hasRemaining()) {
+                fresh.write(header);
+            }
+            append(fresh, SNAPSHOT, snapshot);
+            fresh.force(true);
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            fresh.close();
+            throw e;
+        }
+        channel = fresh;
+        dirty = false;
+    }
+
+    private static void append(FileChannel channel, byte type, byte[] payload) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(payload);
+        ByteBuffer buffer = ByteBuffer.allocate(payload.length + 9);
+        buffer.putInt(payload.length).put(type).put(payload).putInt((int) crc.getValue());
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private void force() {
+        if (dirty && channel != null) {
+            try {
+                channel.force(false);
+            } catch (IOException e) {
+                System.out.println("Could not autosave: " + e.getMessage());
+            }
+            dirty = false;
+        }
+    }
+
+    private void closeChannel() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    /**
+     * Stop the current session's game and carry on from where a journal leaves off.
+     * @param path the journal's file
+     * @throws IOException if the file can't be read or has no whole snapshot; the
+     *                     game being played is left alone then
+     */
+    public static void recover(String path) throws IOException {
+        SaveGame.load(replay(Files.readAllBytes(Paths.get(path))));
+    }
+
+    /**
+     * Put a journal's snapshot and deltas together into one save.
+     * @param journal the journal's bytes
+     * @return a save for SaveGame.load()
+     * @throws IOException if the journal has no whole snapshot
+     */
+    static byte[] replay(byte[] journal) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(journal));
+        if (journal.length < 5 || in.readInt() != MAGIC) {
+            throw new IOException("Not an autosave journal");
+        }
+        int version = in.readByte();
+        if (version != VERSION) {
+            throw new IOException("Autosave journal version " + version + " can't be replayed,"
+                    + " only version " + VERSION);
+        }
+        byte[] snapshot = null;
+        ArrayList<byte[]> deltas = new ArrayList<>();
+        CRC32 crc = new CRC32();
+        while (in.available() >= 9) {
+            int length = in.readInt();
+            if (length < 0 || length > in.available() - 5) {
+                break;
+            }
+            byte type = in.readByte();
+            byte[] payload = new byte[length];
+            in.readFully(payload);
+            crc.reset();
+            crc.update(type);
+            crc.update(payload);
+            if (in.readInt() != (int) crc.getValue()) {
+                break;
+            }
+            if (type == SNAPSHOT) {
+                snapshot = payload;
+                deltas.clear();
+            } else {
+                deltas.add(payload);
+            }
+        }
+        if (snapshot == null) {
+            throw new IOException("The autosave journal has no snapshot");
+        }
+        if (deltas.isEmpty()) {
+            return snapshot;
+        }
+
+        // The snapshot's rooms with the deltas' rooms over them, then the last progress.
+        DataInputStream base = new DataInputStream(new ByteArrayInputStream(snapshot));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(snapshot.length);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(base.readInt());
+        out.writeByte(base.readByte());
+        out.writeLong(base.readLong());
+        out.writeByte(base.readByte());
+        out.writeByte(base.readByte());
+        RoomLayout layout = RoomLayout.read(base);
+        byte[] progress = null;
+        for (byte[] payload : deltas) {
+            DataInputStream delta = new DataInputStream(new ByteArrayInputStream(payload));
+            progress = new byte[delta.readInt()];
+            delta.readFully(progress);
+            for (int row = delta.readShort(); row >= 0; row = delta.readShort()) {
+                int column = delta.readShort();
+                byte[] contents = new byte[delta.readInt()];
+                delta.readFully(contents);
+                layout.restore(row, column, contents);
+            }
+        }
+        layout.write(out);
+        out.write(progress);
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,71 @@
+package controller;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * All the game state that used to live in static fields, so more than one game can
+ * run in the same JVM.
+ *
+ * Classes keep their static getters and setters, but read the state behind them from
+ * Session.current(). Normally that is one shared session, which is what the window and
+ * the GUI tests use from whatever thread they are on. A thread that binds its own
+ * session (see run()) sees only that session until it is done, which is how
+ * BatchSimulation plays many games side by side.
+ */
+public class Session {
+    private static final Session SHARED = new Session();
+    private static final ThreadLocal<Session> BOUND = new ThreadLocal<>();
+
+    private final Map<Class<?>, Object> state = new ConcurrentHashMap<>();
+
+    /**
+     * @return the session bound to this thread, or the shared one if there is none
+     */
+    public static Session current() {
+        Session bound = BOUND.get();
+        return bound != null ? bound : SHARED;
+    }
+
+    /**
+     * Run something with this session bound to the current thread, then put back
+     * whatever was bound before.
+     * @param body what to run
+     */
+    public void run(Runnable body) {
+        Session previous = BOUND.get();
+        BOUND.set(this);
+        try {
+            body.run();
+        } finally {
+            if (previous != null) {
+                BOUND.set(previous);
+            } else {
+                BOUND.remove();
+            }
+        }
+    }
+
+    /**
+     * Get one class's state in this session, making it the first time it is asked for.
+     * Safe from more than one thread, since the window's game may run on the simulation
+     * thread while the FX thread draws it; the state itself is only safe on one.
+     * @param type    the class holding the state, used as the key
+     * @param factory makes a fresh state
+     * @param <T>     the state type
+     * @return the state for this session
+     */
+    public <T> T get(Class<T> type, Supplier<T> factory) {
+        Object value = state.get(type);
+        if (value == null) {
+            // Not computeIfAbsent(): making one state often asks for another.
+            Object made = factory.get();
+            value = state.putIfAbsent(type, made);
+            if (value == null) {
+                value = made;
+            }
+        }
+        return type.cast(value);
+    }
+}
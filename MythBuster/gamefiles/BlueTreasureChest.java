@@ -4,13 +4,13 @@ import java.util.ArrayList;
 import java.util.List;
 
 import controller.Controller;
+import controller.GameRandom;
 import gamefiles.items.Item;
 import gamefiles.items.ItemDatabase;
 import gamefiles.items.DroppedItem;
 import gamefiles.items.DroppedWeapon;
 import gamefiles.weapons.Weapon;
 import gamefiles.weapons.WeaponDatabase;
-import javafx.animation.AnimationTimer;
 
 public class BlueTreasureChest extends TreasureChest {
     public BlueTreasureChest(double positionX, double positionY, int cost) {
@@ -21,7 +21,7 @@ public class BlueTreasureChest extends TreasureChest {
     public void open() {
         Controller.getPlayer().subtractCoins(cost);
 
-        int random = (int) (Math.random() * 2);
+        int random = (int) (GameRandom.loot().nextDouble() * 2);
         switch (random) {
         case 0:
             addPotion();
@@ -37,7 +37,7 @@ public class BlueTreasureChest extends TreasureChest {
     }
 
     private void addPotion() {
-        int amountToAdd = (int) (Math.random() * 3 + 2);
+        int amountToAdd = (int) (GameRandom.loot().nextDouble() * 3 + 2);
         ArrayList<Item> itemsToAdd = new ArrayList<Item>();
         for (int i = 0; i < amountToAdd; i++) {
             addRandomPotion(itemsToAdd);
@@ -46,15 +46,11 @@ public class BlueTreasureChest extends TreasureChest {
             DroppedItem droppedItem = new DroppedItem(itemsToAdd.get(i));
             droppedItem.drop(positionX, positionY, true);
         }
-        if (!atQueue.isEmpty()) {
-            AnimationTimer e = atQueue.remove();
-            e.stop();
-        }
         displayReward("You have gained " + Integer.toString(amountToAdd) + " potions!");
     }
 
     private void addRandomPotion(ArrayList<Item> itemsToAdd) {
-        int random = (int) (Math.random() * 3);
+        int random = (int) (GameRandom.loot().nextDouble() * 3);
         switch (random) {
         case 0:
             Item healthPotion = ItemDatabase.getItem(0);
@@ -80,7 +76,7 @@ public class BlueTreasureChest extends TreasureChest {
     }
 
     private void addWeapon() {
-        Weapon weapon = WeaponDatabase.getWeapon((int) (Math.random() * 3));
+        Weapon weapon = WeaponDatabase.getWeapon((int) (GameRandom.loot().nextDouble() * 3));
         if (!hasWeapon(weapon)) {
             DroppedItem droppedItem = new DroppedWeapon(weapon);
             droppedItem.drop(positionX, positionY, true);
@@ -1,16 +1,15 @@
 package gamefiles;
 
 import gamefiles.rooms.Room;
+import gamefiles.rooms.RoomLayout;
 import javafx.geometry.Rectangle2D;
-import javafx.scene.Group;
-import javafx.scene.image.Image;
-import javafx.scene.image.ImageView;
-import javafx.scene.paint.Color;
-import javafx.scene.shape.Rectangle;
 
 public class Door implements Touchable {
 
     private Room destination;
+    private RoomLayout layout;
+    private int destinationRow;
+    private int destinationColumn;
 
     private double positionX;
     private double positionY;
@@ -21,8 +20,6 @@ public class Door implements Touchable {
     private boolean locked;
     private boolean isBossDoor;
 
-    private ImageView imageView;
-
     public enum Rotation{
         TOP(0),
         RIGHT(90),
@@ -34,62 +31,65 @@ public class Door implements Touchable {
         Rotation(final int value) {
             this.value = value;
         }
-    }
 
+        public int getValue() {
+            return value;
+        }
+    }
 
-    private Group doorGroup;
     public Door(double x, double y, Room destination) {
-        doorGroup = new Group();
-        imageView = new ImageView("sprites/door.png");
-        imageView.setFitWidth(width);
-        imageView.setFitHeight(height);
-        doorGroup.getChildren().addAll(imageView);
         relocate(x, y);
         this.destination = destination;
         locked = true;
     }
 
-    public Group getGroup() {
-        imageView.setRotate(rotation.value);
+    /**
+     * A door to a room that may not have been made yet; it is looked up in the layout
+     * when asked for, so opening a room never makes its neighbours.
+     * @param x      the door's x
+     * @param y      the door's y
+     * @param layout the dungeon the room is in
+     * @param row    the room's row
+     * @param column the room's column
+     */
+    public Door(double x, double y, RoomLayout layout, int row, int column) {
+        this(x, y, null);
+        this.layout = layout;
+        this.destinationRow = row;
+        this.destinationColumn = column;
+    }
+
+    public String getSpritePath() {
         if (isBossDoor && isLocked()) {
-            imageView.setImage(new Image("sprites/LockedBossDoor.png"));
+            return "sprites/LockedBossDoor.png";
         } else if (isBossDoor) {
-            imageView.setImage(new Image("sprites/OpenBossDoor.png"));
+            return "sprites/OpenBossDoor.png";
         } else if (isLocked()) {
-            imageView.setImage(new Image("sprites/locked_door2.png"));
+            return "sprites/locked_door2.png";
         } else {
-            imageView.setImage(new Image("sprites/door2.png"));
+            return "sprites/door2.png";
         }
-        return doorGroup;
     }
+
     public void relocate(double x, double y) {
         positionX = x;
         positionY = y;
-        doorGroup.relocate(positionX, positionY);
     }
 
     public void setRotation(Rotation rotation) {
         this.rotation = rotation;
     }
 
+    public Rotation getRotation() {
+        return rotation;
+    }
+
     public void unlock() {
         locked = false;
-        if(isBossDoor){
-            imageView.setImage(new Image("sprites/OpenBossDoor.png"));
-        } else {
-            imageView.setImage(new Image("sprites/door2.png"));
-        }
-
     }
 
     public void lock() {
         locked = true;
-        if(isBossDoor){
-            imageView.setImage(new Image("sprites/LockedBossDoor.png"));
-        } else {
-            imageView.setImage(new Image("sprites/locked_door2.png"));
-        }
-
     }
     public void setBossDoor() {
         isBossDoor = true;
@@ -103,8 +103,17 @@ public class Door implements Touchable {
         return new Rectangle2D(positionX, positionY, width, height);
     }
 
-    public boolean intersects(Touchable other) {
-        return other.getBoundary().intersects(this.getBoundary());
+    public double getMinX() {
+        return positionX;
+    }
+    public double getMinY() {
+        return positionY;
+    }
+    public double getMaxX() {
+        return positionX + width;
+    }
+    public double getMaxY() {
+        return positionY + height;
     }
 
     public static double getWidth() {
@@ -114,6 +123,9 @@ public class Door implements Touchable {
         return height;
     }
     public Room getDestination() {
+        if (destination == null && layout != null) {
+            return layout.getRoom(destinationRow, destinationColumn);
+        }
         return destination;
     }
 
@@ -125,7 +137,7 @@ public class Door implements Touchable {
         return positionY;
     }
 
-    public ImageView getImageView() {
-        return imageView;
+    public boolean isBossDoor() {
+        return isBossDoor;
     }
 }
@@ -1,5 +1,6 @@
 package gamefiles;
 
+import controller.GameRandom;
 import gamefiles.items.Item;
 import gamefiles.items.DroppedItem;
 import gamefiles.items.DroppedCoin;
@@ -22,7 +23,7 @@ public class DropMethods {
         } else {
             int[] nums = new int[num]; // reserve one coin for "remainder"
             for (int i = 0; i < nums.length - 1; i++) {
-                nums[i] = (int) (Math.random() * coinsToSplit + 1); // determine breaks
+                nums[i] = (int) (GameRandom.loot().nextDouble() * coinsToSplit + 1); // determine breaks
             }
             nums[num - 1] = coinsToSplit;
 
@@ -53,7 +54,7 @@ public class DropMethods {
         } else {
             int[] nums = new int[num]; // reserve one coin for "remainder"
             for (int i = 0; i < nums.length - 1; i++) {
-                nums[i] = (int) (Math.random() * coinsToSplit + 1); // determine breaks
+                nums[i] = (int) (GameRandom.loot().nextDouble() * coinsToSplit + 1); // determine breaks
             }
             nums[num - 1] = coinsToSplit;
 
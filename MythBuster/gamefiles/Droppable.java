@@ -1,10 +1,11 @@
 package gamefiles;
 
-import javafx.scene.Group;
+import gamefiles.items.Item;
 
 public interface Droppable extends Touchable {
     public void drop(double positionX, double positionY, boolean randomize);
     public void pickup();
     public void update();
-    public Group getGroup();
+    public Item getItem();
+    public boolean getDropped();
 }
@@ -0,0 +1,208 @@
+package gamefiles;
+
+import java.util.Arrays;
+
+/**
+ * Lightweight things that can come in the thousands, like projectiles, kept as
+ * parallel arrays of primitives instead of one object each.
+ *
+ * Entity i is the i-th element of every array. Updating all of them is a tight loop
+ * over a few arrays with nothing to chase through pointers, and nothing is allocated
+ * per entity once the arrays have grown. Removing swaps the last entity into the hole,
+ * so indexes are only good until the next remove, and a loop that removes should not
+ * advance past the index it removed.
+ */
+public class EntityStore {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private int count;
+    private int[] kinds = new int[INITIAL_CAPACITY];
+    private double[] x = new double[INITIAL_CAPACITY];
+    private double[] y = new double[INITIAL_CAPACITY];
+    private double[] velocityX = new double[INITIAL_CAPACITY];
+    private double[] velocityY = new double[INITIAL_CAPACITY];
+    private double[] width = new double[INITIAL_CAPACITY];
+    private double[] height = new double[INITIAL_CAPACITY];
+    private double[] speed = new double[INITIAL_CAPACITY];
+    private double[] health = new double[INITIAL_CAPACITY];
+    private double[] damage = new double[INITIAL_CAPACITY];
+    private int[] timers = new int[INITIAL_CAPACITY];
+
+    /**
+     * Add an entity that isn't moving yet.
+     * @param kind   what it is, so one store can hold more than one kind of thing
+     * @param x      the left of its bounding box
+     * @param y      the top of its bounding box
+     * @param width  the width of its bounding box
+     * @param height the height of its bounding box
+     * @return its index
+     */
+    public int add(int kind, double x, double y, double width, double height) {
+        if (count == kinds.length) {
+            grow();
+        }
+        int i = count++;
+        kinds[i] = kind;
+        this.x[i] = x;
+        this.y[i] = y;
+        this.width[i] = width;
+        this.height[i] = height;
+        velocityX[i] = 0;
+        velocityY[i] = 0;
+        speed[i] = 0;
+        health[i] = 0;
+        damage[i] = 0;
+        timers[i] = 0;
+        return i;
+    }
+
+    /**
+     * Remove an entity by moving the last one into its place.
+     * @param i the index to remove
+     */
+    public void remove(int i) {
+        int last = --count;
+        if (i != last) {
+            kinds[i] = kinds[last];
+            x[i] = x[last];
+            y[i] = y[last];
+            velocityX[i] = velocityX[last];
+            velocityY[i] = velocityY[last];
+            width[i] = width[last];
+            height[i] = height[last];
+            speed[i] = speed[last];
+            health[i] = health[last];
+            damage[i] = damage[last];
+            timers[i] = timers[last];
+        }
+    }
+
+    public void clear() {
+        count = 0;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @param kind the kind to count
+     * @return how many entities of that kind there are
+     */
+    public int count(int kind) {
+        int total = 0;
+        for (int i = 0; i < count; i++) {
+            if (kinds[i] == kind) {
+                total++;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * The same test as Touchable.intersects, for entity i.
+     * @param i     the entity
+     * @param other the thing to test against
+     * @return whether their bounding boxes overlap
+     */
+    public boolean intersects(int i, Touchable other) {
+        return other.intersects(x[i], y[i], width[i], height[i]);
+    }
+
+    /**
+     * Move entity i by its velocity.
+     * @param i the entity
+     */
+    public void move(int i) {
+        x[i] += velocityX[i];
+        y[i] += velocityY[i];
+    }
+
+    private void grow() {
+        int capacity = kinds.length * 2;
+        kinds = Arrays.copyOf(kinds, capacity);
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        velocityX = Arrays.copyOf(velocityX, capacity);
+        velocityY = Arrays.copyOf(velocityY, capacity);
+        width = Arrays.copyOf(width, capacity);
+        height = Arrays.copyOf(height, capacity);
+        speed = Arrays.copyOf(speed, capacity);
+        health = Arrays.copyOf(health, capacity);
+        damage = Arrays.copyOf(damage, capacity);
+        timers = Arrays.copyOf(timers, capacity);
+    }
+
+    public int getKind(int i) {
+        return kinds[i];
+    }
+
+    public double getX(int i) {
+        return x[i];
+    }
+
+    public double getY(int i) {
+        return y[i];
+    }
+
+    public double getWidth(int i) {
+        return width[i];
+    }
+
+    public double getHeight(int i) {
+        return height[i];
+    }
+
+    public double getVelocityX(int i) {
+        return velocityX[i];
+    }
+
+    public double getVelocityY(int i) {
+        return velocityY[i];
+    }
+
+    public void setVelocity(int i, double velocityX, double velocityY) {
+        this.velocityX[i] = velocityX;
+        this.velocityY[i] = velocityY;
+    }
+
+    public double getSpeed(int i) {
+        return speed[i];
+    }
+
+    public void setSpeed(int i, double speed) {
+        this.speed[i] = speed;
+    }
+
+    public double getHealth(int i) {
+        return health[i];
+    }
+
+    public void setHealth(int i, double health) {
+        this.health[i] = health;
+    }
+
+    public void takeDamage(int i, double value) {
+        health[i] -= value;
+    }
+
+    public double getDamage(int i) {
+        return damage[i];
+    }
+
+    public void setDamage(int i, double damage) {
+        this.damage[i] = damage;
+    }
+
+    /**
+     * @param i the entity
+     * @return a countdown the entity's kind can use, like ticks left to live
+     */
+    public int getTimer(int i) {
+        return timers[i];
+    }
+
+    public void setTimer(int i, int ticks) {
+        timers[i] = ticks;
+    }
+}
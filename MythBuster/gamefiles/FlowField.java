@@ -0,0 +1,291 @@
+package gamefiles;
+
+import java.util.Arrays;
+
+/**
+ * Which way to go from anywhere in a room to reach one target, worked out once for
+ * everything chasing that target.
+ *
+ * The room is split into a coarse grid of CELL_SIZE cells, and cells can be blocked.
+ * When the target moves into a different cell, every cell gets the walking distance
+ * from it to the target's cell, and the direction of its neighbour that is closest to
+ * the target. Moving inside the same cell only moves the target. Sampling a direction
+ * is then one array lookup, so a room full of chasers costs no more path finding than
+ * one chaser does.
+ *
+ * From a cell that can see the target's cell in a straight line, the direction is
+ * straight at the target itself, so in an open room chasers go exactly where they
+ * would if they aimed at the target directly.
+ */
+public class FlowField {
+    public static final double CELL_SIZE = 50;
+
+    private static final int STRAIGHT = 10;
+    private static final int DIAGONAL = 14;
+    private static final int UNREACHABLE = Integer.MAX_VALUE;
+    private static final int[] STEP_COLUMN = {-1, 0, 1, 0, -1, 1, 1, -1};
+    private static final int[] STEP_ROW = {0, -1, 0, 1, -1, -1, 1, 1};
+
+    private final int columns;
+    private final int rows;
+    private final boolean[] blocked;
+    private int blockedCount;
+    private final int[] distance;
+    private final boolean[] direct;
+    private final double[] directionX;
+    private final double[] directionY;
+    private final int[] queue;
+    private final boolean[] queued;
+
+    private double targetX;
+    private double targetY;
+    private int targetCell = -1;
+    private int builds;
+
+    /**
+     * @param width  the width of the room
+     * @param height the height of the room
+     */
+    public FlowField(double width, double height) {
+        columns = Math.max(1, (int) Math.ceil(width / CELL_SIZE));
+        rows = Math.max(1, (int) Math.ceil(height / CELL_SIZE));
+        int cells = columns * rows;
+        blocked = new boolean[cells];
+        distance = new int[cells];
+        direct = new boolean[cells];
+        directionX = new double[cells];
+        directionY = new double[cells];
+        queue = new int[cells];
+        queued = new boolean[cells];
+    }
+
+    /**
+     * Block every cell a rectangle overlaps, like a wall or a pillar.
+     * @param x      the left of the rectangle
+     * @param y      the top of the rectangle
+     * @param width  the width of the rectangle
+     * @param height the height of the rectangle
+     */
+    public void block(double x, double y, double width, double height) {
+        for (int row = row(y); row <= row(y + height); row++) {
+            for (int column = column(x); column <= column(x + width); column++) {
+                if (!blocked[row * columns + column]) {
+                    blocked[row * columns + column] = true;
+                    blockedCount++;
+                }
+            }
+        }
+        targetCell = -1;
+    }
+
+    /**
+     * Unblock every cell, for a room with nothing in the way.
+     */
+    public void clear() {
+        Arrays.fill(blocked, false);
+        blockedCount = 0;
+        targetCell = -1;
+    }
+
+    /**
+     * @param x the x of a point
+     * @param y the y of a point
+     * @return whether the point is in a blocked cell
+     */
+    public boolean isBlocked(double x, double y) {
+        return blocked[row(y) * columns + column(x)];
+    }
+
+    /**
+     * Point the field at a target. Only works the field out again if the target is
+     * in a different cell than last time, or cells were blocked since.
+     * @param x the x of the target
+     * @param y the y of the target
+     */
+    public void aim(double x, double y) {
+        targetX = x;
+        targetY = y;
+        int cell = row(y) * columns + column(x);
+        if (cell != targetCell) {
+            targetCell = cell;
+            if (blockedCount > 0) {
+                build();
+            }
+        }
+    }
+
+    /**
+     * @param x the x of where the chaser is
+     * @param y the y of where the chaser is
+     * @return the x of the unit vector a chaser there should move along; 0 with
+     *         directionY() if it can't reach the target or is on it
+     */
+    public double directionX(double x, double y) {
+        int cell = row(y) * columns + column(x);
+        if (blockedCount == 0 || direct[cell]) {
+            double offsetX = targetX - x;
+            double offsetY = targetY - y;
+            double magnitude = Math.sqrt(offsetX * offsetX + offsetY * offsetY);
+            return magnitude == 0 ? 0 : offsetX / magnitude;
+        }
+        return directionX[cell];
+    }
+
+    /**
+     * @param x the x of where the chaser is
+     * @param y the y of where the chaser is
+     * @return the y of the unit vector a chaser there should move along
+     */
+    public double directionY(double x, double y) {
+        int cell = row(y) * columns + column(x);
+        if (blockedCount == 0 || direct[cell]) {
+            double offsetX = targetX - x;
+            double offsetY = targetY - y;
+            double magnitude = Math.sqrt(offsetX * offsetX + offsetY * offsetY);
+            return magnitude == 0 ? 0 : offsetY / magnitude;
+        }
+        return directionY[cell];
+    }
+
+    /**
+     * @param x the x of a point
+     * @param y the y of a point
+     * @return how many cells a chaser there has to go through to reach the target's
+     *         cell, counting diagonal steps as 1.4, or -1 if it can't
+     */
+    public double getDistance(double x, double y) {
+        if (blockedCount == 0) {
+            int columnsAway = Math.abs(column(x) - targetCell % columns);
+            int rowsAway = Math.abs(row(y) - targetCell / columns);
+            return Math.max(columnsAway, rowsAway) + 0.4 * Math.min(columnsAway, rowsAway);
+        }
+        int cells = distance[row(y) * columns + column(x)];
+        return cells == UNREACHABLE ? -1 : cells / (double) STRAIGHT;
+    }
+
+    /**
+     * @return how many times the field has been worked out, to check it isn't done
+     *         more often than it needs to be
+     */
+    public int getBuilds() {
+        return builds;
+    }
+
+    /**
+     * Distances out from the target's cell, then each cell's direction.
+     */
+    private void build() {
+        builds++;
+        Arrays.fill(distance, UNREACHABLE);
+        // Diagonal steps cost more than straight ones, so a cell can be queued again
+        // when a shorter way to it turns up. The grid is small enough for that to be
+        // quicker than keeping a heap.
+        int head = 0;
+        int size = 1;
+        distance[targetCell] = 0;
+        queue[0] = targetCell;
+        queued[targetCell] = true;
+        while (size > 0) {
+            int cell = queue[head];
+            queued[cell] = false;
+            head = (head + 1) % queue.length;
+            size--;
+            for (int step = 0; step < 8; step++) {
+                int next = neighbour(cell, step);
+                if (next < 0) {
+                    continue;
+                }
+                int through = distance[cell] + (step < 4 ? STRAIGHT : DIAGONAL);
+                if (through < distance[next]) {
+                    distance[next] = through;
+                    if (!queued[next]) {
+                        queued[next] = true;
+                        queue[(head + size) % queue.length] = next;
+                        size++;
+                    }
+                }
+            }
+        }
+
+        for (int cell = 0; cell < distance.length; cell++) {
+            directionX[cell] = 0;
+            directionY[cell] = 0;
+            direct[cell] = !blocked[cell] && canSee(cell, targetCell);
+            if (direct[cell] || distance[cell] == UNREACHABLE) {
+                continue;
+            }
+            int best = distance[cell];
+            for (int step = 0; step < 8; step++) {
+                int next = neighbour(cell, step);
+                if (next >= 0 && distance[next] < best) {
+                    best = distance[next];
+                    double magnitude = step < 4 ? 1 : Math.sqrt(2);
+                    directionX[cell] = STEP_COLUMN[step] / magnitude;
+                    directionY[cell] = STEP_ROW[step] / magnitude;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the cell one step from a cell, or -1 if it is off the grid, blocked, or
+     *         a diagonal step that would cut the corner of a blocked cell
+     */
+    private int neighbour(int cell, int step) {
+        int column = cell % columns + STEP_COLUMN[step];
+        int row = cell / columns + STEP_ROW[step];
+        if (column < 0 || column >= columns || row < 0 || row >= rows
+                || blocked[row * columns + column]) {
+            return -1;
+        }
+        if (step >= 4 && (blocked[cell / columns * columns + column]
+                || blocked[row * columns + cell % columns])) {
+            return -1;
+        }
+        return row * columns + column;
+    }
+
+    /**
+     * @return whether a straight line between the middles of two cells crosses no
+     *         blocked cell
+     */
+    private boolean canSee(int from, int to) {
+        int column = from % columns;
+        int row = from / columns;
+        int toColumn = to % columns;
+        int toRow = to / columns;
+        int stepsX = Math.abs(toColumn - column);
+        int stepsY = Math.abs(toRow - row);
+        int stepX = column < toColumn ? 1 : -1;
+        int stepY = row < toRow ? 1 : -1;
+        // Walks every cell the line touches, stepping along whichever axis the line
+        // crosses into next.
+        int error = stepsX - stepsY;
+        for (int n = stepsX + stepsY; n > 0; n--) {
+            if (error > 0) {
+                column += stepX;
+                error -= 2 * stepsY;
+            } else if (error < 0) {
+                row += stepY;
+                error += 2 * stepsX;
+            } else {
+                column += stepX;
+                row += stepY;
+                error += 2 * (stepsX - stepsY);
+                n--;
+            }
+            if (blocked[row * columns + column]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int column(double x) {
+        return Math.min(columns - 1, Math.max(0, (int) Math.floor(x / CELL_SIZE)));
+    }
+
+    private int row(double y) {
+        return Math.min(rows - 1, Math.max(0, (int) Math.floor(y / CELL_SIZE)));
+    }
+}
@@ -1,7 +1,6 @@
 package gamefiles;
 
 import controller.Controller;
-import javafx.animation.AnimationTimer;
 
 public class GreenTreasureChest extends TreasureChest {
     public GreenTreasureChest(double positionX, double positionY, int cost) {
@@ -13,10 +12,6 @@ public class GreenTreasureChest extends TreasureChest {
         Controller.getPlayer().subtractCoins(cost);
 
         Controller.getPlayer().setHealth(Controller.getPlayer().getMaximumHealth());
-        if (!atQueue.isEmpty()) {
-            AnimationTimer e = atQueue.remove();
-            e.stop();
-        }
         displayReward("Your health is fully restored!");
 
         opened = true;
@@ -3,9 +3,9 @@ package gamefiles;
 import java.util.ArrayList;
 
 import controller.Controller;
+import controller.GameRandom;
 import gamefiles.items.Item;
 import gamefiles.items.ItemDatabase;
-import javafx.animation.AnimationTimer;
 import gamefiles.items.DroppedItem;
 
 public class RedTreasureChest extends TreasureChest {
@@ -16,7 +16,7 @@ public class RedTreasureChest extends TreasureChest {
     @Override
     public void open() {
         Controller.getPlayer().subtractCoins(cost);
-        int random = (int) (Math.random() * 6);
+        int random = (int) (GameRandom.loot().nextDouble() * 6);
         switch (random) {
         case 0:
         case 1:
@@ -24,24 +24,16 @@ public class RedTreasureChest extends TreasureChest {
             cursePlayer();
             break;
         case 3:
-            int coinAmount = (int) (Math.random() * 9 + 4) * 5;
+            int coinAmount = (int) (GameRandom.loot().nextDouble() * 9 + 4) * 5;
             dropCoins(coinAmount, 12, positionX, positionY);
-            if (!atQueue.isEmpty()) {
-                AnimationTimer e = atQueue.remove();
-                e.stop();
-            }
             displayReward("You found " + Integer.toString(coinAmount) + " coins!");
             break;
         case 4:
             Controller.getPlayer().addMaximumHealth(100);
-            if (!atQueue.isEmpty()) {
-                AnimationTimer e = atQueue.remove();
-                e.stop();
-            }
             displayReward("You gained 2 extra heart!");
             break;
         case 5:
-            int amountToAdd = (int) (Math.random() * 3 + 3);
+            int amountToAdd = (int) (GameRandom.loot().nextDouble() * 3 + 3);
             ArrayList<Item> itemsToAdd = new ArrayList<Item>();
             for (int i = 0; i < amountToAdd; i++) {
                 addRandomPotion(itemsToAdd);
@@ -50,10 +42,6 @@ public class RedTreasureChest extends TreasureChest {
                 DroppedItem droppedItem = new DroppedItem(itemsToAdd.get(i));
                 droppedItem.drop(positionX, positionY, true);
             }
-            if (!atQueue.isEmpty()) {
-                AnimationTimer e = atQueue.remove();
-                e.stop();
-            }
             displayReward("You have gained " + Integer.toString(amountToAdd) + " potions!");
             break;
         default:
@@ -64,7 +52,7 @@ public class RedTreasureChest extends TreasureChest {
     }
 
     private void addRandomPotion(ArrayList<Item> itemsToAdd) {
-        int random = (int) (Math.random() * 2);
+        int random = (int) (GameRandom.loot().nextDouble() * 2);
         switch (random) {
         case 0:
             Item healthPotion = ItemDatabase.getItem(0);
@@ -0,0 +1,248 @@
+package gamefiles;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * A uniform grid of buckets over a room, so collision queries only look at the
+ * things near where they ask instead of at everything in the room.
+ *
+ * Each thing is kept in every cell its boundary overlaps. Things that move have to
+ * call update() (Monster does, from moveAbsolute and moveRelative), which only
+ * touches the buckets when the thing crosses into a different cell. Anything outside
+ * the room is kept in the nearest edge cell.
+ *
+ * Queries fill a list the caller passes in, so a system can reuse one list every
+ * tick. Results come out in a fixed order (by cell, then by when each thing entered
+ * the cell), so the same game always gets the same answers.
+ *
+ * @param <T> what the grid holds
+ */
+public class SpatialGrid<T extends Touchable> {
+    public static final double CELL_SIZE = 100;
+
+    private final int columns;
+    private final int rows;
+    private final ArrayList<ArrayList<Entry<T>>> cells;
+    private final IdentityHashMap<T, Entry<T>> entries = new IdentityHashMap<>();
+    private int stamp;
+
+    private static final class Entry<T> {
+        private final T item;
+        private int minColumn;
+        private int minRow;
+        private int maxColumn;
+        private int maxRow;
+        private int stamp;
+
+        Entry(T item) {
+            this.item = item;
+        }
+    }
+
+    /**
+     * @param width  the width of the room
+     * @param height the height of the room
+     */
+    public SpatialGrid(double width, double height) {
+        columns = Math.max(1, (int) Math.ceil(width / CELL_SIZE));
+        rows = Math.max(1, (int) Math.ceil(height / CELL_SIZE));
+        cells = new ArrayList<>(columns * rows);
+        for (int i = 0; i < columns * rows; i++) {
+            cells.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Start tracking something. Does nothing if it is already in the grid.
+     * @param item the thing to add
+     */
+    public void insert(T item) {
+        if (entries.containsKey(item)) {
+            return;
+        }
+        Entry<T> entry = new Entry<>(item);
+        entries.put(item, entry);
+        place(entry);
+        addToCells(entry);
+    }
+
+    /**
+     * Stop tracking something. Does nothing if it isn't in the grid.
+     * @param item the thing to remove
+     */
+    public void remove(T item) {
+        Entry<T> entry = entries.remove(item);
+        if (entry != null) {
+            removeFromCells(entry);
+        }
+    }
+
+    /**
+     * Move something to the cells its boundary overlaps now. Does nothing if it isn't
+     * in the grid, so anything can call it whenever it moves.
+     * @param item the thing that moved
+     */
+    public void update(T item) {
+        Entry<T> entry = entries.get(item);
+        if (entry == null) {
+            return;
+        }
+        if (column(item.getMinX()) == entry.minColumn
+                && row(item.getMinY()) == entry.minRow
+                && column(item.getMaxX()) == entry.maxColumn
+                && row(item.getMaxY()) == entry.maxRow) {
+            return;
+        }
+        removeFromCells(entry);
+        place(entry);
+        addToCells(entry);
+    }
+
+    public void clear() {
+        for (ArrayList<Entry<T>> cell : cells) {
+            cell.clear();
+        }
+        entries.clear();
+    }
+
+    public boolean contains(T item) {
+        return entries.containsKey(item);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Find everything whose boundary intersects a rectangle.
+     * @param x      the left of the rectangle
+     * @param y      the top of the rectangle
+     * @param width  the width of the rectangle
+     * @param height the height of the rectangle
+     * @param out    the list to add the results to; not cleared first
+     * @return out
+     */
+    public List<T> queryRect(double x, double y, double width, double height, List<T> out) {
+        int query = ++stamp;
+        int maxColumn = column(x + width);
+        int maxRow = row(y + height);
+        for (int row = row(y); row <= maxRow; row++) {
+            for (int column = column(x); column <= maxColumn; column++) {
+                ArrayList<Entry<T>> cell = cells.get(row * columns + column);
+                for (int i = 0; i < cell.size(); i++) {
+                    Entry<T> entry = cell.get(i);
+                    if (entry.stamp != query) {
+                        entry.stamp = query;
+                        if (entry.item.intersects(x, y, width, height)) {
+                            out.add(entry.item);
+                        }
+                    }
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Find everything whose boundary intersects another thing's boundary.
+     * @param other the thing to test against; left out of the results
+     * @param out   the list to add the results to; not cleared first
+     * @return out
+     */
+    public List<T> queryTouching(Touchable other, List<T> out) {
+        int before = out.size();
+        int query = ++stamp;
+        int maxColumn = column(other.getMaxX());
+        int maxRow = row(other.getMaxY());
+        for (int row = row(other.getMinY()); row <= maxRow; row++) {
+            for (int column = column(other.getMinX()); column <= maxColumn; column++) {
+                ArrayList<Entry<T>> cell = cells.get(row * columns + column);
+                for (int i = 0; i < cell.size(); i++) {
+                    Entry<T> entry = cell.get(i);
+                    if (entry.stamp != query) {
+                        entry.stamp = query;
+                        if (entry.item.intersects(other)) {
+                            out.add(entry.item);
+                        }
+                    }
+                }
+            }
+        }
+        for (int i = out.size() - 1; i >= before; i--) {
+            if (out.get(i) == other) {
+                out.remove(i);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Find everything whose boundary comes within a distance of a point.
+     * @param centerX the x of the point
+     * @param centerY the y of the point
+     * @param radius  the distance
+     * @param out     the list to add the results to; not cleared first
+     * @return out
+     */
+    public List<T> queryRadius(double centerX, double centerY, double radius, List<T> out) {
+        int query = ++stamp;
+        int maxColumn = column(centerX + radius);
+        int maxRow = row(centerY + radius);
+        double radiusSquared = radius * radius;
+        for (int row = row(centerY - radius); row <= maxRow; row++) {
+            for (int column = column(centerX - radius); column <= maxColumn; column++) {
+                ArrayList<Entry<T>> cell = cells.get(row * columns + column);
+                for (int i = 0; i < cell.size(); i++) {
+                    Entry<T> entry = cell.get(i);
+                    if (entry.stamp != query) {
+                        entry.stamp = query;
+                        T item = entry.item;
+                        // Distance from the point to the nearest point of the boundary.
+                        double dx = centerX - Math.max(item.getMinX(),
+                                Math.min(centerX, item.getMaxX()));
+                        double dy = centerY - Math.max(item.getMinY(),
+                                Math.min(centerY, item.getMaxY()));
+                        if (dx * dx + dy * dy <= radiusSquared) {
+                            out.add(entry.item);
+                        }
+                    }
+                }
+            }
+        }
+        return out;
+    }
+
+    private void place(Entry<T> entry) {
+        T item = entry.item;
+        entry.minColumn = column(item.getMinX());
+        entry.minRow = row(item.getMinY());
+        entry.maxColumn = column(item.getMaxX());
+        entry.maxRow = row(item.getMaxY());
+    }
+
+    private void addToCells(Entry<T> entry) {
+        for (int row = entry.minRow; row <= entry.maxRow; row++) {
+            for (int column = entry.minColumn; column <= entry.maxColumn; column++) {
+                cells.get(row * columns + column).add(entry);
+            }
+        }
+    }
+
+    private void removeFromCells(Entry<T> entry) {
+        for (int row = entry.minRow; row <= entry.maxRow; row++) {
+            for (int column = entry.minColumn; column <= entry.maxColumn; column++) {
+                cells.get(row * columns + column).remove(entry);
+            }
+        }
+    }
+
+    private int column(double x) {
+        return Math.max(0, Math.min(columns - 1, (int) Math.floor(x / CELL_SIZE)));
+    }
+
+    private int row(double y) {
+        return Math.max(0, Math.min(rows - 1, (int) Math.floor(y / CELL_SIZE)));
+    }
+}
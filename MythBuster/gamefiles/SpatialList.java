@@ -0,0 +1,309 @@
+package gamefiles;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * An ArrayList that keeps a SpatialGrid of its contents up to date, so code can keep
+ * adding to and removing from a plain list while collision code queries the grid.
+ *
+ * Every way of changing the list keeps the grid in step: its own methods, its
+ * iterators and its sub-lists. The bulk removals rebuild the grid afterwards.
+ *
+ * @param <T> what the list holds
+ */
+public class SpatialList<T extends Touchable> extends ArrayList<T> {
+    private static final long serialVersionUID = 1L;
+
+    private final SpatialGrid<T> grid;
+
+    /**
+     * @param width  the width of the room
+     * @param height the height of the room
+     */
+    public SpatialList(double width, double height) {
+        grid = new SpatialGrid<>(width, height);
+    }
+
+    /**
+     * @param width    the width of the room
+     * @param height   the height of the room
+     * @param contents what to start with
+     */
+    public SpatialList(double width, double height, Collection<? extends T> contents) {
+        this(width, height);
+        addAll(contents);
+    }
+
+    public SpatialGrid<T> getGrid() {
+        return grid;
+    }
+
+    @Override
+    public boolean add(T item) {
+        grid.insert(item);
+        return super.add(item);
+    }
+
+    @Override
+    public void add(int index, T item) {
+        grid.insert(item);
+        super.add(index, item);
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends T> items) {
+        for (T item : items) {
+            grid.insert(item);
+        }
+        return super.addAll(items);
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends T> items) {
+        for (T item : items) {
+            grid.insert(item);
+        }
+        return super.addAll(index, items);
+    }
+
+    @Override
+    public T set(int index, T item) {
+        T old = super.set(index, item);
+        if (!contains(old)) {
+            grid.remove(old);
+        }
+        grid.insert(item);
+        return old;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean remove(Object item) {
+        if (!super.remove(item)) {
+            return false;
+        }
+        if (!contains(item)) {
+            grid.remove((T) item);
+        }
+        return true;
+    }
+
+    @Override
+    public T remove(int index) {
+        T item = super.remove(index);
+        if (!contains(item)) {
+            grid.remove(item);
+        }
+        return item;
+    }
+
+    @Override
+    protected void removeRange(int from, int to) {
+        super.removeRange(from, to);
+        rebuildGrid();
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super T> filter) {
+        boolean removed = super.removeIf(filter);
+        if (removed) {
+            rebuildGrid();
+        }
+        return removed;
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> items) {
+        boolean removed = super.removeAll(items);
+        if (removed) {
+            rebuildGrid();
+        }
+        return removed;
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> items) {
+        boolean removed = super.retainAll(items);
+        if (removed) {
+            rebuildGrid();
+        }
+        return removed;
+    }
+
+    @Override
+    public void replaceAll(UnaryOperator<T> operator) {
+        super.replaceAll(operator);
+        rebuildGrid();
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        grid.clear();
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return listIterator(0);
+    }
+
+    @Override
+    public ListIterator<T> listIterator() {
+        return listIterator(0);
+    }
+
+    @Override
+    public ListIterator<T> listIterator(int index) {
+        return new Cursor(super.listIterator(index));
+    }
+
+    /**
+     * @return a view of part of the list; changing it changes the list, and the grid
+     */
+    @Override
+    public List<T> subList(int from, int to) {
+        if (from < 0 || to > size() || from > to) {
+            throw new IndexOutOfBoundsException("Sub-list " + from + " to " + to + " of " + size());
+        }
+        return new Range(from, to);
+    }
+
+    private void rebuildGrid() {
+        grid.clear();
+        for (int i = 0; i < size(); i++) {
+            grid.insert(get(i));
+        }
+    }
+
+    /**
+     * ArrayList's own iterator, with changes made through it passed on to the grid.
+     */
+    private final class Cursor implements ListIterator<T> {
+        private final ListIterator<T> list;
+        private T last;
+
+        Cursor(ListIterator<T> list) {
+            this.list = list;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return list.hasNext();
+        }
+
+        @Override
+        public T next() {
+            last = list.next();
+            return last;
+        }
+
+        @Override
+        public boolean hasPrevious() {
+            return list.hasPrevious();
+        }
+
+        @Override
+        public T previous() {
+            last = list.previous();
+            return last;
+        }
+
+        @Override
+        public int nextIndex() {
+            return list.nextIndex();
+        }
+
+        @Override
+        public int previousIndex() {
+            return list.previousIndex();
+        }
+
+        @Override
+        public void remove() {
+            list.remove();
+            if (!contains(last)) {
+                grid.remove(last);
+            }
+        }
+
+        @Override
+        public void set(T item) {
+            list.set(item);
+            if (!contains(last)) {
+                grid.remove(last);
+            }
+            grid.insert(item);
+            last = item;
+        }
+
+        @Override
+        public void add(T item) {
+            grid.insert(item);
+            list.add(item);
+        }
+    }
+
+    /**
+     * A sub-list that makes every change through the list's own methods.
+     */
+    private final class Range extends AbstractList<T> {
+        private final int offset;
+        private int size;
+
+        Range(int from, int to) {
+            offset = from;
+            size = to - from;
+        }
+
+        @Override
+        public T get(int index) {
+            return SpatialList.this.get(offset + check(index, size - 1));
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public T set(int index, T item) {
+            return SpatialList.this.set(offset + check(index, size - 1), item);
+        }
+
+        @Override
+        public void add(int index, T item) {
+            SpatialList.this.add(offset + check(index, size), item);
+            size++;
+            modCount++;
+        }
+
+        @Override
+        public T remove(int index) {
+            T item = SpatialList.this.remove(offset + check(index, size - 1));
+            size--;
+            modCount++;
+            return item;
+        }
+
+        @Override
+        protected void removeRange(int from, int to) {
+            SpatialList.this.removeRange(offset + from, offset + to);
+            size -= to - from;
+            modCount++;
+        }
+
+        private int check(int index, int last) {
+            if (index < 0 || index > last) {
+                throw new IndexOutOfBoundsException("Index " + index + " of " + size);
+            }
+            return index;
+        }
+    }
+}
@@ -2,7 +2,60 @@ package gamefiles;
 
 import javafx.geometry.Rectangle2D;
 
+/**
+ * Something with an axis-aligned bounding box that can touch other things.
+ *
+ * Collision code works on the raw edges, which implementations return straight from
+ * their fields, so testing two things allocates nothing. getBoundary() makes a new
+ * Rectangle2D and is meant for views and tests, not for per-tick checks.
+ */
 public interface Touchable {
     public Rectangle2D getBoundary();
-    public boolean intersects(Touchable other);
+
+    public double getMinX();
+    public double getMinY();
+    public double getMaxX();
+    public double getMaxY();
+
+    /**
+     * The same test as Rectangle2D.intersects: the boxes overlap with some area,
+     * so boxes that only share an edge, or have no area, don't touch.
+     * @param other the other thing, may be null
+     * @return whether the two bounding boxes overlap
+     */
+    public default boolean intersects(Touchable other) {
+        if (other == null) {
+            return false;
+        }
+        double minX = getMinX();
+        double minY = getMinY();
+        double maxX = getMaxX();
+        double maxY = getMaxY();
+        double otherMinX = other.getMinX();
+        double otherMinY = other.getMinY();
+        double otherMaxX = other.getMaxX();
+        double otherMaxY = other.getMaxY();
+        if (maxX <= minX || maxY <= minY || otherMaxX <= otherMinX || otherMaxY <= otherMinY) {
+            return false;
+        }
+        return otherMinX < maxX && otherMaxX > minX && otherMinY < maxY && otherMaxY > minY;
+    }
+
+    /**
+     * @param x      the left of the rectangle
+     * @param y      the top of the rectangle
+     * @param width  the width of the rectangle
+     * @param height the height of the rectangle
+     * @return whether the bounding box overlaps the rectangle
+     */
+    public default boolean intersects(double x, double y, double width, double height) {
+        double minX = getMinX();
+        double minY = getMinY();
+        double maxX = getMaxX();
+        double maxY = getMaxY();
+        if (maxX <= minX || maxY <= minY || width <= 0 || height <= 0) {
+            return false;
+        }
+        return x < maxX && x + width > minX && y < maxY && y + height > minY;
+    }
 }
@@ -1,16 +1,12 @@
 package gamefiles;
 
-import java.util.LinkedList;
-import java.util.Queue;
-
 import controller.Controller;
-import javafx.animation.AnimationTimer;
-import javafx.application.Platform;
+import controller.Session;
 import javafx.geometry.Rectangle2D;
-import javafx.scene.Group;
-import javafx.scene.Node;
-import javafx.scene.control.Label;
-import javafx.scene.image.ImageView;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
 public abstract class TreasureChest implements Touchable {
 
@@ -18,43 +14,46 @@ public abstract class TreasureChest implements Touchable {
     protected double positionY;
     protected double width = 100;
     protected double height = 100;
-    private ImageView imageView;
-    private Group treasureGroup;
+    private String spritePath;
 
     protected int cost = 10;
     protected boolean opened;
 
-    private static int chestsOpened;
+    private static final class State {
+        private int chestsOpened;
+    }
 
-    protected static volatile Queue<AnimationTimer> atQueue = new LinkedList<>();
+    private static State state() {
+        return Session.current().get(State.class, State::new);
+    }
 
     public TreasureChest(double positionX, double positionY, int cost, String spritePath) {
         this.positionX = positionX;
         this.positionY = positionY;
         this.cost = cost;
-
-        Label costText = new Label(Integer.toString(cost));
-        imageView = new ImageView(spritePath);
-        imageView.setFitWidth(100);
-        imageView.setFitHeight(100);
-        costText.setPrefSize(100, 100);
-        costText.setStyle("-fx-font-size: 30; -fx-font-weight: bold; -fx-text-fill: white;"
-                + "-fx-alignment:CENTER; -fx-font-family: Papyrus");
-        costText.setTranslateY(-80);
-        Node image = imageView;
-        treasureGroup = new Group();
-        treasureGroup.setLayoutX(positionX);
-        treasureGroup.setLayoutY(positionY);
-        treasureGroup.getChildren().addAll(image, costText);
+        this.spritePath = spritePath;
     }
 
     @Override
     public Rectangle2D getBoundary() {
         return new Rectangle2D(positionX, positionY, width, height);
     }
+
+    @Override
+    public double getMinX() {
+        return positionX;
+    }
+    @Override
+    public double getMinY() {
+        return positionY;
+    }
+    @Override
+    public double getMaxX() {
+        return positionX + width;
+    }
     @Override
-    public boolean intersects(Touchable other) {
-        return other.getBoundary().intersects(this.getBoundary());
+    public double getMaxY() {
+        return positionY + height;
     }
 
     public boolean canOpen() {
@@ -71,42 +70,8 @@ public abstract class TreasureChest implements Touchable {
     }
 
     public void displayReward(String text) {
-        chestsOpened++;
-        Label display = new Label(text);
-        display.setPrefWidth(Controller.getW());
-        display.setStyle("-fx-font-size: 30; -fx-font-weight: bold; -fx-text-fill: white;"
-                + "-fx-alignment:CENTER; -fx-font-family: Papyrus");
-        display.setLayoutY(275);
-        Platform.runLater(() -> {
-            Controller.getGameScreen().getBoard().getChildren().add(display);
-        });
-
-        new AnimationTimer() {
-            private int timer = 60;
-
-            @Override
-            public void start() {
-                super.start();
-                atQueue.add(this);
-                System.out.println(atQueue.size());
-            }
-
-            @Override
-            public void stop() {
-                super.stop();
-                Controller.getGameScreen().getBoard().getChildren().remove(display);
-                atQueue.remove(this);
-                System.out.println("dequeued");
-            }
-
-            @Override
-            public void handle(long currentNanoTime) {
-                timer--;
-                if (timer <= 0) {
-                    this.stop();
-                }
-            }
-        }.start();
+        state().chestsOpened++;
+        Controller.getView().showMessage(text, 275, 60);
     }
 
 
@@ -114,14 +79,78 @@ public abstract class TreasureChest implements Touchable {
         return opened;
     }
 
-    public Group getGroup() {
-        return treasureGroup;
+    public String getSpritePath() {
+        return spritePath;
+    }
+
+    public int getCost() {
+        return cost;
+    }
+
+    public double getPositionX() {
+        return positionX;
+    }
+
+    public double getPositionY() {
+        return positionY;
+    }
+
+    /**
+     * Write the chest down, so read() can put it back, opened or not.
+     * @param out where to write it
+     * @throws IOException if out can't be written
+     */
+    public void write(DataOutput out) throws IOException {
+        int kind;
+        if (this instanceof RedTreasureChest) {
+            kind = 0;
+        } else if (this instanceof BlueTreasureChest) {
+            kind = 1;
+        } else if (this instanceof YellowTreasureChest) {
+            kind = 2;
+        } else {
+            kind = 3;
+        }
+        out.writeByte(kind);
+        out.writeDouble(positionX);
+        out.writeDouble(positionY);
+        out.writeShort(cost);
+        out.writeBoolean(opened);
+    }
+
+    /**
+     * @param in where write() wrote a chest
+     * @return the chest
+     * @throws IOException if in can't be read
+     */
+    public static TreasureChest read(DataInput in) throws IOException {
+        int kind = in.readByte();
+        double x = in.readDouble();
+        double y = in.readDouble();
+        int cost = in.readShort();
+        TreasureChest chest;
+        switch (kind) {
+        case 0:
+            chest = new RedTreasureChest(x, y, cost);
+            break;
+        case 1:
+            chest = new BlueTreasureChest(x, y, cost);
+            break;
+        case 2:
+            chest = new YellowTreasureChest(x, y, cost);
+            break;
+        default:
+            chest = new GreenTreasureChest(x, y, cost);
+            break;
+        }
+        chest.opened = in.readBoolean();
+        return chest;
     }
 
     public static int getChestsOpened() {
-        return chestsOpened;
+        return state().chestsOpened;
     }
     public static void setChestsOpened(int amount) {
-        chestsOpened = amount;
+        state().chestsOpened = amount;
     }
 }
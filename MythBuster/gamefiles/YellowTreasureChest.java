@@ -1,7 +1,7 @@
 package gamefiles;
 
 import controller.Controller;
-import javafx.animation.AnimationTimer;
+import controller.GameRandom;
 
 public class YellowTreasureChest extends TreasureChest {
     public YellowTreasureChest(double positionX, double positionY, int cost) {
@@ -11,11 +11,7 @@ public class YellowTreasureChest extends TreasureChest {
     @Override
     public void open() {
         Controller.getPlayer().subtractCoins(cost);
-        int coinAmount = cost + (int) ((Math.random() * 20) - 5 * Controller.getDifficulty());
-        if (!atQueue.isEmpty()) {
-            AnimationTimer e = atQueue.remove();
-            e.stop();
-        }
+        int coinAmount = cost + (int) ((GameRandom.loot().nextDouble() * 20) - 5 * Controller.getDifficulty());
         dropCoins(coinAmount, 12, positionX, positionY);
         displayReward("You found " + Integer.toString(coinAmount) + " coins!");
 
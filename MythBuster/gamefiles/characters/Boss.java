@@ -2,26 +2,15 @@ package gamefiles.characters;
 
 import controller.Controller;
 import controller.GameLoop;
-import controller.SpriteAnimation;
-import javafx.animation.Animation;
-import javafx.application.Platform;
-import javafx.geometry.Rectangle2D;
-import javafx.scene.image.Image;
-import javafx.util.Duration;
+import controller.GameRandom;
+import gamefiles.FlowField;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
 public class Boss extends Monster {
     Player player = Controller.getPlayer();
-    Image idleImage = new Image("sprites/Boss/idle2.png");
-    Image attackImage = new Image("sprites/Boss/attacking.png");
-    Image deathImage = new Image("sprites/Boss/death.png");
-    Image summonImage = new Image("sprites/Boss/summon.png");
-    Image skillImage = new Image("sprites/Boss/skill1.png");
-    SpriteAnimation idleAnimation = new SpriteAnimation(imageView, Duration.millis(750), 8, 4,0, 0, 100, 100);
-    SpriteAnimation attackAnimation = new SpriteAnimation(imageView, Duration.millis(750), 13, 6, 0, 0,
-            100, 100);
-    SpriteAnimation deathAnimation = new SpriteAnimation(imageView, Duration.millis(1000), 18, 10, 0 ,0 , 100, 100);
-    SpriteAnimation summonAnimation = new SpriteAnimation(imageView, Duration.millis(750), 5, 4, 0, 0, 100, 100);
-    SpriteAnimation skillAnimation = new SpriteAnimation(imageView, Duration.millis(1000), 12, 6, 0, 0, 100, 100);
     private int damage = 150;
     private int damageCooldown = 45;
     private int summonCooldown = 100;
@@ -31,11 +20,7 @@ public class Boss extends Monster {
     public Boss() {
         super("The Boss", 500 + (250 * Controller.getDifficulty()), 2.5, "sprites/Boss/idle.png", 250, 250);
         this.movementSpeed = 2.5;
-        imageView.setViewport(new Rectangle2D(0, 0, 100, 100));
-        imageView.setId("boss");
-        healthBarBacking.setY(positionY - 10);
-        healthBar.setY(positionY - 10);
-        idle();
+        this.deathTicks = 60;
     }
 
     @Override
@@ -44,27 +29,21 @@ public class Boss extends Monster {
         double targetPositionY = Controller.getPlayer().getPositionY() - 30;
         checkDeath();
         if (isDead) {
-
-            idleAnimation.stop();
-            attackAnimation.stop();
-            imageView.setImage(deathImage);
-            deathAnimation.play();
-            deathAnimation.setOnFinished(actionEvent -> Platform.runLater(Controller::goToWinScreen));
+            return;
         }
-        redrawHealthBar();
+        updatePose();
         // flip sprite if needed
         double offsetX = targetPositionX - (positionX + width / 2);
         double offsetY = targetPositionY - positionY;
         if (offsetX > 0) {
             if (Math.abs(offsetX) > 10) {
-                imageView.setScaleX(1);
+                facing = 1;
             }
         } else {
             if (Math.abs(offsetX) > 10) {
-                imageView.setScaleX(-1);
+                facing = -1;
             }
         }
-        double magnitude = Math.sqrt(offsetX * offsetX + offsetY * offsetY);
         if (Controller.getPlayer().intersects(this)) {
             if (damageCooldown > 0) {
                 damageCooldown--;
@@ -75,17 +54,20 @@ public class Boss extends Monster {
             }
         } else if (Math.abs(offsetX) > 10 || Math.abs(offsetY) > 10) {
             damageCooldown = 45;
-            moveRelative(movementSpeed * offsetX / magnitude, movementSpeed * offsetY / magnitude);
+            FlowField field = GameLoop.getFlowField();
+            field.aim(targetPositionX, targetPositionY);
+            moveRelative(movementSpeed * field.directionX(positionX + width / 2, positionY),
+                    movementSpeed * field.directionY(positionX + width / 2, positionY));
         }
 
-        if (summonCooldown <= 0 && idleAnimation.getStatus() == Animation.Status.RUNNING) {
+        if (summonCooldown <= 0 && pose == Pose.IDLE) {
             damageCooldown = 45;
             summonCooldown = 600;
             summon();
         } else {
             summonCooldown--;
         }
-        if (skillCooldown <= 0 && idleAnimation.getStatus() == Animation.Status.RUNNING) {
+        if (skillCooldown <= 0 && pose == Pose.IDLE) {
             damageCooldown = 45;
             skillDuration = 450;
             skillCooldown = 900;
@@ -107,54 +89,45 @@ public class Boss extends Monster {
         }
     }
 
+    @Override
+    protected void deathFinished() {
+        Controller.bossDefeated();
+    }
+
     private void skill() {
-        idleAnimation.stop();
-        imageView.setImage(skillImage);
-        skillAnimation.setCycleCount(1);
-        skillAnimation.play();
+        setPose(Pose.SKILL, 60);
         player.setDamageBuffModifier(player.getDamageBuffModifier() - 0.75);
         player.setSpeedBuffModifier(player.getSpeedBuffModifier() - 0.5);
-        skillAnimation.setOnFinished(actionEvent -> {
-            skillAnimation.stop();
-            imageView.setImage(idleImage);
-            imageView.setViewport(new Rectangle2D(0, 0, 100, 100));
-            idleAnimation.play();
-        });
     }
 
     public void idle() {
-        imageView.setImage(idleImage);
-        idleAnimation.setCycleCount(Animation.INDEFINITE);
-        idleAnimation.play();
+        setPose(Pose.IDLE, 0);
     }
     public void attack() {
-        idleAnimation.stop();
-        imageView.setImage(attackImage);
-        attackAnimation.setCycleCount(1);
-        attackAnimation.play();
-        attackAnimation.setOnFinished(actionEvent -> {
-            attackAnimation.stop();
-            imageView.setImage(idleImage);
-            imageView.setViewport(new Rectangle2D(0, 0, 100, 100));
-            idleAnimation.play();
-        });
+        setPose(Pose.ATTACK, 45);
     }
     public void summon() {
-        idleAnimation.stop();
-        imageView.setImage(summonImage);
-        summonAnimation.setCycleCount(1);
-        summonAnimation.play();
-        Monster minion1 = new BossMinion(Math.random() * (Controller.getW() - width), Math.random() * (Controller.getH() - height));
+        setPose(Pose.SUMMON, 45);
+        Monster minion1 = new BossMinion(GameRandom.spawn().nextDouble() * (Controller.getW() - width), GameRandom.spawn().nextDouble() * (Controller.getH() - height));
         GameLoop.getMonsters().add(minion1);
-        Platform.runLater(() -> {
-            Controller.getGameScreen().getBoard().getChildren().add(minion1.getGroup());
-            Controller.getCurrentRoom().getMonsters().add(minion1);
-        });
-        summonAnimation.setOnFinished(actionEvent -> {
-            summonAnimation.stop();
-            imageView.setImage(idleImage);
-            imageView.setViewport(new Rectangle2D(0, 0, 100, 100));
-            idleAnimation.play();
-        });
+        Controller.getCurrentRoom().getMonsters().add(minion1);
+    }
+
+    @Override
+    protected void writeFields(DataOutput out) throws IOException {
+        out.writeInt(damageCooldown);
+        out.writeInt(summonCooldown);
+        out.writeInt(skillCooldown);
+        out.writeInt(skillDuration);
+        out.writeBoolean(cursed);
+    }
+
+    @Override
+    protected void readFields(DataInput in) throws IOException {
+        damageCooldown = in.readInt();
+        summonCooldown = in.readInt();
+        skillCooldown = in.readInt();
+        skillDuration = in.readInt();
+        cursed = in.readBoolean();
     }
 }
@@ -1,36 +1,27 @@
 package gamefiles.characters;
 
 import controller.Controller;
-import controller.GameLoop;
-import controller.SpriteAnimation;
-import javafx.application.Platform;
-import javafx.geometry.Rectangle2D;
-import javafx.scene.image.Image;
-import javafx.util.Duration;
+import controller.GameRandom;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.SplittableRandom;
 
 public class BossMinion extends Monster {
-    Image idleImage = new Image("sprites/Boss/summonIdle.png");
-    Image deathImage = new Image("sprites/Boss/summonDeath.png");
-    SpriteAnimation spawnAnimation = new SpriteAnimation(imageView, Duration.millis(750), 6, 3, 0, 0, 50, 50);
-    SpriteAnimation idleAnimation = new SpriteAnimation(imageView, Duration.millis(750), 4, 4, 0, 0, 50, 50);
-    SpriteAnimation deathAnimation = new SpriteAnimation(imageView, Duration.millis(750), 5, 3, 0, 0, 50, 50);
-    private double targetPositionX = Math.random() * (Controller.getW() - width);
-    private double targetPositionY = Math.random() * (Controller.getH() - height);
+    /** How long a minion lasts once the player leaves it behind. */
+    private static final int OFFSCREEN_LIFETIME = 10 * 60;
+
+    private double targetPositionX = GameRandom.ai().nextDouble() * (Controller.getW() - width);
+    private double targetPositionY = GameRandom.ai().nextDouble() * (Controller.getH() - height);
     private int damageCooldown = 10;
     private int damage = 50;
 
     public BossMinion(double posX, double posY) {
         super("Boss Minion", 5, 5, "sprites/Boss/summonAppear.png", 100, 100);
         moveAbsolute(posX, posY);
-        imageView.setViewport(new Rectangle2D(0, 0, 50, 50));
-        spawnAnimation.play();
-        spawnAnimation.setOnFinished(actionEvent -> {
-            spawnAnimation.stop();
-            imageView.setImage(idleImage);
-            imageView.setViewport(new Rectangle2D(0, 0, 50, 50));
-            idleAnimation.setCycleCount(10000);
-            idleAnimation.play();
-        });
+        setPose(Pose.SPAWN, 45);
+        this.deathTicks = 45;
     }
 
     @Override
@@ -38,16 +29,9 @@ public class BossMinion extends Monster {
         // game logic
         checkDeath();
         if (isDead) {
-            idleAnimation.stop();
-            imageView.setImage(deathImage);
-            deathAnimation.play();
-            deathAnimation.setOnFinished(actionEvent -> Platform.runLater(() -> {
-                Controller.getGameScreen().getBoard().getChildren().remove(this.getGroup());
-                Controller.getCurrentRoom().getMonsters().remove(this);
-                monsterGroup.getChildren().removeAll(imageView, healthBar, healthBarBacking);
-            }));
+            return;
         }
-        redrawHealthBar();
+        updatePose();
         // move
         double offsetX = targetPositionX - positionX;
         double offsetY = targetPositionY - positionY;
@@ -64,9 +48,34 @@ public class BossMinion extends Monster {
             damageCooldown = 10;
             moveRelative(movementSpeed * offsetX / magnitude, movementSpeed * offsetY / magnitude);
         } else {
-            targetPositionX = Math.random() * (Controller.getW() - width);
-            targetPositionY = Math.random() * (Controller.getH() - height);
+            targetPositionX = GameRandom.ai().nextDouble() * (Controller.getW() - width);
+            targetPositionY = GameRandom.ai().nextDouble() * (Controller.getH() - height);
+        }
+
+    }
+
+    @Override
+    public boolean simulateOffscreen(int ticks, SplittableRandom random) {
+        for (int left = walkOffscreen(targetPositionX, targetPositionY, ticks); left > 0;
+                left = walkOffscreen(targetPositionX, targetPositionY, left)) {
+            targetPositionX = random.nextDouble() * (Controller.getW() - width);
+            targetPositionY = random.nextDouble() * (Controller.getH() - height);
         }
+        currentHealth -= maxHealth * ticks / OFFSCREEN_LIFETIME;
+        return currentHealth > 0;
+    }
+
+    @Override
+    protected void writeFields(DataOutput out) throws IOException {
+        out.writeDouble(targetPositionX);
+        out.writeDouble(targetPositionY);
+        out.writeInt(damageCooldown);
+    }
 
+    @Override
+    protected void readFields(DataInput in) throws IOException {
+        targetPositionX = in.readDouble();
+        targetPositionY = in.readDouble();
+        damageCooldown = in.readInt();
     }
 }
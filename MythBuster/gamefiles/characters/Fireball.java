@@ -1,41 +1,85 @@
 package gamefiles.characters;
 
 import controller.Controller;
+import controller.GameLoop;
+import controller.GameRandom;
+import gamefiles.EntityStore;
+import gamefiles.FlowField;
 
-public class Fireball extends Monster {
+/**
+ * A Mage's fireball: it flies at the player, burns them once and goes out, or burns
+ * out by itself after a while. The player can also put it out by hitting it.
+ *
+ * A busy room can have a lot of these, so they aren't Monsters. Each one is a row in
+ * GameLoop.getProjectiles(), and updateAll() moves and collides all of them in one
+ * loop over the store's arrays.
+ */
+public class Fireball {
+    public static final int KIND = 1;
+    public static final String SPRITE_PATH = "sprites/SuperMarioFireball.png";
+    public static final double SIZE = 50;
 
+    private static final double HEALTH = 20;
+    private static final double SPEED = 5;
+    private static final double DAMAGE = 100;
+    private static final int LIFETIME = 500;
 
-    public Fireball(double posX, double posY) {
-        super("Fireball", 20, 5, "sprites/SuperMarioFireball.png", 50, 50);
-        moveAbsolute(posX, posY);
-    }
+    private Fireball() { }
 
-    private int damage = 100;
-    private int timer = 500;
+    /**
+     * Light a new fireball.
+     * @param posX where it starts
+     * @param posY where it starts
+     * @return its index in GameLoop.getProjectiles()
+     */
+    public static int spawn(double posX, double posY) {
+        EntityStore store = GameLoop.getProjectiles();
+        int i = store.add(KIND, posX, posY, SIZE, SIZE);
+        store.setHealth(i, HEALTH);
+        //Somewhat randomize movespeed to prevent stacking.
+        store.setSpeed(i, ((GameRandom.spawn().nextDouble() * 0.5) + 0.5) * SPEED);
+        store.setDamage(i, DAMAGE);
+        store.setTimer(i, LIFETIME);
+        return i;
+    }
 
-    public void update() {
-        double targetPositionX = Controller.getPlayer().getPositionX();
-        double targetPositionY = Controller.getPlayer().getPositionY() - 30;
+    /**
+     * Move every fireball in a store one tick towards the player.
+     * @param store the store holding them
+     */
+    public static void updateAll(EntityStore store) {
+        Player player = Controller.getPlayer();
+        double targetPositionX = player.getPositionX();
+        double targetPositionY = player.getPositionY() - 30;
+        FlowField field = GameLoop.getFlowField();
+        field.aim(targetPositionX, targetPositionY);
+        int i = 0;
+        while (i < store.size()) {
+            if (store.getKind(i) != KIND) {
+                i++;
+                continue;
+            }
+            if (store.getHealth(i) <= 0 || store.intersects(i, player)) {
+                if (store.getHealth(i) > 0) {
+                    player.takeDamage(store.getDamage(i));
+                }
+                store.remove(i);
+                continue;
+            }
+            double offsetX = targetPositionX - store.getX(i);
+            double offsetY = targetPositionY - store.getY(i);
+            if (Math.abs(offsetX) > 1 || Math.abs(offsetY) > 1) {
+                double speed = store.getSpeed(i);
+                store.setVelocity(i, speed * field.directionX(store.getX(i), store.getY(i)),
+                        speed * field.directionY(store.getX(i), store.getY(i)));
+                store.move(i);
+            }
 
-        // game logic
-        checkDeath();
-        redrawHealthBar();
-        // move
-        double offsetX = targetPositionX - positionX;
-        double offsetY = targetPositionY - positionY;
-        double magnitude = Math.sqrt(offsetX * offsetX + offsetY * offsetY);
-        if (Controller.getPlayer().intersects(this)) {
-            Controller.getPlayer().takeDamage(damage);
-            currentHealth = 0;
-            checkDeath();
-        } else if (Math.abs(offsetX) > 1 || Math.abs(offsetY) > 1) {
-            moveRelative(movementSpeed * offsetX / magnitude, movementSpeed * offsetY / magnitude);
+            store.setTimer(i, store.getTimer(i) - 1);
+            if (store.getTimer(i) == 0) {
+                store.setHealth(i, 0);
+            }
+            i++;
         }
-
-        timer--;
-        if (timer == 0) {
-            currentHealth = 0;
-        }
-
     }
 }
@@ -1,36 +1,39 @@
 package gamefiles.characters;
 
 import controller.Controller;
-import controller.GameLoop;
-import controller.SpriteAnimation;
-import javafx.application.Platform;
-import javafx.geometry.Rectangle2D;
-import javafx.util.Duration;
+import controller.GameRandom;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
 public class Mage extends Monster {
 
-    SpriteAnimation fireballAnimation = new SpriteAnimation(imageView, Duration.millis(750), 10, 3, 0, 0, 78, 79);
     public Mage() {
         super("Mage Enemy", 100, 5, "sprites/wizard.png", 150, 150);
-        imageView.setViewport(new Rectangle2D(0, 0, 78, 79));
     }
 
     public Mage(double health, double movementSpeed, String spritePath, 
                 double width, double height) {
         super("Mage Enemy", health, movementSpeed, spritePath, width, height);
-        imageView.setViewport(new Rectangle2D(0, 0, 78, 79));
 
     }
 
     private int spawnFireballCooldown = 15;
-    private double targetPositionX = Math.random() * (Controller.getW() - width);
-    private double targetPositionY = Math.random() * (Controller.getH() - height);
+    private double targetPositionX = GameRandom.ai().nextDouble() * (Controller.getW() - width);
+    private double targetPositionY = GameRandom.ai().nextDouble() * (Controller.getH() - height);
 
 
     public void update() {
         // game logic
         checkDeath();
-        redrawHealthBar();
+        if (updatePose() == Pose.CAST) {
+            //Shoot a fireball once the cast finishes.
+            Fireball.spawn(positionX, positionY);
+            spawnFireballCooldown = 500;
+            targetPositionX = GameRandom.ai().nextDouble() * (Controller.getW() - width);
+            targetPositionY = GameRandom.ai().nextDouble() * (Controller.getH() - height);
+        }
         // move
         double offsetX = targetPositionX - positionX;
         double offsetY = targetPositionY - positionY;
@@ -40,21 +43,23 @@ public class Mage extends Monster {
         } else {
             if (spawnFireballCooldown > 0) {
                 spawnFireballCooldown--;
-            } else {
-                //Shoot a fireball.
-                fireballAnimation.setCycleCount(1);
-                fireballAnimation.play();
-                fireballAnimation.setOnFinished(actionEvent -> {
-                    fireballAnimation.stop();
-                    Fireball fireball = new Fireball(positionX, positionY);
-                    imageView.setViewport(new Rectangle2D(0, 0, 78, 79));
-                    Platform.runLater(() -> Controller.getGameScreen().getBoard().getChildren().add(fireball.getGroup()));
-                    GameLoop.getMonsters().add(fireball);
-                    spawnFireballCooldown = 500;
-                    targetPositionX = Math.random() * (Controller.getW() - width);
-                    targetPositionY = Math.random() * (Controller.getH() - height);
-                });
+            } else if (pose != Pose.CAST) {
+                setPose(Pose.CAST, 45);
             }
         }
     }
+
+    @Override
+    protected void writeFields(DataOutput out) throws IOException {
+        out.writeInt(spawnFireballCooldown);
+        out.writeDouble(targetPositionX);
+        out.writeDouble(targetPositionY);
+    }
+
+    @Override
+    protected void readFields(DataInput in) throws IOException {
+        spawnFireballCooldown = in.readInt();
+        targetPositionX = in.readDouble();
+        targetPositionY = in.readDouble();
+    }
 }
@@ -1,7 +1,11 @@
 package gamefiles.characters;
 
 import controller.Controller;
+import controller.EventBus;
 import controller.GameLoop;
+import controller.GameRandom;
+import controller.GameSystem;
+import controller.Session;
 import gamefiles.Inventory;
 import gamefiles.Touchable;
 import gamefiles.DropMethods;
@@ -10,43 +14,58 @@ import gamefiles.items.DroppedWeapon;
 import gamefiles.items.Item;
 import gamefiles.items.ItemDatabase;
 import gamefiles.weapons.*;
-import javafx.animation.AnimationTimer;
-import javafx.application.Platform;
 import javafx.geometry.Rectangle2D;
-import javafx.scene.Group;
-import javafx.scene.control.Label;
-import javafx.scene.image.ImageView;
-import javafx.scene.paint.Color;
-import javafx.scene.shape.Rectangle;
-
-import java.util.Map;
-import java.util.Set;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
+import java.util.SplittableRandom;
 
 public abstract class Monster implements Touchable {
     protected String name;
     protected double maxHealth;
     protected double currentHealth;
-    protected double percentageHealth;
     protected boolean isDead;
     protected double movementSpeed;
     protected double positionX;
     protected double positionY;
     protected double width;
     protected double height;
-    protected ImageView imageView;
-
-    protected Rectangle healthBar;
-    protected Rectangle healthBarBacking;
-    protected double healthBarWidth;
+    protected String spritePath;
+
+    /** 1 when the sprite faces its default way, -1 when it's flipped. */
+    protected int facing = 1;
+    protected Pose pose = Pose.IDLE;
+    /** Ticks a dead monster stays in its room for its death animation; 0 removes it at once. */
+    protected int deathTicks;
+    private int poseTicks;
+    private int poseCount;
+    /** Where Steering keeps this monster this tick, or -1. */
+    int steeringSlot = -1;
+
+    private static final class State {
+        private int monstersKilled;
+    }
 
-    private static int monstersKilled;
+    private static State state() {
+        return Session.current().get(State.class, State::new);
+    }
 
-    private Map<Integer, Integer> lootTable = new HashMap<>();
+    // Item ids (100 and up are weapons, -1 is coins), in the order they are rolled
+    // against; that order is the one the old HashMap table happened to iterate in.
+    private static final int[] LOOT_IDS = {0, -1, 1, 2, 100, 101, 102};
+    private final int[] lootChances = new int[LOOT_IDS.length];
+
+    /**
+     * What the monster is doing, so the view knows which animation to play.
+     * One-shot poses last a fixed number of ticks and then fall back to IDLE.
+     */
+    public enum Pose {
+        IDLE, SPAWN, ATTACK, CAST, SUMMON, SKILL, DEATH
+    }
 
-    protected Group monsterGroup;
     public Monster(String name, double health, double movementSpeed, String spritePath,
         double width, double height) {
 
@@ -54,83 +73,170 @@ public abstract class Monster implements Touchable {
         this.maxHealth = health;
         currentHealth = maxHealth;
         //Somewhat randomize movespeed to prevent stacking.
-        this.movementSpeed = ((Math.random() * 0.5) + 0.5) * movementSpeed;
+        this.movementSpeed = ((GameRandom.spawn().nextDouble() * 0.5) + 0.5) * movementSpeed;
         this.width = width;
         this.height = height;
-        this.healthBarWidth = width;
+        this.spritePath = spritePath;
 
         isDead = false;
 
         initLootTable();
-
-        imageView = new ImageView(spritePath);
-        imageView.setPreserveRatio(true);
-        imageView.setFitWidth(this.width);
-        imageView.setFitHeight(this.height);
-        healthBar = new Rectangle(positionX, positionY - 30, healthBarWidth, 10);
-        healthBar.setFill(Color.GREEN);
-        healthBarBacking = new Rectangle(positionX, positionY - 30, healthBarWidth, 10);
-        healthBarBacking.setFill(Color.RED);
-        monsterGroup = new Group();
-        monsterGroup.getChildren().addAll(imageView, healthBarBacking, healthBar);
-
     }
 
     private void initLootTable() {
         int total = 100;
-        for (int i = 0; i <= 2; i++) {
-            int probability = (int) (6 * Math.random() + 19);
-            lootTable.put(i, probability);
-            total = total - probability;
-        }
-        for (int i = 100; i <= 102; i++) {
-            int probability = (int) (3 * Math.random() + 3);
-            lootTable.put(i, probability);
+        int coins = 0;
+        for (int i = 0; i < LOOT_IDS.length; i++) {
+            int probability;
+            if (LOOT_IDS[i] >= 100) {
+                probability = (int) (3 * GameRandom.loot().nextDouble() + 3);
+            } else if (LOOT_IDS[i] >= 0) {
+                probability = (int) (6 * GameRandom.loot().nextDouble() + 19);
+            } else {
+                coins = i;
+                continue;
+            }
+            lootChances[i] = probability;
             total = total - probability;
         }
-        lootTable.put(-1, total);
+        lootChances[coins] = total;
     }
 
 
     public abstract void update();
 
-    public Group getGroup() {
-        return monsterGroup;
+    /**
+     * @return whether Steering should keep this monster apart from others like it
+     *         while it chases the player
+     */
+    protected boolean flocks() {
+        return false;
+    }
+
+    /**
+     * Carry the monster on through ticks that passed while the player was in another
+     * room, all at once. This runs off the game's thread, so it may only change the
+     * monster itself: nothing in the session, the monster grid or any other room. Most
+     * monsters wait where they are for the player to come back.
+     * @param ticks  how many ticks passed
+     * @param random where to draw random numbers from, instead of GameRandom
+     * @return whether the monster is still around afterwards
+     */
+    public boolean simulateOffscreen(int ticks, SplittableRandom random) {
+        return true;
+    }
+
+    /**
+     * Put anything simulateOffscreen() made into the room, on the game's thread.
+     * @param room the room's monsters, to add to
+     */
+    public void settleOffscreen(List<Monster> room) {
     }
 
-    public void redrawHealthBar() {
-        percentageHealth = currentHealth / maxHealth;
-        healthBar.setWidth(healthBarWidth * percentageHealth);
+    /**
+     * Walk straight at a point, for simulateOffscreen().
+     * @param x     the x to walk to
+     * @param y     the y to walk to
+     * @param ticks how many ticks to walk for at most
+     * @return how many of the ticks were left after getting there, 0 if they ran out
+     *         on the way
+     */
+    protected int walkOffscreen(double x, double y, int ticks) {
+        double offsetX = x - positionX;
+        double offsetY = y - positionY;
+        if (Math.abs(offsetX) <= 10 && Math.abs(offsetY) <= 10) {
+            return ticks;
+        }
+        if (Math.abs(offsetX) > 10) {
+            facing = offsetX > 0 ? 1 : -1;
+        }
+        double distance = Math.sqrt(offsetX * offsetX + offsetY * offsetY);
+        double needed = movementSpeed > 0 ? Math.ceil(distance / movementSpeed) : Double.MAX_VALUE;
+        if (needed > ticks) {
+            positionX += movementSpeed * ticks * offsetX / distance;
+            positionY += movementSpeed * ticks * offsetY / distance;
+            return 0;
+        }
+        positionX = x;
+        positionY = y;
+        return ticks - (int) needed;
+    }
+
+    /**
+     * Switch to a pose for a number of ticks.
+     * @param pose  the new pose
+     * @param ticks how long it lasts, 0 to hold it until the next setPose
+     */
+    protected void setPose(Pose pose, int ticks) {
+        this.pose = pose;
+        this.poseTicks = ticks;
+        poseCount++;
+    }
+
+    /**
+     * Count down the current one-shot pose. Call once per update.
+     * @return the pose that just finished, or null if none did
+     */
+    protected Pose updatePose() {
+        if (poseTicks > 0) {
+            poseTicks--;
+            if (poseTicks == 0) {
+                Pose finished = pose;
+                setPose(Pose.IDLE, 0);
+                return finished;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Keep a dead monster in its room while its death animation plays, then call
+     * deathFinished(). It is already out of GameLoop's monsters, so nothing updates it.
+     * @param ticks how long the death animation lasts
+     */
+    protected void lingerAfterDeath(int ticks) {
+        setPose(Pose.DEATH, ticks);
+        new GameSystem("monster death", GameLoop.TOASTS) {
+            private int timer = ticks;
+            @Override
+            public void handle(long tick) {
+                timer--;
+                if (timer <= 0) {
+                    this.stop();
+                    deathFinished();
+                }
+            }
+        }.start();
+    }
+
+    protected void deathFinished() {
+        Controller.getCurrentRoom().getMonsters().remove(this);
     }
 
     public void checkDeath() {
-        if (currentHealth <= 0) {
+        if (currentHealth <= 0 && !isDead) {
             isDead = true;
-            if (!(this instanceof Boss) && !(this instanceof BossMinion)) {
-                Platform.runLater(() -> {
-                    Controller.getGameScreen().getBoard().getChildren().remove(this.getGroup());
-                    Controller.getCurrentRoom().getMonsters().remove(this);
-                    monsterGroup.getChildren().removeAll(imageView, healthBar, healthBarBacking);
-                });
-            }
-            if (this instanceof Trap) {
-                Trap.decrementTrapCount(1);
+            if (deathTicks > 0) {
+                lingerAfterDeath(deathTicks);
+            } else {
+                Controller.getCurrentRoom().getMonsters().remove(this);
             }
             GameLoop.getMonsters().remove(this);
-            if (!(this instanceof Trap) && !(this instanceof Fireball) && !(this instanceof Boss) && !(this instanceof BossMinion)) {
+            if (!(this instanceof Trap) && !(this instanceof Boss) && !(this instanceof BossMinion)) {
                 addItems();
-                monstersKilled++;
+                state().monstersKilled++;
             }
+            EventBus.publish(EventBus.MONSTER_DIED, this);
         }
     }
 
     public boolean addItems() {
         ArrayList<Item> toAdd = new ArrayList<>();
-        int prob = (int) (Math.random() * 100);
+        int prob = (int) (GameRandom.loot().nextDouble() * 100);
         int total = -1;
-        Set<Integer> keySet = lootTable.keySet();
-        for (int key: keySet) {
-            total = total + lootTable.get(key);
+        for (int i = 0; i < LOOT_IDS.length; i++) {
+            int key = LOOT_IDS[i];
+            total = total + lootChances[i];
             if (prob < total) {
                 if (key >= 100) {
                     Weapon w = WeaponDatabase.getWeapon(key % 100);
@@ -139,7 +245,7 @@ public abstract class Monster implements Touchable {
                         droppedItem.drop(positionX, positionY, true);
                         return true;
                     } else {
-                        int newCoins = (int) (5 + Math.random() * 5);
+                        int newCoins = (int) (5 + GameRandom.loot().nextDouble() * 5);
                         
                         DropMethods.dropCoins(newCoins, 5, positionX, positionY);
 
@@ -153,7 +259,7 @@ public abstract class Monster implements Touchable {
                     droppedItem.drop(positionX, positionY, true);
                     return true;
                 } else {
-                    int newCoins = (int) (5 + Math.random() * 5);
+                    int newCoins = (int) (5 + GameRandom.loot().nextDouble() * 5);
                     DropMethods.dropCoins(newCoins, 5, positionX, positionY);
                     return true;
                 }
@@ -193,13 +299,13 @@ public abstract class Monster implements Touchable {
     public void moveAbsolute(double x, double y) {
         positionX = x;
         positionY = y;
-        monsterGroup.relocate(positionX, positionY);
+        GameLoop.getMonsterGrid().update(this);
     }
 
     public void moveRelative(double x, double y) {
         positionX += x;
         positionY += y;
-        monsterGroup.relocate(positionX, positionY);
+        GameLoop.getMonsterGrid().update(this);
     }
 
 
@@ -207,8 +313,18 @@ public abstract class Monster implements Touchable {
     public Rectangle2D getBoundary() {
         return new Rectangle2D(positionX, positionY, width, height);
     }
-    public boolean intersects(Touchable other) {
-        return other.getBoundary().intersects(this.getBoundary());
+
+    public double getMinX() {
+        return positionX;
+    }
+    public double getMinY() {
+        return positionY;
+    }
+    public double getMaxX() {
+        return positionX + width;
+    }
+    public double getMaxY() {
+        return positionY + height;
     }
 
     public double getWidth() {
@@ -236,34 +352,152 @@ public abstract class Monster implements Touchable {
         return maxHealth;
     }
 
+    public boolean isDead() {
+        return isDead;
+    }
+
+    public String getSpritePath() {
+        return spritePath;
+    }
+
+    public int getFacing() {
+        return facing;
+    }
+
+    public Pose getPose() {
+        return pose;
+    }
+
+    /**
+     * Goes up every time the pose is set, so the view can restart an animation
+     * even when the same pose is set twice in a row.
+     * @return how many times the pose has been set
+     */
+    public int getPoseCount() {
+        return poseCount;
+    }
+
     public static int getMonstersKilled() {
-        return monstersKilled;
+        return state().monstersKilled;
     }
     public static void setMonstersKilled(int amount) {
-        monstersKilled = amount;
+        state().monstersKilled = amount;
     }
 
     public void displayReward(String text) {
-        Label display = new Label(text);
-        display.setPrefWidth(Controller.getW());
-        display.setStyle("-fx-font-size: 30; -fx-font-weight: bold; -fx-text-fill: white;"
-                + "-fx-alignment:CENTER; -fx-font-family: Papyrus");
-        display.setLayoutY(200);
-        display.setId("dropNotificationDisplay");
-        Controller.getGameScreen().getBoard().getChildren().add(display);
-
-        new AnimationTimer() {
-            private int timer = 60;
-            @Override
-            public void handle(long currentNanoTime) {
-                timer--;
-                if (timer <= 0) {
-                    Controller.getGameScreen().getBoard().getChildren().remove(display);
-                    this.stop();
-                }
-            }
-        }.start();
+        Controller.getView().showMessage(text, 200, 60);
+    }
+
+    /**
+     * Write the monster down, so read() can put it back as it is now.
+     * @param out where to write it
+     * @throws IOException if out can't be written
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeByte(kindOf(this));
+        out.writeDouble(positionX);
+        out.writeDouble(positionY);
+        out.writeDouble(currentHealth);
+        out.writeDouble(movementSpeed);
+        out.writeByte(facing);
+        out.writeByte(pose.ordinal());
+        out.writeShort(poseTicks);
+        for (int chance : lootChances) {
+            out.writeByte(chance);
+        }
+        writeFields(out);
+    }
 
+    /**
+     * Make a monster back from what write() wrote. Making it draws random numbers, so
+     * call this inside GameRandom.inRoom to leave the game's own streams alone.
+     * @param in where write() wrote a monster
+     * @return the monster, not yet in any room or in GameLoop
+     * @throws IOException if in can't be read
+     */
+    public static Monster read(DataInput in) throws IOException {
+        int kind = in.readByte();
+        double x = in.readDouble();
+        double y = in.readDouble();
+        Monster monster;
+        switch (kind) {
+        case 0:
+            monster = new Soldier();
+            break;
+        case 1:
+            monster = new Mage();
+            break;
+        case 2:
+            monster = new TrapMonster();
+            break;
+        case 3:
+            monster = new Trap(x, y);
+            break;
+        case 4:
+            monster = new Boss();
+            break;
+        case 5:
+            monster = new BossMinion(x, y);
+            break;
+        default:
+            throw new IOException("Unknown monster kind " + kind);
+        }
+        monster.positionX = x;
+        monster.positionY = y;
+        monster.currentHealth = in.readDouble();
+        monster.movementSpeed = in.readDouble();
+        monster.facing = in.readByte();
+        int poseIndex = in.readByte();
+        if (poseIndex < 0 || poseIndex >= Pose.values().length) {
+            throw new IOException("Not a pose: " + poseIndex);
+        }
+        monster.pose = Pose.values()[poseIndex];
+        monster.poseTicks = in.readShort();
+        for (int i = 0; i < monster.lootChances.length; i++) {
+            monster.lootChances[i] = in.readByte();
+        }
+        monster.readFields(in);
+        return monster;
+    }
+
+    /**
+     * Write what a kind of monster keeps on top of what every monster has.
+     * @param out where to write it
+     * @throws IOException if out can't be written
+     */
+    protected void writeFields(DataOutput out) throws IOException {
+    }
+
+    /**
+     * Read back what writeFields() wrote.
+     * @param in where to read it from
+     * @throws IOException if in can't be read
+     */
+    protected void readFields(DataInput in) throws IOException {
+    }
+
+    /**
+     * @return what kind of monster this is, as saves write it down
+     */
+    public int getKind() {
+        return kindOf(this);
+    }
+
+    private static int kindOf(Monster monster) {
+        if (monster instanceof Soldier) {
+            return 0;
+        } else if (monster instanceof Mage) {
+            return 1;
+        } else if (monster instanceof TrapMonster) {
+            return 2;
+        } else if (monster instanceof Trap) {
+            return 3;
+        } else if (monster instanceof Boss) {
+            return 4;
+        } else if (monster instanceof BossMinion) {
+            return 5;
+        }
+        throw new IllegalArgumentException("Can't write a " + monster.getName());
     }
 
 }
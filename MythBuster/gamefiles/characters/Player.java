@@ -1,12 +1,15 @@
 package gamefiles.characters;
 
 import java.util.ArrayList;
-import java.util.Optional;
 
 import controller.Controller;
+import controller.EventBus;
+import gamefiles.EntityStore;
 import gamefiles.Heart;
 import controller.GameLoop;
-import controller.SpriteAnimation;
+import controller.GameSystem;
+import controller.InputRecorder;
+import controller.Session;
 import gamefiles.Inventory;
 import gamefiles.Touchable;
 import gamefiles.items.Consumable;
@@ -14,24 +17,12 @@ import gamefiles.items.HealthPotion;
 import gamefiles.items.Item;
 import gamefiles.items.ItemDatabase;
 import gamefiles.weapons.Bow;
-import gamefiles.weapons.Spear;
-import gamefiles.weapons.Sword;
 import gamefiles.weapons.Weapon;
-import javafx.animation.Animation;
-import javafx.animation.AnimationTimer;
 import javafx.geometry.Rectangle2D;
-import javafx.scene.Group;
-import javafx.scene.Scene;
-import javafx.scene.control.Alert;
-import javafx.scene.control.ButtonType;
-import javafx.scene.image.Image;
-import javafx.scene.image.ImageView;
-import javafx.scene.layout.HBox;
-import javafx.scene.layout.VBox;
-import javafx.scene.paint.Color;
-import javafx.scene.shape.Rectangle;
-import javafx.scene.text.Text;
-import javafx.util.Duration;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
 public class Player implements Touchable {
     private String name;
@@ -52,39 +43,33 @@ public class Player implements Touchable {
 
     private double damageCooldown;
     private int maxActiveConsumables = 2;
-    private Image swordSprite = new Image("sprites/Player/daggerPlayer.png");
-    private Image spearSprite = new Image("sprites/Player/spearPlayer.png");
-    private Image bowSprite = new Image("sprites/Player/bowPlayer.png");
-    private ImageView imageView;
     private int direction = 0; //left = 0, right = 1
+    private boolean invisible;
+    private int attackCount;
     private ArrayList<Consumable> activeConsumables = new ArrayList<>();
+    private ArrayList<String> input = new ArrayList<>();
 
     private double positionX;
     private double positionY;
     private double width = 100;
     private double height = 100;
 
-    private final double heartsPadding = 10;
     private final double heartsDimensions = 50;
-    private final double hotbarPadding = 10;
-
-    private int spriteWidth = 64;
-    private int spriteHeight = 63;
-    private int spriteX = 0;
-    private int spriteY = 581;
 
-    private Group imageGroup;
     private ArrayList<Heart> hearts;
-    private HBox heartsBox;
     private Item[] hotbar;
-    private HBox hotbarBox;
 
-    private AnimationTimer playerLogic;
-    private AnimationTimer playerHpUpdate;
-    private AnimationTimer itemLoop;
+    private GameSystem playerLogic;
+    private GameSystem itemLoop;
 
-    private static int greedyIndex;
-    private static int potionsUsed;
+    private static final class State {
+        private int greedyIndex;
+        private int potionsUsed;
+    }
+
+    private static State state() {
+        return Session.current().get(State.class, State::new);
+    }
 
     public Player(int coins, Weapon weapon) {
         this.coins = coins;
@@ -93,23 +78,6 @@ public class Player implements Touchable {
         this.currSpeed = speed;
 
         damageWeaponModifier = weapon != null ? weapon.getDamage() : 1;
-        imageView = new ImageView();
-        if (weapon instanceof Spear) {
-            imageView.setImage(spearSprite);
-        } else if (weapon instanceof Sword) {
-            imageView.setImage(swordSprite);
-        } else if (weapon instanceof Bow) {
-            imageView.setImage(bowSprite);
-        }
-        Rectangle2D viewport = new Rectangle2D(spriteX, spriteY, spriteWidth, spriteHeight);
-        imageView.setViewport(viewport);
-        imageView.setPreserveRatio(true);
-        imageView.setFitWidth(width);
-        imageView.setFitHeight(height);
-        imageView.setLayoutX(100);
-        imageView.setLayoutY(250);
-        imageGroup = new Group();
-        imageGroup.getChildren().add(imageView);
 
         // hp
         currentHealth = 450;
@@ -120,74 +88,33 @@ public class Player implements Touchable {
         initializeHotbar();
     }
 
+    /**
+     * Start an attack. The view picks up the change in getAttackCount() and plays
+     * the weapon's animation.
+     * @return how many ticks the attack lasts
+     */
     public int attack() {
-        Animation animation = null;
-        int currX = spriteX;
-        int currY = spriteY;
-        double duration = 0;
-        if (weapon instanceof Spear) {
-            spriteY = spriteY - 258; //go to the attack frames
-            duration = 500;
-            animation = new SpriteAnimation(imageView, Duration.millis(duration),
-                    8, 8, spriteY,  0, spriteWidth, spriteHeight - 2);
-            animation.setCycleCount(1);
-            animation.play();
-        } else if (weapon instanceof Sword) {
-            spriteY += 259;
-            duration = 500;
-            animation = new SpriteAnimation(imageView, Duration.millis(duration), 6, 6, spriteY,
-                    0, spriteWidth, spriteHeight);
-            animation.setCycleCount(1);
-            animation.play();
-        } else if (weapon instanceof Bow) {
-            spriteY += 508;
-            duration = 500;
-            animation = new SpriteAnimation(imageView, Duration.millis(duration), 12, 12, spriteY,
-                    0, spriteWidth, spriteHeight);
-            animation.setCycleCount(1);
-            animation.play();
+        double duration = 500;
+        if (weapon instanceof Bow) {
             ((Bow) weapon).fireArrow(direction, positionX, positionY + width / 2, damage * damageWeaponModifier * damageBuffModifier);
         }
-        animation.setOnFinished(actionEvent -> {
-            spriteX = currX;
-            spriteY = currY;
-            Rectangle2D viewpoint = new Rectangle2D(spriteX, spriteY, spriteWidth, spriteHeight);
-            imageView.setViewport(viewpoint);
-        });
+        attackCount++;
         return (int) ((duration / 1000) * 60);
     }
 
-    public void play(Scene scene) {
-        ArrayList<String> input = new ArrayList<>();
-
-        scene.setOnKeyPressed(
-            e -> {
-                String code = e.getCode().toString();
-                if (!input.contains(code)) {
-                    input.add(code);
-                }
-            });
-
-        scene.setOnKeyReleased(
-            e -> {
-                String code = e.getCode().toString();
-                input.remove(code);
-            });
-
-
-
-
+    public void play() {
         // PLAYER LOGIC
-        this.playerLogic = new AnimationTimer() {
+        this.playerLogic = new GameSystem("player", GameLoop.PLAYER) {
             private int invisibilityCd = 0;
             private int damageWindow = 0;
+            private ArrayList<Monster> hits = new ArrayList<>();
 
             //For checking if 'I' is pressed and released.
             private boolean containedI = false;
 
-            public void handle(long now) {
+            public void handle(long tick) {
                 // game logic
-                // 60 now's = 1 second!!!
+                // 60 ticks = 1 second!!!
                 if (attackCD > 0) {
                     attackCD--;
                 }
@@ -203,12 +130,20 @@ public class Player implements Touchable {
                     currSpeed = speed * speedWeaponModifier * speedBuffModifier;
                 }
                 if (damageWindow > 0) {
-                    for (Monster monster : GameLoop.getMonsters()) {
-                        if (Controller.getPlayer().intersects(monster) && !(weapon instanceof Bow)) {
-                            System.out.println("Player damaged monster for " + damage * damageWeaponModifier * damageBuffModifier);
+                    if (!(weapon instanceof Bow)) {
+                        hits.clear();
+                        GameLoop.getMonsterGrid().queryTouching(Controller.getPlayer(), hits);
+                        for (Monster monster : hits) {
                             monster.takeDamage(damage * damageWeaponModifier * damageBuffModifier);
                             damageWindow = 0;
                         }
+                        EntityStore projectiles = GameLoop.getProjectiles();
+                        for (int i = 0; i < projectiles.size(); i++) {
+                            if (projectiles.intersects(i, Controller.getPlayer())) {
+                                projectiles.takeDamage(i, damage * damageWeaponModifier * damageBuffModifier);
+                                damageWindow = 0;
+                            }
+                        }
                     }
                     damageWindow--;
                 }
@@ -221,32 +156,22 @@ public class Player implements Touchable {
                     moveCD--;
                 } else {
                     if (input.contains("A") && positionX > 10) {
-                        imageView.setScaleX(1);
                         moveRelative(-currSpeed, 0);
                         direction = 0;
                     }
-                    if (input.contains("D") && positionX + width < (scene.getWidth() - 25)) {
-                        imageView.setScaleX(-1);
+                    if (input.contains("D") && positionX + width < (Controller.getW() - 25)) {
                         moveRelative(currSpeed, 0);
                         direction = 1;
                     }
                     if (input.contains("W") && positionY > 10) {
                         moveRelative(0, -currSpeed);
                     }
-                    if (input.contains("S") && positionY + height < (scene.getHeight() - 55)) {
+                    if (input.contains("S") && positionY + height < (Controller.getH() - 55)) {
                         moveRelative(0, currSpeed);
                     }
                 }
 
-                if (invisibilityCd > 0) { // Overwrite setScale if invis frames
-                    imageView.setScaleX(0);
-                } else if (imageView.getScaleX() == 0) { // If player didn't move
-                    if (direction == 0) { // same direction
-                        imageView.setScaleX(1);
-                    } else if (direction == 1) {
-                        imageView.setScaleX(-1);
-                    }
-                }
+                invisible = invisibilityCd > 0; // blink during invis frames
                 invisibilityCd--;
 
 
@@ -255,7 +180,7 @@ public class Player implements Touchable {
                     containedI = true;
                 }
                 if (containedI && !input.contains("I")) { //Go to inventory if I was released.
-                    Controller.goToInventory();
+                    Controller.getView().openInventory();
                     input.remove("I");
                     containedI = false;
                 }
@@ -264,12 +189,11 @@ public class Player implements Touchable {
         };
 
         // ITEM LOOP
-        this.itemLoop = new AnimationTimer() {
+        this.itemLoop = new GameSystem("items", GameLoop.ITEMS) {
             private ArrayList<Integer> toDelete = new ArrayList<Integer>();
-            HBox effectDisplays = Controller.getGameScreen().getEffectDisplays();
             private int itemCD = 0;
 
-            public void handle(long currentNanoTime) {
+            public void handle(long tick) {
                 Item[] currHotbar = Inventory.getHotbar();
 
                 // some triggers for onscreen hotbar / consumables
@@ -278,17 +202,18 @@ public class Player implements Touchable {
                     if (item != null) {
                         if (itemCD <= 0 && input.contains("DIGIT" + Integer.toString(i + 1))) {
                             if(!(item instanceof HealthPotion) && activeConsumables.size() >= maxActiveConsumables) {
-                                //Too many potions active!
-                                System.out.println("Too many potions already active!");
+                                // Held keys come round every tick, so wait out the cooldown
+                                // before saying so again.
+                                Controller.getView().showMessage("Too many potions already active!", 200, 30);
+                                itemCD = 30;
                                 continue;
                             }
                             item.setActive(true);
                             itemCD = 30;
                             if (item instanceof Consumable) {
                                 toDelete.add(i);
-                                System.out.println("Trying to delete at index " + i);
                             }
-                            potionsUsed++;
+                            state().potionsUsed++;
                         }
                     }
                     if (item instanceof Consumable && item.isActive()) {
@@ -298,30 +223,14 @@ public class Player implements Touchable {
                 updateHotbar(toDelete, null);
                 itemCD--;
 
-
-                effectDisplays.getChildren().clear();
                 for (int i = 0; i < activeConsumables.size(); i++) {
                     //For handling item effects.
                     Consumable item = activeConsumables.get(i);
                     if (item.isActive()) {
-                        (item).effect(currentNanoTime);
+                        (item).effect(tick);
                     } else {
                         activeConsumables.remove(item);
                     }
-
-                    //for updating the UI with the item+timer
-                    //Note: this is pretty inefficient/scuffed, but it works.
-                    //It's essentially recreating the display every loop through, because
-                    //we have effectDisplays.getChildren().clear() up outside of this for loop.
-                    Image icon = item.getImage();
-                    ImageView iconView = new ImageView(icon);
-                    iconView.setFitWidth(20);
-                    iconView.setFitHeight(20);
-                    long timer = ((Consumable) item).getDurationTimer() / 60;
-                    Text timerText = new Text(10, 10, Long.toString(timer));
-                    VBox consumableDisplay = new VBox();
-                    consumableDisplay.getChildren().addAll(iconView, timerText);
-                    effectDisplays.getChildren().add(consumableDisplay);
                 }
 
             }
@@ -331,29 +240,23 @@ public class Player implements Touchable {
     public void moveAbsolute(double x, double y) {
         positionX = x;
         positionY = y;
-        imageGroup.relocate(positionX, positionY);
     }
 
     public void moveRelative(double x, double y) {
         positionX += x;
         positionY += y;
-        imageGroup.relocate(positionX, positionY);
     }
 
 
     public void updateHotbar(ArrayList<Integer> toDelete, ArrayList<Item> toAdd) {
-        boolean update = false;
         Item[] currHotbar = Inventory.getHotbar();
         if (toDelete != null && toDelete.size() > 0) {
-            update = true;
             for (int i = toDelete.size() - 1; i >= 0; i--) {
                 currHotbar[toDelete.remove(i).intValue()] = null;
                 Inventory.setHotbarSize(Inventory.getHotbarSize() - 1);
             }
         }
         if (toAdd != null && toAdd.size() > 0) {
-
-            update = true;
             for (Item item : toAdd) {
                 if (Inventory.getHotbarSize() < Inventory.getmaxHotbarSize()) {
                     for (int i = 0; i < Inventory.getmaxHotbarSize(); i++) {
@@ -368,77 +271,73 @@ public class Player implements Touchable {
                 }
 
             }
-
         }
+    }
 
-        if (update) {
-            // hotbarBox
-            updateHotbarImages();
-        }
+    /**
+     * Write the player down for a save: name, coins, weapon, health, stats, and where
+     * they stand. Potions still working (and the boss's curse) are not kept; they wear
+     * off across a load.
+     * @param out where to write
+     * @throws IOException if writing fails
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeUTF(name);
+        out.writeInt(coins);
+        out.writeShort(weapon != null ? ItemDatabase.codeOf(weapon) : -1);
+        out.writeDouble(maxHealth);
+        out.writeDouble(currentHealth);
+        out.writeDouble(damage);
+        out.writeDouble(speed);
+        out.writeDouble(positionX);
+        out.writeDouble(positionY);
+        out.writeByte(direction);
+    }
+
+    /**
+     * @param in where a player was written by write()
+     * @return the player, with the weapon the session's WeaponDatabase has for it
+     * @throws IOException if reading fails
+     */
+    public static Player read(DataInput in) throws IOException {
+        String name = in.readUTF();
+        int coins = in.readInt();
+        int weapon = in.readShort();
+        Player player = new Player(coins, weapon >= 0 ? (Weapon) ItemDatabase.itemFor(weapon, 0) : null);
+        player.name = name;
+        player.setMaxHealth(in.readDouble());
+        player.updatePlayerMaxHp();
+        player.currentHealth = in.readDouble();
+        player.updateHearts(player.currentHealth);
+        player.damage = in.readDouble();
+        player.speed = in.readDouble();
+        player.currSpeed = player.speed;
+        player.positionX = in.readDouble();
+        player.positionY = in.readDouble();
+        player.direction = in.readByte();
+        return player;
     }
 
     public void initializeHotbar() {
         ItemDatabase.resetQuantities();
 
         this.hotbar = Inventory.getHotbar(); // UPDATE IF WEAPON IS AN ITEM
-        this.hotbarBox = new HBox(hotbarPadding);
-        for (int i = 0; i < Inventory.getmaxHotbarSize(); i++) {
-            Group hotbarSlot = new Group();
-            hotbarSlot.getChildren().add(new ImageView("sprites/inventorySlot.png"));
-            hotbarBox.getChildren().add(hotbarSlot);
-
-            ImageView imageView = null;
-            if (hotbar[i] != null) {
-                imageView = new ImageView(hotbar[i].getImage());
-                imageView.setFitWidth(50);
-                imageView.setFitHeight(50);
-                hotbarSlot.getChildren().add(imageView);
-            }
-
-            hotbarBox.setLayoutX(700);
-            hotbarBox.setLayoutY(hotbarPadding);
-        }
     }
 
-
-    public void updateHotbarImages() {
-        for (int j = 0; j < Inventory.getmaxHotbarSize(); j++) {
-            if (hotbar[j] != null) {
-                ImageView imageView = new ImageView(hotbar[j].getImage());
-                imageView.setFitWidth(hotbar[j].getWidth());
-                imageView.setFitHeight(hotbar[j].getHeight());
-                Group hotbarSlot = (Group) hotbarBox.getChildren().get(j);
-                hotbarSlot.getChildren().clear();
-                hotbarSlot.getChildren().add(new ImageView("sprites/inventorySlot.png"));
-                hotbarSlot.getChildren().add(imageView);
-            } else {
-                Group hotbarSlot = (Group) hotbarBox.getChildren().get(j);
-                hotbarSlot.getChildren().clear();
-                hotbarSlot.getChildren().add(new ImageView("sprites/inventorySlot.png"));
-            }
-        }
-    }
-
-
-
+    /**
+     * Keep the hearts in step with health, and end the game when it runs out.
+     */
     public void updatePlayerHp() {
-        this.playerHpUpdate = new AnimationTimer() {
-            private double oldHealth = getCurrentHealth();
-            public void handle(long currentNanoTime) {
-                double currentHealth = getCurrentHealth();
-
-                if (currentHealth != oldHealth) {
-
-                    if (currentHealth <= 25) { // higher number b/c some glitch
-                        Controller.goToDeathScreen();
-                    }
-
-                    updateHearts(currentHealth);
-                }
-
-                oldHealth = currentHealth;
+        EventBus.subscribe(EventBus.HEALTH_CHANGED, player -> {
+            if (player != this) {
+                return;
             }
-        };
+            double currentHealth = getCurrentHealth();
+            if (currentHealth <= 25 && !Controller.isGameOver()) { // higher number b/c some glitch
+                Controller.playerDied();
+            }
+            updateHearts(currentHealth);
+        });
     }
 
     public void updateHearts(double currentHealth) {
@@ -450,64 +349,52 @@ public class Player implements Touchable {
                 hearts.get(i).setFull();
             }
         }
-
-        ArrayList<ImageView> heartsImages = new ArrayList<ImageView>(hearts.size());
-        for (int j = 0; j < hearts.size(); j++) {
-            heartsImages.add(hearts.get(j).getImageView());
-        }
-        heartsBox.getChildren().setAll(heartsImages);
     }
 
     public void updatePlayerMaxHp() {
         this.hearts = new ArrayList<Heart>(numHearts);
-        this.heartsBox = new HBox(heartsPadding);
         for (int i = 0; i < numHearts; i++) {
             Heart heart = new Heart(heartsDimensions, heartsDimensions, true);
             hearts.add(heart);
-            heartsBox.getChildren().add(heart.getImageView());
-        }
-        heartsBox.setLayoutX(heartsPadding);
-        heartsBox.setLayoutY(800 - heartsDimensions - heartsPadding);
-        if (Controller.getGameScreen() != null) {
-            Controller.getGameScreen().getBoard().getChildren().remove(heartsBox);
-            Controller.getGameScreen().getBoard().getChildren().add(heartsBox);
         }
     }
 
-    public void swapWeapon(Weapon w) {
-        Alert a = new Alert(Alert.AlertType.CONFIRMATION);
-        a.setTitle("Weapon Swap");
-        a.setHeaderText("Swapping Weapons");
-        a.setContentText("Would you like to swap weapons?");
-        Optional<ButtonType> response = a.showAndWait();
-        if (response.isPresent() && response.get() == ButtonType.OK) {
-            setWeapon(w);
-        }
+    public ArrayList<Heart> getHearts() {
+        return hearts;
     }
 
-    public Group getGroup() {
-        return imageGroup;
+    public void pressKey(String code) {
+        if (!input.contains(code)) {
+            input.add(code);
+            InputRecorder.keyDown(code);
+        }
     }
 
-    public ArrayList<Heart> getHearts() {
-        return hearts;
+    public void releaseKey(String code) {
+        if (input.remove(code)) {
+            InputRecorder.keyUp(code);
+        }
     }
 
-    public HBox getHeartsBox() {
-        return heartsBox;
+    public ArrayList<String> getInput() {
+        return input;
     }
 
     public Rectangle2D getBoundary() {
         return new Rectangle2D(positionX, positionY, width, height);
     }
 
-    public boolean intersects(Touchable other) {
-        if (other == null) {
-            return false;
-        }
-        boolean intersected = other.getBoundary().intersects(this.getBoundary());
-
-        return intersected;
+    public double getMinX() {
+        return positionX;
+    }
+    public double getMinY() {
+        return positionY;
+    }
+    public double getMaxX() {
+        return positionX + width;
+    }
+    public double getMaxY() {
+        return positionY + height;
     }
 
     public int getCoins() {
@@ -515,11 +402,9 @@ public class Player implements Touchable {
     }
     public synchronized void setCoins(int amount) {
         coins = amount;
-        if (Controller.getGameScreen() != null) {
-            Controller.getGameScreen().getCoinDisplay().setText("Coins: " + getCoins());
-        }
-        if (coins > greedyIndex) {
-            greedyIndex = coins;
+        State state = state();
+        if (coins > state.greedyIndex) {
+            state.greedyIndex = coins;
         }
     }
     public void addCoins(int amount) {
@@ -530,13 +415,6 @@ public class Player implements Touchable {
     }
     public void setWeapon(Weapon w) {
         weapon = w;
-        if (weapon instanceof Spear) {
-            imageView.setImage(spearSprite);
-        } else if (weapon instanceof Sword) {
-            imageView.setImage(swordSprite);
-        } else if (weapon instanceof Bow) {
-            imageView.setImage(bowSprite);
-        }
         damageWeaponModifier = weapon != null ? weapon.getDamage() : 1;
         speedWeaponModifier = weapon != null ? weapon.getSpeed(): 1;
 
@@ -602,14 +480,20 @@ public class Player implements Touchable {
     }
 
     public void setHealth(double value) {
-        this.currentHealth = value;
+        if (value != currentHealth) {
+            this.currentHealth = value;
+            EventBus.publish(EventBus.HEALTH_CHANGED, this);
+        }
     }
     public void setMaxHealth(double value) {
         this.maxHealth = value;
         numHearts = (int) Math.floor(maxHealth / Heart.HEALTH_PER_HEART);
     }
     public void addHealth(double value) {
-        this.currentHealth += value;
+        if (value != 0) {
+            this.currentHealth += value;
+            EventBus.publish(EventBus.HEALTH_CHANGED, this);
+        }
     }
     public void takeDamage(double damage) {
         if (damageCooldown <= 0) {
@@ -623,6 +507,7 @@ public class Player implements Touchable {
         this.currentHealth += value;
         this.numHearts += (int) Math.floor(value / Heart.HEALTH_PER_HEART);
         updatePlayerMaxHp();
+        EventBus.publish(EventBus.HEALTH_CHANGED, this);
     }
 
     public void subtractMaximumHealth(double value) {
@@ -638,33 +523,41 @@ public class Player implements Touchable {
     }
 
 
-    public HBox gethotbarBox() {
-        return this.hotbarBox;
+    public int getDirection() {
+        return direction;
     }
 
-    public AnimationTimer getPlayerLogicTimer() {
-        return playerLogic;
+    public boolean isInvisible() {
+        return invisible;
     }
 
-    public AnimationTimer getPlayerHpUpdateTimer() {
-        return playerHpUpdate;
+    public int getAttackCount() {
+        return attackCount;
+    }
+
+    public ArrayList<Consumable> getActiveConsumables() {
+        return activeConsumables;
+    }
+
+    public GameSystem getPlayerLogic() {
+        return playerLogic;
     }
 
-    public AnimationTimer getItemLoop() {
+    public GameSystem getItemLoop() {
         return itemLoop;
     }
 
     public static int getGreedyIndex() {
-        return greedyIndex;
+        return state().greedyIndex;
     }
     public static void setGreedyIndex(int amount) {
-        greedyIndex = amount;
+        state().greedyIndex = amount;
     }
     public static int getPotionsUsed() {
-        return potionsUsed;
+        return state().potionsUsed;
     }
     public static void setPotionsUsed(int amount) {
-        potionsUsed= amount;
+        state().potionsUsed= amount;
     }
 
     public double getWidth() {
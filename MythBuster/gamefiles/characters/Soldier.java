@@ -1,6 +1,12 @@
 package gamefiles.characters;
 
 import controller.Controller;
+import controller.GameLoop;
+import gamefiles.FlowField;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
 public class Soldier extends Monster {
 
@@ -23,22 +29,20 @@ public class Soldier extends Monster {
         // game logic
 
         checkDeath();
-        redrawHealthBar();
         // flip sprite if needed
         double offsetX = targetPositionX - positionX;
         double offsetY = targetPositionY - positionY;
         if (offsetX > 0) {
             if (Math.abs(offsetX) > 10) {
-                imageView.setScaleX(1);
+                facing = 1;
             }
         } else {
             if (Math.abs(offsetX) > 10) {
-                imageView.setScaleX(-1);
+                facing = -1;
             }
         }
 
         //Damage player or move.
-        double magnitude = Math.sqrt(offsetX * offsetX + offsetY * offsetY);
         if (Controller.getPlayer().intersects(this)) {
             if (damageCooldown > 0) {
                 damageCooldown--;
@@ -48,8 +52,32 @@ public class Soldier extends Monster {
             }
         } else if (Math.abs(offsetX) > 10 || Math.abs(offsetY) > 10) {
             damageCooldown = 50;
-            moveRelative(movementSpeed * offsetX / magnitude, movementSpeed * offsetY / magnitude);
+            double directionX = GameLoop.getSteering().getX(this);
+            double directionY = GameLoop.getSteering().getY(this);
+            if (Double.isNaN(directionX)) {
+                // Spawned this tick, so not steered yet.
+                FlowField field = GameLoop.getFlowField();
+                field.aim(targetPositionX, targetPositionY);
+                directionX = field.directionX(positionX, positionY);
+                directionY = field.directionY(positionX, positionY);
+            }
+            moveRelative(movementSpeed * directionX, movementSpeed * directionY);
         }
     }
+
+    @Override
+    protected boolean flocks() {
+        return true;
+    }
+
+    @Override
+    protected void writeFields(DataOutput out) throws IOException {
+        out.writeInt(damageCooldown);
+    }
+
+    @Override
+    protected void readFields(DataInput in) throws IOException {
+        damageCooldown = in.readInt();
+    }
 }
 
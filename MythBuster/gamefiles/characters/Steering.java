@@ -0,0 +1,195 @@
+package gamefiles.characters;
+
+import controller.Controller;
+import gamefiles.FlowField;
+import gamefiles.SpatialGrid;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Works out which way every flocking monster in a room moves this tick, so a crowd
+ * chasing the player spreads out around them instead of piling onto one point.
+ *
+ * Each monster mixes three pulls: pursuit, along the room's FlowField towards the
+ * player; separation, away from neighbours closer than SEPARATION; and a little
+ * cohesion, towards the middle of its neighbours, so a crowd moves as a group
+ * instead of scattering. The neighbours come from a radius query on the monster grid,
+ * and only the first MAX_NEIGHBOURS it finds count, so a crowded room costs a bounded
+ * amount per monster.
+ *
+ * update() first copies the monsters' positions and neighbour lists into flat arrays,
+ * and then every pull is summed in loops over those arrays alone, with nothing to
+ * chase through pointers. The last pass, mixing and normalizing the pulls, is a plain
+ * loop over parallel arrays the JIT can vectorize.
+ */
+public class Steering {
+    public static final double NEIGHBOUR_RADIUS = 100;
+    public static final double SEPARATION = 90;
+    public static final int MAX_NEIGHBOURS = 12;
+
+    private static final double SEPARATION_WEIGHT = 1.5;
+    private static final double COHESION_WEIGHT = 0.2;
+    private static final double GOLDEN_ANGLE = 2.39996;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private int count;
+    private Monster[] steered = new Monster[INITIAL_CAPACITY];
+    private double[] centerX = new double[INITIAL_CAPACITY];
+    private double[] centerY = new double[INITIAL_CAPACITY];
+    private double[] pursuitX = new double[INITIAL_CAPACITY];
+    private double[] pursuitY = new double[INITIAL_CAPACITY];
+    private double[] separationX = new double[INITIAL_CAPACITY];
+    private double[] separationY = new double[INITIAL_CAPACITY];
+    private double[] cohesionX = new double[INITIAL_CAPACITY];
+    private double[] cohesionY = new double[INITIAL_CAPACITY];
+    private double[] steerX = new double[INITIAL_CAPACITY];
+    private double[] steerY = new double[INITIAL_CAPACITY];
+    private int[] neighbourCount = new int[INITIAL_CAPACITY];
+    private int[] neighbours = new int[INITIAL_CAPACITY * MAX_NEIGHBOURS];
+    private final ArrayList<Monster> found = new ArrayList<>();
+
+    /**
+     * Work out this tick's steering for every monster in a list that flocks.
+     * @param monsters the monsters being simulated
+     * @param grid     the same monsters, by where they are
+     * @param field    the way to the player
+     */
+    public void update(List<Monster> monsters, SpatialGrid<Monster> grid, FlowField field) {
+        Player player = Controller.getPlayer();
+        field.aim(player.getPositionX(), player.getPositionY() - 30);
+        gather(monsters, field);
+        findNeighbours(grid);
+        sumPulls();
+        mix();
+    }
+
+    /**
+     * @param monster a monster
+     * @return the x of the unit vector it should move along this tick, or NaN if
+     *         update() didn't steer it
+     */
+    public double getX(Monster monster) {
+        int slot = monster.steeringSlot;
+        return slot >= 0 && slot < count && steered[slot] == monster ? steerX[slot] : Double.NaN;
+    }
+
+    /**
+     * @param monster a monster
+     * @return the y of the unit vector it should move along this tick, or NaN if
+     *         update() didn't steer it
+     */
+    public double getY(Monster monster) {
+        int slot = monster.steeringSlot;
+        return slot >= 0 && slot < count && steered[slot] == monster ? steerY[slot] : Double.NaN;
+    }
+
+    /**
+     * Give every flocking monster a slot, and copy in where it is and its pursuit.
+     */
+    private void gather(List<Monster> monsters, FlowField field) {
+        for (int i = 0; i < count; i++) {
+            steered[i].steeringSlot = -1;
+            steered[i] = null;
+        }
+        count = 0;
+        for (int i = 0; i < monsters.size(); i++) {
+            Monster monster = monsters.get(i);
+            if (monster.isDead() || !monster.flocks()) {
+                continue;
+            }
+            if (count == steered.length) {
+                grow();
+            }
+            steered[count] = monster;
+            monster.steeringSlot = count;
+            centerX[count] = monster.positionX + monster.width / 2;
+            centerY[count] = monster.positionY + monster.height / 2;
+            // Pursuit is sampled where the monster aims from, so it matches chasing alone.
+            pursuitX[count] = field.directionX(monster.positionX, monster.positionY);
+            pursuitY[count] = field.directionY(monster.positionX, monster.positionY);
+            count++;
+        }
+    }
+
+    private void findNeighbours(SpatialGrid<Monster> grid) {
+        for (int i = 0; i < count; i++) {
+            found.clear();
+            grid.queryRadius(centerX[i], centerY[i], NEIGHBOUR_RADIUS, found);
+            int n = 0;
+            for (int f = 0; f < found.size() && n < MAX_NEIGHBOURS; f++) {
+                Monster other = found.get(f);
+                int slot = other.steeringSlot;
+                if (slot >= 0 && slot != i && steered[slot] == other) {
+                    neighbours[i * MAX_NEIGHBOURS + n++] = slot;
+                }
+            }
+            neighbourCount[i] = n;
+        }
+    }
+
+    private void sumPulls() {
+        for (int i = 0; i < count; i++) {
+            double pushX = 0;
+            double pushY = 0;
+            double sumX = 0;
+            double sumY = 0;
+            int n = neighbourCount[i];
+            for (int k = 0; k < n; k++) {
+                int j = neighbours[i * MAX_NEIGHBOURS + k];
+                double offsetX = centerX[i] - centerX[j];
+                double offsetY = centerY[i] - centerY[j];
+                sumX += centerX[j];
+                sumY += centerY[j];
+                double distance = Math.sqrt(offsetX * offsetX + offsetY * offsetY);
+                if (distance >= SEPARATION) {
+                    continue;
+                }
+                if (distance < 1e-6) {
+                    // Exactly on top of each other: split along an angle both agree on,
+                    // in opposite directions.
+                    double angle = GOLDEN_ANGLE * Math.max(i, j);
+                    double sign = i > j ? 1 : -1;
+                    offsetX = sign * Math.cos(angle);
+                    offsetY = sign * Math.sin(angle);
+                    distance = 1;
+                }
+                double strength = 1 - distance / SEPARATION;
+                pushX += strength * offsetX / distance;
+                pushY += strength * offsetY / distance;
+            }
+            separationX[i] = pushX;
+            separationY[i] = pushY;
+            cohesionX[i] = n == 0 ? 0 : (sumX / n - centerX[i]) / NEIGHBOUR_RADIUS;
+            cohesionY[i] = n == 0 ? 0 : (sumY / n - centerY[i]) / NEIGHBOUR_RADIUS;
+        }
+    }
+
+    private void mix() {
+        for (int i = 0; i < count; i++) {
+            double x = pursuitX[i] + SEPARATION_WEIGHT * separationX[i] + COHESION_WEIGHT * cohesionX[i];
+            double y = pursuitY[i] + SEPARATION_WEIGHT * separationY[i] + COHESION_WEIGHT * cohesionY[i];
+            double length = Math.max(1, Math.sqrt(x * x + y * y));
+            steerX[i] = x / length;
+            steerY[i] = y / length;
+        }
+    }
+
+    private void grow() {
+        int capacity = steered.length * 2;
+        steered = Arrays.copyOf(steered, capacity);
+        centerX = Arrays.copyOf(centerX, capacity);
+        centerY = Arrays.copyOf(centerY, capacity);
+        pursuitX = Arrays.copyOf(pursuitX, capacity);
+        pursuitY = Arrays.copyOf(pursuitY, capacity);
+        separationX = Arrays.copyOf(separationX, capacity);
+        separationY = Arrays.copyOf(separationY, capacity);
+        cohesionX = Arrays.copyOf(cohesionX, capacity);
+        cohesionY = Arrays.copyOf(cohesionY, capacity);
+        steerX = Arrays.copyOf(steerX, capacity);
+        steerY = Arrays.copyOf(steerY, capacity);
+        neighbourCount = Arrays.copyOf(neighbourCount, capacity);
+        neighbours = Arrays.copyOf(neighbours, capacity * MAX_NEIGHBOURS);
+    }
+}
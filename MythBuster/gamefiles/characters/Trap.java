@@ -1,19 +1,25 @@
 package gamefiles.characters;
 
 import controller.Controller;
+import controller.EventBus;
 import controller.GameLoop;
-import javafx.geometry.Rectangle2D;
+import controller.Session;
+
+import java.util.ArrayList;
 
 public class Trap extends Monster {
 
-    private static int trapCount;
+    private static final class State {
+        private boolean clearing;
+    }
+
+    private static State state() {
+        return Session.current().get(State.class, State::new);
+    }
 
     public Trap(double posX, double posY) {
         super("Trap", 10, 0, "sprites/Trap.png", 50, 50);
-        imageView.setViewport(new Rectangle2D(0, 0, 100, 95));
-        imageView.setRotate(45);
         moveAbsolute(posX, posY);
-        trapCount++;
     }
 
 
@@ -22,28 +28,42 @@ public class Trap extends Monster {
     public void update() {
         // game logic
         checkDeath();
-        redrawHealthBar();
         if (Controller.getPlayer().intersects(this)) {
             Controller.getPlayer().takeDamage(damage);
             currentHealth = 0;
             checkDeath();
         }
-        if (GameLoop.getMonsters().size() - trapCount == 0) {
-            currentHealth = 0;
-            checkDeath();
-        }
-        /*if (currentHealth <= 0) {
-            trapCount--;
-        }*/
     }
 
-    public static void setTrapCount(int amount) {
-        trapCount = amount;
-    }
-    public static void decrementTrapCount(int amount) {
-        trapCount -= amount;
+    /**
+     * Clear away the traps whenever only traps are left in the room.
+     */
+    public static void listen() {
+        EventBus.subscribe(EventBus.MONSTER_DIED, monster -> clearIfOnlyTraps());
+        EventBus.subscribe(EventBus.PROJECTILES_CLEARED, projectiles -> clearIfOnlyTraps());
+        EventBus.subscribe(EventBus.ROOM_ENTERED, room -> clearIfOnlyTraps());
     }
-    public static int getTrapCount() {
-        return trapCount;
+
+    private static void clearIfOnlyTraps() {
+        State state = state();
+        if (state.clearing || GameLoop.getProjectiles().size() != 0) {
+            return;
+        }
+        ArrayList<Monster> monsters = GameLoop.getMonsters();
+        for (int i = 0; i < monsters.size(); i++) {
+            if (!(monsters.get(i) instanceof Trap)) {
+                return;
+            }
+        }
+        // Each trap's death is a MONSTER_DIED of its own, so don't start over for those.
+        state.clearing = true;
+        for (int i = monsters.size() - 1; i >= 0; i--) {
+            if (i < monsters.size() && monsters.get(i) instanceof Trap) {
+                Monster trap = monsters.get(i);
+                trap.currentHealth = 0;
+                trap.checkDeath();
+            }
+        }
+        state.clearing = false;
     }
 }
@@ -2,14 +2,18 @@ package gamefiles.characters;
 
 import controller.Controller;
 import controller.GameLoop;
-import javafx.application.Platform;
-import javafx.geometry.Rectangle2D;
+import controller.GameRandom;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.List;
+import java.util.SplittableRandom;
 
 public class TrapMonster extends Monster {
 
     public TrapMonster() {
         super("Trap Monster", 100, 5, "sprites/TrapMonster.png", 100, 100);
-        imageView.setViewport(new Rectangle2D(4, 23, 140, 167));
     }
 
     public TrapMonster(double health, double movementSpeed, String spritePath,
@@ -18,15 +22,20 @@ public class TrapMonster extends Monster {
     }
     // private int damage = 50;
     // private int damageCooldown = 0;
-    private int spawnTrapCooldown = 200;
-    private double targetPositionX = Math.random() * (Controller.getW() - width);
-    private double targetPositionY = Math.random() * (Controller.getH() - height);
+    private static final int TRAP_INTERVAL = 200;
+    /** How many traps it lays while the player is away, at most, so a room doesn't fill up. */
+    private static final int MAX_OFFSCREEN_TRAPS = 6;
+
+    private int spawnTrapCooldown = TRAP_INTERVAL;
+    private double[] offscreenTraps;
+    private int offscreenTrapCount;
+    private double targetPositionX = GameRandom.ai().nextDouble() * (Controller.getW() - width);
+    private double targetPositionY = GameRandom.ai().nextDouble() * (Controller.getH() - height);
 
 
     public void update() {
         // game logic
         checkDeath();
-        redrawHealthBar();
         // movew
         double offsetX = targetPositionX - positionX;
         double offsetY = targetPositionY - positionY;
@@ -34,19 +43,66 @@ public class TrapMonster extends Monster {
         if (Math.abs(offsetX) > 10 || Math.abs(offsetY) > 10) {
             moveRelative(movementSpeed * offsetX / magnitude, movementSpeed * offsetY / magnitude);
         } else {
-            targetPositionX = Math.random() * (Controller.getW() - width);
-            targetPositionY = Math.random() * (Controller.getH() - height);
+            targetPositionX = GameRandom.ai().nextDouble() * (Controller.getW() - width);
+            targetPositionY = GameRandom.ai().nextDouble() * (Controller.getH() - height);
         }
         if (spawnTrapCooldown > 0) {
             spawnTrapCooldown--;
         } else {
-            spawnTrapCooldown = 200;
+            spawnTrapCooldown = TRAP_INTERVAL;
             Trap trap = new Trap(positionX, positionY);
             GameLoop.getMonsters().add(trap);
-            Platform.runLater(() -> {
-                Controller.getGameScreen().getBoard().getChildren().add(trap.getGroup());
-                Controller.getCurrentRoom().getMonsters().add(trap);
-            });
+            Controller.getCurrentRoom().getMonsters().add(trap);
+        }
+    }
+
+    @Override
+    public boolean simulateOffscreen(int ticks, SplittableRandom random) {
+        for (int left = walkOffscreen(targetPositionX, targetPositionY, ticks); left > 0;
+                left = walkOffscreen(targetPositionX, targetPositionY, left)) {
+            targetPositionX = random.nextDouble() * (Controller.getW() - width);
+            targetPositionY = random.nextDouble() * (Controller.getH() - height);
+        }
+        // update() counts the cooldown down to 0 and lays a trap the tick after.
+        if (ticks <= spawnTrapCooldown) {
+            spawnTrapCooldown -= ticks;
+            return true;
+        }
+        int afterFirst = ticks - spawnTrapCooldown - 1;
+        int laid = 1 + afterFirst / (TRAP_INTERVAL + 1);
+        spawnTrapCooldown = TRAP_INTERVAL - afterFirst % (TRAP_INTERVAL + 1);
+        // Where it walked along the way isn't kept, so the traps go anywhere in the room.
+        laid = Math.min(laid, MAX_OFFSCREEN_TRAPS - offscreenTrapCount);
+        if (offscreenTraps == null) {
+            offscreenTraps = new double[2 * MAX_OFFSCREEN_TRAPS];
+        }
+        for (int i = 0; i < laid; i++) {
+            offscreenTraps[2 * offscreenTrapCount] = random.nextDouble() * (Controller.getW() - 50);
+            offscreenTraps[2 * offscreenTrapCount + 1] = random.nextDouble() * (Controller.getH() - 50);
+            offscreenTrapCount++;
         }
+        return true;
+    }
+
+    @Override
+    public void settleOffscreen(List<Monster> room) {
+        for (int i = 0; i < offscreenTrapCount; i++) {
+            room.add(new Trap(offscreenTraps[2 * i], offscreenTraps[2 * i + 1]));
+        }
+        offscreenTrapCount = 0;
+    }
+
+    @Override
+    protected void writeFields(DataOutput out) throws IOException {
+        out.writeInt(spawnTrapCooldown);
+        out.writeDouble(targetPositionX);
+        out.writeDouble(targetPositionY);
+    }
+
+    @Override
+    protected void readFields(DataInput in) throws IOException {
+        spawnTrapCooldown = in.readInt();
+        targetPositionX = in.readDouble();
+        targetPositionY = in.readDouble();
     }
 }
@@ -1,17 +1,12 @@
 package gamefiles.items;
 
-import javafx.scene.media.MediaPlayer;
-import javafx.util.Duration;
-import sounds.BackgroundMusic;
-import javafx.scene.media.Media;
-
-import java.io.File;
+import controller.Controller;
 
 public abstract class Consumable extends Item {
     private long duration;
     private long durationTimer;
     private boolean consumed;
-    private MediaPlayer soundEffect;
+    private String soundEffect;
     private boolean active;
 
 
@@ -34,11 +29,11 @@ public abstract class Consumable extends Item {
     }
 
     /**
-     * Abstract function that goes in AnimationTimer to dictate what happens
+     * Abstract function that runs every game tick to dictate what happens
      * due to item presence.
-     * @param currentNanoTime same long as AnimationTimer
+     * @param tick the current GameLoop tick
      */
-    public abstract void effect(long currentNanoTime);
+    public abstract void effect(long tick);
 
     public boolean update() {
         if (this.durationTimer == 0) {
@@ -53,12 +48,7 @@ public abstract class Consumable extends Item {
     }
 
     public void setSoundEffect(String soundPath) {
-        //Instantiating Media class  
-        Media media = new Media(new File(soundPath).toURI().toString());  
-        //Instantiating MediaPlayer class   
-        this.soundEffect = new MediaPlayer(media);
-        this.soundEffect.setStopTime(Duration.seconds(2));
-        this.soundEffect.setVolume(BackgroundMusic.getVolume());
+        this.soundEffect = soundPath;
     }
 
     public long getDuration() {
@@ -73,9 +63,8 @@ public abstract class Consumable extends Item {
         if (this.consumed) {
             this.consumed = false;
         } else {
-            //by setting this property to true, the audio will be played   
-            this.soundEffect.seek(Duration.ZERO);
-            this.soundEffect.play();  
+            //by setting this property to true, the audio will be played
+            Controller.getView().playSound(soundEffect);
             this.consumed = true;
         }
     }
@@ -1,8 +1,6 @@
 package gamefiles.items;
 
 import controller.Controller;
-import javafx.animation.AnimationTimer;
-import javafx.application.Platform;
 
 public class DroppedCoin extends DroppedItem {
 
@@ -16,18 +14,9 @@ public class DroppedCoin extends DroppedItem {
     public void pickup() {
         if (!getDropped()) {
             setDropped(true);
-            if (!atQueue.isEmpty()) {
-                AnimationTimer e = atQueue.remove();
-                e.stop();
-            }
             displayReward("You picked up " + getItem().getQuantity() + " coins");
             Controller.getPlayer().addCoins(getItem().getQuantity());
-
-            Platform.runLater(() -> {
-                Controller.getGameScreen().getBoard().getChildren().remove(this.getGroup());
-                Controller.getCurrentRoom().removeDrop(this);
-                getGroup().getChildren().removeAll(getImageView());
-            });
+            Controller.getCurrentRoom().removeDrop(this);
         }
     }
 }
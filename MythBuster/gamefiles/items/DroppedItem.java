@@ -1,19 +1,14 @@
 package gamefiles.items;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.Queue;
 
 import controller.Controller;
 import controller.GameLoop;
+import controller.GameRandom;
 import gamefiles.Droppable;
-import gamefiles.Touchable;
-import javafx.scene.Group;
-import javafx.scene.control.Label;
-import javafx.scene.image.Image;
-import javafx.scene.image.ImageView;
-import javafx.animation.AnimationTimer;
-import javafx.application.Platform;
 import javafx.geometry.Rectangle2D;
 
 public class DroppedItem implements Droppable {
@@ -23,14 +18,9 @@ public class DroppedItem implements Droppable {
     private double positionX;
     private double positionY;
     private Rectangle2D boundary;
-    private ImageView imageView;
-    private Image image;
-    private Group dropGroup;
     private boolean dropped;
     private int cooldown = 60;
 
-    protected static volatile Queue<AnimationTimer> atQueue = new LinkedList<>();
-
     public DroppedItem(Item item) {
         this.item = item;
         this.width = 50;
@@ -38,7 +28,6 @@ public class DroppedItem implements Droppable {
         this.positionX = 0;
         this.positionY = 0;
         this.boundary = new Rectangle2D(positionX, positionY, width, height);
-        this.dropGroup = new Group();
         this.dropped = false;
     }
 
@@ -80,8 +69,17 @@ public class DroppedItem implements Droppable {
         updateBoundary();
     }
 
-    public boolean intersects(Touchable other) {
-        return other.getBoundary().intersects(this.getBoundary());
+    public double getMinX() {
+        return positionX;
+    }
+    public double getMinY() {
+        return positionY;
+    }
+    public double getMaxX() {
+        return positionX + width;
+    }
+    public double getMaxY() {
+        return positionY + height;
     }
 
     public void drop(double x, double y, boolean randomize) {
@@ -93,28 +91,20 @@ public class DroppedItem implements Droppable {
         }
 
         updateBoundary();
-        
-        this.imageView = item.getImageView();
-        imageView.setFitWidth(this.width);
-        imageView.setFitHeight(this.height);
-        this.image = imageView.getImage();
-
-        dropGroup.getChildren().add(this.imageView);
-        dropGroup.relocate(positionX, positionY);
-        
+
         Controller.getCurrentRoom().addDrop(this);
         GameLoop.getDrops().add(this);
     }
 
     protected void randomizeDropLocation(double x, double y) {
-        double rFactorX = Math.random() * 100;
+        double rFactorX = GameRandom.loot().nextDouble() * 100;
         positionX = x + rFactorX - width / 2;
         if (positionX < 0) {
             positionX = 0;
         } else if (positionX + width >= Controller.getW()) {
             positionX = Controller.getW() - width;
         }
-        double rFactorY = Math.random() * 100;
+        double rFactorY = GameRandom.loot().nextDouble() * 100;
         positionY = y + rFactorY - height / 2;
         if (positionY < 0) {
             positionY = 0;
@@ -126,20 +116,12 @@ public class DroppedItem implements Droppable {
     public void pickup() {
         if (!dropped) {
             dropped = true;
-            if (!atQueue.isEmpty()) {
-                AnimationTimer e = atQueue.remove();
-                e.stop();
-            }
             displayReward("You picked up a " + item.getName());
             ArrayList<Item> toAdd = new ArrayList<Item>();
             toAdd.add(item);
             Controller.getPlayer().updateHotbar(null, toAdd);
 
-            Platform.runLater(() -> {
-                Controller.getGameScreen().getBoard().getChildren().remove(this.getGroup());
-                Controller.getCurrentRoom().removeDrop(this);
-                dropGroup.getChildren().removeAll(imageView);
-            });
+            Controller.getCurrentRoom().removeDrop(this);
         }
     }
 
@@ -161,46 +143,59 @@ public class DroppedItem implements Droppable {
     }
 
     public void displayReward(String text) {
-        Label display = new Label(text);
-        display.setPrefWidth(Controller.getW());
-        display.setStyle("-fx-font-size: 30; -fx-font-weight: bold; -fx-text-fill: white;"
-                + "-fx-alignment:CENTER; -fx-font-family: Papyrus");
-        display.setLayoutY(200);
-        display.setId("dropNotificationDisplay");
-        Controller.getGameScreen().getBoard().getChildren().add(display);
-
-
-        new AnimationTimer() {
-            private int timer = 40;
-
-            @Override
-            public void start() {
-                super.start();
-                atQueue.add(this);
-            }
-
-            @Override
-            public void stop() {
-                super.stop();
-                Controller.getGameScreen().getBoard().getChildren().remove(display);
-                atQueue.remove(this);
-            }
-
-            @Override
-            public void handle(long currentNanoTime) {
-                timer--;
-                if (timer <= 0) {
-                    this.stop();
-                }
-            }
-        }.start();
-    }
-
-    public Group getGroup() {
-        return dropGroup;
-    }
-
-    public ImageView getImageView() {
-        return imageView;
+        Controller.getView().showMessage(text, 200, 40);
+    }
+
+    /**
+     * Write the drop down, so read() can put it back where it lies.
+     * @param out where to write it
+     * @throws IOException if out can't be written
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeByte(this instanceof DroppedCoin ? 1 : this instanceof DroppedWeapon ? 2 : 0);
+        out.writeShort(ItemDatabase.codeOf(item));
+        out.writeInt(item.getQuantity());
+        out.writeDouble(positionX);
+        out.writeDouble(positionY);
+        out.writeInt(cooldown);
+    }
+
+    /**
+     * @param in where write() wrote a drop
+     * @return the drop, not yet in any room
+     * @throws IOException if in can't be read
+     */
+    public static DroppedItem read(DataInput in) throws IOException {
+        int kind = in.readByte();
+        Item item = ItemDatabase.itemFor(in.readShort(), in.readInt());
+        DroppedItem drop;
+        if (kind == 1) {
+            drop = new DroppedCoin(item);
+        } else if (kind == 2) {
+            drop = new DroppedWeapon(item);
+        } else {
+            drop = new DroppedItem(item);
+        }
+        drop.positionX = in.readDouble();
+        drop.positionY = in.readDouble();
+        drop.cooldown = in.readInt();
+        drop.updateBoundary();
+        return drop;
+    }
+
+    public double getPositionX() {
+        return positionX;
+    }
+
+    public double getPositionY() {
+        return positionY;
+    }
+
+    public double getWidth() {
+        return width;
+    }
+
+    public double getHeight() {
+        return height;
     }
 }
@@ -16,10 +16,10 @@ public class HastePotion extends Consumable {
     public HastePotion(int id, String name, String description, 
         int quantity, boolean active, long duration) {
         super(id, name, description, quantity, active, duration);
-        updateImageView("sprites/itemAssets/hastePotion.png");
+        setSpritePath("sprites/itemAssets/hastePotion.png");
     }
 
-    public void effect(long currentNanoTime) {
+    public void effect(long tick) {
         use();
         
         if (!doubled) {
@@ -28,7 +28,6 @@ public class HastePotion extends Consumable {
 
             doubled = true;
             //updateImageView("sprites/itemAssets/hastePotionConsumed.png");
-            player.updateHotbarImages();
         }
 
         boolean updated = update();
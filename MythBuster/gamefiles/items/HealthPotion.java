@@ -13,10 +13,10 @@ public class HealthPotion extends Consumable {
     public HealthPotion(int id, String name, String description, 
         int quantity, boolean active, long duration) {
         super(id, name, description, quantity, active, duration);
-        updateImageView("sprites/itemAssets/healthPotion.png");
+        setSpritePath("sprites/itemAssets/healthPotion.png");
     }
 
-    public void effect(long currentNanoTime) {
+    public void effect(long tick) {
         this.use();
         Player player = Controller.getPlayer();
         if (player.getCurrentHealth() + 100 > player.getMaximumHealth()) {
@@ -1,15 +1,14 @@
 package gamefiles.items;
 
+import controller.ImageCache;
 import javafx.scene.image.Image;
-import javafx.scene.image.ImageView;
 
 public abstract class Item {
     private int id;
     private String name;
     private String description;
     private int quantity;
-    private ImageView imageView;
-    private Image image;
+    private String spritePath;
     private final int height = 50;
     private final int width = 50;
     private boolean active;
@@ -21,16 +20,13 @@ public abstract class Item {
         this.quantity = quantity;
         this.active = false;
 
-        updateImageView("sprites/itemAssets/placeholder.png");
+        setSpritePath("sprites/itemAssets/placeholder.png");
     }
 
 
 
-    public void updateImageView(String spritePath) {
-        this.imageView = new ImageView(spritePath);
-        imageView.setFitWidth(this.width);
-        imageView.setFitHeight(this.height);
-        image = imageView.getImage();
+    public void setSpritePath(String spritePath) {
+        this.spritePath = spritePath;
     }
 
 
@@ -74,12 +70,17 @@ public abstract class Item {
         return this.id;
     }
 
-    public ImageView getImageView() {
-        return this.imageView;
+    public String getSpritePath() {
+        return this.spritePath;
     }
 
+    /**
+     * Loaded on first use so items can exist without the JavaFX toolkit, and shared
+     * with every other item that has the same sprite.
+     * @return the item's sprite
+     */
     public Image getImage() {
-        return this.image;
+        return ImageCache.get(spritePath);
     }
 
     public int getHeight() {
@@ -1,16 +1,27 @@
 package gamefiles.items;
 
+import controller.Session;
+import gamefiles.weapons.Weapon;
+import gamefiles.weapons.WeaponDatabase;
+
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Collection;
 
 public class ItemDatabase {
-    private static Map<Integer, Item> items = new HashMap<>();
+    private static final class State {
+        private final Map<Integer, Item> items = new HashMap<>();
+    }
+
+    private static Map<Integer, Item> items() {
+        return Session.current().get(State.class, State::new).items;
+    }
 
     /**
      * Create an item database.
      */
     public static void initialize() {
+        Map<Integer, Item> items = items();
         items.put(0, new HealthPotion(0, "Health Potion", 
             "Restores 2 hearts.", 0, false, 0));
         items.put(1, new RagePotion(0, "Rage Potion", 
@@ -41,8 +52,51 @@ public class ItemDatabase {
             "Doubles your attack output for 10 seconds.", 0, false, 600);
     }
     
+    /**
+     * The number that stands for an item when it is written down: its key here, -1 for
+     * coins, or 100 plus its key in WeaponDatabase for weapons.
+     * @param item the item
+     * @return its code, for itemFor()
+     */
+    public static int codeOf(Item item) {
+        if (item instanceof Weapon) {
+            for (int key = 0; WeaponDatabase.getWeapon(key) != null; key++) {
+                if (WeaponDatabase.getWeapon(key).getName().equals(item.getName())) {
+                    return 100 + key;
+                }
+            }
+            throw new IllegalArgumentException("Not in WeaponDatabase: " + item.getName());
+        } else if (item instanceof Coin) {
+            return -1;
+        } else if (item instanceof HealthPotion) {
+            return 0;
+        } else if (item instanceof RagePotion) {
+            return 1;
+        } else if (item instanceof HastePotion) {
+            return 2;
+        }
+        throw new IllegalArgumentException("Not in ItemDatabase: " + item.getName());
+    }
+
+    /**
+     * @param code     an item's code, from codeOf()
+     * @param quantity how many of it
+     * @return the item: the session's own weapon for a weapon code, else a new item
+     */
+    public static Item itemFor(int code, int quantity) {
+        if (code >= 100) {
+            return WeaponDatabase.getWeapon(code - 100);
+        }
+        Item item = getItem(code);
+        item.addQuantity(quantity);
+        if (item instanceof Coin) {
+            ((Coin) item).updateImageQuantity();
+        }
+        return item;
+    }
+
     public static void resetQuantities() {
-        Collection<Item> currItems = items.values();
+        Collection<Item> currItems = items().values();
         for (Item item : currItems) {
             item.subtractQuantity(item.getQuantity());
         }
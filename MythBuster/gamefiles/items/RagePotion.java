@@ -15,10 +15,10 @@ public class RagePotion extends Consumable {
     public RagePotion(int id, String name, String description, 
         int quantity, boolean active, long duration) {
         super(id, name, description, quantity, active, duration);
-        updateImageView("sprites/itemAssets/ragePotion.png");
+        setSpritePath("sprites/itemAssets/ragePotion.png");
     }
 
-    public void effect(long currentNanoTime) {
+    public void effect(long tick) {
         use();
 
 
@@ -27,7 +27,6 @@ public class RagePotion extends Consumable {
             player.setDamageBuffModifier(player.getDamageBuffModifier() + 1.0);
             doubled = true;
             //updateImageView("sprites/itemAssets/ragePotionConsumed.png");
-            player.updateHotbarImages();
         }
 
         boolean updated = update();
@@ -1,8 +1,9 @@
 package gamefiles.rooms;
 
 import controller.Controller;
-import javafx.scene.Group;
-import javafx.scene.paint.Color;
+import controller.GameRandom;
+import gamefiles.characters.Monster;
+import gamefiles.characters.Soldier;
 
 public class BasicRoom extends Room {
 
@@ -10,15 +11,25 @@ public class BasicRoom extends Room {
         super(width, height, row, column);
     }
 
-
     @Override
-    public Group getRoomGroup() {
-        Group roomGroup = super.getRoomGroup();
-        Controller.getGameScreen().changeBackground("-fx-background-image: url('sprites/gameplayBG.png'); -fx-background-repeat: stretch; -fx-background-size: 1200 800");
-        return roomGroup;
+    protected void generate() {
+        //Add at least 1 monster
+        Monster defaultMonster = new Soldier();
+        defaultMonster.moveAbsolute(GameRandom.spawn().nextDouble() * getWidth(), GameRandom.spawn().nextDouble() * getHeight());
+        getMonsters().add(defaultMonster);
+
+        //Randomly add more monsters
+        for (int i = 0; i < (GameRandom.spawn().nextDouble() * (2 + Controller.getDifficulty())) - 1; i++) {
+            spawnSoldier();
+        }
+        for (int i = 0; i < (GameRandom.spawn().nextDouble() * (2 + Controller.getDifficulty())) - 1; i++) {
+            spawnMage();
+        }
+        for (int i = 0; i < (GameRandom.spawn().nextDouble() * (2 + Controller.getDifficulty())) - 1; i++) {
+            spawnTrapMonster();
+        }
     }
 
-    // This will later have methods to generate monsters, gold, chests, and the like.
     public String toString() {
         return "Regular Room";
     }
@@ -1,8 +1,7 @@
 package gamefiles.rooms;
 
-import controller.Controller;
-import javafx.scene.Group;
-import javafx.scene.paint.Color;
+import gamefiles.characters.Boss;
+import gamefiles.characters.Monster;
 
 public class BossRoom extends Room {
 
@@ -11,10 +10,22 @@ public class BossRoom extends Room {
     }
 
     @Override
-    public Group getRoomGroup() {
-        Controller.getGameScreen().changeBackground("-fx-background-image: url('sprites/bossBG.png'); -fx-background-repeat: stretch; -fx-background-size: 1200 800");
-        return super.getRoomGroup();
+    protected void generate() {
+        Monster boss = new Boss();
+        boss.moveAbsolute(getWidth() / 2, getHeight() / 2);
+        getMonsters().add(boss);
     }
+
+    @Override
+    public void enter() {
+        lockDoors();
+    }
+
+    @Override
+    public String getBackgroundImage() {
+        return "sprites/bossBG.png";
+    }
+
     public String toString() {
         return "Boss Room";
     }
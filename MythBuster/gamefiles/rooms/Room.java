@@ -2,24 +2,25 @@ package gamefiles.rooms;
 
 import controller.Controller;
 import controller.GameLoop;
+import controller.GameRandom;
 import gamefiles.Door;
 import gamefiles.DropMethods;
 import gamefiles.Droppable;
 import gamefiles.Inventory;
 import gamefiles.Door.Rotation;
 import gamefiles.characters.*;
+import gamefiles.items.DroppedItem;
 import gamefiles.items.Item;
 import gamefiles.items.ItemDatabase;
 import gamefiles.weapons.Weapon;
 import gamefiles.weapons.WeaponDatabase;
-import javafx.animation.AnimationTimer;
-import javafx.scene.Group;
-import javafx.scene.control.Label;
-import javafx.scene.text.Text;
-import views.GameScreen;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.SplittableRandom;
 
 public abstract class Room {
     private Door[] doors = new Door[4];
@@ -27,62 +28,280 @@ public abstract class Room {
     private int column;
     private int width;
     private int height;
-    private Text roomInfo;
+    private long seed;
+    private boolean populated;
+    private long simulatedTick = -1;
+    private boolean changedOffscreen;
+    private SplittableRandom offscreenRandom;
+    private volatile RoomSnapshot snapshot;
+    private volatile int watchers;
 
     private ArrayList<Monster> monsters = new ArrayList<>();
     private ArrayList<Droppable> drops = new ArrayList<>();
 
-    private Group roomGroup;
-
     public Room(int width, int height, int row, int column) {
         this.width = width;
         this.height = height;
         this.row = row;
         this.column = column;
-        roomInfo = new Text(410, 10, toString());
-        roomInfo.setStyle("-fx-font-size: 30;");
-
-        if (this instanceof BasicRoom) {
-            //Add at least 1 monster
-            Monster defaultMonster = new Soldier();
-            defaultMonster.moveAbsolute(Math.random() * width, Math.random() * height);
-            monsters.add(defaultMonster);
-
-            //Randomly add more monsters
-            for (int i = 0; i < (Math.random() * (2 + Controller.getDifficulty())) - 1; i++) {
-                spawnSoldier();
+        this.seed = GameRandom.roomSeed(row, column);
+    }
+
+    /**
+     * Generate what is in the room, the first time the player walks in. Until then a room
+     * is only its doors, so rooms that are never visited cost next to nothing.
+     */
+    public final void populate() {
+        if (!populated) {
+            populated = true;
+            GameRandom.inRoom(seed, this::generate);
+        }
+    }
+
+    /**
+     * Put the room's monsters, chests and the like in it. Runs once, with the layout
+     * and spawn streams coming from this room's seed.
+     */
+    protected void generate() {
+    }
+
+    /**
+     * Write down everything about the room that the layout can't make again: whether it
+     * has been filled yet, which doors are locked, and what is in it.
+     * @param out where to write it
+     * @throws IOException if out can't be written
+     */
+    public void writeContents(DataOutput out) throws IOException {
+        out.writeBoolean(populated);
+        int locked = 0;
+        for (int i = 0; i < 4; i++) {
+            if (doors[i] != null && doors[i].isLocked()) {
+                locked |= 1 << i;
+            }
+        }
+        out.writeByte(locked);
+        int living = 0;
+        for (Monster monster : monsters) {
+            if (!monster.isDead()) {
+                living++;
             }
-            for (int i = 0; i < (Math.random() * (2 + Controller.getDifficulty())) - 1; i++) {
-                spawnMage();
+        }
+        out.writeShort(living);
+        for (Monster monster : monsters) {
+            if (!monster.isDead()) {
+                monster.write(out);
             }
-            for (int i = 0; i < (Math.random() * (2 + Controller.getDifficulty())) - 1; i++) {
-                spawnTrapMonster();
+        }
+        int lying = 0;
+        for (Droppable drop : drops) {
+            if (drop instanceof DroppedItem && !drop.getDropped()) {
+                lying++;
             }
         }
-        if (this instanceof BossRoom) {
-            lockDoors();
-            Monster boss = new Boss();
-            boss.moveAbsolute(width / 2, height / 2);
-            GameLoop.getMonsters().add(boss);
-            monsters.add(boss);
+        out.writeShort(lying);
+        for (Droppable drop : drops) {
+            if (drop instanceof DroppedItem && !drop.getDropped()) {
+                ((DroppedItem) drop).write(out);
+            }
         }
+        // On the game's clock, which a loaded game carries on from the save's tick.
+        out.writeLong(simulatedTick);
+        writeFields(out);
+    }
+
+    /**
+     * Put the room back the way writeContents() found it, replacing whatever is in it.
+     * @param in where writeContents() wrote the room
+     * @throws IOException if in can't be read
+     */
+    public void readContents(DataInput in) throws IOException {
+        populated = in.readBoolean();
+        int locked = in.readByte();
+        for (int i = 0; i < 4; i++) {
+            if (doors[i] != null) {
+                if ((locked & (1 << i)) != 0) {
+                    doors[i].lock();
+                } else {
+                    doors[i].unlock();
+                }
+            }
+        }
+        monsters.clear();
+        IOException[] failure = new IOException[1];
+        int living = in.readShort();
+        // Making a monster draws random numbers that read() then overwrites; draw them
+        // from the room's streams, not the game's.
+        GameRandom.inRoom(seed, () -> {
+            try {
+                for (int i = 0; i < living; i++) {
+                    monsters.add(Monster.read(in));
+                }
+            } catch (IOException e) {
+                failure[0] = e;
+            }
+        });
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+        drops.clear();
+        int lying = in.readShort();
+        for (int i = 0; i < lying; i++) {
+            drops.add(DroppedItem.read(in));
+        }
+        simulatedTick = in.readLong();
+        offscreenRandom = null;
+        readFields(in);
+    }
+
+    /**
+     * Write what a kind of room keeps on top of its monsters and drops.
+     * @param out where to write it
+     * @throws IOException if out can't be written
+     */
+    protected void writeFields(DataOutput out) throws IOException {
+    }
+
+    /**
+     * Read back what writeFields() wrote.
+     * @param in where to read it from
+     * @throws IOException if in can't be read
+     */
+    protected void readFields(DataInput in) throws IOException {
+    }
+
+    /**
+     * Carry the room's monsters on to a tick, while the player is in another room. This
+     * only touches the room itself, so it can run on another thread while the game goes
+     * on; settleOffscreen() finishes up on the game's thread afterwards.
+     * @param tick the tick to simulate up to
+     */
+    public void simulateOffscreen(long tick) {
+        if (simulatedTick >= 0 && tick > simulatedTick) {
+            int ticks = (int) Math.min(Integer.MAX_VALUE, tick - simulatedTick);
+            if (offscreenRandom == null) {
+                // From the room's seed and how far it has got, so a loaded room goes on
+                // the same way every time it is loaded.
+                offscreenRandom = new SplittableRandom(seed ^ simulatedTick * 0x9E3779B97F4A7C15L);
+            }
+            int kept = 0;
+            for (int i = 0; i < monsters.size(); i++) {
+                Monster monster = monsters.get(i);
+                double x = monster.getPositionX();
+                double y = monster.getPositionY();
+                double health = monster.getCurrentHealth();
+                if (monster.isDead() || monster.simulateOffscreen(ticks, offscreenRandom)) {
+                    monsters.set(kept++, monster);
+                    changedOffscreen |= monster.getPositionX() != x
+                            || monster.getPositionY() != y || monster.getCurrentHealth() != health;
+                }
+            }
+            if (kept < monsters.size()) {
+                monsters.subList(kept, monsters.size()).clear();
+                changedOffscreen = true;
+            }
+        }
+        simulatedTick = tick;
+    }
+
+    /**
+     * Put whatever simulateOffscreen() made, like traps, into the room.
+     */
+    public void settleOffscreen() {
+        int count = monsters.size();
+        GameRandom.inRoom(seed, () -> {
+            for (int i = 0; i < count; i++) {
+                monsters.get(i).settleOffscreen(monsters);
+            }
+        });
+        if (monsters.size() != count) {
+            changedOffscreen = true;
+        }
+    }
+
+    /**
+     * Let viewers see the room as it is now, if any are watching it. Call on the thread
+     * simulating the room, between ticks.
+     * @param tick the tick the room was simulated up to
+     */
+    public void publishSnapshot(long tick) {
+        snapshot = watchers > 0 ? new RoomSnapshot(tick, monsters) : null;
+    }
+
+    /**
+     * Start publishing snapshots of the room for a viewer, from the next time it is
+     * simulated. Nothing is published for a room nobody watches.
+     */
+    public synchronized void watch() {
+        watchers++;
+    }
+
+    /**
+     * A viewer from watch() is done with the room.
+     */
+    public synchronized void unwatch() {
+        if (watchers == 0) {
+            throw new IllegalStateException("Room " + this + " isn't being watched");
+        }
+        watchers--;
+    }
+
+    /**
+     * @return the room as it was last published, from any thread, or null if it never
+     *         has been or nobody is watching it
+     */
+    public RoomSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * @return the tick the room was last simulated up to, or -1 while it is the room
+     *         being played, or if it hasn't been played yet
+     */
+    public long getSimulatedTick() {
+        return simulatedTick;
+    }
+
+    public void setSimulatedTick(long tick) {
+        simulatedTick = tick;
+    }
+
+    /**
+     * @return whether simulateOffscreen() or settleOffscreen() moved, hurt, added or
+     *         removed a monster since clearChangedOffscreen() was last called
+     */
+    public boolean hasChangedOffscreen() {
+        return changedOffscreen;
+    }
+
+    /**
+     * The room's contents have been saved as they are now.
+     */
+    public void clearChangedOffscreen() {
+        changedOffscreen = false;
+    }
+
+    /**
+     * @return whether the room's contents have been generated yet
+     */
+    public boolean isPopulated() {
+        return populated;
     }
 
     public void giveBonusRewards() {
         ArrayList<Item> toAdd = new ArrayList<>();
         int newCoins = 0;
-        int weaponKey = (int)(3 * Math.random());
+        int weaponKey = (int)(3 * GameRandom.loot().nextDouble());
         Weapon w = WeaponDatabase.getWeapon(weaponKey);
         if (!checkWeapon(w)) {
             boolean added = Inventory.addToInventory(w);
         } else {
-            newCoins += (int) (50 + Math.random() * 50);
+            newCoins += (int) (50 + GameRandom.loot().nextDouble() * 50);
         }
-        for (int i = 0; i < 2 + (int)(3 * Math.random()); i++) {
-            int itemKey = (int)(3 * Math.random());
+        for (int i = 0; i < 2 + (int)(3 * GameRandom.loot().nextDouble()); i++) {
+            int itemKey = (int)(3 * GameRandom.loot().nextDouble());
             toAdd.add(ItemDatabase.getItem(itemKey));
         }
-        newCoins += (int) (50 + Math.random() * 50);
+        newCoins += (int) (50 + GameRandom.loot().nextDouble() * 50);
         DropMethods.dropCoins(newCoins, 25, Controller.getW() / 2, Controller.getH() / 2);
         displayReward("You picked up " + newCoins + " coins, and a huge amount of treasure!\nCheck your inventory!");
         Controller.getPlayer().updateHotbar(null, toAdd);
@@ -129,20 +348,49 @@ public abstract class Room {
         return doors[3];
     }
     public void setLeftDoor(Room destination) {
-        doors[0] = new Door(-15, height / 2 - Door.getWidth() / 2, destination);
-        doors[0].setRotation(Rotation.LEFT);
+        doors[0] = place(0, new Door(0, 0, destination));
     }
     public void setTopDoor(Room destination) {
-        doors[1] = new Door(width / 2 - Door.getWidth() / 2, 0, destination);
-        doors[1].setRotation(Rotation.TOP);
+        doors[1] = place(1, new Door(0, 0, destination));
     }
     public void setRightDoor(Room destination) {
-        doors[2] = new Door(width - Door.getHeight() - 15, height / 2 - Door.getWidth() / 2, destination);
-        doors[2].setRotation(Rotation.RIGHT);
+        doors[2] = place(2, new Door(0, 0, destination));
     }
     public void setBottomDoor(Room destination) {
-        doors[3] = new Door(width / 2 - Door.getWidth() / 2, height - Door.getHeight(), destination);
-        doors[3].setRotation(Rotation.BOTTOM);
+        doors[3] = place(3, new Door(0, 0, destination));
+    }
+
+    /**
+     * Put a door on a side that leads to a room of the layout, made when first walked to.
+     * @param side   0 left, 1 top, 2 right, 3 bottom
+     * @param layout the dungeon
+     * @param row    the other room's row
+     * @param column the other room's column
+     */
+    void openDoor(int side, RoomLayout layout, int row, int column) {
+        doors[side] = place(side, new Door(0, 0, layout, row, column));
+    }
+
+    private Door place(int side, Door door) {
+        switch (side) {
+        case 0:
+            door.relocate(-15, height / 2 - Door.getWidth() / 2);
+            door.setRotation(Rotation.LEFT);
+            break;
+        case 1:
+            door.relocate(width / 2 - Door.getWidth() / 2, 0);
+            door.setRotation(Rotation.TOP);
+            break;
+        case 2:
+            door.relocate(width - Door.getHeight() - 15, height / 2 - Door.getWidth() / 2);
+            door.setRotation(Rotation.RIGHT);
+            break;
+        default:
+            door.relocate(width / 2 - Door.getWidth() / 2, height - Door.getHeight());
+            door.setRotation(Rotation.BOTTOM);
+            break;
+        }
+        return door;
     }
 
     public void unlockDoors() {
@@ -161,27 +409,20 @@ public abstract class Room {
         }
     }
 
-    public Group getRoomGroup() {
-        roomGroup = new Group();
-        if (doors[0] != null) {
-            roomGroup.getChildren().add(doors[0].getGroup());
-        }
-        if (doors[1] != null) {
-            roomGroup.getChildren().add(doors[1].getGroup());
-        }
-        if (doors[2] != null) {
-            roomGroup.getChildren().add(doors[2].getGroup());
-        }
-        if (doors[3] != null) {
-            roomGroup.getChildren().add(doors[3].getGroup());
-        }
-        for (Monster monster : monsters) {
-            roomGroup.getChildren().add(monster.getGroup());
-        }
-        for (Droppable drop : drops) {
-            roomGroup.getChildren().add(drop.getGroup());
-        }
-        return roomGroup;
+    /**
+     * Called when the player walks into this room, before its monsters start updating.
+     */
+    public void enter() {
+    }
+
+    /**
+     * Called when the player leaves this room.
+     */
+    public void exit() {
+    }
+
+    public String getBackgroundImage() {
+        return "sprites/gameplayBG.png";
     }
 
     public ArrayList<Monster> getMonsters() {
@@ -192,11 +433,6 @@ public abstract class Room {
         return drops;
     }
 
-    public Text getRoomInfo() {
-
-        return roomInfo;
-    }
-
     public int getRow() {
         return row;
     }
@@ -206,53 +442,34 @@ public abstract class Room {
 
     public Soldier spawnSoldier() {
         Soldier soldier = new Soldier();
-        soldier.moveAbsolute(Math.random() * width, Math.random() * height);
+        soldier.moveAbsolute(GameRandom.spawn().nextDouble() * width, GameRandom.spawn().nextDouble() * height);
         monsters.add(soldier);
         GameLoop.getMonsters().add(soldier);
         return soldier;
     }
     public Mage spawnMage() {
         Mage mage = new Mage();
-        mage.moveAbsolute(Math.random() * width, Math.random() * height);
+        mage.moveAbsolute(GameRandom.spawn().nextDouble() * width, GameRandom.spawn().nextDouble() * height);
         monsters.add(mage);
         GameLoop.getMonsters().add(mage);
         return mage;
     }
     public TrapMonster spawnTrapMonster() {
         TrapMonster trapMonster = new TrapMonster();
-        trapMonster.moveAbsolute(Math.random() * width, Math.random() * height);
+        trapMonster.moveAbsolute(GameRandom.spawn().nextDouble() * width, GameRandom.spawn().nextDouble() * height);
         monsters.add(trapMonster);
         GameLoop.getMonsters().add(trapMonster);
         return trapMonster;
     }
 
     public void displayReward(String text) {
-        Label display = new Label(text);
-        display.setPrefWidth(Controller.getW());
-        display.setStyle("-fx-font-size: 30; -fx-font-weight: bold; -fx-text-fill: white;"
-                + "-fx-alignment:CENTER; -fx-font-family: Papyrus");
-        display.setLayoutY(250);
-        display.setId("dropNotificationDisplay");
-        Controller.getGameScreen().getBoard().getChildren().add(display);
-
-        new AnimationTimer() {
-            private int timer = 180;
-            @Override
-            public void handle(long currentNanoTime) {
-                timer--;
-                if (timer <= 0) {
-                    Controller.getGameScreen().getBoard().getChildren().remove(display);
-                    this.stop();
-                }
-            }
-        }.start();
+        Controller.getView().showMessage(text, 250, 180);
     }
 
     // abstract methods for generating monsters and chests will be here.
 
     public void addDrop(Droppable drop) {
         drops.add(drop);
-        Controller.getGameScreen().updateBoardDrop(drop);
     }
 
     public void removeDrop(Droppable drop) {
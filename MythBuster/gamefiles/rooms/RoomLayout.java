@@ -1,118 +1,236 @@
 package gamefiles.rooms;
 
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.Collections;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
 import java.io.FileWriter;
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import controller.Controller;
-import gamefiles.Door;
-
-
+import controller.GameRandom;
+
+
+/**
+ * The dungeon: a grid of rooms joined by doors into a maze.
+ *
+ * The maze itself is kept as one byte per room for its doors and one for what kind of
+ * room it is, so even a 1000x1000 dungeon is generated in well under a second and takes
+ * a few megabytes. Room objects are only made when something asks for one, and are kept
+ * in 16x16 chunks that are only allocated once a room in them exists.
+ *
+ * Once the maze is carved, a breadth-first search through the door masks finds how many
+ * doors every room is from the starting room and from the boss room, so how far a room
+ * is, and which of its doors leads the shortest way there, can be answered without
+ * making a single Room or Door.
+ *
+ * With a resident distance set, rooms more than that many doors from the player are
+ * written out to a memory-mapped RoomRegion and forgotten, and chunks that empty out are
+ * freed, so the heap stays the same size however far the player goes. A written-out
+ * room is read back on a background thread as soon as it is in range again, which is
+ * while the player is still walking to the door, and put back together when entered.
+ *
+ * A layout read from a save keeps the saved rooms as bytes, and only puts each one back
+ * together when it is first asked for, so loading doesn't wait on rooms nobody is in.
+ */
 public class RoomLayout {
-    static final int TOTAL_ROWS = 6;
-    static final int TOTAL_COLUMNS = 6;
+    public static final int DEFAULT_ROWS = 6;
+    public static final int DEFAULT_COLUMNS = 6;
+    public static final int MAX_SIZE = 1000;
     static final int ROOM_WIDTH = Controller.getW();
     static final int ROOM_HEIGHT = Controller.getH();
 
+    // Sides, in the order Room keeps its doors. A room's door mask has bit side set
+    // for every side with a door.
+    public static final int LEFT = 0;
+    public static final int TOP = 1;
+    public static final int RIGHT = 2;
+    public static final int BOTTOM = 3;
+
+    private static final byte BASIC = 0;
+    private static final byte STARTING = 1;
+    private static final byte BOSS = 2;
+    private static final byte TREASURE = 3;
+    private static final byte CHALLENGE = 4;
+
+    private static final int CHUNK_BITS = 4;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+    private final int rows;
+    private final int columns;
+
     private int startRoomRow;
     private int startRoomColumn;
 
     private int bossRoomRow;
     private int bossRoomColumn;
 
-    private Room[][] rooms;
+    private final byte[] doors;
+    private final byte[] kinds;
+    // How far each room is from the starting room and the boss room, in doors.
+    private int[] fromStart;
+    private int[] fromBoss;
+    // What to add to a room's index to go through each side.
+    private final int[] steps;
+    private final Room[][] chunks;
+    private final int[] chunkRooms;
+    private final int chunkColumns;
+
+    private static final ExecutorService PAGER = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "room pager");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private int residentDistance;
+    private RoomRegion region;
+    private final ArrayList<Room> resident = new ArrayList<>();
+    private final Map<Integer, CompletableFuture<byte[]>> paging = new HashMap<>();
+    private int[] inRange;
+    private int[] reached;
+    private int reachedStamp;
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream();
+    private final Map<Integer, byte[]> saved = new HashMap<>();
+    private final LinkedHashSet<Integer> changedOut = new LinkedHashSet<>();
 
     public RoomLayout() {
-        rooms = new Room[TOTAL_ROWS][TOTAL_COLUMNS];
+        this(DEFAULT_ROWS, DEFAULT_COLUMNS);
+    }
+
+    /**
+     * @param rows    how many rows of rooms, 3 to MAX_SIZE
+     * @param columns how many columns of rooms, 3 to MAX_SIZE
+     */
+    public RoomLayout(int rows, int columns) {
+        this(rows, columns, true);
+    }
 
+    private RoomLayout(int rows, int columns, boolean generate) {
+        if (rows < 3 || columns < 3 || rows > MAX_SIZE || columns > MAX_SIZE) {
+            throw new IllegalArgumentException("A dungeon is 3x3 to " + MAX_SIZE + "x"
+                    + MAX_SIZE + " rooms, not " + rows + "x" + columns);
+        }
+        this.rows = rows;
+        this.columns = columns;
+        doors = new byte[rows * columns];
+        kinds = new byte[rows * columns];
+        chunkColumns = (columns + CHUNK_SIZE - 1) >> CHUNK_BITS;
+        chunks = new Room[((rows + CHUNK_SIZE - 1) >> CHUNK_BITS) * chunkColumns][];
+        chunkRooms = new int[chunks.length];
+        steps = new int[] {-1, -columns, 1, columns};
+        if (!generate) {
+            return;
+        }
+
+        // One work list for both the maze and picking special rooms: every room is
+        // added to it at most once.
+        int[] work = new int[rows * columns];
         this.setStartingRoom();
-        this.fillRooms();
-        this.growingTreeAlgorithm();
+        this.growingTreeAlgorithm(work);
         this.setBossRoom();
-        this.setTreasureRoom();
-        this.setChallengeRoom();
-        this.toFile();
+        this.setSpecialRooms(work);
+        this.findDistances(work);
+    }
+
+    private void findDistances(int[] queue) {
+        fromStart = distancesFrom(startRoomRow * columns + startRoomColumn, queue);
+        fromBoss = distancesFrom(bossRoomRow * columns + bossRoomColumn, queue);
     }
 
-    private void fillRooms() {
-        for (int row = 0; row < rooms.length; row++) {
-            for (int column = 0; column < rooms[0].length; column++) {
-                rooms[row][column] = new BasicRoom(ROOM_WIDTH, ROOM_HEIGHT, row, column);
+    /**
+     * Breadth-first search through the door masks from one room to all the others.
+     * @return how many doors each room is from it; -1 for rooms it can't reach
+     */
+    private int[] distancesFrom(int from, int[] queue) {
+        int[] distances = new int[kinds.length];
+        Arrays.fill(distances, -1);
+        distances[from] = 0;
+        queue[0] = from;
+        for (int head = 0, tail = 1; head < tail; head++) {
+            int room = queue[head];
+            int mask = doors[room];
+            for (int side = LEFT; side <= BOTTOM; side++) {
+                if ((mask & (1 << side)) != 0) {
+                    int neighbor = room + steps[side];
+                    if (distances[neighbor] < 0) {
+                        distances[neighbor] = distances[room] + 1;
+                        queue[tail++] = neighbor;
+                    }
+                }
             }
         }
-
-        rooms[startRoomRow][startRoomColumn] = new StartingRoom(ROOM_WIDTH,
-                ROOM_HEIGHT, startRoomRow, startRoomColumn);
+        return distances;
     }
 
     /**
      * Growing tree algorithm for generating the maze.
-     * Takes a matrix of Rooms and generates "paths" between them according to the specifications.
-     * Tracks a visited set and list of Rooms to choose from.
+     * Carves paths between rooms according to the specifications.
+     * Tracks a visited bitset and a list of rooms to choose from.
      */
-    private void growingTreeAlgorithm() {
-        HashSet<Room> visitedSet = new HashSet<Room>();
-        ArrayList<Room> currentList = new ArrayList<Room>();
-        ArrayList<Integer> directions = new ArrayList<Integer>();
-        directions.add(0);
-        directions.add(1);
-        directions.add(2);
-        directions.add(3);
-
-        Room startingRoom = rooms[startRoomRow][startRoomColumn];
-        visitedSet.add(startingRoom);
-        this.addStartingNeighbors(currentList, visitedSet, startingRoom);
-
-        while (currentList.size() > 0) {
-            Collections.shuffle(directions);
-            int index = pickIndex(currentList);
-            Room currRoom = currentList.get(index);
-            Room newRoom = null;
-
-            for (Integer direction : directions) {
-                Room neighbor = null;
-                if (direction == 0 && currRoom.getColumn() != 0) {
-                    neighbor = rooms[currRoom.getRow()][currRoom.getColumn() - 1];
-                } else if (direction == 1 && currRoom.getRow() != 0) {
-                    neighbor = rooms[currRoom.getRow() - 1][currRoom.getColumn()];
-                } else if (direction == 2 && currRoom.getColumn() != TOTAL_COLUMNS - 1) {
-                    neighbor = rooms[currRoom.getRow()][currRoom.getColumn() + 1];
-                } else if (direction == 3 && currRoom.getRow() != TOTAL_ROWS - 1) {
-                    neighbor = rooms[currRoom.getRow() + 1][currRoom.getColumn()];
-                }
+    private void growingTreeAlgorithm(int[] currentList) {
+        long[] visited = new long[(rows * columns + 63) >> 6];
+        int[] directions = {LEFT, TOP, RIGHT, BOTTOM};
+        int size = 0;
+
+        int startingRoom = startRoomRow * columns + startRoomColumn;
+        visited[startingRoom >> 6] |= 1L << startingRoom;
+        // The starting room is never on the edge, so it opens on all four sides.
+        for (int direction = LEFT; direction <= BOTTOM; direction++) {
+            int neighbor = neighbor(startingRoom, direction);
+            connect(startingRoom, direction, neighbor);
+            visited[neighbor >> 6] |= 1L << neighbor;
+            currentList[size++] = neighbor;
+        }
+
+        SplittableRandom random = GameRandom.layout();
+        while (size > 0) {
+            for (int i = directions.length - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int swap = directions[i];
+                directions[i] = directions[j];
+                directions[j] = swap;
+            }
+            int index = pickIndex(size);
+            int currRoom = currentList[index];
+            boolean grew = false;
 
-                if (neighbor != null && !visitedSet.contains(neighbor)) {
+            for (int direction : directions) {
+                int neighbor = neighbor(currRoom, direction);
+                if (neighbor >= 0 && (visited[neighbor >> 6] & (1L << neighbor)) == 0) {
                     // Valid nonvisited neighbor
-                    if (direction == 0) {
-                        currRoom.setLeftDoor(neighbor);
-                        neighbor.setRightDoor(currRoom);
-                    } else if (direction == 1) {
-                        currRoom.setTopDoor(neighbor);
-                        neighbor.setBottomDoor(currRoom);
-                    } else if (direction == 2) {
-                        currRoom.setRightDoor(neighbor);
-                        neighbor.setLeftDoor(currRoom);
-                    } else if (direction == 3) {
-                        currRoom.setBottomDoor(neighbor);
-                        neighbor.setTopDoor(currRoom);
-                    }
-                    visitedSet.add(neighbor);
-                    currentList.add(neighbor);
-                    newRoom = neighbor;
+                    connect(currRoom, direction, neighbor);
+                    visited[neighbor >> 6] |= 1L << neighbor;
+                    currentList[size++] = neighbor;
+                    grew = true;
                     break;
                 }
             }
 
-            if (newRoom == null) {
-                // No valid neighbors = pop off from currentList
-                currentList.remove(index);
+            if (!grew) {
+                // No valid neighbors = take it off the list, keeping the rest oldest
+                // first, as pickIndex() expects.
+                System.arraycopy(currentList, index + 1, currentList, index, --size - index);
             }
         }
     }
 
-    private static int pickIndex(ArrayList<Room> currentList) {
+    private static int pickIndex(int size) {
         // EDIT THESE NUMBERS TO REFLECT ROOM GENERATION NEEDS
         double newestPercentage = .30;
         double oldestPercentage = 0;
@@ -121,231 +239,581 @@ public class RoomLayout {
         double newestThreshold = newestPercentage;
         double oldestThreshold = newestThreshold + oldestPercentage;
 
-        double randomizer = Math.random();
+        double randomizer = GameRandom.layout().nextDouble();
 
         if (randomizer < newestThreshold) {
-            return currentList.size() - 1;
+            return size - 1;
         } else if (randomizer < oldestThreshold) {
             return 0;
         } else {
-            return (int) Math.floor(Math.random() * currentList.size());
-        }
-    }
-
-    private void addStartingNeighbors(ArrayList<Room> currentList,
-                                     HashSet<Room> visitedSet, Room startingRoom) {
-        // Left
-        startingRoom.setLeftDoor(rooms[startRoomRow][startRoomColumn - 1]);
-        rooms[startRoomRow][startRoomColumn - 1].setRightDoor(startingRoom);
-        currentList.add(rooms[startRoomRow][startRoomColumn - 1]);
-        visitedSet.add(rooms[startRoomRow][startRoomColumn - 1]);
-        // Top
-        startingRoom.setTopDoor(rooms[startRoomRow - 1][startRoomColumn]);
-        rooms[startRoomRow - 1][startRoomColumn].setBottomDoor(startingRoom);
-        currentList.add(rooms[startRoomRow - 1][startRoomColumn]);
-        visitedSet.add(rooms[startRoomRow - 1][startRoomColumn]);
-        // Right
-        startingRoom.setRightDoor(rooms[startRoomRow][startRoomColumn + 1]);
-        rooms[startRoomRow][startRoomColumn + 1].setLeftDoor(startingRoom);
-        currentList.add(rooms[startRoomRow][startRoomColumn + 1]);
-        visitedSet.add(rooms[startRoomRow][startRoomColumn + 1]);
-        // Bottom
-        startingRoom.setBottomDoor(rooms[startRoomRow + 1][startRoomColumn]);
-        rooms[startRoomRow + 1][startRoomColumn].setTopDoor(startingRoom);
-        currentList.add(rooms[startRoomRow + 1][startRoomColumn]);
-        visitedSet.add(rooms[startRoomRow + 1][startRoomColumn]);
+            return (int) Math.floor(GameRandom.layout().nextDouble() * size);
+        }
+    }
+
+    /**
+     * @return the room through a side of a room, or -1 past the edge of the dungeon
+     */
+    private int neighbor(int room, int side) {
+        int row = room / columns;
+        int column = room - row * columns;
+        switch (side) {
+        case LEFT:
+            return column != 0 ? room - 1 : -1;
+        case TOP:
+            return row != 0 ? room - columns : -1;
+        case RIGHT:
+            return column != columns - 1 ? room + 1 : -1;
+        default:
+            return row != rows - 1 ? room + columns : -1;
+        }
+    }
+
+    private void connect(int room, int side, int neighbor) {
+        doors[room] |= 1 << side;
+        doors[neighbor] |= 1 << ((side + 2) & 3);
     }
 
     private void setStartingRoom() {
-        this.startRoomRow = (int) Math.floor(Math.random() * (TOTAL_ROWS - 2)) + 1;
-        this.startRoomColumn = (int) Math.floor(Math.random() * (TOTAL_COLUMNS - 2)) + 1;
+        this.startRoomRow = (int) Math.floor(GameRandom.layout().nextDouble() * (rows - 2)) + 1;
+        this.startRoomColumn = (int) Math.floor(GameRandom.layout().nextDouble() * (columns - 2)) + 1;
+        kinds[startRoomRow * columns + startRoomColumn] = STARTING;
     }
 
     private void setBossRoom() {
-        int r;
-        int c;
-        if (startRoomRow < TOTAL_ROWS / 2) {
-            r = TOTAL_ROWS - 1;
-        } else {
-            r = 0;
+        // The corner farthest from the start.
+        bossRoomRow = startRoomRow < rows / 2 ? rows - 1 : 0;
+        bossRoomColumn = startRoomColumn < columns / 2 ? columns - 1 : 0;
+        kinds[bossRoomRow * columns + bossRoomColumn] = BOSS;
+    }
+
+    /**
+     * Turn 10 in 36 of the basic rooms into treasure rooms and 3 in 36 into challenge
+     * rooms, drawing them without replacement instead of retrying until a draw lands
+     * on a basic room.
+     */
+    private void setSpecialRooms(int[] candidates) {
+        int count = 0;
+        for (int room = 0; room < kinds.length; room++) {
+            if (kinds[room] == BASIC) {
+                candidates[count++] = room;
+            }
         }
-        if (startRoomColumn < TOTAL_COLUMNS / 2) {
-            c = TOTAL_COLUMNS - 1;
-        } else {
-            c = 0;
+        int treasureRooms = kinds.length * 10 / 36;
+        int challengeRooms = kinds.length * 3 / 36;
+        SplittableRandom random = GameRandom.layout();
+        for (int i = 0; i < treasureRooms + challengeRooms && i < count; i++) {
+            int j = i + random.nextInt(count - i);
+            int room = candidates[j];
+            candidates[j] = candidates[i];
+            candidates[i] = room;
+            kinds[room] = i < treasureRooms ? TREASURE : CHALLENGE;
         }
+    }
+
+    /**
+     * Write the layout to printables/RoomLayout.txt.
+     */
+    public void toFile() {
+        try {
+            String filepath = System.getProperty("user.dir")
+                    + "/MythBuster/gamefiles/printables/RoomLayout.txt";
+            String filepathDir = System.getProperty("user.dir")
+                    + "/MythBuster/gamefiles/printables";
+
+            File printablesDir = new File(filepathDir);
+            if (!printablesDir.exists()) {
+                printablesDir.mkdirs();
+            }
+
+            File roomLayoutToText = new File(filepath);
+            roomLayoutToText.createNewFile();
+            new FileWriter(filepath, false).close();
+
+            FileWriter writer = new FileWriter(filepath);
 
-        Room oldRoom = rooms[r][c];
-        BossRoom bossRoom = new BossRoom(ROOM_WIDTH, ROOM_HEIGHT, r, c);
+            StringBuilder cap = new StringBuilder();
+            StringBuilder mid = new StringBuilder();
+            for (int row = 0; row < rows; row++) {
+                cap.setLength(0);
+                mid.setLength(0);
+                for (int column = 0; column < columns; column++) {
+                    int room = row * columns + column;
+                    cap.append('+').append((doors[room] & (1 << TOP)) != 0 ? ' ' : '-');
+                    mid.append((doors[room] & (1 << LEFT)) != 0 ? ' ' : '|');
+                    switch (kinds[room]) {
+                    case STARTING:
+                        mid.append('S');
+                        break;
+                    case BOSS:
+                        mid.append('B');
+                        break;
+                    case TREASURE:
+                        mid.append('T');
+                        break;
+                    case CHALLENGE:
+                        mid.append('C');
+                        break;
+                    default:
+                        mid.append(' ');
+                        break;
+                    }
+                }
+                cap.append("+\n");
+                mid.append("|\n");
+                writer.write(cap.toString());
+                writer.write(mid.toString());
+            }
 
-        if (oldRoom.getLeftDoor() != null) {
-            bossRoom.setLeftDoor(oldRoom.getLeftDoor().getDestination());
-            oldRoom.getLeftDoor().getDestination().setRightDoor(bossRoom);
-            oldRoom.getLeftDoor().getDestination().getRightDoor().setBossDoor();
+            StringBuilder bot = new StringBuilder();
+            for (int column = 0; column < columns; column++) {
+                bot.append("+-");
+            }
+            bot.append('+');
+            writer.write(bot.toString());
+            writer.close();
+        } catch (Exception e) {
+            System.out.println("Exception: Writing to file printables/RoomLayout.txt.");
+            e.printStackTrace();
         }
-        if (oldRoom.getTopDoor() != null) {
-            bossRoom.setTopDoor(oldRoom.getTopDoor().getDestination());
-            oldRoom.getTopDoor().getDestination().setBottomDoor(bossRoom);
-            oldRoom.getTopDoor().getDestination().getBottomDoor().setBossDoor();
+    }
+
+    /**
+     * Write the dungeon down for a save: its size, the start and boss rooms, every
+     * room's doors and kind, and what is in every room that has been filled, whether it
+     * is in memory, written out, or still waiting from a load.
+     * @param out where to write
+     * @throws IOException if writing fails
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeShort(rows);
+        out.writeShort(columns);
+        out.writeShort(startRoomRow);
+        out.writeShort(startRoomColumn);
+        out.writeShort(bossRoomRow);
+        out.writeShort(bossRoomColumn);
+        out.write(doors);
+        out.write(kinds);
+        for (Room room : resident) {
+            if (room.isPopulated()) {
+                record.reset();
+                room.writeContents(new DataOutputStream(record));
+                writeRecord(out, room.getRow() * columns + room.getColumn(), record.toByteArray());
+            }
         }
-        if (oldRoom.getRightDoor() != null) {
-            bossRoom.setRightDoor(oldRoom.getRightDoor().getDestination());
-            oldRoom.getRightDoor().getDestination().setLeftDoor(bossRoom);
-            oldRoom.getRightDoor().getDestination().getLeftDoor().setBossDoor();
+        for (Map.Entry<Integer, byte[]> entry : saved.entrySet()) {
+            writeRecord(out, entry.getKey(), entry.getValue());
         }
-        if (oldRoom.getBottomDoor() != null) {
-            bossRoom.setBottomDoor(oldRoom.getBottomDoor().getDestination());
-            oldRoom.getBottomDoor().getDestination().setTopDoor(bossRoom);
-            oldRoom.getBottomDoor().getDestination().getTopDoor().setBossDoor();
+        if (region != null) {
+            for (int cell = 0; cell < kinds.length; cell++) {
+                if (region.contains(cell) && !saved.containsKey(cell)
+                        && !isResident(cell / columns, cell % columns)) {
+                    writeRecord(out, cell, region.read(cell));
+                }
+            }
         }
+        out.writeInt(-1);
+    }
 
+    private static void writeRecord(DataOutput out, int cell, byte[] bytes) throws IOException {
+        out.writeInt(cell);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
 
+    /**
+     * @param in where a layout was written by write()
+     * @return the layout; its rooms are made from what was saved as they are asked for
+     * @throws IOException if reading fails, or what was read isn't a layout
+     */
+    public static RoomLayout read(DataInput in) throws IOException {
+        int rows = in.readShort();
+        int columns = in.readShort();
+        if (rows < 3 || columns < 3 || rows > MAX_SIZE || columns > MAX_SIZE) {
+            throw new IOException("Not a dungeon size: " + rows + "x" + columns);
+        }
+        RoomLayout layout = new RoomLayout(rows, columns, false);
+        layout.startRoomRow = in.readShort();
+        layout.startRoomColumn = in.readShort();
+        layout.bossRoomRow = in.readShort();
+        layout.bossRoomColumn = in.readShort();
+        in.readFully(layout.doors);
+        in.readFully(layout.kinds);
+        layout.findDistances(new int[layout.kinds.length]);
+        for (int cell = in.readInt(); cell >= 0; cell = in.readInt()) {
+            if (cell >= layout.kinds.length) {
+                throw new IOException("No room " + cell + " in a " + rows + "x" + columns + " dungeon");
+            }
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            layout.saved.put(cell, bytes);
+        }
+        return layout;
+    }
 
+    /**
+     * Collect what is in every room that changed off-screen since the last call, whether
+     * it is in memory or has been written out, and start counting changes over.
+     * @return the rooms' contents, as Room.writeContents() writes them, by cell
+     *         (row * getColumns() + column)
+     * @throws IOException if a room can't be written, or read back from the scratch file
+     */
+    public Map<Integer, byte[]> takeChangedRooms() throws IOException {
+        LinkedHashMap<Integer, byte[]> changed = new LinkedHashMap<>();
+        for (Room room : resident) {
+            int cell = room.getRow() * columns + room.getColumn();
+            if (room.hasChangedOffscreen() || changedOut.contains(cell)) {
+                room.clearChangedOffscreen();
+                record.reset();
+                room.writeContents(new DataOutputStream(record));
+                changed.put(cell, record.toByteArray());
+            }
+        }
+        for (int cell : changedOut) {
+            if (!changed.containsKey(cell)) {
+                changed.put(cell, region.read(cell));
+            }
+        }
+        changedOut.clear();
+        return changed;
+    }
 
-        rooms[r][c] = bossRoom;
-        bossRoomRow = r;
-        bossRoomColumn = c;
+    /**
+     * Replace what a room has in it with what was saved, before the room is made. It is
+     * put back together from the saved bytes when it is first asked for.
+     * @param row      the room's row
+     * @param column   the room's column
+     * @param contents the room's contents, as Room.writeContents() wrote them
+     */
+    public void restore(int row, int column, byte[] contents) {
+        int cell = cell(row, column);
+        if (isResident(row, column)) {
+            throw new IllegalStateException("The room at " + row + "," + column + " is already made");
+        }
+        saved.put(cell, contents);
     }
 
-    private void setTreasureRoom() {
-        int row = 0;
-        int column = 0;
-        for (int i = 0; i < 10; i++) {
-            do {
-                row = (int) Math.floor(Math.random() * TOTAL_ROWS);
-                column = (int) Math.floor(Math.random() * TOTAL_COLUMNS);
-            } while (!(rooms[row][column] instanceof BasicRoom));
+    /**
+     * @param row    the room's row
+     * @param column the room's column
+     * @return how many doors the room is from the starting room
+     */
+    public int getDistanceFromStart(int row, int column) {
+        return fromStart[cell(row, column)];
+    }
 
-            Room oldRoom = rooms[row][column];
-            TreasureRoom treasureRoom = new TreasureRoom(ROOM_WIDTH, ROOM_HEIGHT, row, column);
+    /**
+     * @param row    the room's row
+     * @param column the room's column
+     * @return how many doors the room is from the boss room
+     */
+    public int getDistanceToBoss(int row, int column) {
+        return fromBoss[cell(row, column)];
+    }
 
-            if (oldRoom.getLeftDoor() != null) {
-                treasureRoom.setLeftDoor(oldRoom.getLeftDoor().getDestination());
-                oldRoom.getLeftDoor().getDestination().setRightDoor(treasureRoom);
-            }
-            if (oldRoom.getTopDoor() != null) {
-                treasureRoom.setTopDoor(oldRoom.getTopDoor().getDestination());
-                oldRoom.getTopDoor().getDestination().setBottomDoor(treasureRoom);
-            }
-            if (oldRoom.getRightDoor() != null) {
-                treasureRoom.setRightDoor(oldRoom.getRightDoor().getDestination());
-                oldRoom.getRightDoor().getDestination().setLeftDoor(treasureRoom);
-            }
-            if (oldRoom.getBottomDoor() != null) {
-                treasureRoom.setBottomDoor(oldRoom.getBottomDoor().getDestination());
-                oldRoom.getBottomDoor().getDestination().setTopDoor(treasureRoom);
-            }
+    /**
+     * @param row    the room's row
+     * @param column the room's column
+     * @return the side (LEFT, TOP, RIGHT or BOTTOM) of the door that starts the
+     *         shortest way to the starting room, or -1 in the starting room
+     */
+    public int getSideTowardStart(int row, int column) {
+        return sideToward(fromStart, cell(row, column));
+    }
 
-            for(Door door:treasureRoom.getDoors()) {
-                if(door != null && door.getDestination() instanceof BossRoom) {
-                    door.setBossDoor();
-                }
-            }
+    /**
+     * @param row    the room's row
+     * @param column the room's column
+     * @return the side (LEFT, TOP, RIGHT or BOTTOM) of the door that starts the
+     *         shortest way to the boss room, or -1 in the boss room
+     */
+    public int getSideTowardBoss(int row, int column) {
+        return sideToward(fromBoss, cell(row, column));
+    }
 
-            rooms[row][column] = treasureRoom;
+    private int sideToward(int[] distances, int room) {
+        int mask = doors[room];
+        for (int side = LEFT; side <= BOTTOM; side++) {
+            if ((mask & (1 << side)) != 0 && distances[room + steps[side]] == distances[room] - 1) {
+                return side;
+            }
         }
+        return -1;
     }
 
-    private void setChallengeRoom() {
-        int row = 0;
-        int column = 0;
-        for (int i = 0; i < 3; i++) {
-            do {
-                row = (int) Math.floor(Math.random() * TOTAL_ROWS);
-                column = (int) Math.floor(Math.random() * TOTAL_COLUMNS);
-            } while (!(rooms[row][column] instanceof BasicRoom));
+    private int cell(int row, int column) {
+        if (row < 0 || column < 0 || row >= rows || column >= columns) {
+            throw new IndexOutOfBoundsException("No room at " + row + "," + column
+                    + " in a " + rows + "x" + columns + " dungeon");
+        }
+        return row * columns + column;
+    }
 
-            Room oldRoom = rooms[row][column];
-            ChallengeRoom challengeRoom = new ChallengeRoom(ROOM_WIDTH, ROOM_HEIGHT, row, column);
+    /**
+     * @param row    the room's row
+     * @param column the room's column
+     * @return the room there, made the first time it is asked for
+     */
+    public Room getRoom(int row, int column) {
+        cell(row, column);
+        int chunk = (row >> CHUNK_BITS) * chunkColumns + (column >> CHUNK_BITS);
+        if (chunks[chunk] == null) {
+            chunks[chunk] = new Room[CHUNK_SIZE * CHUNK_SIZE];
+        }
+        int slot = ((row & (CHUNK_SIZE - 1)) << CHUNK_BITS) | (column & (CHUNK_SIZE - 1));
+        Room room = chunks[chunk][slot];
+        if (room == null) {
+            room = makeRoom(row, column);
+            chunks[chunk][slot] = room;
+            chunkRooms[chunk]++;
+            resident.add(room);
+        }
+        return room;
+    }
 
-            if (oldRoom.getLeftDoor() != null) {
-                challengeRoom.setLeftDoor(oldRoom.getLeftDoor().getDestination());
-                oldRoom.getLeftDoor().getDestination().setRightDoor(challengeRoom);
+    /**
+     * Keep rooms in memory only while they are within some number of doors of the
+     * player. Rooms farther away are written to a scratch file and read back as the
+     * player comes near again.
+     * @param distance how many doors away rooms stay in memory, at least 1; 0 keeps
+     *                 every room in memory, which is the default
+     */
+    public void setResidentDistance(int distance) {
+        if (distance < 0) {
+            throw new IllegalArgumentException("Resident distance can't be negative: " + distance);
+        }
+        if (distance > 0 && region == null) {
+            try {
+                region = new RoomRegion(kinds.length);
+            } catch (IOException e) {
+                System.out.println("Could not make a file for far rooms: " + e.getMessage());
+                return;
             }
-            if (oldRoom.getTopDoor() != null) {
-                challengeRoom.setTopDoor(oldRoom.getTopDoor().getDestination());
-                oldRoom.getTopDoor().getDestination().setBottomDoor(challengeRoom);
+        }
+        residentDistance = distance;
+    }
+
+    /**
+     * Write out the rooms that are now too far from the player, and start reading back
+     * the ones that are in range again. Call after the player enters a room.
+     * @param room the room the player is in
+     */
+    public void streamAround(Room room) {
+        if (residentDistance == 0 || region == null) {
+            return;
+        }
+        int count = findInRange(room.getRow() * columns + room.getColumn());
+
+        for (int i = resident.size() - 1; i >= 0; i--) {
+            Room far = resident.get(i);
+            int cell = far.getRow() * columns + far.getColumn();
+            if (reached[cell] != reachedStamp && evict(far, cell)) {
+                resident.set(i, resident.get(resident.size() - 1));
+                resident.remove(resident.size() - 1);
             }
-            if (oldRoom.getRightDoor() != null) {
-                challengeRoom.setRightDoor(oldRoom.getRightDoor().getDestination());
-                oldRoom.getRightDoor().getDestination().setLeftDoor(challengeRoom);
+        }
+
+        for (Iterator<Integer> iterator = paging.keySet().iterator(); iterator.hasNext();) {
+            if (reached[iterator.next()] != reachedStamp) {
+                iterator.remove();
             }
-            if (oldRoom.getBottomDoor() != null) {
-                challengeRoom.setBottomDoor(oldRoom.getBottomDoor().getDestination());
-                oldRoom.getBottomDoor().getDestination().setTopDoor(challengeRoom);
+        }
+        for (int i = 0; i < count; i++) {
+            int cell = inRange[i];
+            if (!paging.containsKey(cell) && !isResident(cell / columns, cell % columns)
+                    && region.contains(cell)) {
+                RoomRegion from = region;
+                paging.put(cell, CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return from.read(cell);
+                    } catch (IOException e) {
+                        System.out.println("Could not read a far room: " + e.getMessage());
+                        return null;
+                    }
+                }, PAGER));
             }
+        }
+    }
 
-            for(Door door:challengeRoom.getDoors()) {
-                if(door != null && door.getDestination() instanceof BossRoom) {
-                    door.setBossDoor();
+    /**
+     * Breadth-first search through the doors, out to the resident distance.
+     * @return how many rooms are in range; they are inRange[0] up to that
+     */
+    private int findInRange(int center) {
+        if (reached == null) {
+            reached = new int[kinds.length];
+        }
+        int most = (int) Math.min(kinds.length,
+                2L * residentDistance * (residentDistance + 1) + 1);
+        if (inRange == null || inRange.length < most) {
+            inRange = new int[most];
+        }
+        reachedStamp++;
+        reached[center] = reachedStamp;
+        inRange[0] = center;
+        int count = 1;
+        int depthEnd = 1;
+        for (int head = 0, depth = 0; head < count; head++) {
+            if (head == depthEnd) {
+                depth++;
+                depthEnd = count;
+            }
+            if (depth == residentDistance) {
+                break;
+            }
+            int cell = inRange[head];
+            for (int side = LEFT; side <= BOTTOM; side++) {
+                if ((doors[cell] & (1 << side)) != 0) {
+                    int neighbor = neighbor(cell, side);
+                    if (reached[neighbor] != reachedStamp) {
+                        reached[neighbor] = reachedStamp;
+                        inRange[count++] = neighbor;
+                    }
                 }
             }
-            rooms[row][column] = challengeRoom;
+        }
+        return count;
+    }
 
+    /**
+     * @return whether the room was forgotten; it is kept if it couldn't be written out
+     */
+    private boolean evict(Room room, int cell) {
+        if (room.isPopulated()) {
+            try {
+                record.reset();
+                room.writeContents(new DataOutputStream(record));
+                region.write(cell, record.toByteArray(), record.size());
+            } catch (IOException e) {
+                System.out.println("Could not write out a far room: " + e.getMessage());
+                return false;
+            }
+            // The journal still needs it; it is read back from the scratch file then.
+            if (room.hasChangedOffscreen()) {
+                changedOut.add(cell);
+            }
         }
+        int row = room.getRow();
+        int column = room.getColumn();
+        int chunk = (row >> CHUNK_BITS) * chunkColumns + (column >> CHUNK_BITS);
+        chunks[chunk][((row & (CHUNK_SIZE - 1)) << CHUNK_BITS) | (column & (CHUNK_SIZE - 1))] = null;
+        if (--chunkRooms[chunk] == 0) {
+            chunks[chunk] = null;
+        }
+        return true;
     }
 
-    private void toFile() {
-        try {
-            String filepath = System.getProperty("user.dir")
-                    + "/MythBuster/gamefiles/printables/RoomLayout.txt";
-            String filepathDir = System.getProperty("user.dir")
-                    + "/MythBuster/gamefiles/printables";
+    /**
+     * @param row    the room's row
+     * @param column the room's column
+     * @return whether the room is in memory now
+     */
+    public boolean isResident(int row, int column) {
+        Room[] chunk = chunks[(row >> CHUNK_BITS) * chunkColumns + (column >> CHUNK_BITS)];
+        return chunk != null
+                && chunk[((row & (CHUNK_SIZE - 1)) << CHUNK_BITS) | (column & (CHUNK_SIZE - 1))] != null;
+    }
 
-            File printablesDir = new File(filepathDir);
-            if (!printablesDir.exists()) {
-                printablesDir.mkdirs();
-            }
+    /**
+     * @return the rooms in memory now, in no particular order; only good until the
+     *         player next enters a room
+     */
+    public List<Room> getResidentRooms() {
+        return Collections.unmodifiableList(resident);
+    }
 
-            File roomLayoutToText = new File(filepath);
-            roomLayoutToText.createNewFile();
-            new FileWriter(filepath, false).close();
+    /**
+     * @return how many rooms are in memory now
+     */
+    public int getResidentCount() {
+        return resident.size();
+    }
 
-            FileWriter writer = new FileWriter(filepath);
+    /**
+     * @return how many bytes of the scratch file rooms written out have taken up, free
+     *         slots included
+     */
+    public long getWrittenOutBytes() {
+        return region == null ? 0 : region.size();
+    }
 
-            for (int row = 0; row < rooms.length; row++) {
-                String cap = "";
-                String mid = "";
-                for (int column = 0; column < rooms[0].length; column++) {
-                    Room currRoom = rooms[row][column];
-                    String roomUp = currRoom.getTopDoor() != null ? " " : "-";
-                    cap += "+" + roomUp;
-                    String roomLeft = currRoom.getLeftDoor() != null ? " " : "|";
-                    String content;
-                    if (currRoom instanceof StartingRoom) {
-                        content = "S";
-                    } else if (currRoom instanceof BossRoom) {
-                        content = "B";
-                    } else if (currRoom instanceof TreasureRoom) {
-                        content = "T";
-                    } else if (currRoom instanceof ChallengeRoom) {
-                        content = "C";
-                    } else {
-                        content = " ";
-                    }
-                    mid += roomLeft + content;
-                }
-                cap += "+\n";
-                mid += "|\n";
-                writer.write(cap);
-                writer.write(mid);
+    /**
+     * Stop writing rooms out and delete the scratch file. Rooms already written out
+     * can't be brought back after this.
+     */
+    public void close() {
+        residentDistance = 0;
+        paging.clear();
+        if (region != null) {
+            try {
+                region.close();
+            } catch (IOException e) {
+                System.out.println("Could not close the far room file: " + e.getMessage());
             }
+            region = null;
+        }
+    }
 
-            String bot = "";
-            for (int column = 0; column < rooms[0].length; column++) {
-                bot += "+-";
+    private Room makeRoom(int row, int column) {
+        int cell = row * columns + column;
+        Room room;
+        switch (kinds[cell]) {
+        case STARTING:
+            room = new StartingRoom(ROOM_WIDTH, ROOM_HEIGHT, row, column);
+            break;
+        case BOSS:
+            room = new BossRoom(ROOM_WIDTH, ROOM_HEIGHT, row, column);
+            break;
+        case TREASURE:
+            room = new TreasureRoom(ROOM_WIDTH, ROOM_HEIGHT, row, column);
+            break;
+        case CHALLENGE:
+            room = new ChallengeRoom(ROOM_WIDTH, ROOM_HEIGHT, row, column);
+            break;
+        default:
+            room = new BasicRoom(ROOM_WIDTH, ROOM_HEIGHT, row, column);
+            break;
+        }
+        for (int side = LEFT; side <= BOTTOM; side++) {
+            if ((doors[cell] & (1 << side)) != 0) {
+                int neighbor = neighbor(cell, side);
+                room.openDoor(side, this, neighbor / columns, neighbor % columns);
+                if (kinds[neighbor] == BOSS) {
+                    room.getDoors()[side].setBossDoor();
+                }
             }
-            bot += "+";
-            writer.write(bot);
-            writer.close();
-        } catch (Exception e) {
-            System.out.println("Exception: Writing to file printables/RoomLayout.txt.");
-            e.printStackTrace();
         }
+        byte[] bytes = saved.remove(cell);
+        if (bytes != null || region != null) {
+            CompletableFuture<byte[]> paged = paging.remove(cell);
+            try {
+                if (bytes == null && paged != null) {
+                    bytes = paged.join();
+                }
+                if (bytes == null) {
+                    bytes = region.read(cell);
+                }
+                if (bytes != null) {
+                    room.readContents(new DataInputStream(new ByteArrayInputStream(bytes)));
+                }
+            } catch (IOException e) {
+                System.out.println("Could not read a far room: " + e.getMessage());
+            }
+        }
+        return room;
     }
 
-    public Room getRoom(int row, int column) {
-        return rooms[row][column];
+    /**
+     * @return how many rows of rooms there are
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * @return how many columns of rooms there are
+     */
+    public int getColumns() {
+        return columns;
     }
 
     public int getStartRoomRow() {
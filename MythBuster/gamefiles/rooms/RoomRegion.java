@@ -0,0 +1,175 @@
+package gamefiles.rooms;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A scratch file for rooms that were written out of memory, mapped into memory so that
+ * storing or fetching a room is a copy instead of a read or write call.
+ *
+ * The file starts with a header and one 16-byte entry per room of the layout: where the
+ * room's slot starts, how long its latest record is and how big the slot is, or all 0
+ * if it has none. Keeping the entries in the file means the heap doesn't grow with the
+ * number of rooms written out. Records follow in 64 MB segments, which are mapped as
+ * they are needed.
+ *
+ * Slots are a power of two from 64 bytes up, so a room that is written out again
+ * usually goes back in its own slot, however much its record shrank in between. A
+ * room that outgrows its slot leaves it on a free list for its size, and slots are
+ * taken from those lists before the file grows. The lists are threaded through the
+ * free slots themselves, with their heads in the header. A slot never crosses into the
+ * next segment; the end of a segment too small for one goes on the free lists too.
+ *
+ * The file is deleted when the region is closed, or when the game exits.
+ */
+final class RoomRegion implements Closeable {
+    private static final int MAGIC = 0x4D425247;
+    private static final int VERSION = 2;
+    private static final int MIN_SLOT_BITS = 6;
+    private static final int MAX_SLOT_BITS = 24;
+    private static final int FREE_HEADS = 16;
+    private static final int HEADER = FREE_HEADS + 8 * (MAX_SLOT_BITS - MIN_SLOT_BITS + 1);
+    private static final int ENTRY = 16;
+    private static final int SEGMENT = 64 << 20;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer index;
+    private final long dataStart;
+    private MappedByteBuffer[] segments = new MappedByteBuffer[0];
+    private long end;
+
+    /**
+     * @param rooms how many rooms the layout has
+     * @throws IOException if the file can't be made
+     */
+    RoomRegion(int rooms) throws IOException {
+        File file = File.createTempFile("mythbuster-rooms", ".region");
+        file.deleteOnExit();
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+        dataStart = HEADER + (long) ENTRY * rooms;
+        index = channel.map(FileChannel.MapMode.READ_WRITE, 0, dataStart);
+        index.putInt(0, MAGIC);
+        index.putInt(4, VERSION);
+        index.putInt(8, rooms);
+        for (int size = MIN_SLOT_BITS; size <= MAX_SLOT_BITS; size++) {
+            index.putLong(freeList(1 << size), -1);
+        }
+    }
+
+    /**
+     * @param room the room's index in the layout
+     * @return whether the room has a record
+     */
+    synchronized boolean contains(int room) {
+        return index.getInt(HEADER + ENTRY * room + 12) != 0;
+    }
+
+    /**
+     * Store a room's record, replacing the one it had.
+     * @param room   the room's index in the layout
+     * @param bytes  the record
+     * @param length how many of bytes are the record
+     * @throws IOException if the file can't grow
+     */
+    synchronized void write(int room, byte[] bytes, int length) throws IOException {
+        if (length <= 0 || length > 1 << MAX_SLOT_BITS) {
+            throw new IOException("A room record of " + length + " bytes doesn't fit");
+        }
+        int entry = HEADER + ENTRY * room;
+        long offset = index.getLong(entry);
+        int capacity = index.getInt(entry + 12);
+        if (length > capacity) {
+            if (capacity != 0) {
+                free(offset, capacity);
+            }
+            capacity = Math.max(1 << MIN_SLOT_BITS, Integer.highestOneBit(length - 1) << 1);
+            offset = allocate(capacity);
+        }
+        segment(offset).put((int) (offset % SEGMENT), bytes, 0, length);
+        index.putLong(entry, offset);
+        index.putInt(entry + 8, length);
+        index.putInt(entry + 12, capacity);
+    }
+
+    /**
+     * @return a free slot of a size, from its free list or the end of the file
+     */
+    private long allocate(int capacity) throws IOException {
+        long head = index.getLong(freeList(capacity));
+        if (head >= 0) {
+            index.putLong(freeList(capacity), segment(head).getLong((int) (head % SEGMENT)));
+            return head;
+        }
+        if (end % SEGMENT + capacity > SEGMENT) {
+            // Keep the rest of this segment for smaller slots.
+            for (int left = (int) (SEGMENT - end % SEGMENT); left >= 1 << MIN_SLOT_BITS;) {
+                int slot = Integer.highestOneBit(left);
+                free(end, slot);
+                end += slot;
+                left -= slot;
+            }
+        }
+        long offset = end;
+        end += capacity;
+        return offset;
+    }
+
+    private void free(long offset, int capacity) throws IOException {
+        segment(offset).putLong((int) (offset % SEGMENT), index.getLong(freeList(capacity)));
+        index.putLong(freeList(capacity), offset);
+    }
+
+    /**
+     * @return where the head of the free list for slots of a size is in the header
+     */
+    private static int freeList(int capacity) {
+        return FREE_HEADS + 8 * (Integer.numberOfTrailingZeros(capacity) - MIN_SLOT_BITS);
+    }
+
+    /**
+     * @param room the room's index in the layout
+     * @return a copy of the room's record, or null if it has none
+     * @throws IOException if the file can't be mapped
+     */
+    synchronized byte[] read(int room) throws IOException {
+        int entry = HEADER + ENTRY * room;
+        if (index.getInt(entry + 12) == 0) {
+            return null;
+        }
+        long offset = index.getLong(entry);
+        byte[] bytes = new byte[index.getInt(entry + 8)];
+        segment(offset).get((int) (offset % SEGMENT), bytes);
+        return bytes;
+    }
+
+    private MappedByteBuffer segment(long offset) throws IOException {
+        int segment = (int) (offset / SEGMENT);
+        if (segment >= segments.length) {
+            segments = Arrays.copyOf(segments, segment + 1);
+        }
+        if (segments[segment] == null) {
+            segments[segment] = channel.map(FileChannel.MapMode.READ_WRITE,
+                    dataStart + (long) segment * SEGMENT, SEGMENT);
+        }
+        return segments[segment];
+    }
+
+    /**
+     * @return how many bytes of the file's segments have been handed out as slots,
+     *         whether or not they are on a free list now
+     */
+    synchronized long size() {
+        return end;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,94 @@
+package gamefiles.rooms;
+
+import gamefiles.characters.Monster;
+
+import java.util.List;
+
+/**
+ * What a room's monsters looked like at the end of one tick, for something showing the
+ * room on another thread.
+ *
+ * A snapshot never changes once it is made, so whichever thread simulates the room can
+ * publish a new one while any number of viewers read the last: a viewer takes the
+ * latest with Room.getSnapshot() and reads it for as long as it likes, without locks
+ * and without ever seeing half a tick.
+ */
+public final class RoomSnapshot {
+    private static final Monster.Pose[] POSES = Monster.Pose.values();
+
+    private final long tick;
+    private final int count;
+    private final int[] kinds;
+    private final double[] x;
+    private final double[] y;
+    private final double[] health;
+    private final byte[] facing;
+    private final byte[] poses;
+
+    /**
+     * @param tick     the tick the room was simulated up to
+     * @param monsters the room's monsters, alive or still dying
+     */
+    RoomSnapshot(long tick, List<Monster> monsters) {
+        this.tick = tick;
+        count = monsters.size();
+        kinds = new int[count];
+        x = new double[count];
+        y = new double[count];
+        health = new double[count];
+        facing = new byte[count];
+        poses = new byte[count];
+        for (int i = 0; i < count; i++) {
+            Monster monster = monsters.get(i);
+            kinds[i] = monster.getKind();
+            x[i] = monster.getPositionX();
+            y[i] = monster.getPositionY();
+            health[i] = monster.getCurrentHealth() / monster.getMaxHealth();
+            facing[i] = (byte) monster.getFacing();
+            poses[i] = (byte) monster.getPose().ordinal();
+        }
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * @return how many monsters there were
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @param i which monster
+     * @return what kind of monster it is, as Monster.getKind() says
+     */
+    public int getKind(int i) {
+        return kinds[i];
+    }
+
+    public double getX(int i) {
+        return x[i];
+    }
+
+    public double getY(int i) {
+        return y[i];
+    }
+
+    /**
+     * @param i which monster
+     * @return how much of its health it had left, from 0 to 1
+     */
+    public double getHealth(int i) {
+        return health[i];
+    }
+
+    public int getFacing(int i) {
+        return facing[i];
+    }
+
+    public Monster.Pose getPose(int i) {
+        return POSES[poses[i]];
+    }
+}
@@ -1,9 +1,5 @@
 package gamefiles.rooms;
 
-import controller.Controller;
-import javafx.scene.Group;
-import javafx.scene.paint.Color;
-
 public class StartingRoom extends Room {
     public StartingRoom(int width, int height, int row, int column) {
         super(width, height, row, column);
@@ -15,13 +11,6 @@ public class StartingRoom extends Room {
 
     }
 
-    @Override
-    public Group getRoomGroup() {
-        Group roomGroup = super.getRoomGroup();
-        Controller.getGameScreen().changeBackground("-fx-background-image: url('sprites/gameplayBG.png'); -fx-background-repeat: stretch; -fx-background-size: 1200 800");
-        return roomGroup;
-    }
-
     public String toString() {
         return "Starting Room";
     }
@@ -1,25 +1,41 @@
 package gamefiles.rooms;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
 
 import controller.Controller;
+import controller.GameLoop;
+import controller.GameRandom;
+import controller.GameSystem;
+import controller.Session;
 import gamefiles.BlueTreasureChest;
 import gamefiles.GreenTreasureChest;
 import gamefiles.RedTreasureChest;
 import gamefiles.YellowTreasureChest;
 import gamefiles.TreasureChest;
-import javafx.animation.AnimationTimer;
-import javafx.scene.Group;
 
 public class TreasureRoom extends Room {
 
-    private int treasureCount = (int) (Math.random() * 3) + 1;
     private ArrayList<TreasureChest> treasureChests = new ArrayList<>();
-    private static AnimationTimer animationTimer;
+    private static final class State {
+        private GameSystem chestSystem;
+    }
+
+    private static State state() {
+        return Session.current().get(State.class, State::new);
+    }
 
-    private Group treasureGroup;
     public TreasureRoom(int width, int height, int row, int column) {
         super(width, height, row, column);
+    }
+
+    @Override
+    protected void generate() {
+        int width = getWidth();
+        int height = getHeight();
+        int treasureCount = (int) (GameRandom.layout().nextDouble() * 3) + 1;
         switch (treasureCount) {
         case 1:
             addRandomChest(width / 2 - 50, height / 2 - 50);
@@ -40,7 +56,7 @@ public class TreasureRoom extends Room {
     }
 
     public void addRandomChest(double positionX, double positionY, int cost) {
-        int random = (int) (Math.random() * 4);
+        int random = (int) (GameRandom.layout().nextDouble() * 4);
         switch (random) {
         case 0:
             treasureChests.add(new RedTreasureChest(positionX, positionY, cost));
@@ -60,44 +76,66 @@ public class TreasureRoom extends Room {
         }
     }
     public void addRandomChest(double positionX, double positionY) {
-        addRandomChest(positionX, positionY, (int) (Math.random() * 5 + 2) * 5);
+        addRandomChest(positionX, positionY, (int) (GameRandom.layout().nextDouble() * 5 + 2) * 5);
     }
 
 
     @Override
-    public Group getRoomGroup() {
-        Group roomGroup = super.getRoomGroup();
-        treasureGroup = new Group();
-        for (TreasureChest treasureChest : treasureChests) {
-            if (!treasureChest.isOpened()) {
-                treasureGroup.getChildren().add(treasureChest.getGroup());
-            }
+    public void enter() {
+        State state = state();
+        if (state.chestSystem != null) {
+            state.chestSystem.stop();
         }
-
-        animationTimer = new AnimationTimer() {
+        state.chestSystem = new GameSystem("treasure chests", GameLoop.ROOM) {
             @Override
-            public void handle(long currentNanoTime) {
+            public void handle(long tick) {
                 for (TreasureChest treasureChest : treasureChests) {
                     if (treasureChest.canOpen()) {
                         treasureChest.open();
-                        treasureGroup.getChildren().remove(treasureChest.getGroup());
                     }
                 }
             }
         };
-        animationTimer.start();
+        state.chestSystem.start();
+    }
 
-        roomGroup.getChildren().add(treasureGroup);
-        Controller.getGameScreen().changeBackground("-fx-background-image: url('sprites/treasureBG.png'); -fx-background-repeat: stretch; -fx-background-size: 1200 800");
-        return roomGroup;
+    @Override
+    public void exit() {
+        GameSystem chestSystem = state().chestSystem;
+        if (chestSystem != null) {
+            chestSystem.stop();
+        }
     }
+
+    @Override
+    protected void writeFields(DataOutput out) throws IOException {
+        out.writeByte(treasureChests.size());
+        for (TreasureChest treasureChest : treasureChests) {
+            treasureChest.write(out);
+        }
+    }
+
+    @Override
+    protected void readFields(DataInput in) throws IOException {
+        treasureChests.clear();
+        int count = in.readByte();
+        for (int i = 0; i < count; i++) {
+            treasureChests.add(TreasureChest.read(in));
+        }
+    }
+
+    @Override
+    public String getBackgroundImage() {
+        return "sprites/treasureBG.png";
+    }
+
     public String toString() {
         return "Treasure Room";
     }
     public ArrayList<TreasureChest> getTreasureChests() {
         return treasureChests;
     }
-    public static AnimationTimer getAnimationTimer() {
-        return animationTimer;
+    public static GameSystem getChestSystem() {
+        return state().chestSystem;
     }
 }
@@ -2,42 +2,53 @@ package gamefiles.weapons;
 
 import controller.Controller;
 import controller.GameLoop;
+import controller.GameSystem;
+import gamefiles.EntityStore;
 import gamefiles.Touchable;
 import gamefiles.characters.Monster;
-import javafx.animation.AnimationTimer;
 import javafx.geometry.Rectangle2D;
-import javafx.scene.Group;
-import javafx.scene.image.Image;
-import javafx.scene.image.ImageView;
-import views.GameScreen;
 
 import java.util.ArrayList;
-import java.util.Iterator;
 
 public class Bow extends Weapon {
-    private ArrayList<Arrow> arrows = new ArrayList<>();
-    private Group arrowGroup = new Group();
-    private AnimationTimer arrowTimer;
+    /** One shot per attack crosses the room in far fewer attacks than this. */
+    public static final int MAX_ARROWS = 16;
+
+    // Every arrow this bow will ever fire. The first arrowCount are in flight, the rest
+    // are waiting to be fired again, so shooting never allocates.
+    private final Arrow[] arrows = new Arrow[MAX_ARROWS];
+    private int arrowCount;
+    private GameSystem arrowSystem;
+    private ArrayList<Monster> hits = new ArrayList<>();
 
     public Bow(int id, String name, String description, double speed, double damage) {
 
         super(id, name, description, speed, damage);
-        updateImageView("sprites/itemAssets/BowAndArrow.png");
-
+        setSpritePath("sprites/itemAssets/BowAndArrow.png");
+        for (int i = 0; i < MAX_ARROWS; i++) {
+            arrows[i] = new Arrow(0, 0, 0, 0);
+        }
     }
 
-    public AnimationTimer arrowTimer() {
-        arrowTimer = new AnimationTimer() {
+    public GameSystem arrowSystem() {
+        arrowSystem = new GameSystem("arrows", GameLoop.PROJECTILES) {
             @Override
-            public void handle(long l) {
-                for (Iterator<Arrow> iterator = arrows.iterator(); iterator.hasNext();) {
-                    Arrow arrow = iterator.next();
-                    arrow.erase();
-                    for (Monster monster : GameLoop.getMonsters()) {
-                        if (arrow.intersects(monster)) {
-                            monster.takeDamage(arrow.damage);
-                            iterator.remove();
-                            break;
+            public void handle(long tick) {
+                int i = 0;
+                while (i < arrowCount) {
+                    Arrow arrow = arrows[i];
+                    hits.clear();
+                    GameLoop.getMonsterGrid().queryTouching(arrow, hits);
+                    boolean hit = !hits.isEmpty();
+                    if (hit) {
+                        hits.get(0).takeDamage(arrow.damage);
+                    } else {
+                        EntityStore projectiles = GameLoop.getProjectiles();
+                        for (int j = 0; j < projectiles.size() && !hit; j++) {
+                            if (projectiles.intersects(j, arrow)) {
+                                projectiles.takeDamage(j, arrow.damage);
+                                hit = true;
+                            }
                         }
                     }
                     if (arrow.direction == 1) {
@@ -45,33 +56,57 @@ public class Bow extends Weapon {
                     } else {
                         arrow.x -= 6;
                     }
-                    if (arrow.x >= Controller.getW() || arrow.x <= 0) {
-                        iterator.remove();
-                    }
-                    if (arrows.contains(arrow)) {
-                        arrow.update();
-                        arrow.draw();
+                    if (hit || arrow.x >= Controller.getW() || arrow.x <= 0) {
+                        // Swap the spent arrow out past the ones in flight.
+                        arrowCount--;
+                        arrows[i] = arrows[arrowCount];
+                        arrows[arrowCount] = arrow;
+                    } else {
+                        i++;
                     }
                 }
             }
         };
-        return arrowTimer;
+        return arrowSystem;
     }
-    public AnimationTimer getArrowTimer() {
-        return arrowTimer;
+    public GameSystem getArrowSystem() {
+        return arrowSystem;
     }
 
+    /**
+     * Shoot the next arrow out of the quiver. Does nothing if every arrow is in flight.
+     */
     public void fireArrow(int direction, double startX, double startY, double damage) {
-        arrows.add(new Arrow(direction, startX, startY, damage));
+        if (arrowCount == MAX_ARROWS) {
+            return;
+        }
+        Arrow arrow = arrows[arrowCount++];
+        arrow.direction = direction;
+        arrow.x = startX;
+        arrow.y = startY;
+        arrow.damage = damage;
+    }
+
+    /**
+     * @return how many arrows are in flight
+     */
+    public int getArrowCount() {
+        return arrowCount;
     }
 
-    public Group getArrowGroup() {
-        return arrowGroup;
+    /**
+     * @param i an index below getArrowCount()
+     * @return the i-th arrow in flight; which arrow that is changes as arrows land
+     */
+    public Arrow getArrow(int i) {
+        return arrows[i];
     }
 
-    private class Arrow implements Touchable {
-        private final Image arrow = new Image("sprites/arrow.png");
-        private ImageView imageView;
+    public void clearArrows() {
+        arrowCount = 0;
+    }
+
+    public static class Arrow implements Touchable {
         private double x;
         private double y;
         private double damage;
@@ -79,25 +114,11 @@ public class Bow extends Weapon {
         private final int height = 12;
         protected int direction;
 
-        private GameScreen screen = Controller.getGameScreen();
-
         public Arrow(int direction, double x, double y, double damage)  {
             this.x = x;
             this.y = y;
             this.direction = direction;
             this.damage = damage;
-            imageView = new ImageView(arrow);
-            Rectangle2D viewpoint = new Rectangle2D(310, 110, 140, 30);
-            imageView.setViewport(viewpoint);
-            imageView.setPreserveRatio(true);
-            imageView.setFitWidth(width);
-            imageView.setFitHeight(height);
-            if (direction == 1) {
-                imageView.setScaleX(-1);
-            }
-            imageView.setLayoutX(x);
-            imageView.setLayoutY(y);
-            arrowGroup.getChildren().add(imageView);
         }
 
         @Override
@@ -106,25 +127,40 @@ public class Bow extends Weapon {
         }
 
         @Override
-        public boolean intersects(Touchable other) {
-            return this.getBoundary().intersects(other.getBoundary());
+        public double getMinX() {
+            return x;
+        }
+        @Override
+        public double getMinY() {
+            return y;
+        }
+        @Override
+        public double getMaxX() {
+            return x + width;
+        }
+        @Override
+        public double getMaxY() {
+            return y + height;
+        }
+
+        public double getX() {
+            return x;
+        }
+
+        public double getY() {
+            return y;
         }
 
-        public void erase() {
-            screen.getBoard().getChildren().removeAll(arrowGroup);
-            arrowGroup.getChildren().remove(imageView);
-            screen.getBoard().getChildren().addAll(arrowGroup);
+        public int getDirection() {
+            return direction;
         }
 
-        public void draw() {
-            screen.getBoard().getChildren().removeAll(arrowGroup);
-            arrowGroup.getChildren().add(imageView);
-            screen.getBoard().getChildren().addAll(arrowGroup);
+        public int getWidth() {
+            return width;
         }
 
-        public void update() {
-            imageView.setLayoutX(x);
-            imageView.setLayoutY(y);
+        public int getHeight() {
+            return height;
         }
 
     }
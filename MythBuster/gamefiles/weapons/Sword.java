@@ -5,7 +5,7 @@ public class Sword extends Weapon {
     public Sword(int id, String name, String description, double speed, double damage) {
 
         super(id, name, description, speed, damage);
-        updateImageView("sprites/itemAssets/Sword.png");
+        setSpritePath("sprites/itemAssets/Sword.png");
 
     }
 }
@@ -1,16 +1,26 @@
 package gamefiles.weapons;
 
+import controller.Session;
+
 import java.util.HashMap;
 import java.util.Map;
 
 public class WeaponDatabase {
-    private static Map<Integer, Weapon> weapons = new HashMap<>();
+    // Weapons hold state (the bow's arrows), so every Session has its own.
+    private static final class State {
+        private final Map<Integer, Weapon> weapons = new HashMap<>();
+    }
+
+    private static Map<Integer, Weapon> weapons() {
+        return Session.current().get(State.class, State::new).weapons;
+    }
 
     /**
      * Create a weapon database.
      */
 
     public static void initialize() {
+        Map<Integer, Weapon> weapons = weapons();
         weapons.put(0, new Spear(1, "Spear", "This is a spear.", 1, 2));
         weapons.put(1, new Sword(0, "Sword", "This is a sword.", 0.85, 2.5));
         weapons.put(2, new Bow(2, "Bow", "This is a bow.", 1, 1.5));
@@ -23,6 +33,6 @@ public class WeaponDatabase {
      * @return the weapon from the passed in id
      */
     public static Weapon getWeapon(int key) {
-        return weapons.get(key);
+        return weapons().get(key);
     }
 }
@@ -0,0 +1,60 @@
+package tests;
+
+import controller.BatchSimulation;
+import controller.Controller;
+import controller.GameLoop;
+import controller.Session;
+import gamefiles.Difficulty;
+import gamefiles.Inventory;
+import gamefiles.characters.Player;
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class BatchSimulationTest {
+
+    @Test
+    public void testSessionsDoNotShareState() {
+        Session first = new Session();
+        Session second = new Session();
+        Player[] players = new Player[2];
+        first.run(() -> {
+            Controller.startHeadlessGame("one", 0, Difficulty.EASY);
+            Inventory.setHotbarSize(3);
+            GameLoop.tick();
+            players[0] = Controller.getPlayer();
+        });
+        second.run(() -> {
+            Controller.startHeadlessGame("two", 1, Difficulty.HARD);
+            players[1] = Controller.getPlayer();
+            assertEquals(0, Inventory.getHotbarSize());
+            assertEquals(0, GameLoop.getTick());
+        });
+        assertNotSame(players[0], players[1]);
+        first.run(() -> {
+            assertSame(players[0], Controller.getPlayer());
+            assertEquals(3, Inventory.getHotbarSize());
+            assertEquals(1, GameLoop.getTick());
+        });
+    }
+
+    @Test
+    public void testRunsInParallel() {
+        BatchSimulation simulation = new BatchSimulation(Difficulty.EASY, 1, 60 * 60);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            BatchSimulation.Summary summary = simulation.run(pool, 8);
+
+            assertEquals(8, summary.getRuns());
+            assertEquals(8, summary.getWins() + summary.getDeaths() + summary.getTimeouts());
+            assertTrue(summary.getAverageCoins() >= 0);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
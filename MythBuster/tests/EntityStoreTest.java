@@ -0,0 +1,68 @@
+package tests;
+
+import controller.Controller;
+import controller.GameLoop;
+import controller.Session;
+import gamefiles.Difficulty;
+import gamefiles.EntityStore;
+import gamefiles.characters.Fireball;
+import gamefiles.characters.Player;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class EntityStoreTest {
+
+    @Test
+    public void testRemoveMovesLastIntoPlace() {
+        EntityStore store = new EntityStore();
+        for (int i = 0; i < 1000; i++) {
+            store.add(i % 2, i, 0, 10, 10);
+        }
+        assertEquals(1000, store.size());
+        assertEquals(500, store.count(1));
+
+        store.remove(3);
+        assertEquals(999, store.size());
+        assertEquals(999, store.getX(3), 0);
+        store.remove(store.size() - 1);
+        assertEquals(998, store.size());
+        assertEquals(997, store.getX(997), 0);
+    }
+
+    @Test
+    public void testFireballHitsPlayerOnce() {
+        new Session().run(() -> {
+            Controller.startHeadlessGame("target", 0, Difficulty.EASY, 3);
+            GameLoop.getMonsters().clear();
+            Player player = Controller.getPlayer();
+            double health = player.getCurrentHealth();
+
+            Fireball.spawn(player.getPositionX() + 300, player.getPositionY());
+            for (int i = 0; i < 300 && GameLoop.getProjectiles().size() > 0; i++) {
+                GameLoop.tick();
+            }
+            assertEquals(0, GameLoop.getProjectiles().size());
+            assertEquals(health - 100, player.getCurrentHealth(), 0.1);
+        });
+    }
+
+    @Test
+    public void testThousandsOfFireballsBurnOut() {
+        new Session().run(() -> {
+            Controller.startHeadlessGame("crowd", 0, Difficulty.EASY, 4);
+            GameLoop.getMonsters().clear();
+            Controller.getPlayer().moveAbsolute(-10_000, -10_000);
+            for (int i = 0; i < 5000; i++) {
+                Fireball.spawn(i % Controller.getW(), (i * 7) % Controller.getH());
+            }
+            assertEquals(5000, GameLoop.getProjectiles().count(Fireball.KIND));
+            for (int i = 0; i < 500; i++) {
+                GameLoop.tick();
+            }
+            assertEquals(5000, GameLoop.getProjectiles().size());
+            GameLoop.tick();
+            assertEquals(0, GameLoop.getProjectiles().size());
+        });
+    }
+}
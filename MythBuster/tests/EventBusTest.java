@@ -0,0 +1,73 @@
+package tests;
+
+import controller.Controller;
+import controller.EventBus;
+import controller.GameLoop;
+import controller.Session;
+import gamefiles.Difficulty;
+import gamefiles.Door;
+import gamefiles.characters.Monster;
+import gamefiles.rooms.Room;
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class EventBusTest {
+
+    @Test
+    public void testKillingLastMonsterClearsRoomOnce() {
+        new Session().run(() -> {
+            Controller.startHeadlessGame("events", 0, Difficulty.EASY, 5);
+            Room room = Controller.getCurrentRoom();
+            Controller.getPlayer().moveAbsolute(-10_000, -10_000);
+            room.spawnSoldier();
+            room.spawnSoldier();
+            room.lockDoors();
+
+            ArrayList<Room> cleared = new ArrayList<>();
+            EventBus.subscribe(EventBus.ROOM_CLEARED, cleared::add);
+            ArrayList<Monster> died = new ArrayList<>();
+            EventBus.subscribe(EventBus.MONSTER_DIED, died::add);
+
+            while (!GameLoop.getMonsters().isEmpty()) {
+                GameLoop.getMonsters().get(0).loseAllHealth();
+                if (!GameLoop.getMonsters().isEmpty()) {
+                    assertTrue(cleared.isEmpty());
+                }
+            }
+            assertFalse(died.isEmpty());
+            assertEquals(1, cleared.size());
+            assertSame(room, cleared.get(0));
+            for (Door door : room.getDoors()) {
+                if (door != null) {
+                    assertFalse(door.isLocked());
+                }
+            }
+
+            GameLoop.tick();
+            assertEquals(1, cleared.size());
+        });
+    }
+
+    @Test
+    public void testHealthChangesArePublished() {
+        new Session().run(() -> {
+            Controller.startHeadlessGame("events", 0, Difficulty.EASY, 5);
+            int[] changes = new int[1];
+            EventBus.subscribe(EventBus.HEALTH_CHANGED, player -> changes[0]++);
+
+            Controller.getPlayer().addHealth(0);
+            Controller.getPlayer().setHealth(Controller.getPlayer().getCurrentHealth());
+            assertEquals(0, changes[0]);
+
+            Controller.getPlayer().takeDamage(Controller.getPlayer().getCurrentHealth());
+            assertEquals(1, changes[0]);
+            assertTrue(Controller.isGameOver());
+        });
+    }
+}
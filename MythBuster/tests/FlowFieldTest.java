@@ -0,0 +1,95 @@
+package tests;
+
+import controller.Controller;
+import controller.GameLoop;
+import controller.Session;
+import gamefiles.Difficulty;
+import gamefiles.FlowField;
+import gamefiles.characters.Soldier;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FlowFieldTest {
+
+    @Test
+    public void testOpenRoomPointsStraightAtTarget() {
+        FlowField field = new FlowField(1200, 800);
+        field.aim(600, 400);
+        assertEquals(0.8, field.directionX(200, 100), 1e-9);
+        assertEquals(0.6, field.directionY(200, 100), 1e-9);
+        assertEquals(0, field.directionX(600, 400), 1e-9);
+        assertEquals(0, field.getBuilds());
+    }
+
+    @Test
+    public void testWallIsWalkedAround() {
+        FlowField field = new FlowField(1200, 800);
+        // A wall down the middle with a gap at the bottom.
+        field.block(550, 0, 100, 649);
+        field.aim(1000, 100);
+        assertTrue(field.isBlocked(600, 300));
+        assertFalse(field.isBlocked(600, 700));
+
+        // Behind the wall the way is down towards the gap, not straight at the target.
+        assertTrue(field.directionY(200, 100) > 0);
+        // On the target's side of the wall it is straight at the target.
+        assertEquals(1, field.directionX(800, 100), 1e-9);
+        assertEquals(-1, field.getDistance(600, 300), 1e-9);
+        assertTrue(field.getDistance(200, 100) > field.getDistance(800, 100) + 10);
+
+        // Following the field from behind the wall gets to the target.
+        double x = 200;
+        double y = 100;
+        for (int i = 0; i < 1000 && Math.abs(x - 1000) + Math.abs(y - 100) > 10; i++) {
+            double stepX = 5 * field.directionX(x, y);
+            double stepY = 5 * field.directionY(x, y);
+            x += stepX;
+            y += stepY;
+            assertFalse(x + "," + y + " is in the wall", field.isBlocked(x, y));
+        }
+        assertEquals(1000, x, 10);
+        assertEquals(100, y, 10);
+    }
+
+    @Test
+    public void testFieldIsOnlyBuiltWhenTargetChangesCell() {
+        FlowField field = new FlowField(1200, 800);
+        field.block(550, 0, 100, 649);
+        field.aim(1000, 100);
+        for (int i = 0; i < 40; i++) {
+            field.aim(1000 + i, 100);
+            for (int chaser = 0; chaser < 500; chaser++) {
+                field.directionX(chaser * 2, chaser);
+            }
+        }
+        assertEquals(1, field.getBuilds());
+        field.aim(1100, 100);
+        assertEquals(2, field.getBuilds());
+    }
+
+    @Test
+    public void testSoldiersChaseAroundWall() {
+        new Session().run(() -> {
+            Controller.startHeadlessGame("chaser", 0, Difficulty.EASY, 3);
+            GameLoop.getMonsters().clear();
+            Controller.getPlayer().moveAbsolute(1000, 130);
+            Soldier soldier = new Soldier();
+            soldier.moveAbsolute(200, 100);
+            GameLoop.getMonsters().add(soldier);
+            GameLoop.getFlowField().block(550, 0, 100, 649);
+
+            boolean reached = false;
+            for (int i = 0; i < 600 && !reached; i++) {
+                GameLoop.tick();
+                assertFalse(GameLoop.getFlowField().isBlocked(soldier.getPositionX(),
+                        soldier.getPositionY()));
+                reached = Controller.getPlayer().intersects(soldier);
+            }
+            assertTrue(reached);
+            GameLoop.stopEverything();
+        });
+    }
+}
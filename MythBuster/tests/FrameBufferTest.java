@@ -0,0 +1,134 @@
+package tests;
+
+import controller.Controller;
+import controller.Frame;
+import controller.FrameBuffer;
+import controller.GameLoop;
+import controller.Session;
+import gamefiles.Difficulty;
+import gamefiles.Door;
+import gamefiles.characters.Soldier;
+import gamefiles.rooms.RoomLayout;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class FrameBufferTest {
+
+    @Test
+    public void testFramesAreNeverTorn() throws InterruptedException {
+        FrameBuffer buffer = new FrameBuffer();
+        assertEquals(-1, buffer.latest().getTick());
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<String> torn = new AtomicReference<>();
+        long[] seen = new long[2];
+        long[] end = new long[1];
+        Thread reader = new Thread(() -> {
+            long last = -1;
+            while (!done.get() && torn.get() == null) {
+                Frame frame = buffer.latest();
+                if (frame.getTick() < last) {
+                    torn.set("went back from tick " + last + " to " + frame.getTick());
+                }
+                if (frame.getTick() != last) {
+                    seen[0]++;
+                }
+                last = frame.getTick();
+                // Every monster is put at the tick it is on, so a frame mixing two shows.
+                for (int i = 0; i < frame.getMonsterCount(); i++) {
+                    if (frame.getMonsterX(i) != frame.getTick()) {
+                        torn.set("monster at " + frame.getMonsterX(i) + " in tick " + frame.getTick());
+                    }
+                }
+            }
+            seen[1] = last;
+        }, "frame reader");
+        new Session().run(() -> {
+            Controller.startHeadlessGame("frames", 0, Difficulty.EASY, 3);
+            Controller.getPlayer().moveAbsolute(-5000, -5000);
+            GameLoop.getMonsters().clear();
+            for (int i = 0; i < 50; i++) {
+                GameLoop.getMonsters().add(new Soldier());
+            }
+            reader.start();
+            for (int i = 0; i < 3000; i++) {
+                GameLoop.tick();
+                for (int m = 0; m < GameLoop.getMonsters().size(); m++) {
+                    GameLoop.getMonsters().get(m).moveAbsolute(GameLoop.getTick(), 0);
+                }
+                buffer.publish();
+            }
+            end[0] = GameLoop.getTick();
+            done.set(true);
+            GameLoop.stopEverything();
+        });
+        reader.join();
+        assertNull(torn.get());
+        assertTrue(seen[0] > 1);
+        assertTrue(seen[1] <= end[0]);
+        // Once the writer stops, the reader is left with the last frame.
+        assertEquals(end[0], buffer.latest().getTick());
+        assertEquals(end[0], buffer.latest().getTick());
+    }
+
+    @Test
+    public void testDoorsAreDrawnAsTheyWereInTheFrame() {
+        new Session().run(() -> {
+            Controller.startHeadlessGame("frames", 0, Difficulty.EASY, 3);
+            FrameBuffer buffer = new FrameBuffer();
+            Door door = Controller.getCurrentRoom().getDoors()[RoomLayout.RIGHT];
+            door.unlock();
+            buffer.publish();
+            Frame frame = buffer.latest();
+            String unlocked = frame.getDoorSprite(RoomLayout.RIGHT);
+            assertEquals(door.getSpritePath(), unlocked);
+
+            // The game locking the door doesn't change a frame already handed over.
+            door.lock();
+            assertNotEquals(unlocked, door.getSpritePath());
+            assertEquals(unlocked, frame.getDoorSprite(RoomLayout.RIGHT));
+            buffer.publish();
+            assertEquals(door.getSpritePath(), buffer.latest().getDoorSprite(RoomLayout.RIGHT));
+            GameLoop.stopEverything();
+        });
+    }
+
+    @Test
+    public void testPostedInputWaitsForTheNextTick() throws InterruptedException {
+        Session session = new Session();
+        int[] applied = new int[1];
+        long[] appliedAt = {-1};
+        session.run(() -> Controller.startHeadlessGame("frames", 0, Difficulty.EASY, 3));
+        Thread[] posters = new Thread[4];
+        for (int t = 0; t < posters.length; t++) {
+            posters[t] = new Thread(() -> session.run(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    GameLoop.post(() -> {
+                        applied[0]++;
+                        appliedAt[0] = GameLoop.getTick();
+                    });
+                }
+            }));
+            posters[t].start();
+        }
+        for (Thread poster : posters) {
+            poster.join();
+        }
+        session.run(() -> {
+            assertEquals(0, applied[0]);
+            long tick = GameLoop.getTick();
+            GameLoop.tick();
+            assertEquals(4000, applied[0]);
+            assertEquals(tick, appliedAt[0]);
+            GameLoop.tick();
+            assertEquals(4000, applied[0]);
+            GameLoop.stopEverything();
+        });
+    }
+}
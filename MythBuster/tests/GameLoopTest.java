@@ -0,0 +1,95 @@
+package tests;
+
+import controller.GameLoop;
+import controller.GameSystem;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GameLoopTest {
+    private ArrayList<String> ran = new ArrayList<>();
+
+    @After
+    public void tearDown() {
+        GameLoop.stopEverything();
+        GameLoop.resume();
+    }
+
+    private GameSystem recorder(String name, int order) {
+        return new GameSystem(name, order) {
+            @Override
+            public void handle(long tick) {
+                ran.add(getName());
+            }
+        };
+    }
+
+    @Test
+    public void testSystemsRunInOrder() {
+        recorder("hud", GameLoop.HUD).start();
+        recorder("player", GameLoop.PLAYER).start();
+        recorder("monsters", GameLoop.MONSTERS).start();
+        recorder("player2", GameLoop.PLAYER).start();
+
+        GameLoop.tick();
+
+        assertEquals("player", ran.get(0));
+        assertEquals("player2", ran.get(1));
+        assertEquals("monsters", ran.get(2));
+        assertEquals("hud", ran.get(3));
+    }
+
+    @Test
+    public void testStopDuringTickIsSafe() {
+        GameSystem once = new GameSystem("once", GameLoop.TOASTS) {
+            @Override
+            public void handle(long tick) {
+                ran.add(getName());
+                stop();
+            }
+        };
+        once.start();
+        recorder("after", GameLoop.TOASTS + 1).start();
+
+        GameLoop.tick();
+        GameLoop.tick();
+
+        assertFalse(once.isRunning());
+        assertEquals(3, ran.size());
+        assertEquals("once", ran.get(0));
+    }
+
+    @Test
+    public void testStartDuringTickRunsNextTick() {
+        GameSystem late = recorder("late", GameLoop.PLAYER);
+        new GameSystem("spawner", GameLoop.MONSTERS) {
+            @Override
+            public void handle(long tick) {
+                late.start();
+            }
+        }.start();
+
+        GameLoop.tick();
+        assertTrue(ran.isEmpty());
+        GameLoop.tick();
+        assertEquals(1, ran.size());
+    }
+
+    @Test
+    public void testStepOnlyWhilePaused() {
+        recorder("player", GameLoop.PLAYER).start();
+        GameLoop.step();
+        assertTrue(ran.isEmpty());
+
+        GameLoop.pause();
+        long before = GameLoop.getTick();
+        GameLoop.step();
+        assertEquals(1, ran.size());
+        assertEquals(before + 1, GameLoop.getTick());
+    }
+}
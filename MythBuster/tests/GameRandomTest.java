@@ -0,0 +1,83 @@
+package tests;
+
+import controller.BatchSimulation;
+import controller.Controller;
+import controller.GameRandom;
+import controller.Session;
+import gamefiles.Difficulty;
+import gamefiles.characters.Monster;
+import gamefiles.rooms.Room;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class GameRandomTest {
+
+    private String describeStart(long seed) {
+        StringBuilder description = new StringBuilder();
+        new Session().run(() -> {
+            Controller.startHeadlessGame("seeded", 0, Difficulty.MEDIUM, seed);
+            Room room = Controller.getCurrentRoom();
+            description.append(room.getRow()).append(',').append(room.getColumn());
+            for (Monster monster : room.getMonsters()) {
+                description.append(';').append(monster.getName())
+                        .append('@').append(monster.getPositionX());
+            }
+            description.append(';').append(GameRandom.layout().nextLong());
+        });
+        return description.toString();
+    }
+
+    private long firstLayoutNumber(long seed, int otherDraws) {
+        long[] value = new long[1];
+        new Session().run(() -> {
+            GameRandom.reseed(seed);
+            for (int i = 0; i < otherDraws; i++) {
+                GameRandom.loot().nextDouble();
+                GameRandom.ai().nextDouble();
+                GameRandom.spawn().nextDouble();
+            }
+            value[0] = GameRandom.layout().nextLong();
+        });
+        return value[0];
+    }
+
+    @Test
+    public void testSameSeedSameDungeon() {
+        assertEquals(describeStart(42), describeStart(42));
+        assertNotEquals(describeStart(42), describeStart(43));
+    }
+
+    @Test
+    public void testStreamsAreIndependent() {
+        assertEquals(firstLayoutNumber(7, 0), firstLayoutNumber(7, 100));
+    }
+
+    @Test
+    public void testSeedReplaysWholeRun() {
+        BatchSimulation simulation = new BatchSimulation(Difficulty.EASY, 1, 60 * 60);
+        BatchSimulation.Result first = simulation.playOne(1234);
+        BatchSimulation.Result second = simulation.playOne(1234);
+        assertEquals(first.getTicks(), second.getTicks());
+        assertEquals(first.getCoins(), second.getCoins());
+        assertEquals(first.getDamageByRoomType(), second.getDamageByRoomType());
+    }
+
+    @Test
+    public void testShuffleIsAPermutation() {
+        ArrayList<Integer> list = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            list.add(i);
+        }
+        GameRandom.shuffle(list, new SplittableRandom(3));
+        Collections.sort(list);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i, (int) list.get(i));
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package tests;
+
+import controller.Controller;
+import controller.GameLoop;
+import gamefiles.Difficulty;
+import gamefiles.characters.Boss;
+import gamefiles.characters.Monster;
+import gamefiles.rooms.BossRoom;
+import gamefiles.rooms.Room;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class HeadlessSimulationTest {
+
+    @After
+    public void tearDown() {
+        GameLoop.stopEverything();
+        GameLoop.resume();
+    }
+
+    @Test
+    public void testGameRunsWithoutToolkit() {
+        // A fixed seed, so the monsters in the room to the right can't happen to kill the player.
+        Controller.startHeadlessGame("bot", 0, Difficulty.EASY, 3);
+        assertNotNull(Controller.getCurrentRoom());
+        assertEquals(null, Controller.getGameScreen());
+
+        long start = GameLoop.getTick();
+        Controller.getPlayer().pressKey("D");
+        for (int i = 0; i < 600; i++) {
+            GameLoop.tick();
+        }
+        Controller.getPlayer().releaseKey("D");
+
+        assertEquals(start + 600, GameLoop.getTick());
+        assertTrue(Controller.getPlayer().getPositionX() > Controller.getW() / 2);
+        assertFalse(Controller.isGameOver());
+    }
+
+    @Test
+    public void testPlayerDeathEndsGame() {
+        Controller.startHeadlessGame("bot", 1, Difficulty.HARD);
+        Controller.getPlayer().takeDamage(Controller.getPlayer().getCurrentHealth() + 1);
+        for (int i = 0; i < 10 && !Controller.isGameOver(); i++) {
+            GameLoop.tick();
+        }
+        assertTrue(Controller.isGameOver());
+        assertFalse(Controller.isGameWon());
+    }
+
+    @Test
+    public void testKillingBossWinsGame() {
+        Controller.startHeadlessGame("bot", 2, Difficulty.MEDIUM);
+        Controller.goToBossRoom();
+        Room room = Controller.getCurrentRoom();
+        assertTrue(room instanceof BossRoom);
+
+        Boss boss = null;
+        for (Monster monster : GameLoop.getMonsters()) {
+            if (monster instanceof Boss) {
+                boss = (Boss) monster;
+            }
+        }
+        assertNotNull(boss);
+        boss.loseAllHealth();
+        for (int i = 0; i < 600 && !Controller.isGameWon(); i++) {
+            Controller.getPlayer().addHealth(500);
+            GameLoop.tick();
+        }
+        assertTrue(Controller.isGameWon());
+        assertTrue(boss.isDead());
+    }
+}
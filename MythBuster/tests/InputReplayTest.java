@@ -0,0 +1,82 @@
+package tests;
+
+import controller.BotPlayer;
+import controller.Controller;
+import controller.GameLoop;
+import controller.InputRecorder;
+import controller.InputReplay;
+import controller.Session;
+import gamefiles.Difficulty;
+import gamefiles.characters.Player;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class InputReplayTest {
+    private static final int TICKS = 60 * 60;
+
+    private String describe() {
+        Player player = Controller.getPlayer();
+        return Controller.getCurrentRoom().getRow() + "," + Controller.getCurrentRoom().getColumn()
+                + ";" + player.getPositionX() + "," + player.getPositionY()
+                + ";" + player.getCurrentHealth() + ";" + player.getCoins()
+                + ";" + GameLoop.getMonsters().size() + ";" + Controller.isGameOver();
+    }
+
+    @Test
+    public void testReplayPlaysTheSameGame() throws IOException {
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        String[] recorded = new String[1];
+        new Session().run(() -> {
+            Controller.startHeadlessGame("recorded", 1, Difficulty.EASY, 99);
+            InputRecorder.start(log, 99, "recorded", 1, Difficulty.EASY);
+            new BotPlayer(Controller.getPlayer()).start();
+            for (int i = 0; i < TICKS && !Controller.isGameOver(); i++) {
+                GameLoop.tick();
+            }
+            InputRecorder.stop();
+            recorded[0] = describe();
+        });
+
+        InputReplay replay = InputReplay.read(new ByteArrayInputStream(log.toByteArray()));
+        assertEquals(99, replay.getSeed());
+        assertEquals("recorded", replay.getName());
+        assertEquals(Difficulty.EASY, replay.getDifficulty());
+        assertTrue(replay.getLength() > 0);
+
+        String[] replayed = new String[1];
+        new Session().run(() -> {
+            replay.startHeadless();
+            replay.runToEnd();
+            replayed[0] = describe();
+        });
+        assertEquals(recorded[0], replayed[0]);
+    }
+
+    @Test
+    public void testLogIsCompact() throws IOException {
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        new Session().run(() -> {
+            Controller.startHeadlessGame("keys", 0, Difficulty.MEDIUM, 5);
+            InputRecorder.start(log, 5, "keys", 0, Difficulty.MEDIUM);
+            Player player = Controller.getPlayer();
+            for (int i = 0; i < 100; i++) {
+                player.pressKey("D");
+                GameLoop.tick();
+                player.releaseKey("D");
+                GameLoop.tick();
+            }
+            InputRecorder.stop();
+        });
+        byte[] bytes = log.toByteArray();
+        // 200 transitions of one key, two bytes each, plus the header and the name once.
+        assertTrue(bytes.length < 200 * 2 + 40);
+        InputReplay replay = InputReplay.read(new ByteArrayInputStream(bytes));
+        assertEquals(200, replay.getLength());
+    }
+}
@@ -8,7 +8,6 @@ import gamefiles.characters.Monster;
 import gamefiles.characters.Trap;
 import gamefiles.characters.TrapMonster;
 import gamefiles.rooms.Room;
-import javafx.application.Platform;
 import javafx.stage.Stage;
 
 import org.junit.Test;
@@ -35,9 +34,6 @@ public class TrapAndMonsterPersistenceTest extends ApplicationTest {
         clickOn("Begin!");
         Room currentRoom = Controller.getCurrentRoom();
         TrapMonster trapMonster = currentRoom.spawnTrapMonster();
-        Platform.runLater(() -> {
-            Controller.getGameScreen().getBoard().getChildren().add(trapMonster.getGroup());
-        });
         ArrayList<Monster> monsters = GameLoop.getMonsters();
         assertNotEquals(monsters.size(), 0);
         for (int countdown = 5; countdown > 0; countdown--) {
@@ -67,9 +63,6 @@ public class TrapAndMonsterPersistenceTest extends ApplicationTest {
         Room currentRoom = Controller.getCurrentRoom();
         ArrayList<Monster> monsters = GameLoop.getMonsters();
         Mage mage = currentRoom.spawnMage();
-        Platform.runLater(() -> {
-            Controller.getGameScreen().getBoard().getChildren().add(mage.getGroup());
-        });
         int mageCount = 0;
         int fireballCount = 0;
         for (Monster monster: monsters) {
@@ -85,12 +78,7 @@ public class TrapAndMonsterPersistenceTest extends ApplicationTest {
                 e.printStackTrace();
             }
             Controller.getPlayer().addHealth(500);
-            fireballCount = 0;
-            for (Monster monster: monsters) {
-                if (monster instanceof Fireball) {
-                    fireballCount++;
-                }
-            }
+            fireballCount = GameLoop.getProjectiles().count(Fireball.KIND);
             assertTrue(fireballCount <= mageCount);
         }
     }
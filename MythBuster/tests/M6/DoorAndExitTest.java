@@ -3,13 +3,13 @@ package tests.M6;
 import controller.Controller;
 import gamefiles.Door;
 import gamefiles.rooms.BasicRoom;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.stage.Stage;
 import org.junit.Test;
 import org.testfx.framework.junit.ApplicationTest;
 import org.testfx.matcher.base.NodeMatchers;
 import org.testfx.service.query.EmptyNodeQueryException;
+import views.DoorView;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -33,17 +33,20 @@ public class DoorAndExitTest extends ApplicationTest {
         ImageView imageView = new ImageView(unlockedImage);
         imageView.setFitWidth(doorWidth);
         imageView.setFitHeight(doorHeight);
+        DoorView doorView = new DoorView(testDoor);
         testDoor.unlock();
+        doorView.update();
         for (int i = 0; i < doorWidth; i++) {
             for (int j = 0; j < doorHeight; j++) {
-                assertEquals(imageView.getImage().getPixelReader().getArgb(i, j), testDoor.getImageView().getImage().getPixelReader().getArgb(i, j));
+                assertEquals(imageView.getImage().getPixelReader().getArgb(i, j), doorView.getImageView().getImage().getPixelReader().getArgb(i, j));
             }
         }
         testDoor.lock();
+        doorView.update();
         imageView = new ImageView(lockedImage);
         for (int i = 0; i < doorWidth; i++) {
             for (int j = 0; j < doorHeight; j++) {
-                assertEquals(imageView.getImage().getPixelReader().getArgb(i, j), testDoor.getImageView().getImage().getPixelReader().getArgb(i, j));
+                assertEquals(imageView.getImage().getPixelReader().getArgb(i, j), doorView.getImageView().getImage().getPixelReader().getArgb(i, j));
             }
         }
     }
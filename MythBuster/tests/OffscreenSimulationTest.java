@@ -0,0 +1,329 @@
+package tests;
+
+import controller.Controller;
+import controller.GameLoop;
+import controller.OffscreenSimulation;
+import controller.SaveGame;
+import controller.Session;
+import gamefiles.Difficulty;
+import gamefiles.characters.BossMinion;
+import gamefiles.characters.Monster;
+import gamefiles.characters.Soldier;
+import gamefiles.characters.Trap;
+import gamefiles.characters.TrapMonster;
+import gamefiles.rooms.Room;
+import gamefiles.rooms.RoomLayout;
+import gamefiles.rooms.RoomSnapshot;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class OffscreenSimulationTest {
+
+    /**
+     * @return a room through one of the start room's doors, filled, with a trap monster
+     *         in it as if the player just left
+     */
+    private Room neighbourWithTrapMonster() {
+        Room start = Controller.getCurrentRoom();
+        Room room = null;
+        for (int side = 0; side < 4 && room == null; side++) {
+            if (start.getDoors()[side] != null) {
+                room = start.getDoors()[side].getDestination();
+            }
+        }
+        room.populate();
+        room.getMonsters().clear();
+        TrapMonster trapMonster = new TrapMonster();
+        trapMonster.moveAbsolute(600, 400);
+        room.getMonsters().add(trapMonster);
+        room.setSimulatedTick(GameLoop.getTick());
+        return room;
+    }
+
+    private int traps(Room room) {
+        int traps = 0;
+        for (Monster monster : room.getMonsters()) {
+            if (monster instanceof Trap) {
+                traps++;
+            }
+        }
+        return traps;
+    }
+
+    @Test
+    public void testNeighbouringRoomsKeepGoing() {
+        String[] rooms = new String[2];
+        for (int run = 0; run < 2; run++) {
+            int index = run;
+            new Session().run(() -> {
+                OffscreenSimulation.setInterval(OffscreenSimulation.DEFAULT_INTERVAL);
+                Controller.startHeadlessGame("offscreen", 0, Difficulty.EASY, 3);
+                Room room = neighbourWithTrapMonster();
+                Monster trapMonster = room.getMonsters().get(0);
+                for (int i = 0; i < 10 * 60; i++) {
+                    GameLoop.tick();
+                }
+                OffscreenSimulation.settle();
+                assertNotEquals(600, trapMonster.getPositionX(), 1e-9);
+                assertEquals(GameLoop.getTick() - OffscreenSimulation.getInterval(),
+                        room.getSimulatedTick());
+                assertTrue(traps(room) > 0);
+                StringBuilder description = new StringBuilder();
+                for (Monster monster : room.getMonsters()) {
+                    description.append(monster.getName()).append('@').append(monster.getPositionX())
+                            .append(',').append(monster.getPositionY()).append(';');
+                }
+                rooms[index] = description.toString();
+                GameLoop.stopEverything();
+            });
+        }
+        // However fast the background thread was, the same game comes out the same.
+        assertEquals(rooms[0], rooms[1]);
+    }
+
+    @Test
+    public void testTrapsLaidOffscreenClearWhenTheRoomIs() {
+        new Session().run(() -> {
+            OffscreenSimulation.setInterval(OffscreenSimulation.DEFAULT_INTERVAL);
+            Controller.startHeadlessGame("offscreen", 0, Difficulty.EASY, 3);
+            Room start = Controller.getCurrentRoom();
+            Room room = start.getDoors()[RoomLayout.RIGHT].getDestination();
+            room.populate();
+            room.getMonsters().clear();
+            TrapMonster trapMonster = new TrapMonster();
+            trapMonster.moveAbsolute(600, 400);
+            room.getMonsters().add(trapMonster);
+            room.setSimulatedTick(GameLoop.getTick());
+            for (int i = 0; i < 10 * 60; i++) {
+                GameLoop.tick();
+            }
+            OffscreenSimulation.settle();
+            assertTrue(traps(room) > 0);
+
+            Controller.getPlayer().pressKey("D");
+            for (int i = 0; i < 600 && Controller.getCurrentRoom() == start; i++) {
+                GameLoop.tick();
+            }
+            Controller.getPlayer().releaseKey("D");
+            assertSame(room, Controller.getCurrentRoom());
+            assertTrue(traps(room) > 0);
+
+            // With the trap monster gone only traps are left, so they go and the doors open.
+            trapMonster.takeDamage(trapMonster.getCurrentHealth());
+            GameLoop.tick();
+            assertEquals(0, traps(room));
+            assertTrue(GameLoop.getMonsters().isEmpty());
+            for (int side = 0; side < 4; side++) {
+                if (room.getDoors()[side] != null) {
+                    assertFalse(room.getDoors()[side].isLocked());
+                }
+            }
+            GameLoop.stopEverything();
+        });
+    }
+
+    @Test
+    public void testOnlyRoomsThatChangedAreMarked() {
+        new Session().run(() -> {
+            OffscreenSimulation.setInterval(OffscreenSimulation.DEFAULT_INTERVAL);
+            Controller.startHeadlessGame("offscreen", 0, Difficulty.EASY, 3);
+            Room room = neighbourWithTrapMonster();
+            // Soldiers wait where they are for the player to come back.
+            room.getMonsters().set(0, new Soldier());
+            for (int i = 0; i < 60; i++) {
+                GameLoop.tick();
+            }
+            OffscreenSimulation.settle();
+            assertTrue(room.getSimulatedTick() > 0);
+            assertFalse(room.hasChangedOffscreen());
+
+            room.getMonsters().add(new TrapMonster());
+            for (int i = 0; i < 60; i++) {
+                GameLoop.tick();
+            }
+            OffscreenSimulation.settle();
+            assertTrue(room.hasChangedOffscreen());
+            GameLoop.stopEverything();
+        });
+    }
+
+    @Test
+    public void testFarRoomsCatchUpWhenEntered() {
+        new Session().run(() -> {
+            OffscreenSimulation.setInterval(OffscreenSimulation.DEFAULT_INTERVAL);
+            Controller.startHeadlessGame("offscreen", 0, Difficulty.EASY, 3);
+            RoomLayout layout = Controller.getRoomLayout();
+            assertTrue(layout.getDistanceFromStart(layout.getBossRoomRow(),
+                    layout.getBossRoomColumn()) > 1);
+            Room bossRoom = layout.getRoom(layout.getBossRoomRow(), layout.getBossRoomColumn());
+            bossRoom.populate();
+            BossMinion minion = new BossMinion(100, 100);
+            bossRoom.getMonsters().add(minion);
+            bossRoom.setSimulatedTick(GameLoop.getTick());
+            for (int i = 0; i < 4 * 60; i++) {
+                GameLoop.tick();
+            }
+            // Too far to be stepped while the player was away...
+            assertEquals(100, minion.getPositionX(), 1e-9);
+            assertEquals(minion.getMaxHealth(), minion.getCurrentHealth(), 1e-9);
+
+            // ...but caught up as they walk in.
+            Controller.goToBossRoom();
+            assertNotEquals(100, minion.getPositionX(), 1e-9);
+            assertEquals(0.6 * minion.getMaxHealth(), minion.getCurrentHealth(), 1e-9);
+            assertEquals(-1, bossRoom.getSimulatedTick());
+            assertTrue(GameLoop.getMonsters().contains(minion));
+            GameLoop.stopEverything();
+        });
+    }
+
+    @Test
+    public void testMinionsFadeAwayOffscreen() {
+        new Session().run(() -> {
+            OffscreenSimulation.setInterval(OffscreenSimulation.DEFAULT_INTERVAL);
+            Controller.startHeadlessGame("offscreen", 0, Difficulty.EASY, 3);
+            Room room = neighbourWithTrapMonster();
+            BossMinion minion = new BossMinion(100, 100);
+            room.getMonsters().add(minion);
+            for (int i = 0; i < 11 * 60; i++) {
+                GameLoop.tick();
+            }
+            OffscreenSimulation.settle();
+            assertFalse(room.getMonsters().contains(minion));
+            GameLoop.stopEverything();
+        });
+    }
+
+    @Test
+    public void testWholeDungeonKeepsGoing() {
+        new Session().run(() -> {
+            OffscreenSimulation.setInterval(OffscreenSimulation.DEFAULT_INTERVAL);
+            OffscreenSimulation.setWholeDungeon(true);
+            Controller.startHeadlessGame("offscreen", 0, Difficulty.EASY, 3);
+            RoomLayout layout = Controller.getRoomLayout();
+            Room[] far = new Room[6];
+            int count = 0;
+            int cells = layout.getRows() * layout.getColumns();
+            for (int cell = 0; cell < cells && count < far.length; cell++) {
+                int row = cell / layout.getColumns();
+                int column = cell % layout.getColumns();
+                if (layout.getDistanceFromStart(row, column) >= 2) {
+                    Room room = layout.getRoom(row, column);
+                    room.populate();
+                    TrapMonster trapMonster = new TrapMonster();
+                    trapMonster.moveAbsolute(600, 400);
+                    room.getMonsters().add(trapMonster);
+                    room.setSimulatedTick(GameLoop.getTick());
+                    room.watch();
+                    far[count++] = room;
+                }
+            }
+            assertEquals(far.length, count);
+            for (int i = 0; i < 60; i++) {
+                GameLoop.tick();
+            }
+            OffscreenSimulation.settle();
+            for (Room room : far) {
+                RoomSnapshot snapshot = room.getSnapshot();
+                assertEquals(room.getSimulatedTick(), snapshot.getTick());
+                assertEquals(room.getMonsters().size(), snapshot.size());
+                Monster last = room.getMonsters().get(room.getMonsters().size() - 1);
+                assertNotEquals(600, last.getPositionX(), 1e-9);
+                assertEquals(last.getPositionX(), snapshot.getX(snapshot.size() - 1), 1e-9);
+            }
+            GameLoop.stopEverything();
+        });
+    }
+
+    @Test
+    public void testSnapshotsNeverChange() {
+        new Session().run(() -> {
+            Controller.startHeadlessGame("offscreen", 0, Difficulty.EASY, 3);
+            Room room = Controller.getCurrentRoom();
+            room.spawnSoldier();
+            GameLoop.tick();
+            // Nothing is published until someone is watching.
+            assertNull(room.getSnapshot());
+            room.watch();
+            GameLoop.tick();
+            RoomSnapshot before = room.getSnapshot();
+            double x = before.getX(before.size() - 1);
+            for (int i = 0; i < 10; i++) {
+                GameLoop.tick();
+            }
+            RoomSnapshot after = room.getSnapshot();
+            assertNotSame(before, after);
+            assertEquals(before.getTick() + 10, after.getTick());
+            assertEquals(x, before.getX(before.size() - 1), 1e-9);
+            assertNotEquals(x, after.getX(after.size() - 1), 1e-9);
+            room.unwatch();
+            GameLoop.tick();
+            assertNull(room.getSnapshot());
+            GameLoop.stopEverything();
+        });
+    }
+
+    @Test
+    public void testLoadedRoomsKeepTheirAge() throws IOException {
+        long[] saved = new long[3];
+        byte[][] save = new byte[1][];
+        new Session().run(() -> {
+            Controller.startHeadlessGame("offscreen", 0, Difficulty.EASY, 3);
+            Room room = neighbourWithTrapMonster();
+            saved[0] = room.getRow() * 1000 + room.getColumn();
+            saved[1] = room.getSimulatedTick();
+            for (int i = 0; i < 300; i++) {
+                GameLoop.tick();
+            }
+            saved[2] = GameLoop.getTick();
+            try {
+                save[0] = SaveGame.snapshot();
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+            GameLoop.stopEverything();
+        });
+        new Session().run(() -> {
+            Controller.startHeadlessGame("offscreen", 0, Difficulty.EASY, 4);
+            for (int i = 0; i < 50; i++) {
+                GameLoop.tick();
+            }
+            try {
+                SaveGame.load(save[0]);
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+            // The clock carries on from the save, so the room is still 300 ticks behind.
+            assertEquals(saved[2], GameLoop.getTick());
+            Room room = Controller.getRoomLayout().getRoom((int) saved[0] / 1000,
+                    (int) saved[0] % 1000);
+            assertEquals(saved[1], room.getSimulatedTick());
+            GameLoop.stopEverything();
+        });
+    }
+
+    @Test
+    public void testNoIntervalFreezesOtherRooms() {
+        // A session steps nothing off-screen until it is asked to.
+        new Session().run(() -> {
+            Controller.startHeadlessGame("offscreen", 0, Difficulty.EASY, 3);
+            Room room = neighbourWithTrapMonster();
+            for (int i = 0; i < 10 * 60; i++) {
+                GameLoop.tick();
+            }
+            OffscreenSimulation.settle();
+            assertEquals(600, room.getMonsters().get(0).getPositionX(), 1e-9);
+            assertEquals(0, traps(room));
+            GameLoop.stopEverything();
+        });
+    }
+}
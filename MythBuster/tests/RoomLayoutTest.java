@@ -0,0 +1,464 @@
+package tests;
+
+import controller.BotPlayer;
+import controller.Controller;
+import controller.GameLoop;
+import controller.GameRandom;
+import controller.Session;
+import gamefiles.Difficulty;
+import gamefiles.Door;
+import gamefiles.characters.Monster;
+import gamefiles.items.DroppedItem;
+import gamefiles.items.ItemDatabase;
+import gamefiles.rooms.BasicRoom;
+import gamefiles.rooms.BossRoom;
+import gamefiles.rooms.ChallengeRoom;
+import gamefiles.rooms.Room;
+import gamefiles.rooms.RoomLayout;
+import gamefiles.rooms.StartingRoom;
+import gamefiles.rooms.TreasureRoom;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RoomLayoutTest {
+
+    private String describe(Room room) {
+        StringBuilder description = new StringBuilder(room.toString());
+        for (Monster monster : room.getMonsters()) {
+            description.append(';').append(monster.getName())
+                    .append('@').append(monster.getPositionX())
+                    .append(',').append(monster.getPositionY())
+                    .append('#').append(monster.getCurrentHealth());
+        }
+        return description.toString();
+    }
+
+    private String visit(long seed, int... spots) {
+        StringBuilder description = new StringBuilder();
+        new Session().run(() -> {
+            Controller.startHeadlessGame("lazy", 0, Difficulty.HARD, seed);
+            RoomLayout layout = Controller.getRoomLayout();
+            for (int i = 0; i < spots.length; i += 2) {
+                layout.getRoom(spots[i], spots[i + 1]).populate();
+            }
+            Room last = layout.getRoom(spots[spots.length - 2], spots[spots.length - 1]);
+            description.append(describe(last));
+        });
+        return description.toString();
+    }
+
+    /**
+     * The maze as the generator made it before it was packed into arrays: an ArrayList
+     * of rooms to grow from, with spent rooms removed in place so the list stays oldest
+     * first. It draws the same numbers in the same order as RoomLayout.
+     * @return how many dead ends there are, how far the farthest room is from the start
+     *         and how far all the rooms are from it in total
+     */
+    private int[] baselineCorridors(int rows, int columns) {
+        SplittableRandom random = GameRandom.layout();
+        int start = ((int) Math.floor(random.nextDouble() * (rows - 2)) + 1) * columns
+                + (int) Math.floor(random.nextDouble() * (columns - 2)) + 1;
+        int[] steps = {-1, -columns, 1, columns};
+        int[] doors = new int[rows * columns];
+        boolean[] visited = new boolean[rows * columns];
+        ArrayList<Integer> currentList = new ArrayList<>();
+        visited[start] = true;
+        for (int side = 0; side < 4; side++) {
+            doors[start] |= 1 << side;
+            doors[start + steps[side]] |= 1 << ((side + 2) & 3);
+            visited[start + steps[side]] = true;
+            currentList.add(start + steps[side]);
+        }
+        int[] directions = {0, 1, 2, 3};
+        while (!currentList.isEmpty()) {
+            for (int i = 3; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int swap = directions[i];
+                directions[i] = directions[j];
+                directions[j] = swap;
+            }
+            int index = random.nextDouble() < .30 ? currentList.size() - 1
+                    : (int) Math.floor(random.nextDouble() * currentList.size());
+            int room = currentList.get(index);
+            boolean grew = false;
+            for (int side : directions) {
+                int row = room / columns + (side == 1 ? -1 : side == 3 ? 1 : 0);
+                int column = room % columns + (side == 0 ? -1 : side == 2 ? 1 : 0);
+                if (row >= 0 && row < rows && column >= 0 && column < columns
+                        && !visited[room + steps[side]]) {
+                    doors[room] |= 1 << side;
+                    doors[room + steps[side]] |= 1 << ((side + 2) & 3);
+                    visited[room + steps[side]] = true;
+                    currentList.add(room + steps[side]);
+                    grew = true;
+                    break;
+                }
+            }
+            if (!grew) {
+                currentList.remove(index);
+            }
+        }
+
+        int[] distances = new int[rows * columns];
+        Arrays.fill(distances, -1);
+        distances[start] = 0;
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        queue.add(start);
+        int[] corridors = new int[3];
+        while (!queue.isEmpty()) {
+            int room = queue.poll();
+            if (Integer.bitCount(doors[room]) == 1) {
+                corridors[0]++;
+            }
+            corridors[1] = Math.max(corridors[1], distances[room]);
+            corridors[2] += distances[room];
+            for (int side = 0; side < 4; side++) {
+                if ((doors[room] & (1 << side)) != 0 && distances[room + steps[side]] < 0) {
+                    distances[room + steps[side]] = distances[room] + 1;
+                    queue.add(room + steps[side]);
+                }
+            }
+        }
+        return corridors;
+    }
+
+    @Test
+    public void testCorridorsMatchTheBaselineGenerator() {
+        for (long seed = 1; seed <= 5; seed++) {
+            long game = seed;
+            new Session().run(() -> {
+                GameRandom.reseed(game);
+                int[] expected = baselineCorridors(40, 50);
+                GameRandom.reseed(game);
+                RoomLayout layout = new RoomLayout(40, 50);
+                int[] children = new int[40 * 50];
+                int[] corridors = new int[3];
+                for (int row = 0; row < 40; row++) {
+                    for (int column = 0; column < 50; column++) {
+                        int side = layout.getSideTowardStart(row, column);
+                        if (side >= 0) {
+                            int parent = row * 50 + column + (side == RoomLayout.LEFT ? -1
+                                    : side == RoomLayout.RIGHT ? 1 : side == RoomLayout.TOP ? -50 : 50);
+                            children[parent]++;
+                        }
+                        corridors[1] = Math.max(corridors[1], layout.getDistanceFromStart(row, column));
+                        corridors[2] += layout.getDistanceFromStart(row, column);
+                    }
+                }
+                for (int room = 0; room < children.length; room++) {
+                    boolean start = room == layout.getStartRoomRow() * 50 + layout.getStartRoomColumn();
+                    if (!start && children[room] == 0) {
+                        corridors[0]++;
+                    }
+                }
+                assertEquals(Arrays.toString(expected), Arrays.toString(corridors));
+            });
+        }
+    }
+
+    @Test
+    public void testUnvisitedRoomsAreEmpty() {
+        new Session().run(() -> {
+            Controller.startHeadlessGame("lazy", 0, Difficulty.HARD, 11);
+            RoomLayout layout = Controller.getRoomLayout();
+            int basicRooms = 0;
+            for (int row = 0; row < 6; row++) {
+                for (int column = 0; column < 6; column++) {
+                    Room room = layout.getRoom(row, column);
+                    if (room == Controller.getCurrentRoom()) {
+                        assertTrue(room.isPopulated());
+                        continue;
+                    }
+                    assertFalse(room.isPopulated());
+                    assertTrue(room.getMonsters().isEmpty());
+                    if (room instanceof BasicRoom) {
+                        basicRooms++;
+                        room.populate();
+                        assertFalse(room.getMonsters().isEmpty());
+                    }
+                }
+            }
+            assertTrue(basicRooms > 0);
+        });
+    }
+
+    @Test
+    public void testLargeDungeonIsOneMaze() {
+        new Session().run(() -> {
+            GameRandom.reseed(3);
+            RoomLayout layout = new RoomLayout(120, 200);
+            boolean[][] visited = new boolean[120][200];
+            ArrayDeque<Room> queue = new ArrayDeque<>();
+            queue.add(layout.getRoom(layout.getStartRoomRow(), layout.getStartRoomColumn()));
+            visited[layout.getStartRoomRow()][layout.getStartRoomColumn()] = true;
+            int reached = 0;
+            int doors = 0;
+            int[] kinds = new int[5];
+            while (!queue.isEmpty()) {
+                Room room = queue.poll();
+                reached++;
+                kinds[room instanceof StartingRoom ? 0 : room instanceof BossRoom ? 1
+                        : room instanceof TreasureRoom ? 2 : room instanceof ChallengeRoom ? 3 : 4]++;
+                for (Door door : room.getDoors()) {
+                    if (door == null) {
+                        continue;
+                    }
+                    doors++;
+                    Room next = door.getDestination();
+                    assertEquals(door.isBossDoor(), next instanceof BossRoom);
+                    if (!visited[next.getRow()][next.getColumn()]) {
+                        visited[next.getRow()][next.getColumn()] = true;
+                        queue.add(next);
+                    }
+                }
+            }
+            // Every room reached, each through exactly one path: a spanning tree.
+            assertEquals(120 * 200, reached);
+            assertEquals(2 * (120 * 200 - 1), doors);
+            assertEquals(1, kinds[0]);
+            assertEquals(1, kinds[1]);
+            assertEquals(120 * 200 * 10 / 36, kinds[2]);
+            assertEquals(120 * 200 * 3 / 36, kinds[3]);
+        });
+    }
+
+    @Test
+    public void testDistancesMatchWalkingTheDoors() {
+        new Session().run(() -> {
+            GameRandom.reseed(8);
+            RoomLayout layout = new RoomLayout(30, 40);
+            int[][] distances = new int[30][40];
+            boolean[][] visited = new boolean[30][40];
+            ArrayDeque<Room> queue = new ArrayDeque<>();
+            queue.add(layout.getRoom(layout.getStartRoomRow(), layout.getStartRoomColumn()));
+            visited[layout.getStartRoomRow()][layout.getStartRoomColumn()] = true;
+            while (!queue.isEmpty()) {
+                Room room = queue.poll();
+                assertEquals(distances[room.getRow()][room.getColumn()],
+                        layout.getDistanceFromStart(room.getRow(), room.getColumn()));
+                for (Door door : room.getDoors()) {
+                    Room next = door != null ? door.getDestination() : null;
+                    if (next != null && !visited[next.getRow()][next.getColumn()]) {
+                        visited[next.getRow()][next.getColumn()] = true;
+                        distances[next.getRow()][next.getColumn()] = distances[room.getRow()][room.getColumn()] + 1;
+                        queue.add(next);
+                    }
+                }
+            }
+
+            // Following the next hops gets there in exactly that many doors.
+            Room room = layout.getRoom(layout.getStartRoomRow(), layout.getStartRoomColumn());
+            int doors = 0;
+            for (int side = layout.getSideTowardBoss(room.getRow(), room.getColumn()); side >= 0;
+                    side = layout.getSideTowardBoss(room.getRow(), room.getColumn())) {
+                room = room.getDoors()[side].getDestination();
+                doors++;
+            }
+            assertTrue(room instanceof BossRoom);
+            assertEquals(layout.getDistanceToBoss(layout.getStartRoomRow(), layout.getStartRoomColumn()), doors);
+            assertEquals(distances[room.getRow()][room.getColumn()], doors);
+            assertEquals(-1, layout.getSideTowardStart(layout.getStartRoomRow(), layout.getStartRoomColumn()));
+            assertEquals(RoomLayout.LEFT, layout.getSideTowardStart(layout.getStartRoomRow(),
+                    layout.getStartRoomColumn() + 1));
+
+            // A layout read back from a save knows its distances too.
+            try {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                layout.write(new DataOutputStream(bytes));
+                RoomLayout read = RoomLayout.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+                for (int row = 0; row < 30; row++) {
+                    for (int column = 0; column < 40; column++) {
+                        assertEquals(distances[row][column], read.getDistanceFromStart(row, column));
+                        assertEquals(layout.getDistanceToBoss(row, column), read.getDistanceToBoss(row, column));
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @Test
+    public void testPlayingOnlyMakesRoomsThatAreEntered() {
+        Controller.setDungeonSize(200, 200);
+        try {
+            new Session().run(() -> {
+                Controller.startHeadlessGame("lazy", 0, Difficulty.EASY, 3);
+                RoomLayout layout = Controller.getRoomLayout();
+                new BotPlayer(Controller.getPlayer()).start();
+                Room start = Controller.getCurrentRoom();
+                for (int i = 0; i < 600 && Controller.getCurrentRoom() == start; i++) {
+                    GameLoop.tick();
+                }
+                // Finding the way to the boss and opening the door back made no other rooms.
+                assertNotSame(start, Controller.getCurrentRoom());
+                assertEquals(2, layout.getResidentCount());
+                GameLoop.stopEverything();
+            });
+        } finally {
+            Controller.setDungeonSize(RoomLayout.DEFAULT_ROWS, RoomLayout.DEFAULT_COLUMNS);
+        }
+    }
+
+    @Test
+    public void testMillionRoomsGenerateQuickly() {
+        new Session().run(() -> {
+            GameRandom.reseed(4);
+            long start = System.nanoTime();
+            RoomLayout layout = new RoomLayout(RoomLayout.MAX_SIZE, RoomLayout.MAX_SIZE);
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            assertTrue("took " + millis + "ms", millis < 5000);
+            Room room = layout.getRoom(layout.getStartRoomRow(), layout.getStartRoomColumn());
+            assertTrue(room instanceof StartingRoom);
+            assertSame(room, layout.getRoom(room.getRow(), room.getColumn()));
+        });
+    }
+
+    @Test
+    public void testFillingRoomsLeavesGameNumbersAlone() {
+        long[] next = new long[2];
+        for (int visits = 0; visits < 2; visits++) {
+            int visit = visits;
+            new Session().run(() -> {
+                Controller.startHeadlessGame("lazy", 0, Difficulty.HARD, 11);
+                if (visit == 1) {
+                    for (int row = 0; row < 6; row++) {
+                        Controller.getRoomLayout().getRoom(row, 0).populate();
+                    }
+                }
+                next[visit] = GameRandom.loot().nextLong() ^ GameRandom.ai().nextLong()
+                        ^ GameRandom.spawn().nextLong() ^ GameRandom.layout().nextLong();
+            });
+        }
+        assertEquals(next[0], next[1]);
+    }
+
+    @Test
+    public void testFarRoomsAreWrittenOutAndComeBack() {
+        new Session().run(() -> {
+            Controller.startHeadlessGame("far", 0, Difficulty.HARD, 21);
+            RoomLayout layout = new RoomLayout(40, 40);
+            layout.setResidentDistance(2);
+            try {
+                Map<Integer, String> left = new HashMap<>();
+                SplittableRandom walk = new SplittableRandom(5);
+                Room room = layout.getRoom(layout.getStartRoomRow(), layout.getStartRoomColumn());
+                int fromDisk = 0;
+                for (int step = 0; step < 400; step++) {
+                    int side;
+                    do {
+                        side = walk.nextInt(4);
+                    } while (room.getDoors()[side] == null);
+                    int row = room.getRow() + (side == 1 ? -1 : side == 3 ? 1 : 0);
+                    int column = room.getColumn() + (side == 0 ? -1 : side == 2 ? 1 : 0);
+                    boolean wasResident = layout.isResident(row, column);
+                    room = room.getDoors()[side].getDestination();
+                    room.populate();
+
+                    int key = row * 40 + column;
+                    if (left.containsKey(key)) {
+                        assertEquals(left.get(key), describe(room));
+                        if (!wasResident) {
+                            fromDisk++;
+                        }
+                    }
+                    // Leave a mark that regenerating the room from its seed wouldn't.
+                    if (!room.getMonsters().isEmpty()) {
+                        room.getMonsters().get(0).takeDamage(1);
+                    }
+                    left.put(key, describe(room));
+
+                    layout.streamAround(room);
+                    // At most the rooms within two doors: 2 * 2 * 3 + 1.
+                    assertTrue(layout.getResidentCount() <= 13);
+                }
+                assertTrue(fromDisk > 0);
+            } finally {
+                layout.close();
+            }
+        });
+    }
+
+    @Test
+    public void testRewritingRoomsReusesTheirSpace() {
+        new Session().run(() -> {
+            Controller.startHeadlessGame("far", 0, Difficulty.HARD, 21);
+            RoomLayout layout = new RoomLayout(6, 6);
+            layout.setResidentDistance(1);
+            try {
+                Map<Integer, String> left = new HashMap<>();
+                Set<Integer> writtenLarge = new HashSet<>();
+                SplittableRandom walk = new SplittableRandom(8);
+                Room room = layout.getRoom(layout.getStartRoomRow(), layout.getStartRoomColumn());
+                long settled = -1;
+                for (int step = 0; step < 6000; step++) {
+                    int side;
+                    do {
+                        side = walk.nextInt(4);
+                    } while (room.getDoors()[side] == null);
+                    room = room.getDoors()[side].getDestination();
+                    room.populate();
+
+                    int key = room.getRow() * 6 + room.getColumn();
+                    if (left.containsKey(key)) {
+                        assertEquals(left.get(key), describe(room) + ";drops " + room.getDrops().size());
+                    }
+                    // Grow and shrink the room's record by turns, so it outgrows its slot.
+                    if (room.getDrops().isEmpty()) {
+                        for (int i = 0; i < 40; i++) {
+                            room.addDrop(new DroppedItem(ItemDatabase.getItem(i % 3)));
+                        }
+                    } else {
+                        room.getDrops().clear();
+                    }
+                    left.put(key, describe(room) + ";drops " + room.getDrops().size());
+
+                    layout.streamAround(room);
+                    for (Map.Entry<Integer, String> entry : left.entrySet()) {
+                        int cell = entry.getKey();
+                        if (!layout.isResident(cell / 6, cell % 6) && entry.getValue().endsWith(";drops 40")) {
+                            writtenLarge.add(cell);
+                        }
+                    }
+                    // Once every room has been written out at its largest, each has a
+                    // slot big enough to keep, and the file has no need to grow.
+                    if (settled < 0 && writtenLarge.size() == 36) {
+                        settled = layout.getWrittenOutBytes();
+                    }
+                }
+                assertTrue(settled > 0);
+                assertEquals(settled, layout.getWrittenOutBytes());
+            } finally {
+                layout.close();
+            }
+        });
+    }
+
+    @Test
+    public void testContentsDoNotDependOnVisitOrder() {
+        for (int row = 0; row < 6; row++) {
+            assertEquals(visit(11, 0, 0, row, 5), visit(11, row, 5));
+            assertEquals(visit(11, 5, 0, 0, 5, row, 2), visit(11, row, 2));
+        }
+    }
+}
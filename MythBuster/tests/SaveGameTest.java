@@ -0,0 +1,242 @@
+package tests;
+
+import controller.Controller;
+import controller.GameLoop;
+import controller.GameRandom;
+import controller.SaveGame;
+import controller.Session;
+import gamefiles.Difficulty;
+import gamefiles.Inventory;
+import gamefiles.characters.Monster;
+import gamefiles.characters.Player;
+import gamefiles.characters.Soldier;
+import gamefiles.items.Item;
+import gamefiles.items.ItemDatabase;
+import gamefiles.rooms.Room;
+import gamefiles.rooms.RoomLayout;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SaveGameTest {
+
+    private String describe(Room room) {
+        StringBuilder description = new StringBuilder(room.toString());
+        for (Monster monster : room.getMonsters()) {
+            description.append(';').append(monster.getName())
+                    .append('@').append(monster.getPositionX())
+                    .append(',').append(monster.getPositionY())
+                    .append('#').append(monster.getCurrentHealth());
+        }
+        description.append(";drops ").append(room.getDrops().size());
+        return description.toString();
+    }
+
+    private String describe(Player player) {
+        StringBuilder description = new StringBuilder(player.getName())
+                .append(';').append(player.getCoins())
+                .append(';').append(player.getWeapon().getName())
+                .append(';').append(player.getCurrentHealth())
+                .append('/').append(player.getMaximumHealth())
+                .append(';').append(player.getPositionX())
+                .append(',').append(player.getPositionY());
+        for (Item item : Inventory.getInventory()) {
+            description.append(";").append(ItemDatabase.codeOf(item)).append('x').append(item.getQuantity());
+        }
+        for (Item item : Inventory.getHotbar()) {
+            description.append(";").append(item == null ? "-" : item.getName());
+        }
+        return description.toString();
+    }
+
+    /**
+     * Play a little of a 40x40 game, with only the rooms next to the player kept in
+     * memory, and save it in the boss room.
+     */
+    private byte[] playAndSave(String[] expected) throws IOException {
+        Controller.startHeadlessGame("saver", 2, Difficulty.MEDIUM, 21);
+        RoomLayout layout = Controller.getRoomLayout();
+        Room start = Controller.getCurrentRoom();
+        boolean streaming = layout.getRows() == 40;
+        // Mark the rooms around the start so regenerating them from their seeds wouldn't match.
+        for (int side = 0; side < 4; side++) {
+            Room room = start.getDoors()[side].getDestination();
+            room.populate();
+            if (!room.getMonsters().isEmpty()) {
+                room.getMonsters().get(0).takeDamage(3);
+            }
+        }
+        Player player = Controller.getPlayer();
+        player.setCoins(77);
+        player.takeDamage(40);
+        Inventory.addToInventory(ItemDatabase.itemFor(0, 3));
+        Inventory.addToInventory(ItemDatabase.itemFor(2, 1));
+        Inventory.addToHotbar(0, 1);
+
+        StringBuilder around = new StringBuilder();
+        for (int side = 0; side < 4; side++) {
+            around.append(describe(start.getDoors()[side].getDestination())).append('\n');
+        }
+        expected[2] = around.toString();
+
+        Controller.goToBossRoom();
+        player.moveAbsolute(321, 456);
+        expected[0] = describe(player);
+        expected[1] = describe(Controller.getCurrentRoom());
+        if (streaming) {
+            assertFalse(layout.isResident(start.getRow(), start.getColumn() - 1));
+        }
+        return SaveGame.snapshot();
+    }
+
+    private void checkLoaded(String[] expected, long seed) {
+        assertEquals(seed, GameRandom.getSeed());
+        assertEquals(expected[0], describe(Controller.getPlayer()));
+        assertEquals(expected[1], describe(Controller.getCurrentRoom()));
+        assertSame(Controller.getCurrentRoom(), Controller.getRoomLayout().getRoom(
+                Controller.getRoomLayout().getBossRoomRow(), Controller.getRoomLayout().getBossRoomColumn()));
+        Room start = Controller.getRoomLayout().getRoom(Controller.getRoomLayout().getStartRoomRow(),
+                Controller.getRoomLayout().getStartRoomColumn());
+        StringBuilder around = new StringBuilder();
+        for (int side = 0; side < 4; side++) {
+            around.append(describe(start.getDoors()[side].getDestination())).append('\n');
+        }
+        assertEquals(expected[2], around.toString());
+    }
+
+    @Test
+    public void testSavedGameCarriesOnInAnotherSession() throws IOException {
+        String[] expected = new String[3];
+        byte[][] save = new byte[1][];
+        Controller.setDungeonSize(40, 40);
+        Controller.setResidentDistance(1);
+        try {
+            new Session().run(() -> {
+                try {
+                    save[0] = playAndSave(expected);
+                } catch (IOException e) {
+                    fail(e.getMessage());
+                }
+            });
+            new Session().run(() -> {
+                try {
+                    Controller.startHeadlessGame("other", 0, Difficulty.EASY, 5);
+                    SaveGame.load(save[0]);
+                    checkLoaded(expected, 21);
+                    assertEquals(1, Controller.getDifficulty());
+                    // The loaded game saves the same.
+                    SaveGame.load(SaveGame.snapshot());
+                    checkLoaded(expected, 21);
+                    for (int i = 0; i < 60; i++) {
+                        GameLoop.tick();
+                    }
+                } catch (IOException e) {
+                    fail(e.getMessage());
+                } finally {
+                    GameLoop.stopEverything();
+                }
+            });
+        } finally {
+            Controller.setDungeonSize(RoomLayout.DEFAULT_ROWS, RoomLayout.DEFAULT_COLUMNS);
+            Controller.setResidentDistance(0);
+        }
+    }
+
+    @Test
+    public void testSaveIsWrittenInTheBackgroundAndLoadsQuickly() throws IOException {
+        File file = File.createTempFile("mythbuster", ".sav");
+        file.deleteOnExit();
+        Controller.setDungeonSize(300, 300);
+        try {
+            new Session().run(() -> {
+                try {
+                    String[] expected = new String[3];
+                    byte[] snapshot = playAndSave(expected);
+                    assertTrue(SaveGame.save(file.getPath()).join());
+                    assertArrayEquals(snapshot, Files.readAllBytes(file.toPath()));
+
+                    // Once to load the classes, then for time.
+                    SaveGame.load(file.getPath());
+                    long start = System.nanoTime();
+                    SaveGame.load(file.getPath());
+                    long millis = (System.nanoTime() - start) / 1_000_000;
+                    assertTrue("Loading took " + millis + " ms", millis < 100);
+                    checkLoaded(expected, 21);
+                } catch (IOException e) {
+                    fail(e.getMessage());
+                } finally {
+                    GameLoop.stopEverything();
+                }
+            });
+        } finally {
+            Controller.setDungeonSize(RoomLayout.DEFAULT_ROWS, RoomLayout.DEFAULT_COLUMNS);
+        }
+    }
+
+    @Test
+    public void testBadSaveLeavesGameAlone() {
+        new Session().run(() -> {
+            Controller.startHeadlessGame("careful", 0, Difficulty.EASY, 9);
+            Room room = Controller.getCurrentRoom();
+            byte[] save;
+            try {
+                save = SaveGame.snapshot();
+            } catch (IOException e) {
+                fail(e.getMessage());
+                return;
+            }
+            try {
+                SaveGame.load(Arrays.copyOf(save, save.length / 2));
+                fail("Loaded half a save");
+            } catch (IOException e) {
+                assertSame(room, Controller.getCurrentRoom());
+            }
+            save[0] = 'X';
+            try {
+                SaveGame.load(save);
+                fail("Loaded something that isn't a save");
+            } catch (IOException e) {
+                assertSame(room, Controller.getCurrentRoom());
+            }
+            GameLoop.stopEverything();
+        });
+    }
+
+    @Test
+    public void testMonsterWithBadPoseIsNotLoaded() {
+        new Session().run(() -> {
+            Controller.startHeadlessGame("careful", 0, Difficulty.EASY, 9);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try {
+                new Soldier().write(new DataOutputStream(bytes));
+            } catch (IOException e) {
+                fail(e.getMessage());
+                return;
+            }
+            byte[] saved = bytes.toByteArray();
+            // kind, then x, y, health and speed, then facing, then the pose
+            saved[1 + 4 * Double.BYTES + 1] = 100;
+            try {
+                Monster.read(new DataInputStream(new ByteArrayInputStream(saved)));
+                fail("Loaded a monster with no such pose");
+            } catch (IOException e) {
+                assertTrue(e.getMessage().contains("100"));
+            }
+            GameLoop.stopEverything();
+        });
+    }
+}
@@ -0,0 +1,209 @@
+package tests;
+
+import controller.Controller;
+import controller.GameLoop;
+import controller.OffscreenSimulation;
+import controller.SaveJournal;
+import controller.Session;
+import gamefiles.Difficulty;
+import gamefiles.characters.Monster;
+import gamefiles.characters.Player;
+import gamefiles.characters.Trap;
+import gamefiles.characters.TrapMonster;
+import gamefiles.rooms.Room;
+import gamefiles.rooms.RoomLayout;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SaveJournalTest {
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("mythbuster", ".journal");
+        file.deleteOnExit();
+        Controller.setJournalPath(file.getPath());
+    }
+
+    @After
+    public void tearDown() {
+        Controller.setJournalPath(null);
+        GameLoop.stopEverything();
+    }
+
+    private String describe(Room room) {
+        StringBuilder description = new StringBuilder(room.toString());
+        for (Monster monster : room.getMonsters()) {
+            description.append(';').append(monster.getName())
+                    .append('@').append(monster.getPositionX())
+                    .append(',').append(monster.getPositionY())
+                    .append('#').append(monster.getCurrentHealth());
+        }
+        return description.toString();
+    }
+
+    private String describe() {
+        Player player = Controller.getPlayer();
+        RoomLayout layout = Controller.getRoomLayout();
+        Room start = layout.getRoom(layout.getStartRoomRow(), layout.getStartRoomColumn());
+        StringBuilder description = new StringBuilder()
+                .append(player.getCoins()).append(';').append(player.getCurrentHealth())
+                .append(';').append(player.getPositionX()).append(',').append(player.getPositionY())
+                .append('\n').append(describe(Controller.getCurrentRoom()));
+        for (int side = 0; side < 4; side++) {
+            description.append('\n').append(describe(start.getDoors()[side].getDestination()));
+        }
+        return description.toString();
+    }
+
+    /**
+     * Walk right from the start room until the player is through the door.
+     */
+    private void walkRight() {
+        Room start = Controller.getCurrentRoom();
+        Controller.getPlayer().pressKey("D");
+        for (int i = 0; i < 600 && Controller.getCurrentRoom() == start; i++) {
+            GameLoop.tick();
+        }
+        Controller.getPlayer().releaseKey("D");
+        assertNotSame(start, Controller.getCurrentRoom());
+    }
+
+    private String recover() {
+        String[] recovered = new String[1];
+        new Session().run(() -> {
+            Controller.setJournalPath(null);
+            Controller.startHeadlessGame("other", 0, Difficulty.EASY, 5);
+            try {
+                SaveJournal.recover(file.getPath());
+            } catch (IOException e) {
+                fail(e.getMessage());
+            }
+            recovered[0] = describe();
+            GameLoop.stopEverything();
+        });
+        return recovered[0];
+    }
+
+    @Test
+    public void testRecoveryReplaysRoomTransitions() {
+        String[] expected = new String[2];
+        new Session().run(() -> {
+            // A fixed seed, so the room to the right is safe to walk into.
+            Controller.startHeadlessGame("journal", 0, Difficulty.EASY, 3);
+            Controller.getPlayer().setCoins(42);
+            walkRight();
+            expected[0] = describe();
+            // Only the room the player is in changes, and it is journaled as they leave.
+            Room right = Controller.getCurrentRoom();
+            right.spawnSoldier();
+            right.getMonsters().get(right.getMonsters().size() - 1).takeDamage(3);
+            Controller.getPlayer().setCoins(43);
+            Controller.goToBossRoom();
+            expected[1] = describe();
+            assertTrue(expected[1].contains("#97.0"));
+            try {
+                Controller.getJournal().sync();
+            } catch (InterruptedException e) {
+                fail(e.getMessage());
+            }
+        });
+        assertEquals(expected[1], recover());
+
+        // A crash while writing the last entry loses only that entry.
+        try (RandomAccessFile journal = new RandomAccessFile(file, "rw")) {
+            journal.setLength(journal.length() - 3);
+        } catch (IOException e) {
+            fail(e.getMessage());
+        }
+        assertEquals(expected[0], recover());
+    }
+
+    @Test
+    public void testRecoveryKeepsRoomsChangedOffscreen() {
+        String[] expected = new String[1];
+        new Session().run(() -> {
+            OffscreenSimulation.setInterval(OffscreenSimulation.DEFAULT_INTERVAL);
+            Controller.startHeadlessGame("journal", 0, Difficulty.EASY, 3);
+            Room start = Controller.getCurrentRoom();
+            Room neighbour = start.getDoors()[0] != null
+                    ? start.getDoors()[0].getDestination() : start.getDoors()[1].getDestination();
+            neighbour.populate();
+            neighbour.getMonsters().clear();
+            TrapMonster trapMonster = new TrapMonster();
+            trapMonster.moveAbsolute(600, 400);
+            neighbour.getMonsters().add(trapMonster);
+            neighbour.setSimulatedTick(GameLoop.getTick());
+            for (int i = 0; i < 10 * 60; i++) {
+                GameLoop.tick();
+            }
+            // The player never went in, but the trap monster has been walking and laying traps.
+            Controller.goToBossRoom();
+            assertTrue(trapMonster.getPositionX() != 600);
+            boolean laidTraps = false;
+            for (Monster monster : neighbour.getMonsters()) {
+                laidTraps |= monster instanceof Trap;
+            }
+            assertTrue(laidTraps);
+            expected[0] = describe();
+            try {
+                Controller.getJournal().sync();
+            } catch (InterruptedException e) {
+                fail(e.getMessage());
+            }
+        });
+        assertEquals(expected[0], recover());
+    }
+
+    @Test
+    public void testJournalIsCompacted() {
+        long[] sizes = new long[2];
+        String[] expected = new String[1];
+        new Session().run(() -> {
+            Controller.startHeadlessGame("journal", 0, Difficulty.EASY, 3);
+            try {
+                Controller.getJournal().sync();
+                sizes[0] = file.length();
+                for (int i = 0; i < 3 * SaveJournal.COMPACT_EVERY + 1; i++) {
+                    Controller.getPlayer().setCoins(i);
+                    Controller.goToBossRoom();
+                }
+                expected[0] = describe();
+                Controller.getJournal().sync();
+            } catch (InterruptedException e) {
+                fail(e.getMessage());
+            }
+            sizes[1] = file.length();
+        });
+        assertTrue(sizes[1] + " bytes after compacting, " + sizes[0] + " to start with",
+                sizes[1] < 2 * sizes[0] + 4096);
+        assertEquals(expected[0], recover());
+    }
+
+    @Test
+    public void testFinishedGameLeavesNoJournal() {
+        new Session().run(() -> {
+            Controller.startHeadlessGame("journal", 0, Difficulty.EASY, 3);
+            SaveJournal journal = Controller.getJournal();
+            Controller.getPlayer().takeDamage(Controller.getPlayer().getCurrentHealth());
+            assertTrue(Controller.isGameOver());
+            try {
+                journal.sync();
+            } catch (InterruptedException e) {
+                fail(e.getMessage());
+            }
+            assertFalse(file.exists());
+        });
+    }
+}
@@ -0,0 +1,134 @@
+package tests;
+
+import controller.GameLoop;
+import controller.Session;
+import gamefiles.SpatialGrid;
+import gamefiles.SpatialList;
+import gamefiles.characters.Monster;
+import gamefiles.characters.Soldier;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.ListIterator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SpatialGridTest {
+
+    private Soldier soldierAt(double x, double y) {
+        Soldier soldier = new Soldier();
+        soldier.moveAbsolute(x, y);
+        return soldier;
+    }
+
+    @Test
+    public void testRectQueryFindsOnlyNearby() {
+        new Session().run(() -> {
+            SpatialList<Monster> monsters = new SpatialList<>(1200, 800);
+            Soldier near = soldierAt(110, 110);
+            Soldier far = soldierAt(900, 600);
+            monsters.add(near);
+            monsters.add(far);
+
+            ArrayList<Monster> found = new ArrayList<>();
+            monsters.getGrid().queryRect(100, 100, 50, 50, found);
+            assertEquals(1, found.size());
+            assertTrue(found.contains(near));
+
+            found.clear();
+            monsters.getGrid().queryRect(0, 0, 1200, 800, found);
+            assertEquals(2, found.size());
+        });
+    }
+
+    @Test
+    public void testEveryWayOfChangingTheListKeepsTheGrid() {
+        new Session().run(() -> {
+            SpatialList<Monster> monsters = new SpatialList<>(1200, 800);
+            Soldier[] soldiers = new Soldier[8];
+            for (int i = 0; i < soldiers.length; i++) {
+                soldiers[i] = soldierAt(100 * i, 100);
+            }
+            monsters.addAll(Arrays.asList(soldiers).subList(0, 2));
+            monsters.addAll(1, Arrays.asList(soldiers).subList(2, 6));
+            assertInStep(monsters);
+
+            Iterator<Monster> iterator = monsters.iterator();
+            iterator.next();
+            iterator.remove();
+            assertInStep(monsters);
+
+            ListIterator<Monster> cursor = monsters.listIterator(1);
+            cursor.next();
+            cursor.set(soldiers[6]);
+            cursor.add(soldiers[7]);
+            assertInStep(monsters);
+
+            monsters.subList(1, 3).clear();
+            monsters.subList(0, 2).add(1, soldiers[0]);
+            assertInStep(monsters);
+
+            monsters.removeAll(Collections.singleton(soldiers[0]));
+            assertInStep(monsters);
+            monsters.retainAll(Arrays.asList(soldiers[4], soldiers[5]));
+            assertInStep(monsters);
+            monsters.replaceAll(monster -> soldiers[1]);
+            assertInStep(monsters);
+            assertEquals(1, monsters.getGrid().size());
+        });
+    }
+
+    /**
+     * The grid holds exactly what the list does.
+     */
+    private void assertInStep(SpatialList<Monster> monsters) {
+        ArrayList<Monster> found = new ArrayList<>();
+        monsters.getGrid().queryRect(-100, -100, 1400, 1000, found);
+        assertEquals(new HashSet<>(monsters), new HashSet<>(found));
+        assertEquals(found.size(), monsters.getGrid().size());
+    }
+
+    @Test
+    public void testRadiusQuery() {
+        new Session().run(() -> {
+            SpatialGrid<Monster> grid = new SpatialGrid<>(1200, 800);
+            Soldier soldier = soldierAt(500, 500);
+            grid.insert(soldier);
+
+            ArrayList<Monster> found = new ArrayList<>();
+            grid.queryRadius(490, 490, 20, found);
+            assertEquals(1, found.size());
+            found.clear();
+            grid.queryRadius(300, 300, 100, found);
+            assertEquals(0, found.size());
+        });
+    }
+
+    @Test
+    public void testMovingUpdatesTheGrid() {
+        new Session().run(() -> {
+            Soldier soldier = soldierAt(50, 50);
+            GameLoop.getMonsters().add(soldier);
+            SpatialGrid<Monster> grid = GameLoop.getMonsterGrid();
+
+            ArrayList<Monster> found = new ArrayList<>();
+            soldier.moveAbsolute(1000, 700);
+            grid.queryRect(0, 0, 200, 200, found);
+            assertEquals(0, found.size());
+            grid.queryRect(1000, 700, 10, 10, found);
+            assertEquals(1, found.size());
+
+            GameLoop.getMonsters().remove(soldier);
+            assertFalse(grid.contains(soldier));
+            GameLoop.getMonsters().add(soldier);
+            GameLoop.getMonsters().clear();
+            assertEquals(0, grid.size());
+        });
+    }
+}
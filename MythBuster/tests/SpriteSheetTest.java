@@ -0,0 +1,34 @@
+package tests;
+
+import org.junit.Test;
+import views.SpriteSheet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SpriteSheetTest {
+
+    @Test
+    public void testFramesWalkTheGrid() {
+        // 8 frames, 4 to a row, over 750ms: 45 ticks, so a new frame every 5.625 ticks.
+        SpriteSheet sheet = new SpriteSheet(null, 750, 8, 4, 0, 0, 100, 100, true);
+        assertEquals(0, sheet.frameAt(0));
+        assertEquals(1, sheet.frameAt(6));
+        assertEquals(7, sheet.frameAt(44));
+        assertEquals(0, sheet.frameAt(45));
+        assertEquals(300, sheet.getFrameX(3), 0);
+        assertEquals(0, sheet.getFrameY(3), 0);
+        assertEquals(100, sheet.getFrameX(5), 0);
+        assertEquals(100, sheet.getFrameY(5), 0);
+    }
+
+    @Test
+    public void testOneShotHoldsLastFrame() {
+        SpriteSheet sheet = new SpriteSheet(null, 500, 6, 6, 0, 840, 64, 63, false);
+        assertFalse(sheet.isFinished(29));
+        assertTrue(sheet.isFinished(30));
+        assertEquals(5, sheet.frameAt(1000));
+        assertEquals(840, sheet.getFrameY(5), 0);
+    }
+}
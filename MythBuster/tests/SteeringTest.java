@@ -0,0 +1,104 @@
+package tests;
+
+import controller.Controller;
+import controller.GameLoop;
+import controller.Session;
+import gamefiles.Difficulty;
+import gamefiles.characters.Monster;
+import gamefiles.characters.Soldier;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SteeringTest {
+
+    private ArrayList<Soldier> spawn(int count, Random random, double width, double height) {
+        ArrayList<Soldier> soldiers = new ArrayList<>();
+        GameLoop.getMonsters().clear();
+        for (int i = 0; i < count; i++) {
+            Soldier soldier = new Soldier();
+            soldier.moveAbsolute(random.nextDouble() * width, random.nextDouble() * height);
+            GameLoop.getMonsters().add(soldier);
+            soldiers.add(soldier);
+        }
+        return soldiers;
+    }
+
+    private int stackedPairs(ArrayList<Soldier> soldiers) {
+        int stacked = 0;
+        for (int i = 0; i < soldiers.size(); i++) {
+            for (int j = i + 1; j < soldiers.size(); j++) {
+                double dx = soldiers.get(i).getPositionX() - soldiers.get(j).getPositionX();
+                double dy = soldiers.get(i).getPositionY() - soldiers.get(j).getPositionY();
+                if (dx * dx + dy * dy < 20 * 20) {
+                    stacked++;
+                }
+            }
+        }
+        return stacked;
+    }
+
+    @Test
+    public void testLoneSoldierChasesStraight() {
+        new Session().run(() -> {
+            Controller.startHeadlessGame("steer", 0, Difficulty.EASY, 3);
+            Controller.getPlayer().moveAbsolute(1000, 430);
+            Soldier soldier = spawn(1, new Random(1), 0, 0).get(0);
+            soldier.moveAbsolute(200, 400);
+            GameLoop.tick();
+            assertEquals(0, soldier.getPositionY() - 400, 1e-9);
+            assertTrue(soldier.getPositionX() > 200);
+            GameLoop.stopEverything();
+        });
+    }
+
+    @Test
+    public void testStackedSoldiersSpreadOut() {
+        new Session().run(() -> {
+            Controller.startHeadlessGame("steer", 0, Difficulty.EASY, 3);
+            // Far off, so they chase the whole time without reaching the player.
+            Controller.getPlayer().moveAbsolute(5000, 400);
+            ArrayList<Soldier> soldiers = spawn(30, new Random(2), 1, 1);
+            for (Soldier soldier : soldiers) {
+                soldier.moveAbsolute(100, 350);
+            }
+            assertEquals(30 * 29 / 2, stackedPairs(soldiers));
+            for (int i = 0; i < 60; i++) {
+                GameLoop.tick();
+            }
+            int stacked = stackedPairs(soldiers);
+            assertTrue(stacked + " pairs still stacked", stacked < 10);
+            for (Soldier soldier : soldiers) {
+                assertTrue(soldier.getPositionX() > 100);
+            }
+            GameLoop.stopEverything();
+        });
+    }
+
+    @Test
+    public void testHundredsOfSoldiersKeepUpWithTheFrameRate() {
+        new Session().run(() -> {
+            Controller.startHeadlessGame("steer", 0, Difficulty.EASY, 3);
+            Controller.getPlayer().moveAbsolute(-5000, -5000);
+            spawn(400, new Random(3), Controller.getW(), Controller.getH());
+            // Warm up, then time.
+            for (int i = 0; i < 120; i++) {
+                GameLoop.tick();
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < 120; i++) {
+                GameLoop.tick();
+            }
+            long perTick = (System.nanoTime() - start) / 120;
+            assertTrue("A tick took " + perTick / 1000 + " us", perTick < GameLoop.TICK_NANOS);
+            for (Monster monster : GameLoop.getMonsters()) {
+                assertTrue(monster.getCurrentHealth() > 0);
+            }
+            GameLoop.stopEverything();
+        });
+    }
+}
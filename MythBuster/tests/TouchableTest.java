@@ -0,0 +1,74 @@
+package tests;
+
+import controller.Session;
+import gamefiles.Door;
+import gamefiles.characters.Player;
+import gamefiles.characters.Soldier;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TouchableTest {
+
+    @Test
+    public void testEdgesDoNotTouch() {
+        new Session().run(() -> {
+            Player player = new Player(0, null);
+            player.moveAbsolute(0, 0);
+            Soldier soldier = new Soldier();
+            soldier.moveAbsolute(player.getMaxX(), 0);
+            assertFalse(player.intersects(soldier));
+            soldier.moveRelative(-1, 0);
+            assertTrue(player.intersects(soldier));
+            assertTrue(soldier.intersects(player));
+            assertFalse(player.intersects(null));
+        });
+    }
+
+    @Test
+    public void testSameAnswersAsRectangle2D() {
+        new Session().run(() -> {
+            SplittableRandom random = new SplittableRandom(11);
+            Soldier soldier = new Soldier();
+            for (int i = 0; i < 1000; i++) {
+                soldier.moveAbsolute(random.nextDouble() * 1200, random.nextDouble() * 800);
+                Door door = new Door(random.nextDouble() * 1200, random.nextDouble() * 800, null);
+                assertEquals(soldier.getBoundary().intersects(door.getBoundary()),
+                        soldier.intersects(door));
+            }
+        });
+    }
+
+    @Test
+    public void testIntersectsDoesNotAllocate() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        new Session().run(() -> {
+            Player player = new Player(0, null);
+            player.moveAbsolute(0, 400);
+            Soldier soldier = new Soldier();
+            int hits = 0;
+            long before = 0;
+            // The first round warms up the session state and the JIT.
+            for (int round = 0; round < 2; round++) {
+                before = threads.getThreadAllocatedBytes(thread);
+                for (int i = 0; i < 100_000; i++) {
+                    soldier.moveAbsolute(i % 1200, 400);
+                    if (player.intersects(soldier)) {
+                        hits++;
+                    }
+                }
+            }
+            long allocated = threads.getThreadAllocatedBytes(thread) - before;
+            assertTrue(hits > 0);
+            // Two Rectangle2Ds per check would be several megabytes.
+            assertTrue("allocated " + allocated + " bytes", allocated < 100_000);
+        });
+    }
+}
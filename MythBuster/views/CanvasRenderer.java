@@ -0,0 +1,323 @@
+package views;
+
+import controller.Frame;
+import controller.ImageCache;
+import gamefiles.Door;
+import gamefiles.Inventory;
+import gamefiles.TreasureChest;
+import gamefiles.characters.Fireball;
+import gamefiles.characters.Monster;
+import gamefiles.characters.Player;
+import gamefiles.items.Item;
+import gamefiles.rooms.Room;
+import gamefiles.weapons.Weapon;
+import javafx.geometry.Rectangle2D;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.scene.text.TextAlignment;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Draws a whole room onto one Canvas every frame, instead of keeping a node per thing
+ * in it. Layers are drawn back to front: the background, doors and chests, drops,
+ * monsters and fireballs, arrows, the player, then the hearts and hotbar.
+ *
+ * It shows the same sprite sheet frames as the node views: monster and player sheets
+ * come from MonsterView and PlayerView, and are placed the way their Groups would be.
+ * Animations run on game ticks rather than on their own timelines.
+ *
+ * Everything but the room's background is drawn from a Frame rather than from the
+ * model, so the game can be ticking on another thread while a frame is drawn.
+ */
+public class CanvasRenderer {
+    private static final Rectangle2D ARROW_FRAME = new Rectangle2D(310, 110, 140, 30);
+    private static final double HEARTS_PADDING = 10;
+    private static final double HOTBAR_PADDING = 10;
+    private static final double HOTBAR_X = 700;
+
+    private int width;
+    private int height;
+    private Room room;
+    private Frame frame;
+
+    private Canvas canvas;
+    private GraphicsContext graphics;
+    private Font costFont = Font.font("Papyrus", FontWeight.BOLD, 30);
+
+    private Map<Monster, ShownPose> monsterPoses = new IdentityHashMap<>();
+    private Map<Monster, ShownPose> lastPoses = new IdentityHashMap<>();
+    private Weapon attackWeapon;
+    private int shownAttackCount;
+    private long attackStart;
+
+    /**
+     * What a monster is showing, the way a MonsterView's ImageView would be.
+     */
+    private static class ShownPose {
+        private int poseCount = -1;
+        private Image image;
+        private SpriteSheet sheet;
+        private long since;
+    }
+
+    /**
+     * @param width  the width of the room screen
+     * @param height the height of the room screen
+     * @param player the player in the room
+     */
+    public CanvasRenderer(int width, int height, Player player) {
+        this.width = width;
+        this.height = height;
+        this.shownAttackCount = player.getAttackCount();
+        canvas = new Canvas(width, height);
+        graphics = canvas.getGraphicsContext2D();
+    }
+
+    public Canvas getCanvas() {
+        return canvas;
+    }
+
+    public void roomEntered(Room currentRoom) {
+        room = currentRoom;
+        monsterPoses.clear();
+    }
+
+    /**
+     * Draw the current room and everything in it, as a frame shows it. A frame of
+     * another room, from before the view heard the player moved, is skipped.
+     * @param shown the frame to draw
+     */
+    public void draw(Frame shown) {
+        if (room == null || shown.getRoom() != room) {
+            return;
+        }
+        frame = shown;
+        graphics.drawImage(ImageCache.get(room.getBackgroundImage()), 0, 0, width, height);
+        drawRoom();
+        drawDrops();
+        drawMonsters();
+        drawFireballs();
+        drawArrows();
+        drawPlayer();
+        drawHearts();
+        drawHotbar();
+    }
+
+    private void drawRoom() {
+        for (int side = 0; side < 4; side++) {
+            if (frame.getDoorSprite(side) == null) {
+                continue;
+            }
+            // Doors turn about the middle of their unturned box, as their ImageViews do.
+            Image image = ImageCache.get(frame.getDoorSprite(side));
+            drawSprite(image, 0, 0, image.getWidth(), image.getHeight(),
+                    frame.getDoorX(side) + Door.getWidth() / 2, frame.getDoorY(side) + Door.getHeight() / 2,
+                    Door.getWidth(), Door.getHeight(), frame.getDoorRotation(side), false);
+        }
+        if (frame.getChestCount() > 0) {
+            graphics.setFont(costFont);
+            graphics.setFill(Color.WHITE);
+            graphics.setTextAlign(TextAlignment.CENTER);
+            graphics.setTextBaseline(VPos.CENTER);
+            for (int i = 0; i < frame.getChestCount(); i++) {
+                TreasureChest chest = frame.getChest(i);
+                graphics.drawImage(ImageCache.get(chest.getSpritePath()),
+                        chest.getPositionX(), chest.getPositionY(), 100, 100);
+                graphics.fillText(Integer.toString(chest.getCost()),
+                        chest.getPositionX() + 50, chest.getPositionY() + 50 - 80);
+            }
+        }
+    }
+
+    private void drawDrops() {
+        for (int i = 0; i < frame.getDropCount(); i++) {
+            graphics.drawImage(frame.getDropImage(i), frame.getDropX(i), frame.getDropY(i),
+                    frame.getDropWidth(i), frame.getDropHeight(i));
+        }
+    }
+
+    private void drawMonsters() {
+        // Poses carry over for monsters still here; the ones that have gone are dropped.
+        Map<Monster, ShownPose> previous = monsterPoses;
+        monsterPoses = lastPoses;
+        lastPoses = previous;
+        for (int i = 0; i < frame.getMonsterCount(); i++) {
+            Monster monster = frame.getMonster(i);
+            ShownPose pose = lastPoses.get(monster);
+            if (pose != null) {
+                monsterPoses.put(monster, pose);
+            }
+            drawMonster(i);
+        }
+        lastPoses.clear();
+    }
+
+    private void drawMonster(int i) {
+        Monster monster = frame.getMonster(i);
+        MonsterView.Look look = MonsterView.lookOf(monster);
+        ShownPose pose = monsterPoses.get(monster);
+        if (pose == null) {
+            pose = new ShownPose();
+            pose.image = look.image;
+            monsterPoses.put(monster, pose);
+        }
+        if (pose.poseCount != frame.getPoseCount(i)) {
+            pose.poseCount = frame.getPoseCount(i);
+            pose.sheet = look.poses.get(frame.getPose(i));
+            pose.since = frame.getTick();
+            if (pose.sheet != null && pose.sheet.getImage() != null) {
+                pose.image = pose.sheet.getImage();
+            }
+        }
+
+        double sourceX;
+        double sourceY;
+        double sourceWidth;
+        double sourceHeight;
+        if (pose.sheet != null) {
+            int index = pose.sheet.frameAt(frame.getTick() - pose.since);
+            sourceX = pose.sheet.getFrameX(index);
+            sourceY = pose.sheet.getFrameY(index);
+            sourceWidth = pose.sheet.getWidth();
+            sourceHeight = pose.sheet.getHeight();
+        } else if (look.viewport != null) {
+            sourceX = look.viewport.getMinX();
+            sourceY = look.viewport.getMinY();
+            sourceWidth = look.viewport.getWidth();
+            sourceHeight = look.viewport.getHeight();
+        } else {
+            sourceX = 0;
+            sourceY = 0;
+            sourceWidth = pose.image.getWidth();
+            sourceHeight = pose.image.getHeight();
+        }
+        double monsterWidth = frame.getMonsterWidth(i);
+        double scale = Math.min(monsterWidth / sourceWidth,
+                frame.getMonsterHeight(i) / sourceHeight);
+        double drawWidth = sourceWidth * scale;
+        double drawHeight = sourceHeight * scale;
+
+        // MonsterView relocates a Group of the sprite and health bar by its top left corner.
+        double radians = Math.toRadians(look.rotate);
+        double halfWidth = (Math.abs(drawWidth * Math.cos(radians)) + Math.abs(drawHeight * Math.sin(radians))) / 2;
+        double halfHeight = (Math.abs(drawWidth * Math.sin(radians)) + Math.abs(drawHeight * Math.cos(radians))) / 2;
+        double left = frame.getMonsterX(i) - Math.min(0, drawWidth / 2 - halfWidth);
+        double top = frame.getMonsterY(i) - Math.min(look.barY, drawHeight / 2 - halfHeight);
+
+        drawSprite(pose.image, sourceX, sourceY, sourceWidth, sourceHeight,
+                left + drawWidth / 2, top + drawHeight / 2, drawWidth, drawHeight,
+                look.rotate, frame.getFacing(i) < 0);
+
+        graphics.setFill(Color.RED);
+        graphics.fillRect(left, top + look.barY, monsterWidth, 10);
+        graphics.setFill(Color.GREEN);
+        graphics.fillRect(left, top + look.barY, monsterWidth * frame.getMonsterHealth(i), 10);
+    }
+
+    private void drawFireballs() {
+        Image image = ImageCache.get(Fireball.SPRITE_PATH);
+        for (int i = 0; i < frame.getFireballCount(); i++) {
+            double scale = Math.min(frame.getFireballWidth(i) / image.getWidth(),
+                    frame.getFireballHeight(i) / image.getHeight());
+            graphics.drawImage(image, frame.getFireballX(i), frame.getFireballY(i),
+                    image.getWidth() * scale, image.getHeight() * scale);
+        }
+    }
+
+    private void drawArrows() {
+        Image image = ImageCache.get("sprites/arrow.png");
+        for (int i = 0; i < frame.getArrowCount(); i++) {
+            double scale = Math.min(frame.getArrowWidth(i) / ARROW_FRAME.getWidth(),
+                    frame.getArrowHeight(i) / ARROW_FRAME.getHeight());
+            double drawWidth = ARROW_FRAME.getWidth() * scale;
+            double drawHeight = ARROW_FRAME.getHeight() * scale;
+            drawSprite(image, ARROW_FRAME.getMinX(), ARROW_FRAME.getMinY(),
+                    ARROW_FRAME.getWidth(), ARROW_FRAME.getHeight(),
+                    frame.getArrowX(i) + drawWidth / 2, frame.getArrowY(i) + drawHeight / 2,
+                    drawWidth, drawHeight, 0, frame.getArrowDirection(i) == 1);
+        }
+    }
+
+    private void drawPlayer() {
+        if (frame.getAttackCount() != shownAttackCount) {
+            shownAttackCount = frame.getAttackCount();
+            attackWeapon = frame.getWeapon();
+            attackStart = frame.getTick();
+        }
+        Image image = PlayerView.spriteFor(frame.getWeapon());
+        if (image == null || frame.isInvisible()) {
+            return;
+        }
+        Rectangle2D sprite = PlayerView.STANDING;
+        SpriteSheet attack = PlayerView.attackSheetFor(attackWeapon);
+        long ticks = frame.getTick() - attackStart;
+        if (attack != null && !attack.isFinished(ticks)) {
+            int index = attack.frameAt(ticks);
+            sprite = new Rectangle2D(attack.getFrameX(index), attack.getFrameY(index),
+                    attack.getWidth(), attack.getHeight());
+        }
+        double scale = Math.min(frame.getPlayerWidth() / sprite.getWidth(),
+                frame.getPlayerHeight() / sprite.getHeight());
+        double drawWidth = sprite.getWidth() * scale;
+        double drawHeight = sprite.getHeight() * scale;
+        drawSprite(image, sprite.getMinX(), sprite.getMinY(), sprite.getWidth(), sprite.getHeight(),
+                frame.getPlayerX() + drawWidth / 2, frame.getPlayerY() + drawHeight / 2,
+                drawWidth, drawHeight, 0, frame.getPlayerDirection() != 0);
+    }
+
+    private void drawHearts() {
+        Image full = ImageCache.get("sprites/hpAssets/fullHeart.png");
+        Image empty = ImageCache.get("sprites/hpAssets/emptyHeart.png");
+        double x = HEARTS_PADDING;
+        double y = height - 50 - HEARTS_PADDING;
+        for (int i = 0; i < frame.getHeartCount(); i++) {
+            graphics.drawImage(frame.isHeartFull(i) ? full : empty, x, y,
+                    frame.getHeartWidth(i), frame.getHeartHeight(i));
+            x += frame.getHeartWidth(i) + HEARTS_PADDING;
+        }
+    }
+
+    private void drawHotbar() {
+        Image slot = ImageCache.get("sprites/inventorySlot.png");
+        double x = HOTBAR_X;
+        for (int j = 0; j < Inventory.getmaxHotbarSize(); j++) {
+            graphics.drawImage(slot, x, HOTBAR_PADDING);
+            Item item = frame.getHotbarItem(j);
+            if (item != null) {
+                graphics.drawImage(item.getImage(), x, HOTBAR_PADDING,
+                        item.getWidth(), item.getHeight());
+            }
+            x += slot.getWidth() + HOTBAR_PADDING;
+        }
+    }
+
+    /**
+     * Draw part of an image centered on a point, like an ImageView rotated and scaled
+     * about its center.
+     */
+    private void drawSprite(Image image, double sourceX, double sourceY, double sourceWidth,
+                            double sourceHeight, double centerX, double centerY,
+                            double drawWidth, double drawHeight, double rotate, boolean flip) {
+        if (rotate == 0 && !flip) {
+            graphics.drawImage(image, sourceX, sourceY, sourceWidth, sourceHeight,
+                    centerX - drawWidth / 2, centerY - drawHeight / 2, drawWidth, drawHeight);
+            return;
+        }
+        graphics.save();
+        graphics.translate(centerX, centerY);
+        graphics.rotate(rotate);
+        if (flip) {
+            graphics.scale(-1, 1);
+        }
+        graphics.drawImage(image, sourceX, sourceY, sourceWidth, sourceHeight,
+                -drawWidth / 2, -drawHeight / 2, drawWidth, drawHeight);
+        graphics.restore();
+    }
+}
@@ -0,0 +1,46 @@
+package views;
+
+import controller.ImageCache;
+import gamefiles.Door;
+import javafx.scene.Group;
+import javafx.scene.image.ImageView;
+
+/**
+ * Draws one door, locked or not, turned to face into the room.
+ */
+public class DoorView {
+    private Door door;
+    private ImageView imageView;
+    private Group doorGroup;
+    private String shownSprite;
+
+    public DoorView(Door door) {
+        this.door = door;
+        imageView = new ImageView();
+        imageView.setFitWidth(Door.getWidth());
+        imageView.setFitHeight(Door.getHeight());
+        imageView.setRotate(door.getRotation().getValue());
+        doorGroup = new Group(imageView);
+        doorGroup.relocate(door.getPositionX(), door.getPositionY());
+        update();
+    }
+
+    /**
+     * Show the door's sprite again if it was locked or unlocked since the last call.
+     */
+    public void update() {
+        String sprite = door.getSpritePath();
+        if (!sprite.equals(shownSprite)) {
+            shownSprite = sprite;
+            imageView.setImage(ImageCache.get(sprite));
+        }
+    }
+
+    public ImageView getImageView() {
+        return imageView;
+    }
+
+    public Group getGroup() {
+        return doorGroup;
+    }
+}
@@ -0,0 +1,75 @@
+package views;
+
+import controller.Frame;
+import gamefiles.items.Consumable;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+import javafx.scene.text.Text;
+
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * The row of active consumables on the game screen: each one's icon over the seconds it
+ * has left. A consumable's widget is made when it starts and removed when it ends; in
+ * between only its countdown text changes, and only when the second ticks over.
+ */
+public class EffectBar {
+    private HBox box = new HBox(20);
+    private Map<Consumable, Effect> effects = new IdentityHashMap<>();
+    private long updates;
+
+    private static class Effect {
+        private VBox display;
+        private Text timerText;
+        private long shownSeconds = -1;
+        private long seenAt;
+    }
+
+    /**
+     * Match the bar to the player's active consumables.
+     * @param frame the frame being drawn
+     */
+    public void update(Frame frame) {
+        updates++;
+        int seen = 0;
+        for (int i = 0; i < frame.getEffectCount(); i++) {
+            Consumable item = frame.getEffect(i);
+            Effect effect = effects.get(item);
+            if (effect == null) {
+                effect = new Effect();
+                ImageView iconView = new ImageView(item.getImage());
+                iconView.setFitWidth(20);
+                iconView.setFitHeight(20);
+                effect.timerText = new Text(10, 10, "");
+                effect.display = new VBox(iconView, effect.timerText);
+                effects.put(item, effect);
+                box.getChildren().add(effect.display);
+            }
+            if (effect.seenAt != updates) {
+                effect.seenAt = updates;
+                seen++;
+            }
+            long seconds = frame.getEffectTicks(i) / 60;
+            if (seconds != effect.shownSeconds) {
+                effect.shownSeconds = seconds;
+                effect.timerText.setText(Long.toString(seconds));
+            }
+        }
+        if (seen < effects.size()) {
+            for (Iterator<Effect> iterator = effects.values().iterator(); iterator.hasNext();) {
+                Effect effect = iterator.next();
+                if (effect.seenAt != updates) {
+                    box.getChildren().remove(effect.display);
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    public HBox getNode() {
+        return box;
+    }
+}
@@ -1,28 +1,83 @@
 package views;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
+import controller.Controller;
+import controller.EventBus;
+import controller.Frame;
 import controller.GameLoop;
+import controller.GameView;
+import controller.ImageCache;
+import gamefiles.Door;
 import gamefiles.Droppable;
+import gamefiles.EntityStore;
+import gamefiles.Heart;
+import gamefiles.Inventory;
+import gamefiles.TreasureChest;
+import gamefiles.characters.Fireball;
+import gamefiles.characters.Monster;
 import gamefiles.characters.Player;
+import gamefiles.items.Item;
 import gamefiles.rooms.*;
+import gamefiles.weapons.Bow;
 import javafx.event.ActionEvent;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import javafx.geometry.Rectangle2D;
 import javafx.scene.Group;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.ButtonType;
+import javafx.scene.control.Label;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.input.KeyCode;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
+import javafx.scene.media.Media;
+import javafx.scene.media.MediaPlayer;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Text;
-import javafx.application.Platform;
+import javafx.util.Duration;
+import sounds.BackgroundMusic;
 
 import javafx.stage.Stage;
 
-public class GameScreen {
+/**
+ * The JavaFX view of a running game. Builds nodes for whatever is in the current room
+ * and moves them to match the model in render(); the model never sees any of this.
+ *
+ * With RenderMode.CANVAS the room, everything in it, the hearts and the hotbar are
+ * drawn onto one Canvas by a CanvasRenderer instead. The text displays, the challenge
+ * button and messages are nodes either way.
+ *
+ * The canvas, coins, effects and message timers go by the newest Frame from
+ * GameLoop.getFrames() rather than the model, and keys and the challenge button are
+ * posted to GameLoop, so with GameLoop.setThreaded() the game can run on its own
+ * thread. The nodes read the model, so they only go with the game on this thread.
+ */
+public class GameScreen implements GameView {
+    /**
+     * How the room is drawn.
+     */
+    public enum RenderMode {
+        /** A node for each thing in the room. */
+        NODES,
+        /** Everything drawn onto one Canvas each frame. */
+        CANVAS
+    }
+
+    private static RenderMode renderMode = RenderMode.NODES;
+
     private int width;
     private int height;
     private Player player;
@@ -30,12 +85,10 @@ public class GameScreen {
     private Text nameDisplay;
     private Text weaponDisplay;
     private Text coinDisplay;
-    private Text roomInfo;
 
-    private RoomLayout roomLayout;
-    private Group roomGroup;
     private Group board;
     private VBox displays;
+    private EffectBar effectBar;
     private HBox effectDisplays;
     private HBox alerts;
 
@@ -43,25 +96,71 @@ public class GameScreen {
 
     private VBox root;
 
+    private final double heartsPadding = 10;
+    private final double hotbarPadding = 10;
+    private Image fullHeart = ImageCache.get("sprites/hpAssets/fullHeart.png");
+    private Image emptyHeart = ImageCache.get("sprites/hpAssets/emptyHeart.png");
+    private Image arrowImage = ImageCache.get("sprites/arrow.png");
+    private Image fireballImage = ImageCache.get(Fireball.SPRITE_PATH);
+
+    private Room room;
+    private PlayerView playerView;
+    private CanvasRenderer canvasRenderer;
+    private HBox heartsBox;
+    private boolean heartsChanged = true;
+    private HBox hotbarBox;
+    private Item[] shownHotbar = new Item[Inventory.getmaxHotbarSize()];
+    private Group roomGroup;
+    private Group monsterGroup;
+    private Group dropGroup;
+    private Group arrowGroup;
+    private Group messageGroup;
+
+    private ArrayList<DoorView> doorViews = new ArrayList<>();
+    private Map<TreasureChest, Group> chestViews = new HashMap<>();
+    private Map<Monster, MonsterView> monsterViews = new IdentityHashMap<>();
+    private Map<Droppable, ImageView> dropViews = new IdentityHashMap<>();
+    private ArrayList<ImageView> arrowViews = new ArrayList<>();
+    private ArrayList<ImageView> fireballViews = new ArrayList<>();
+    private Map<Double, Message> messages = new HashMap<>();
+    private Map<String, MediaPlayer> sounds = new HashMap<>();
+
+    private static class Message {
+        private Label label;
+        private int ticks;
+        private long expiresAt = -1;
+    }
 
     private GameScreen() { }
 
     /**
-     * Create Room One.
+     * Create the game screen.
      * @param width width of room screen
      * @param height height of room screen
      * @param player player in room
-     * @param roomLayout layout of rooms
      */
-    public GameScreen(int width, int height, Player player, RoomLayout roomLayout) {
+    public GameScreen(int width, int height, Player player) {
         this.player = player;
         this.width = width;
         this.height = height;
         this.board = new Group();
-        this.roomLayout = roomLayout;
         initScene();
 
-
+        EventBus.subscribe(EventBus.HEALTH_CHANGED, changed -> heartsChanged = true);
+        EventBus.subscribe(EventBus.BOSS_ENGAGED, room -> {
+            if (!BackgroundMusic.isBossPlaying()) {
+                BackgroundMusic.getBossTrack().play();
+                BackgroundMusic.getBackgroundTrack().pause();
+                BackgroundMusic.setBossPlaying(true);
+            }
+        });
+        EventBus.subscribe(EventBus.ROOM_ENTERED, room -> {
+            if (!(room instanceof BossRoom) && BackgroundMusic.isBossPlaying()) {
+                BackgroundMusic.getBossTrack().pause();
+                BackgroundMusic.getBackgroundTrack().play();
+                BackgroundMusic.setBossPlaying(false);
+            }
+        });
     }
 
     private void initScene() {
@@ -86,12 +185,34 @@ public class GameScreen {
         displays.setLayoutY(10);
 
         //For consumable displays.
-        effectDisplays = new HBox(20);
+        effectBar = new EffectBar();
+        effectDisplays = effectBar.getNode();
         effectDisplays.setLayoutX(10);
         effectDisplays.setLayoutY(170);
 
+        playerView = new PlayerView(player);
+        if (renderMode == RenderMode.CANVAS) {
+            canvasRenderer = new CanvasRenderer(width, height, player);
+        }
+
+        heartsBox = new HBox(heartsPadding);
+        heartsBox.setLayoutX(heartsPadding);
+        heartsBox.setLayoutY(height - 50 - heartsPadding);
+
+        hotbarBox = new HBox(hotbarPadding);
+        for (int i = 0; i < Inventory.getmaxHotbarSize(); i++) {
+            Group hotbarSlot = new Group();
+            hotbarSlot.getChildren().add(new ImageView(ImageCache.get("sprites/inventorySlot.png")));
+            hotbarBox.getChildren().add(hotbarSlot);
+        }
+        hotbarBox.setLayoutX(700);
+        hotbarBox.setLayoutY(hotbarPadding);
 
-        player.moveAbsolute(100, 100);
+        roomGroup = new Group();
+        monsterGroup = new Group();
+        dropGroup = new Group();
+        arrowGroup = new Group();
+        messageGroup = new Group();
 
         board.getChildren().addAll(displays, alerts, effectDisplays);
 
@@ -100,12 +221,28 @@ public class GameScreen {
         root.setStyle("-fx-background-image: url('sprites/gameplayBG.png'); -fx-background-repeat: stretch; -fx-background-size: 1200 800");
 
         scene = new Scene(root, width, height);
+
+        scene.setOnKeyPressed(e -> {
+            // Saving and loading happen between ticks, not as part of the player's input.
+            String key = e.getCode().toString();
+            if (e.getCode() == KeyCode.F5) {
+                GameLoop.between(Controller::quickSave);
+            } else if (e.getCode() == KeyCode.F9) {
+                GameLoop.between(Controller::quickLoad);
+            } else {
+                GameLoop.post(() -> player.pressKey(key));
+            }
+        });
+        scene.setOnKeyReleased(e -> {
+            String key = e.getCode().toString();
+            GameLoop.post(() -> player.releaseKey(key));
+        });
     }
 
 
     /**
-     * Get scene for Room One Screen.
-     * @return room one scene
+     * Get scene for the game screen.
+     * @return game scene
      */
     public Scene getScene() {
         return scene;
@@ -115,15 +252,19 @@ public class GameScreen {
         return board;
     }
 
-    public void updateBoard(Room currentRoom) {
-        if (TreasureRoom.getAnimationTimer() != null) {
-            TreasureRoom.getAnimationTimer().stop();
-        }
-
+    @Override
+    public void roomEntered(Room currentRoom) {
+        room = currentRoom;
+        changeBackground("-fx-background-image: url('" + currentRoom.getBackgroundImage()
+                + "'); -fx-background-repeat: stretch; -fx-background-size: 1200 800");
 
         board.getChildren().clear();
-        board.getChildren().addAll(currentRoom.getRoomGroup(),
-                player.getGroup(), player.getHeartsBox(), player.gethotbarBox());
+        if (canvasRenderer != null) {
+            canvasRenderer.roomEntered(currentRoom);
+            board.getChildren().add(canvasRenderer.getCanvas());
+        } else {
+            buildRoomNodes(currentRoom);
+        }
 
         alerts = new HBox();
 
@@ -139,10 +280,10 @@ public class GameScreen {
                     Optional<ButtonType> response = a.showAndWait();
                     if (response.isPresent() && response.get() == ButtonType.OK) {
                         alerts.getChildren().remove(startChallenge);
-                        c.startChallenge();
+                        GameLoop.post(c::startChallenge);
                     }
                 });
-                
+
                 alerts.getChildren().addAll(startChallenge);
                 startChallenge.setAlignment(Pos.CENTER);
                 startChallenge.setStyle("-fx-font-weight: bold; -fx-font-size: 36; -fx-background-image: url('sprites/buttonSkin.png'); -fx-font-family: Papyrus");
@@ -152,25 +293,306 @@ public class GameScreen {
 
                 alerts.setPadding(buttonInset);
             }
-            
+
+        }
+        board.getChildren().addAll(displays, alerts, effectDisplays, messageGroup);
+
+        render();
+    }
+
+    private void buildRoomNodes(Room currentRoom) {
+        roomGroup.getChildren().clear();
+        doorViews.clear();
+        for (Door door : currentRoom.getDoors()) {
+            if (door != null) {
+                DoorView doorView = new DoorView(door);
+                doorViews.add(doorView);
+                roomGroup.getChildren().add(doorView.getGroup());
+            }
         }
-        if (currentRoom instanceof BossRoom) {
-            System.out.println("this is a boss room");
-            currentRoom.lockDoors();
+
+        chestViews.clear();
+        if (currentRoom instanceof TreasureRoom) {
+            for (TreasureChest chest : ((TreasureRoom) currentRoom).getTreasureChests()) {
+                Group chestGroup = chestGroup(chest);
+                chestViews.put(chest, chestGroup);
+                roomGroup.getChildren().add(chestGroup);
+            }
         }
-        board.getChildren().addAll(displays, alerts, effectDisplays);
 
-        GameLoop.getMonsters().clear();
-        GameLoop.getMonsters().addAll(currentRoom.getMonsters());
+        monsterGroup.getChildren().clear();
+        monsterViews.clear();
+        fireballViews.clear();
+        dropGroup.getChildren().clear();
+        dropViews.clear();
 
-        GameLoop.getDrops().clear();
-        GameLoop.getDrops().addAll(currentRoom.getDrops());
+        board.getChildren().addAll(roomGroup, dropGroup, monsterGroup, arrowGroup,
+                playerView.getGroup(), heartsBox, hotbarBox);
     }
 
-    public void updateBoardDrop(Droppable drop) {
-        Platform.runLater(() -> {
-            board.getChildren().add(drop.getGroup());
-        });
+    private Group chestGroup(TreasureChest chest) {
+        Label costText = new Label(Integer.toString(chest.getCost()));
+        ImageView imageView = new ImageView(ImageCache.get(chest.getSpritePath()));
+        imageView.setFitWidth(100);
+        imageView.setFitHeight(100);
+        costText.setPrefSize(100, 100);
+        costText.setStyle("-fx-font-size: 30; -fx-font-weight: bold; -fx-text-fill: white;"
+                + "-fx-alignment:CENTER; -fx-font-family: Papyrus");
+        costText.setTranslateY(-80);
+        Group treasureGroup = new Group();
+        treasureGroup.setLayoutX(chest.getPositionX());
+        treasureGroup.setLayoutY(chest.getPositionY());
+        treasureGroup.getChildren().addAll(imageView, costText);
+        return treasureGroup;
+    }
+
+    @Override
+    public void render() {
+        if (room == null) {
+            return;
+        }
+        Frame frame = GameLoop.getFrames().latest();
+        if (canvasRenderer != null) {
+            canvasRenderer.draw(frame);
+        } else {
+            renderNodes();
+        }
+        if (frame.getRoom() != room) {
+            // Nothing published since this room was entered.
+            return;
+        }
+        effectBar.update(frame);
+
+        String coins = "Coins: " + frame.getCoins();
+        if (!coins.equals(coinDisplay.getText())) {
+            coinDisplay.setText(coins);
+        }
+
+        // A message's time starts with the first frame it is shown over.
+        for (Iterator<Message> iterator = messages.values().iterator(); iterator.hasNext();) {
+            Message message = iterator.next();
+            if (message.expiresAt < 0) {
+                message.expiresAt = frame.getTick() + message.ticks;
+            } else if (frame.getTick() >= message.expiresAt) {
+                messageGroup.getChildren().remove(message.label);
+                iterator.remove();
+            }
+        }
+    }
+
+    private void renderNodes() {
+        for (int i = 0; i < doorViews.size(); i++) {
+            doorViews.get(i).update();
+        }
+        for (Map.Entry<TreasureChest, Group> entry : chestViews.entrySet()) {
+            entry.getValue().setVisible(!entry.getKey().isOpened());
+        }
+
+        renderMonsters();
+        renderFireballs();
+        renderDrops();
+        renderArrows();
+        playerView.update();
+        renderHearts();
+        renderHotbar();
+    }
+
+    private void renderMonsters() {
+        // Dying bosses stay in the room after leaving the loop, spawned ones may only be in the loop.
+        Set<Monster> shown = Collections.newSetFromMap(new IdentityHashMap<>());
+        shown.addAll(room.getMonsters());
+        shown.addAll(GameLoop.getMonsters());
+        for (Iterator<Map.Entry<Monster, MonsterView>> iterator = monsterViews.entrySet().iterator();
+             iterator.hasNext();) {
+            Map.Entry<Monster, MonsterView> entry = iterator.next();
+            if (!shown.contains(entry.getKey())) {
+                monsterGroup.getChildren().remove(entry.getValue().getGroup());
+                iterator.remove();
+            }
+        }
+        for (Monster monster : shown) {
+            MonsterView monsterView = monsterViews.get(monster);
+            if (monsterView == null) {
+                monsterView = new MonsterView(monster);
+                monsterViews.put(monster, monsterView);
+                monsterGroup.getChildren().add(monsterView.getGroup());
+            } else {
+                monsterView.update();
+            }
+        }
+    }
+
+    private void renderFireballs() {
+        // Fireballs come and go a lot, so their views are reused instead of replaced.
+        EntityStore projectiles = GameLoop.getProjectiles();
+        int shown = 0;
+        for (int i = 0; i < projectiles.size(); i++) {
+            if (projectiles.getKind(i) != Fireball.KIND) {
+                continue;
+            }
+            ImageView imageView;
+            if (shown == fireballViews.size()) {
+                imageView = new ImageView(fireballImage);
+                imageView.setPreserveRatio(true);
+                imageView.setFitWidth(projectiles.getWidth(i));
+                imageView.setFitHeight(projectiles.getHeight(i));
+                fireballViews.add(imageView);
+                monsterGroup.getChildren().add(imageView);
+            } else {
+                imageView = fireballViews.get(shown);
+                imageView.setVisible(true);
+            }
+            imageView.relocate(projectiles.getX(i), projectiles.getY(i));
+            shown++;
+        }
+        for (int i = shown; i < fireballViews.size(); i++) {
+            fireballViews.get(i).setVisible(false);
+        }
+    }
+
+    private void renderDrops() {
+        Set<Droppable> shown = Collections.newSetFromMap(new IdentityHashMap<>());
+        shown.addAll(room.getDrops());
+        for (Iterator<Map.Entry<Droppable, ImageView>> iterator = dropViews.entrySet().iterator();
+             iterator.hasNext();) {
+            Map.Entry<Droppable, ImageView> entry = iterator.next();
+            if (!shown.contains(entry.getKey())) {
+                dropGroup.getChildren().remove(entry.getValue());
+                iterator.remove();
+            }
+        }
+        for (Droppable drop : shown) {
+            if (!dropViews.containsKey(drop)) {
+                Rectangle2D boundary = drop.getBoundary();
+                ImageView imageView = new ImageView(drop.getItem().getImage());
+                imageView.setFitWidth(boundary.getWidth());
+                imageView.setFitHeight(boundary.getHeight());
+                imageView.relocate(boundary.getMinX(), boundary.getMinY());
+                dropViews.put(drop, imageView);
+                dropGroup.getChildren().add(imageView);
+            }
+        }
+    }
+
+    private void renderArrows() {
+        // Like the bow's arrows, their views stay in the arrow layer and are reused.
+        int shown = 0;
+        if (player.getWeapon() instanceof Bow) {
+            Bow bow = (Bow) player.getWeapon();
+            for (; shown < bow.getArrowCount(); shown++) {
+                Bow.Arrow arrow = bow.getArrow(shown);
+                ImageView imageView;
+                if (shown == arrowViews.size()) {
+                    imageView = new ImageView(arrowImage);
+                    imageView.setViewport(new Rectangle2D(310, 110, 140, 30));
+                    imageView.setPreserveRatio(true);
+                    imageView.setFitWidth(arrow.getWidth());
+                    imageView.setFitHeight(arrow.getHeight());
+                    arrowViews.add(imageView);
+                    arrowGroup.getChildren().add(imageView);
+                } else {
+                    imageView = arrowViews.get(shown);
+                    imageView.setVisible(true);
+                }
+                imageView.setScaleX(arrow.getDirection() == 1 ? -1 : 1);
+                imageView.setLayoutX(arrow.getX());
+                imageView.setLayoutY(arrow.getY());
+            }
+        }
+        for (int i = shown; i < arrowViews.size(); i++) {
+            arrowViews.get(i).setVisible(false);
+        }
+    }
+
+    private void renderHearts() {
+        if (!heartsChanged) {
+            return;
+        }
+        heartsChanged = false;
+        while (heartsBox.getChildren().size() > player.getHearts().size()) {
+            heartsBox.getChildren().remove(heartsBox.getChildren().size() - 1);
+        }
+        for (int i = 0; i < player.getHearts().size(); i++) {
+            Heart heart = player.getHearts().get(i);
+            if (i >= heartsBox.getChildren().size()) {
+                ImageView heartView = new ImageView();
+                heartView.setFitWidth(heart.getWidth());
+                heartView.setFitHeight(heart.getHeight());
+                heartsBox.getChildren().add(heartView);
+            }
+            ImageView heartView = (ImageView) heartsBox.getChildren().get(i);
+            Image image = heart.isFull() ? fullHeart : emptyHeart;
+            if (heartView.getImage() != image) {
+                heartView.setImage(image);
+            }
+        }
+    }
+
+    private void renderHotbar() {
+        Item[] hotbar = Inventory.getHotbar();
+        for (int j = 0; j < Inventory.getmaxHotbarSize(); j++) {
+            if (hotbar[j] == shownHotbar[j]) {
+                continue;
+            }
+            shownHotbar[j] = hotbar[j];
+            Group hotbarSlot = (Group) hotbarBox.getChildren().get(j);
+            hotbarSlot.getChildren().remove(1, hotbarSlot.getChildren().size());
+            if (hotbar[j] != null) {
+                ImageView imageView = new ImageView(hotbar[j].getImage());
+                imageView.setFitWidth(hotbar[j].getWidth());
+                imageView.setFitHeight(hotbar[j].getHeight());
+                hotbarSlot.getChildren().add(imageView);
+            }
+        }
+    }
+
+    @Override
+    public void showMessage(String text, double layoutY, int ticks) {
+        Message old = messages.remove(layoutY);
+        if (old != null) {
+            messageGroup.getChildren().remove(old.label);
+        }
+        Label display = new Label(text);
+        display.setPrefWidth(width);
+        display.setStyle("-fx-font-size: 30; -fx-font-weight: bold; -fx-text-fill: white;"
+                + "-fx-alignment:CENTER; -fx-font-family: Papyrus");
+        display.setLayoutY(layoutY);
+        display.setId("dropNotificationDisplay");
+        messageGroup.getChildren().add(display);
+
+        Message message = new Message();
+        message.label = display;
+        message.ticks = ticks;
+        messages.put(layoutY, message);
+    }
+
+    @Override
+    public void playSound(String soundPath) {
+        MediaPlayer soundEffect = sounds.get(soundPath);
+        if (soundEffect == null) {
+            Media media = new Media(new File(soundPath).toURI().toString());
+            soundEffect = new MediaPlayer(media);
+            soundEffect.setStopTime(Duration.seconds(2));
+            sounds.put(soundPath, soundEffect);
+        }
+        soundEffect.setVolume(BackgroundMusic.getVolume());
+        soundEffect.seek(Duration.ZERO);
+        soundEffect.play();
+    }
+
+    @Override
+    public void openInventory() {
+        Controller.goToInventory();
+    }
+
+    @Override
+    public void playerDied() {
+        Controller.goToDeathScreen();
+    }
+
+    @Override
+    public void bossDefeated() {
+        Controller.goToWinScreen();
     }
 
     /**
@@ -181,6 +603,18 @@ public class GameScreen {
         //PlaceHolder for binding widths.
     }
 
+    /**
+     * Choose how game screens made from now on draw the room.
+     * @param mode the render mode
+     */
+    public static void setRenderMode(RenderMode mode) {
+        renderMode = mode;
+    }
+
+    public static RenderMode getRenderMode() {
+        return renderMode;
+    }
+
     public VBox getDisplays() {
         return displays;
     }
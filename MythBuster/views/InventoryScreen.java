@@ -0,0 +1,177 @@
+package views;
+
+import controller.Controller;
+import controller.GameLoop;
+import controller.ImageCache;
+import gamefiles.Inventory;
+import gamefiles.items.Consumable;
+import gamefiles.items.Item;
+import gamefiles.weapons.Weapon;
+import javafx.geometry.Insets;
+import javafx.scene.Group;
+import javafx.scene.Scene;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Text;
+
+import java.util.ArrayList;
+
+/**
+ * The inventory screen. Opening it pauses the game; pressing I again resumes it.
+ */
+public class InventoryScreen {
+    private int width;
+    private int height;
+    private int inventoryRowSize = 5;
+
+    private VBox inventoryRows = new VBox(20);
+    private HBox hotbarBox;
+    private Group weaponBox;
+    private Group board;
+    private Scene scene;
+
+    private static final int UNSELECTED = -1;
+    private int selectedIndex = UNSELECTED;
+
+    private InventoryScreen() { }
+
+    public InventoryScreen(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    public Scene getScene() {
+        //Pause the game when we go to inventory.
+        GameLoop.pause();
+
+        selectedIndex = UNSELECTED;
+        board = new Group();
+        VBox root = new VBox();
+        root.getChildren().addAll(board);
+        root.setStyle("-fx-background-image: url('sprites/inventoryBG.png'); -fx-background-repeat: stretch; -fx-background-size: 1200 800");
+        scene = new Scene(root, width, height, Color.POWDERBLUE);
+
+        //Display Text
+        Text instructions = new Text(800, 300, "Click on a consumable and then"
+            + " \npress 1-5 to equip to hotbar.");
+        instructions.setStyle("-fx-font-family: Papyrus; -fx-font-size: 20");
+        Text instructions2 = new Text(800, 375, "Click on a weapon and press E to equip");
+        instructions2.setStyle("-fx-font-family: Papyrus; -fx-font-size: 20");
+        Text instructions3 = new Text(800, 425, "Press I to go back.");
+        instructions3.setStyle("-fx-font-family: Papyrus; -fx-font-size: 20");
+
+        board.getChildren().addAll(instructions, instructions2, instructions3);
+
+        //Display inventory
+        refreshDisplays();
+        board.getChildren().add(inventoryRows);
+
+        //Display hotbar.
+        hotbarBox = new HBox(50);
+        hotbarBox.setTranslateX(700);
+        hotbarBox.setTranslateY(700);
+        for (int i = 0; i < Inventory.getmaxHotbarSize(); i++) {
+            hotbarBox.getChildren().add(new Group());
+        }
+        updateHotbarBox();
+        board.getChildren().add(hotbarBox);
+
+        //Display weaponBox
+        weaponBox = new Group();
+        weaponBox.setTranslateX(700);
+        weaponBox.setTranslateY(500);
+        updateWeaponBox();
+        board.getChildren().add(weaponBox);
+
+        scene.setOnKeyReleased(
+            e -> {
+                String code = e.getCode().toString();
+                ArrayList<Item> inventory = Inventory.getInventory();
+                if (code == "I") {
+
+                    //Upon pressing I again, go back to game.
+                    GameLoop.resume();
+                    Controller.goToGameScreen();
+                }
+                if (code.startsWith("DIGIT") && selectedIndex != UNSELECTED) {
+                    int hotbarIndex = code.charAt(code.length() - 1) - '1';
+                    if (hotbarIndex >= 0 && hotbarIndex < Inventory.getmaxHotbarSize()
+                            && inventory.get(selectedIndex) instanceof Consumable) {
+                        GameLoop.between(() -> Inventory.addToHotbar(selectedIndex, hotbarIndex));
+                        updateHotbarBox();
+                        refreshDisplays();
+                    }
+                }
+                if (code == "E" && selectedIndex != UNSELECTED) {
+                    if (inventory.get(selectedIndex) instanceof Weapon) {
+                        GameLoop.between(() -> Inventory.equipWeapon(selectedIndex));
+                        updateWeaponBox();
+                        refreshDisplays();
+                    }
+                }
+            });
+
+        return scene;
+
+    }
+
+    private void updateHotbarBox() {
+        Item[] hotbar = Inventory.getHotbar();
+        for (int i = 0; i < Inventory.getmaxHotbarSize(); i++) {
+            Group hotbarItemSpace = (Group) hotbarBox.getChildren().get(i);
+            hotbarItemSpace.getChildren().clear();
+            hotbarItemSpace.getChildren().add(new ImageView(ImageCache.get("sprites/inventorySlot.png")));
+            if (hotbar[i] != null) {
+                ImageView imageView = new ImageView(hotbar[i].getImage());
+                imageView.setFitWidth(50);
+                imageView.setFitHeight(50);
+                hotbarItemSpace.getChildren().add(imageView);
+            }
+        }
+    }
+
+    private void updateWeaponBox() {
+        weaponBox.getChildren().clear();
+        ImageView slotBacking = new ImageView(ImageCache.get("sprites/inventorySlot.png"));
+        slotBacking.setFitHeight(80);
+        slotBacking.setFitWidth(80);
+        weaponBox.getChildren().add(slotBacking);
+        ImageView imageView = new ImageView(Controller.getPlayer().getWeapon().getImage());
+        imageView.setFitWidth(80);
+        imageView.setFitHeight(80);
+        weaponBox.getChildren().add(imageView);
+    }
+
+    private void refreshDisplays() {
+        ArrayList<Item> inventory = Inventory.getInventory();
+        selectedIndex = UNSELECTED;
+        inventoryRows.getChildren().clear();
+        for (int i = 0; i < inventory.size(); i++) {
+            int row = i / inventoryRowSize;
+            if (row >= inventoryRows.getChildren().size()) {
+                inventoryRows.getChildren().add(new HBox(10));
+            }
+            HBox currRow = (HBox) inventoryRows.getChildren().get(row);
+
+            Group inventoryItemSpace = new Group();
+            ImageView slotBacking = new ImageView(ImageCache.get("sprites/inventorySlot.png"));
+            slotBacking.setFitHeight(80);
+            slotBacking.setFitWidth(80);
+            inventoryItemSpace.getChildren().add(slotBacking);
+            currRow.getChildren().add(inventoryItemSpace);
+
+            ImageView imageView = new ImageView(inventory.get(i).getImage());
+            imageView.setFitWidth(80);
+            imageView.setFitHeight(80);
+            final int j = i;
+            inventoryItemSpace.setOnMouseClicked(mouseEvent -> {
+                selectedIndex = j;
+            });
+            inventoryItemSpace.getChildren().add(imageView);
+
+        }
+        inventoryRows.setPadding(new Insets(50, 50, 50, 200));
+    }
+}
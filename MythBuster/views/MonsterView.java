@@ -0,0 +1,164 @@
+package views;
+
+import controller.ImageCache;
+import gamefiles.characters.Boss;
+import gamefiles.characters.BossMinion;
+import gamefiles.characters.Mage;
+import gamefiles.characters.Monster;
+import gamefiles.characters.Monster.Pose;
+import gamefiles.characters.Trap;
+import gamefiles.characters.TrapMonster;
+import javafx.animation.Animation;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.Group;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Draws one monster and its health bar. The monster only says which Pose it is in;
+ * the sprite sheets and animations for each kind of monster live here.
+ */
+public class MonsterView {
+    private static final Map<Class<?>, Look> looks = new HashMap<>();
+
+    private Monster monster;
+    private ImageView imageView;
+    private Rectangle healthBar;
+    private Rectangle healthBarBacking;
+    private Group monsterGroup;
+    private Look look;
+
+    private EnumMap<Pose, Animation> poseAnimations = new EnumMap<>(Pose.class);
+    private Animation playing;
+    private int shownPoseCount = -1;
+
+    public MonsterView(Monster monster) {
+        this.monster = monster;
+        look = lookOf(monster);
+
+        imageView = new ImageView(look.image);
+        imageView.setPreserveRatio(true);
+        imageView.setFitWidth(monster.getWidth());
+        imageView.setFitHeight(monster.getHeight());
+        imageView.setViewport(look.viewport);
+        imageView.setRotate(look.rotate);
+        if (monster instanceof Boss) {
+            imageView.setId("boss");
+        }
+        for (Map.Entry<Pose, SpriteSheet> pose : look.poses.entrySet()) {
+            poseAnimations.put(pose.getKey(), pose.getValue().animate(imageView));
+        }
+
+        healthBar = new Rectangle(0, look.barY, monster.getWidth(), 10);
+        healthBar.setFill(Color.GREEN);
+        healthBarBacking = new Rectangle(0, look.barY, monster.getWidth(), 10);
+        healthBarBacking.setFill(Color.RED);
+        monsterGroup = new Group();
+        monsterGroup.getChildren().addAll(imageView, healthBarBacking, healthBar);
+        update();
+    }
+
+    public void update() {
+        if (monster.getPoseCount() != shownPoseCount) {
+            shownPoseCount = monster.getPoseCount();
+            showPose(monster.getPose());
+        }
+        imageView.setScaleX(monster.getFacing());
+        double percentageHealth = Math.max(0, monster.getCurrentHealth() / monster.getMaxHealth());
+        healthBar.setWidth(monster.getWidth() * percentageHealth);
+        monsterGroup.relocate(monster.getPositionX(), monster.getPositionY());
+    }
+
+    private void showPose(Pose pose) {
+        if (playing != null) {
+            playing.stop();
+        }
+        SpriteSheet sheet = look.poses.get(pose);
+        if (sheet != null && sheet.getImage() != null) {
+            imageView.setImage(sheet.getImage());
+        }
+        if (look.viewport != null) {
+            imageView.setViewport(look.viewport);
+        }
+        playing = poseAnimations.get(pose);
+        if (playing != null) {
+            playing.playFromStart();
+        }
+    }
+
+    public Group getGroup() {
+        return monsterGroup;
+    }
+
+    /**
+     * @param monster the monster to draw
+     * @return the sprites for its kind of monster, worked out once per kind
+     */
+    static Look lookOf(Monster monster) {
+        Look look = looks.get(monster.getClass());
+        if (look == null) {
+            look = new Look(monster);
+            looks.put(monster.getClass(), look);
+        }
+        return look;
+    }
+
+    /**
+     * How one kind of monster is drawn: its sprite, the part of it to show when it isn't
+     * animating, and a sheet for each Pose it animates. A pose without a sheet keeps the
+     * frame it was showing; a sheet without an image animates over the current image.
+     */
+    static final class Look {
+        final Image image;
+        final Rectangle2D viewport;
+        final double rotate;
+        final double barY;
+        final EnumMap<Pose, SpriteSheet> poses = new EnumMap<>(Pose.class);
+
+        private Look(Monster monster) {
+            image = ImageCache.get(monster.getSpritePath());
+            if (monster instanceof Boss) {
+                viewport = new Rectangle2D(0, 0, 100, 100);
+                barY = -10;
+                poses.put(Pose.IDLE, new SpriteSheet(ImageCache.get("sprites/Boss/idle2.png"),
+                        750, 8, 4, 0, 0, 100, 100, true));
+                poses.put(Pose.ATTACK, new SpriteSheet(ImageCache.get("sprites/Boss/attacking.png"),
+                        750, 13, 6, 0, 0, 100, 100, false));
+                poses.put(Pose.DEATH, new SpriteSheet(ImageCache.get("sprites/Boss/death.png"),
+                        1000, 18, 10, 0, 0, 100, 100, false));
+                poses.put(Pose.SUMMON, new SpriteSheet(ImageCache.get("sprites/Boss/summon.png"),
+                        750, 5, 4, 0, 0, 100, 100, false));
+                poses.put(Pose.SKILL, new SpriteSheet(ImageCache.get("sprites/Boss/skill1.png"),
+                        1000, 12, 6, 0, 0, 100, 100, false));
+            } else if (monster instanceof BossMinion) {
+                viewport = new Rectangle2D(0, 0, 50, 50);
+                barY = -30;
+                poses.put(Pose.SPAWN, new SpriteSheet(null, 750, 6, 3, 0, 0, 50, 50, false));
+                poses.put(Pose.IDLE, new SpriteSheet(ImageCache.get("sprites/Boss/summonIdle.png"),
+                        750, 4, 4, 0, 0, 50, 50, true));
+                poses.put(Pose.DEATH, new SpriteSheet(ImageCache.get("sprites/Boss/summonDeath.png"),
+                        750, 5, 3, 0, 0, 50, 50, false));
+            } else if (monster instanceof Mage) {
+                viewport = new Rectangle2D(0, 0, 78, 79);
+                barY = -30;
+                poses.put(Pose.CAST, new SpriteSheet(null, 750, 10, 3, 0, 0, 78, 79, false));
+            } else if (monster instanceof Trap) {
+                viewport = new Rectangle2D(0, 0, 100, 95);
+                barY = -30;
+            } else if (monster instanceof TrapMonster) {
+                viewport = new Rectangle2D(4, 23, 140, 167);
+                barY = -30;
+            } else {
+                viewport = null;
+                barY = -30;
+            }
+            rotate = monster instanceof Trap ? 45 : 0;
+        }
+    }
+}
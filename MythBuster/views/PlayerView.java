@@ -0,0 +1,120 @@
+package views;
+
+import controller.ImageCache;
+import gamefiles.characters.Player;
+import gamefiles.weapons.Bow;
+import gamefiles.weapons.Spear;
+import gamefiles.weapons.Sword;
+import gamefiles.weapons.Weapon;
+import javafx.animation.Animation;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.Group;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+
+/**
+ * Draws the player. Reads position, facing and attacks off the Player every frame.
+ */
+public class PlayerView {
+    private static final int spriteWidth = 64;
+    private static final int spriteHeight = 63;
+    private static final int spriteX = 0;
+    private static final int spriteY = 581;
+    /** The standing frame on every weapon's sprite sheet. */
+    static final Rectangle2D STANDING = new Rectangle2D(spriteX, spriteY, spriteWidth, spriteHeight);
+
+    private Player player;
+    private ImageView imageView;
+    private Group imageGroup;
+    private Weapon shownWeapon;
+    private int shownAttackCount;
+
+    public PlayerView(Player player) {
+        this.player = player;
+        this.shownAttackCount = player.getAttackCount();
+        imageView = new ImageView();
+        imageView.setViewport(STANDING);
+        imageView.setPreserveRatio(true);
+        imageView.setFitWidth(player.getWidth());
+        imageView.setFitHeight(player.getHeight());
+        imageView.setLayoutX(100);
+        imageView.setLayoutY(250);
+        imageGroup = new Group();
+        imageGroup.getChildren().add(imageView);
+        update();
+    }
+
+    public void update() {
+        if (player.getWeapon() != shownWeapon) {
+            shownWeapon = player.getWeapon();
+            Image sprite = spriteFor(shownWeapon);
+            if (sprite != null) {
+                imageView.setImage(sprite);
+            }
+        }
+        if (player.getAttackCount() != shownAttackCount) {
+            shownAttackCount = player.getAttackCount();
+            playAttack();
+        }
+
+        if (player.isInvisible()) {
+            imageView.setScaleX(0);
+        } else if (player.getDirection() == 0) {
+            imageView.setScaleX(1);
+        } else {
+            imageView.setScaleX(-1);
+        }
+        imageGroup.relocate(player.getPositionX(), player.getPositionY());
+    }
+
+    private void playAttack() {
+        SpriteSheet sheet = attackSheetFor(shownWeapon);
+        if (sheet == null) {
+            return;
+        }
+        Animation animation = sheet.animate(imageView);
+        animation.setOnFinished(actionEvent -> {
+            imageView.setViewport(STANDING);
+        });
+        animation.play();
+    }
+
+    public Group getGroup() {
+        return imageGroup;
+    }
+
+    /**
+     * @param weapon the weapon the player is holding
+     * @return the player's sprite sheet for it, or null for a weapon without one
+     */
+    static Image spriteFor(Weapon weapon) {
+        if (weapon instanceof Spear) {
+            return ImageCache.get("sprites/Player/spearPlayer.png");
+        } else if (weapon instanceof Sword) {
+            return ImageCache.get("sprites/Player/daggerPlayer.png");
+        } else if (weapon instanceof Bow) {
+            return ImageCache.get("sprites/Player/bowPlayer.png");
+        }
+        return null;
+    }
+
+    /**
+     * @param weapon the weapon the player is holding
+     * @return the frames of an attack with it, or null for a weapon without any
+     */
+    static SpriteSheet attackSheetFor(Weapon weapon) {
+        double duration = 500;
+        if (weapon instanceof Spear) {
+            //go to the attack frames
+            return new SpriteSheet(null, duration, 8, 8, 0, spriteY - 258,
+                    spriteWidth, spriteHeight - 2, false);
+        } else if (weapon instanceof Sword) {
+            return new SpriteSheet(null, duration, 6, 6, 0, spriteY + 259,
+                    spriteWidth, spriteHeight, false);
+        } else if (weapon instanceof Bow) {
+            return new SpriteSheet(null, duration, 12, 12, 0, spriteY + 508,
+                    spriteWidth, spriteHeight, false);
+        }
+        return null;
+    }
+}
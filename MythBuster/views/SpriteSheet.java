@@ -0,0 +1,98 @@
+package views;
+
+import controller.GameLoop;
+import controller.SpriteAnimation;
+import javafx.animation.Animation;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.util.Duration;
+
+/**
+ * One animation on a sprite sheet: which frames to show, in a grid of columns, and how
+ * long they take. The node views turn it into a SpriteAnimation on an ImageView; the
+ * canvas renderer picks the frame for a tick itself.
+ */
+public class SpriteSheet {
+    private final Image image;
+    private final int count;
+    private final int columns;
+    private final int offsetX;
+    private final int offsetY;
+    private final int width;
+    private final int height;
+    private final double millis;
+    private final boolean loop;
+
+    /**
+     * @param image   the sheet, or null to animate over whatever image is showing
+     * @param millis  how long one run through the frames takes
+     * @param count   how many frames there are
+     * @param columns how many frames there are per row
+     * @param offsetX the left of the first frame
+     * @param offsetY the top of the first frame
+     * @param width   the width of a frame
+     * @param height  the height of a frame
+     * @param loop    whether to start over at the end instead of holding the last frame
+     */
+    public SpriteSheet(Image image, double millis, int count, int columns,
+                       int offsetX, int offsetY, int width, int height, boolean loop) {
+        this.image = image;
+        this.millis = millis;
+        this.count = count;
+        this.columns = columns;
+        this.offsetX = offsetX;
+        this.offsetY = offsetY;
+        this.width = width;
+        this.height = height;
+        this.loop = loop;
+    }
+
+    /**
+     * @param imageView the view to animate
+     * @return an animation that moves the view's viewport over the frames
+     */
+    public Animation animate(ImageView imageView) {
+        SpriteAnimation animation = new SpriteAnimation(imageView, Duration.millis(millis),
+                count, columns, offsetY, offsetX, width, height);
+        animation.setCycleCount(loop ? Animation.INDEFINITE : 1);
+        return animation;
+    }
+
+    /**
+     * @param ticks how many game ticks ago the animation started
+     * @return the frame to show now
+     */
+    public int frameAt(long ticks) {
+        double cycleTicks = millis * GameLoop.TICKS_PER_SECOND / 1000;
+        int frame = (int) (ticks * count / cycleTicks);
+        return loop ? frame % count : Math.min(frame, count - 1);
+    }
+
+    /**
+     * @param ticks how many game ticks ago the animation started
+     * @return whether a one-shot animation has run out
+     */
+    public boolean isFinished(long ticks) {
+        return !loop && ticks >= millis * GameLoop.TICKS_PER_SECOND / 1000;
+    }
+
+    public double getFrameX(int frame) {
+        return (frame % columns) * width + offsetX;
+    }
+
+    public double getFrameY(int frame) {
+        return (frame / columns) * height + offsetY;
+    }
+
+    public Image getImage() {
+        return image;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+}
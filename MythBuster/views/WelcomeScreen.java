@@ -1,5 +1,6 @@
 package views;
 
+import controller.ImageCache;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Group;
@@ -52,14 +53,14 @@ public class WelcomeScreen {
     public Scene getScene() {
         Group board = new Group();
 
-        ImageView leftImageView = new ImageView("sprites/Medusa.png");
+        ImageView leftImageView = new ImageView(ImageCache.get("sprites/Medusa.png"));
         leftImageView.setFitWidth(200);
         leftImageView.setFitHeight(200);
         Node leftImage = leftImageView;
         leftImage.setLayoutX(100);
         leftImage.setLayoutY(250);
 
-        ImageView rightImageView = new ImageView("sprites/Medusa.png");
+        ImageView rightImageView = new ImageView(ImageCache.get("sprites/Medusa.png"));
         rightImageView.setFitWidth(200);
         rightImageView.setFitHeight(200);
         Node rightImage = rightImageView;